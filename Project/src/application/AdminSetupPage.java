@@ -1,13 +1,12 @@
 package application;
 
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
-import java.sql.SQLException;
-
 /**
  * The SetupAdmin class handles the setup process for creating an administrator
  * account. This is intended to be used by the first user to initialize the
@@ -69,34 +68,39 @@ public class AdminSetupPage {
 			// Retrieve user input
 			String userName = userNameField.getText();
 			String password = passwordField.getText();
-			try {
-				// from setupAccountPage
-				// Input has been provided, let's see if it is a valid date or not
-				String errUserMessage = UserNameRecognizer.checkForValidUserName(userName);
-				if (errUserMessage == "") {
-					// Check if the user already exists
-					// check if password is acceptable strength
-					String errPasswordMessage = PasswordEvaluator.evaluatePassword(password);
-					if (errPasswordMessage == "") {
-
-						// Validate the invitation code
-						// Create a new User object with admin role and register in the database
-						User user = new User(userName, password, "admin");
-						databaseHelper.register(user);
+			// from setupAccountPage
+			// Input has been provided, let's see if it is a valid date or not
+			String errUserMessage = UserNameRecognizer.checkForValidUserName(userName);
+			if (errUserMessage == "") {
+				// Check if the user already exists
+				// check if password is acceptable strength
+				String errPasswordMessage = PasswordEvaluator.evaluatePassword(password);
+				if (errPasswordMessage == "") {
+
+					// Validate the invitation code
+					// Create a new User object with admin role and register in the database;
+					// hashing runs off the JavaFX thread, so keep the button off until it answers
+					User user = new User(userName, password, "admin");
+					setupButton.setDisable(true);
+					errorLabel.setText("");
+					databaseHelper.registerAsync(user).whenComplete((registered, error) -> Platform.runLater(() -> {
+						setupButton.setDisable(false);
+						if (error != null) {
+							System.err.println("Database error: " + error.getMessage());
+							error.printStackTrace();
+							return;
+						}
 						System.out.println("Administrator setup completed.");
 
 						// Navigate to the Welcome Login Page
-						new WelcomeLoginPage(databaseHelper).show(primaryStage, user);
-					} else {
-						// split errors to fit better in the text box
-						errorLabel.setText(errPasswordMessage.replace("; ", "\n"));
-					}
+						new WelcomeLoginPage(databaseHelper).show(primaryStage, registered);
+					}));
 				} else {
-					errorLabel.setText(errUserMessage);
+					// split errors to fit better in the text box
+					errorLabel.setText(errPasswordMessage.replace("; ", "\n"));
 				}
-			} catch (SQLException e) {
-				System.err.println("Database error: " + e.getMessage());
-				e.printStackTrace();
+			} else {
+				errorLabel.setText(errUserMessage);
 			}
 		});
 
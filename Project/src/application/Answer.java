@@ -21,16 +21,27 @@ public class Answer extends Post implements Serializable {
     private static final long serialVersionUID = 1L;
     protected UUID questionID;
     protected int repuation;
-    private List<UUID> upvotedBy = new ArrayList<>();
-    private List<UUID> downvotedBy = new ArrayList<>();
+
+    /** Vote directions stored in the AnswerVotes table */
+    public static final int UPVOTE = 1;
+    public static final int DOWNVOTE = -1;
+    public static final int NO_VOTE = 0;
+
+    /** Vote totals, kept by the database as votes are cast */
+    private int upvotes;
+    private int downvotes;
+
+    /** The viewer whose vote was last looked up, and that vote; loaded on first use */
+    private transient UUID voteViewer;
+    private transient int viewerVote;
+
+    /** Answers collections holding this answer; told when its IDs change so their indexes stay current */
+    private transient List<Answers> owners;
 
     /**
      * Default constructor for Answer.
-     * Initializes the upvotedBy and downvotedBy lists.
      */
     public Answer() {
-        this.upvotedBy = new ArrayList<>();
-        this.downvotedBy = new ArrayList<>();
     }
 
     /**
@@ -44,6 +55,15 @@ public class Answer extends Post implements Serializable {
         return repuation;
     }
 
+    /**
+     * Gets the author's reputation as last read or set, without a query.
+     *
+     * @return The reputation value last loaded for the author
+     */
+    public int getRepuation() {
+        return repuation;
+    }
+
     /**
      * Sets the reputation of the answer's author.
      *
@@ -104,75 +124,169 @@ public class Answer extends Post implements Serializable {
      * @param questionID The question's UUID to set
      */
     public void setQuestionID(UUID questionID) {
+        UUID oldQuestionID = this.questionID;
         this.questionID = questionID;
+        markModified();
+        notifyOwners(getID(), oldQuestionID);
     }
-    
+
     /**
-     * Gets the list of user UUIDs who upvoted this answer.
+     * Sets the unique identifier of this answer and re-keys it in the collections holding it.
      *
-     * @return List of user UUIDs who upvoted
+     * @param iD The UUID to set as the answer identifier
      */
-    public List<UUID> getUpvotedBy() { return upvotedBy; }
-    
+    @Override
+    public void setID(UUID iD) {
+        UUID oldID = getID();
+        super.setID(iD);
+        notifyOwners(oldID, questionID);
+    }
+
     /**
-     * Sets the list of user UUIDs who upvoted this answer.
+     * Registers a collection that indexes this answer by its IDs.
      *
-     * @param upvotedBy List of user UUIDs who upvoted
+     * @param owner The Answers collection the answer was added to
      */
-    public void setUpvotedBy(List<UUID> upvotedBy) { this.upvotedBy = upvotedBy; }
-    
+    void addOwner(Answers owner) {
+        if (owners == null) {
+            owners = new ArrayList<>(1);
+        }
+        owners.add(owner);
+    }
+
     /**
-     * Gets the list of user UUIDs who downvoted this answer.
+     * Unregisters a collection the answer was removed from.
      *
-     * @return List of user UUIDs who downvoted
+     * @param owner The Answers collection the answer was removed from
      */
-    public List<UUID> getDownvotedBy() { return downvotedBy; }
+    void removeOwner(Answers owner) {
+        if (owners != null) {
+            owners.remove(owner);
+        }
+    }
+
+    private void notifyOwners(UUID oldID, UUID oldQuestionID) {
+        if (owners != null) {
+            for (Answers owner : owners) {
+                owner.reindex(this, oldID, oldQuestionID);
+            }
+        }
+    }
     
     /**
-     * Sets the list of user UUIDs who downvoted this answer.
+     * Gets the number of upvotes on this answer.
+     *
+     * @return The upvote count
+     */
+    public int getUpvotes() { return upvotes; }
+
+    /**
+     * Gets the number of downvotes on this answer.
+     *
+     * @return The downvote count
+     */
+    public int getDownvotes() { return downvotes; }
+
+    /**
+     * Gets the answer's net score.
+     *
+     * @return Upvotes minus downvotes
+     */
+    public int getScore() { return upvotes - downvotes; }
+
+    /**
+     * Sets the vote totals as read from the database. Does not mark the answer modified,
+     * since the totals are written by the vote itself and not by saving the answer.
      *
-     * @param downvotedBy List of user UUIDs who downvoted
+     * @param upvotes The upvote count
+     * @param downvotes The downvote count
      */
-    public void setDownvotedBy(List<UUID> downvotedBy) { this.downvotedBy = downvotedBy; }
+    void setVoteCounts(int upvotes, int downvotes) {
+        this.upvotes = upvotes;
+        this.downvotes = downvotes;
+        if (owners != null) {
+            for (Answers owner : owners) {
+                owner.scoreChanged(this);
+            }
+        }
+    }
+
+    /**
+     * Gets how a user voted on this answer. The vote is read from the database the
+     * first time it is asked for a viewer and remembered until another viewer is asked for.
+     *
+     * @param databaseHelper The database helper to read the vote from
+     * @param viewerId The UUID of the user viewing the answer
+     * @return UPVOTE, DOWNVOTE or NO_VOTE
+     */
+    public int getVote(DatabaseHelper databaseHelper, UUID viewerId) {
+        if (!viewerId.equals(voteViewer)) {
+            viewerVote = databaseHelper.getVote(getID(), viewerId);
+            voteViewer = viewerId;
+        }
+        return viewerVote;
+    }
+
+    /**
+     * Records a viewer's vote after it was cast, so getVote does not read it back.
+     *
+     * @param viewerId The UUID of the voter
+     * @param direction UPVOTE, DOWNVOTE or NO_VOTE
+     */
+    void setVote(UUID viewerId, int direction) {
+        voteViewer = viewerId;
+        viewerVote = direction;
+    }
 
     /**
      * Increases the reputation of the answer's author by 1 if the voter hasn't already upvoted.
-     * Removes downvote if the voter had previously downvoted.
+     * Replaces the voter's downvote if they had previously downvoted.
      *
-     * @param databaseHelper The database helper to update reputation
+     * @param databaseHelper The database helper to record the vote
      * @param voterId The UUID of the user who is voting
      * @return The updated reputation value
      */
     public int increaseReputation(DatabaseHelper databaseHelper, UUID voterId) {
-        if (upvotedBy.contains(voterId)) {
-            return this.repuation;
-        }
-        if (downvotedBy.contains(voterId)) {
-            downvotedBy.remove(voterId);
-        }
-        upvotedBy.add(voterId);
-        System.out.println(this.getUserUUID());
-        this.repuation = databaseHelper.updateReputation(this.getUserUUID(), 1);
-        return this.repuation;
+        return castVote(databaseHelper, voterId, UPVOTE);
     }
 
     /**
      * Decreases the reputation of the answer's author by 1 if the voter hasn't already downvoted.
-     * Removes upvote if the voter had previously upvoted.
+     * Replaces the voter's upvote if they had previously upvoted.
      *
-     * @param databaseHelper The database helper to update reputation
+     * @param databaseHelper The database helper to record the vote
      * @param voterId The UUID of the user who is voting
      * @return The updated reputation value
      */
     public int decreaseReputation(DatabaseHelper databaseHelper, UUID voterId) {
-        if (downvotedBy.contains(voterId)) {
-            return this.repuation;
-        }
-        if (upvotedBy.contains(voterId)) {
-            upvotedBy.remove(voterId);
+        return castVote(databaseHelper, voterId, DOWNVOTE);
+    }
+
+    private int castVote(DatabaseHelper databaseHelper, UUID voterId, int direction) {
+        int reputation = databaseHelper.castVote(this, voterId, direction);
+        if (reputation != -1) {
+            this.repuation = reputation;
         }
-        downvotedBy.add(voterId);
-        this.repuation = databaseHelper.updateReputation(this.getUserUUID(), -1);
         return this.repuation;
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads the answer, converting the voter lists written by older versions into counts.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        questionID = (UUID) fields.get("questionID", null);
+        repuation = fields.get("repuation", 0);
+        upvotes = fields.get("upvotes", countVoters(fields, "upvotedBy"));
+        downvotes = fields.get("downvotes", countVoters(fields, "downvotedBy"));
+    }
+
+    private static int countVoters(ObjectInputStream.GetField fields, String name) throws IOException {
+        try {
+            List<?> voters = (List<?>) fields.get(name, null);
+            return voters == null ? 0 : voters.size();
+        } catch (IllegalArgumentException e) {
+            return 0; // written after the lists were replaced by counts
+        }
+    }
+}
@@ -1,24 +1,64 @@
 package application;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.io.*;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 
 /**
  * Represents a collection of Answer objects in the application.
  * Implements Serializable for object serialization and provides various operations
  * for managing and manipulating answers.
+ *
+ * Besides the ordered list, the collection keeps two hash indexes: answer ID to answer,
+ * and question ID to that question's answers. They are transient and rebuilt on load.
  */
 public class Answers implements Serializable {
     private static final long serialVersionUID = 1L;
     private ArrayList<Answer> answerArray;
 
+    /** Index from answer UUID to the answer */
+    private transient HashMap<UUID, Answer> answersById;
+
+    /** Index from question UUID to its answers, in insertion order */
+    private transient HashMap<UUID, ArrayList<Answer>> answersByQuestion;
+
+    /** Full-text index over answer bodies, built by the first search */
+    private transient SearchIndex<Answer> searchIndex;
+
+    /** Re-indexes an answer whose body was edited */
+    private transient Consumer<Post> reindexer;
+
+    /** Answers ranked by net score, built by the first getTopAnswers call */
+    private transient Leaderboard<Answer> scoreBoard;
+
+    /** Authors ranked by reputation, for the authors whose reputation is known; votes keep it current */
+    private transient Leaderboard<UUID> reputationBoard;
+
+    /** Listeners told when an answer is added, removed or moved to another question */
+    private transient List<Consumer<Answer>> changeListeners;
+
+    /** Token of the next page when only a window of the answers has been loaded; null once all are */
+    private transient String nextPageToken;
+
+    /** Removed answers whose database rows still have to be deleted */
+    private transient ArrayList<Answer> pendingDeletes;
+
     /**
      * Default constructor that initializes an empty list of answers.
      */
     public Answers() {
         this.answerArray = new ArrayList<Answer>();
+        this.answersById = new HashMap<UUID, Answer>();
+        this.answersByQuestion = new HashMap<UUID, ArrayList<Answer>>();
     }
 
     /**
@@ -31,28 +71,34 @@ public class Answers implements Serializable {
     }
 
     /**
-     * Adds an answer to the collection.
+     * Adds an answer to the collection. Adding back a removed answer cancels
+     * its pending delete.
      *
      * @param answer The Answer object to add
      */
     public void addAnswer(Answer answer) {
+        if (pendingDeletes != null) {
+            pendingDeletes.removeIf(removed -> removed.getID().equals(answer.getID()));
+        }
         this.answerArray.add(answer);
+        index(answer);
+        answer.addOwner(this);
+        fireChanged(answer);
     }
 
     /**
      * Retrieves all answers associated with a specific question UUID.
+     * The returned list is a read-only view of the index, not a copy.
      *
      * @param questionUUID The UUID of the question
-     * @return ArrayList of Answer objects matching the question UUID
+     * @return Unmodifiable list of Answer objects matching the question UUID
      */
-    public ArrayList<Answer> getAnswersByUUID(UUID questionUUID) {
-        ArrayList<Answer> returnList = new ArrayList<>();
-        for (int i = 0; i < answerArray.size(); i++) {
-            if (answerArray.get(i).getQuestionID().equals(questionUUID)) {
-                returnList.add(answerArray.get(i));
-            }
+    public List<Answer> getAnswersByUUID(UUID questionUUID) {
+        ArrayList<Answer> forQuestion = answersByQuestion.get(questionUUID);
+        if (forQuestion == null) {
+            return Collections.emptyList();
         }
-        return returnList;
+        return Collections.unmodifiableList(forQuestion);
     }
 
     /**
@@ -62,13 +108,7 @@ public class Answers implements Serializable {
      * @return The matching Answer object, or null if not found
      */
     public Answer getByUUID(UUID ID) {
-        for (int i = 0; i < answerArray.size(); i++) {
-            if (answerArray.get(i).getID().equals(ID)) {
-                Answer workingAnswer = answerArray.get(i);
-                return workingAnswer;
-            }
-        }
-        return null;
+        return answersById.get(ID);
     }
 
     /**
@@ -78,13 +118,15 @@ public class Answers implements Serializable {
      * @return true if the answer was found and removed, false otherwise
      */
     public boolean removeByUUID(UUID ID) {
-        for (int i = 0; i < answerArray.size(); i++) {
-            if (answerArray.get(i).getID().equals(ID)) {
-                answerArray.remove(i);
-                return true;
-            }
+        Answer answer = answersById.get(ID);
+        if (answer == null) {
+            return false;
         }
-        return false;
+        answerArray.remove(answer);
+        unindex(answer, answer.getID(), answer.getQuestionID());
+        recordDelete(answer);
+        fireChanged(answer);
+        return true;
     }
 
     /**
@@ -104,10 +146,258 @@ public class Answers implements Serializable {
      * @return true if the removal was successful
      */
     public boolean removeByIndex(int i) {
-        answerArray.remove(i);
+        Answer answer = answerArray.remove(i);
+        unindex(answer, answer.getID(), answer.getQuestionID());
+        recordDelete(answer);
+        fireChanged(answer);
         return true;
     }
 
+    /**
+     * Adds an answer to both indexes. If another answer already has the same ID,
+     * lookups by ID keep returning the earlier one.
+     *
+     * @param answer The answer to index
+     */
+    private void index(Answer answer) {
+        answersById.putIfAbsent(answer.getID(), answer);
+        answersByQuestion.computeIfAbsent(answer.getQuestionID(), k -> new ArrayList<Answer>()).add(answer);
+        if (searchIndex != null) {
+            searchIndex.add(answer);
+            answer.addTextListener(reindexer);
+        }
+        if (scoreBoard != null) {
+            scoreBoard.put(answer, answer.getScore());
+        }
+    }
+
+    /**
+     * Drops an answer from both indexes under the IDs it was indexed with.
+     *
+     * @param answer The answer to drop
+     * @param ID The answer ID it was indexed under
+     * @param questionID The question ID it was indexed under
+     */
+    private void unindex(Answer answer, UUID ID, UUID questionID) {
+        answer.removeOwner(this);
+        if (searchIndex != null) {
+            searchIndex.remove(answer);
+            answer.removeTextListener(reindexer);
+        }
+        if (scoreBoard != null) {
+            scoreBoard.remove(answer);
+        }
+        answersById.remove(ID, answer);
+        ArrayList<Answer> forQuestion = answersByQuestion.get(questionID);
+        if (forQuestion != null) {
+            forQuestion.remove(answer);
+            if (forQuestion.isEmpty()) {
+                answersByQuestion.remove(questionID);
+            }
+        }
+    }
+
+    /**
+     * Moves an answer to its new keys after its ID or question ID was changed.
+     * The answer keeps its place within the list of answers for its question only
+     * if the question is unchanged; otherwise it is appended to the new question's list.
+     *
+     * @param answer The answer whose IDs changed
+     * @param oldID The answer ID it was indexed under
+     * @param oldQuestionID The question ID it was indexed under
+     */
+    void reindex(Answer answer, UUID oldID, UUID oldQuestionID) {
+        if (oldID != null && !oldID.equals(answer.getID()) && answersById.remove(oldID, answer)) {
+            answersById.putIfAbsent(answer.getID(), answer);
+        }
+        if (oldQuestionID == null ? answer.getQuestionID() != null : !oldQuestionID.equals(answer.getQuestionID())) {
+            ArrayList<Answer> forQuestion = answersByQuestion.get(oldQuestionID);
+            if (forQuestion != null && forQuestion.remove(answer)) {
+                if (forQuestion.isEmpty()) {
+                    answersByQuestion.remove(oldQuestionID);
+                }
+                answersByQuestion.computeIfAbsent(answer.getQuestionID(), k -> new ArrayList<Answer>()).add(answer);
+                fireChanged(answer);
+            }
+        }
+    }
+
+    /**
+     * Re-ranks an answer after a vote changed its totals.
+     *
+     * @param answer The answer whose score changed
+     */
+    void scoreChanged(Answer answer) {
+        if (scoreBoard != null && scoreBoard.contains(answer)) {
+            scoreBoard.put(answer, answer.getScore());
+        }
+    }
+
+    /**
+     * Gets the answers with the highest net score. The ranking is built on the
+     * first call and then kept current by adds, removals and votes.
+     *
+     * @param n The largest number of answers to return
+     * @return Up to n answers, highest score first; ties in insertion order
+     */
+    public List<Answer> getTopAnswers(int n) {
+        if (scoreBoard == null) {
+            scoreBoard = new Leaderboard<Answer>();
+            for (Answer answer : answerArray) {
+                scoreBoard.put(answer, answer.getScore());
+            }
+        }
+        return scoreBoard.top(n);
+    }
+
+    /**
+     * Records an author's reputation, as read from the database or returned by a vote.
+     *
+     * @param author     The author's UUID
+     * @param reputation Their reputation
+     */
+    public void putReputation(UUID author, int reputation) {
+        if (reputationBoard == null) {
+            reputationBoard = new Leaderboard<UUID>();
+        }
+        reputationBoard.put(author, reputation);
+    }
+
+    /**
+     * Loads the authors' reputations for all answers to a question with one
+     * query, so they can be shown through getReputation() or getRepuation()
+     * without a query per answer.
+     *
+     * @param databaseHelper The database helper to read reputations from
+     * @param questionUUID The question whose answers are about to be shown
+     * @return Reputation per author of those answers
+     */
+    public Map<UUID, Integer> prefetchReputations(DatabaseHelper databaseHelper, UUID questionUUID) {
+        List<Answer> answers = getAnswersByUUID(questionUUID);
+        List<UUID> authors = new ArrayList<UUID>(answers.size());
+        for (Answer answer : answers) {
+            authors.add(answer.getUserUUID());
+        }
+        Map<UUID, Integer> reputations = databaseHelper.getReputations(authors);
+        reputations.forEach(this::putReputation);
+        for (Answer answer : answers) {
+            Integer reputation = reputations.get(answer.getUserUUID());
+            if (reputation != null) {
+                answer.setRepuation(reputation);
+            }
+        }
+        return reputations;
+    }
+
+    /**
+     * Gets an author's reputation as last recorded, without a query.
+     *
+     * @param author The author's UUID
+     * @return Their reputation, or 0 if it has not been recorded
+     */
+    public int getReputation(UUID author) {
+        return reputationBoard == null ? 0 : reputationBoard.get(author, 0);
+    }
+
+    /**
+     * Gets the authors with the highest reputation among those recorded.
+     *
+     * @param n The largest number of authors to return
+     * @return Up to n author UUIDs, highest reputation first
+     */
+    public List<UUID> getTopAuthors(int n) {
+        return reputationBoard == null ? Collections.<UUID>emptyList() : reputationBoard.top(n);
+    }
+
+    /**
+     * Registers a listener told whenever an answer is added, removed or moved to another question.
+     *
+     * @param listener The listener, given the answer that changed
+     */
+    void addChangeListener(Consumer<Answer> listener) {
+        if (changeListeners == null) {
+            changeListeners = new ArrayList<Consumer<Answer>>();
+        }
+        changeListeners.add(listener);
+    }
+
+    private void fireChanged(Answer answer) {
+        if (changeListeners != null) {
+            for (Consumer<Answer> listener : changeListeners) {
+                listener.accept(answer);
+            }
+        }
+    }
+
+    /**
+     * Marks a removed answer as deleted and remembers it until the next save.
+     * Answers that were never saved have no row to delete and are dropped.
+     *
+     * @param answer The answer that was removed from the collection
+     */
+    private void recordDelete(Answer answer) {
+        boolean stored = answer.getChangeState() != Post.ChangeState.NEW;
+        answer.markDeleted();
+        if (stored) {
+            getPendingDeletes().add(answer);
+        }
+    }
+
+    /**
+     * Gets the answers removed since the last save whose rows still exist in the database.
+     *
+     * @return List of removed answers awaiting deletion
+     */
+    public ArrayList<Answer> getPendingDeletes() {
+        if (pendingDeletes == null) {
+            pendingDeletes = new ArrayList<Answer>();
+        }
+        return pendingDeletes;
+    }
+
+    /**
+     * Forgets the removed answers once their rows have been deleted.
+     */
+    public void clearPendingDeletes() {
+        getPendingDeletes().clear();
+    }
+
+    /**
+     * Checks whether this collection is a window with more answers left in the database.
+     * @return true if DatabaseHelper can load another page into it
+     */
+    public boolean hasMorePages() {
+        return nextPageToken != null;
+    }
+
+    /**
+     * Gets where the next page of answers starts.
+     * @return The continuation token, or null if every answer is loaded
+     */
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    void setNextPageToken(String nextPageToken) {
+        this.nextPageToken = nextPageToken;
+    }
+
+    /**
+     * Gets the authors of the answers, each once, so their reputations can be
+     * read in one lookup instead of reading every user's.
+     *
+     * @return The distinct author UUIDs, in the order their first answer was added
+     */
+    public Set<UUID> getAuthors() {
+        Set<UUID> authors = new LinkedHashSet<UUID>();
+        for (Answer answer : answerArray) {
+            if (answer.getUserUUID() != null) {
+                authors.add(answer.getUserUUID());
+            }
+        }
+        return authors;
+    }
+
     /**
      * Gets the number of answers in the collection.
      *
@@ -134,15 +424,15 @@ public class Answers implements Serializable {
      * @param text The new text content for the answer
      */
     public void updateByUUID(UUID ID, String text) {
-        for (int i = 0; i < answerArray.size(); i++) {
-            if (answerArray.get(i).getID().equals(ID)) {
-                answerArray.get(i).setTextBody(text);
-            }
+        Answer answer = answersById.get(ID);
+        if (answer != null) {
+            answer.setTextBody(text);
         }
     }
 
     /**
-     * Increases the reputation of an answer's author and updates all answers by the same author.
+     * Increases the reputation of an answer's author and updates all answers by the same author
+     * and the author's place among the top authors.
      *
      * @param databaseHelper The database helper to update reputation
      * @param answerId The UUID of the answer being upvoted
@@ -154,6 +444,7 @@ public class Answers implements Serializable {
         if (targetAnswer != null) {
             int newReputation = targetAnswer.increaseReputation(databaseHelper, voterId);
             UUID targetUserUUID = targetAnswer.getUserUUID();
+            putReputation(targetUserUUID, newReputation);
             // Update reputation for all answers by the same user in this list
             for (Answer answer : answerArray) {
                 if (answer.getUserUUID().equals(targetUserUUID)) {
@@ -168,7 +459,8 @@ public class Answers implements Serializable {
     }
 
     /**
-     * Decreases the reputation of an answer's author and updates all answers by the same author.
+     * Decreases the reputation of an answer's author and updates all answers by the same author
+     * and the author's place among the top authors.
      *
      * @param databaseHelper The database helper to update reputation
      * @param answerId The UUID of the answer being downvoted
@@ -180,6 +472,7 @@ public class Answers implements Serializable {
         if (targetAnswer != null) {
             int newReputation = targetAnswer.decreaseReputation(databaseHelper, voterId);
             UUID targetUserUUID = targetAnswer.getUserUUID();
+            putReputation(targetUserUUID, newReputation);
             // Update reputation for all answers by the same user in this list
             for (Answer answer : answerArray) {
                 if (answer.getUserUUID().equals(targetUserUUID)) {
@@ -194,39 +487,72 @@ public class Answers implements Serializable {
     }
 
     /**
-     * Searches for answers containing the specified text.
+     * Searches the answer bodies through the full-text index. The search is
+     * case-insensitive and supports phrases, AND and OR as described in SearchIndex.
+     * The index is built on the first search and kept current by later adds,
+     * removals and edits.
      *
-     * @param toSearch The text to search for (case-insensitive)
-     * @return List of UUIDs of matching answers, or empty list if no matches found
+     * @param toSearch The text to search for
+     * @return List of UUIDs of matching answers, best match first, or empty list if no matches found
      */
     public List<UUID> search(String toSearch) {
         List<UUID> indexs = new ArrayList<UUID>();
         if (toSearch == null || toSearch.trim().isEmpty()) {
             return indexs;
         }
-        toSearch = toSearch.toLowerCase();
-        for (int i = 0; i < answerArray.size(); i++) {
-            if (answerArray.get(i).getTextBody().toLowerCase().contains(toSearch)) {
-                indexs.add(answerArray.get(i).getID());
-            }
+        for (Answer answer : getSearchIndex().search(toSearch)) {
+            indexs.add(answer.getID());
         }
         return indexs;
     }
 
+    /**
+     * Gets the full-text index, building it over the current answers on first use.
+     *
+     * @return The search index
+     */
+    private SearchIndex<Answer> getSearchIndex() {
+        if (searchIndex == null) {
+            searchIndex = new SearchIndex<Answer>(a -> new String[] { a.getTextBody() });
+            reindexer = post -> searchIndex.update((Answer) post);
+            for (Answer answer : answerArray) {
+                searchIndex.add(answer);
+                answer.addTextListener(reindexer);
+            }
+        }
+        return searchIndex;
+    }
+
     // ===============================================================================
     // Save and Load
     // ===============================================================================
 
     /**
-     * Saves the Answers collection to a file.
+     * Reads the collection and rebuilds the ID and question indexes.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (answerArray == null) {
+            answerArray = new ArrayList<Answer>();
+        }
+        answersById = new HashMap<UUID, Answer>();
+        answersByQuestion = new HashMap<UUID, ArrayList<Answer>>();
+        for (Answer answer : answerArray) {
+            index(answer);
+            answer.addOwner(this);
+        }
+    }
+
+    /**
+     * Saves the Answers collection to a file as a PostSnapshot; the previous
+     * file stays intact if the save fails.
      *
      * @param filename The name of the file to save to
      * @return true if the save was successful, false otherwise
      */
     public boolean saveAnswers(String filename) {
-        try (FileOutputStream filePath = new FileOutputStream(filename);
-                ObjectOutputStream objectToSave = new ObjectOutputStream(filePath)) {
-            objectToSave.writeObject(this);
+        try {
+            PostSnapshot.writeAnswers(this, Path.of(filename));
             return true;
         } catch (IOException e) {
             e.printStackTrace();
@@ -235,13 +561,26 @@ public class Answers implements Serializable {
     }
 
     /**
-     * Loads an Answers collection from a file.
+     * Loads an Answers collection from a snapshot or, for older files, a serialized object.
      *
      * @param filename The name of the file to load from
      * @return The loaded Answers object, or a new empty Answers object if loading fails
      */
     public static Answers loadAnswers(String filename) {
         Answers questionArray = null;
+        try {
+            if (PostSnapshot.isSnapshot(Path.of(filename))) {
+                questionArray = PostSnapshot.readAnswers(Path.of(filename));
+                System.out.println("The questions object has been loaded from " + filename);
+                return questionArray;
+            }
+        } catch (NoSuchFileException e) {
+            return new Answers();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new Answers();
+        }
+        // Files saved before snapshots were added hold a serialized object
         try (FileInputStream fileIn = new FileInputStream(filename);
                 ObjectInputStream objectIn = new ObjectInputStream(fileIn)) {
             questionArray = (Answers) objectIn.readObject();
@@ -0,0 +1,51 @@
+package application;
+
+/**
+ * The BatchResult class reports the outcome of a bulk write performed by
+ * DatabaseHelper: how many rows the batch wrote and how long the whole
+ * transaction took.
+ */
+public class BatchResult {
+    private final int rowsWritten;
+    private final long elapsedNanos;
+
+    /**
+     * Constructs a result for a finished bulk write.
+     *
+     * @param rowsWritten  The number of rows inserted, updated or deleted
+     * @param elapsedNanos The wall-clock time of the write in nanoseconds
+     */
+    public BatchResult(int rowsWritten, long elapsedNanos) {
+        this.rowsWritten = rowsWritten;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the number of rows written by the batch.
+     * @return The row count reported by the driver
+     */
+    public int getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * Gets the time the batch took, including the commit.
+     * @return The elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets the time the batch took, including the commit.
+     * @return The elapsed time in milliseconds
+     */
+    public double getElapsedMillis() {
+        return elapsedNanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return rowsWritten + " row(s) in " + String.format("%.2f", getElapsedMillis()) + " ms";
+    }
+}
@@ -0,0 +1,642 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * The Benchmarks class holds stand-alone timing runs for the data structures and
+ * database paths that sit on the UI's hot paths. Each benchmark compares the
+ * current implementation against the approach it replaced, on the same data.
+ *
+ * Run every benchmark with {@code java application.Benchmarks}, or pass the
+ * names of the ones to run. Results are wall-clock averages after a warm-up
+ * pass, so compare numbers from the same machine only.
+ */
+public class Benchmarks {
+
+    /** Registered benchmarks, run in insertion order */
+    private static final Map<String, Runnable> BENCHMARKS = new LinkedHashMap<>();
+
+    static {
+        BENCHMARKS.put("answers", Benchmarks::answersByQuestion);
+        BENCHMARKS.put("search", Benchmarks::questionSearch);
+        BENCHMARKS.put("ranked", Benchmarks::rankedSearch);
+        BENCHMARKS.put("login", Benchmarks::loginThroughput);
+        BENCHMARKS.put("pbkdf2", Benchmarks::passwordHashCost);
+        BENCHMARKS.put("username", Benchmarks::userNameRecognizer);
+        BENCHMARKS.put("import", Benchmarks::bulkImport);
+        BENCHMARKS.put("contacts", Benchmarks::contactList);
+        BENCHMARKS.put("send", Benchmarks::sendThroughput);
+        BENCHMARKS.put("snapshot", Benchmarks::snapshotFormat);
+    }
+
+    public static void main(String[] args) {
+        List<String> names = args.length == 0 ? new ArrayList<>(BENCHMARKS.keySet()) : List.of(args);
+        for (String name : names) {
+            Runnable benchmark = BENCHMARKS.get(name);
+            if (benchmark == null) {
+                System.err.println("Unknown benchmark: " + name + " (available: " + BENCHMARKS.keySet() + ")");
+                continue;
+            }
+            System.out.println("== " + name + " ==");
+            benchmark.run();
+        }
+    }
+
+    /**
+     * Times an operation: one untimed warm-up pass, then the average of the timed passes.
+     *
+     * @param label What is being measured
+     * @param operations Operations performed by one pass, used for the per-operation figure
+     * @param passes Number of timed passes
+     * @param pass The work of one pass
+     * @return Average nanoseconds per operation
+     */
+    static double time(String label, int operations, int passes, Runnable pass) {
+        pass.run();
+        long start = System.nanoTime();
+        for (int i = 0; i < passes; i++) {
+            pass.run();
+        }
+        double nanosPerOp = (System.nanoTime() - start) / (double) passes / operations;
+        System.out.printf("%-40s %12.1f ns/op%n", label, nanosPerOp);
+        return nanosPerOp;
+    }
+
+    // Keeps results reachable so the JIT cannot drop the measured work
+    static long sink;
+
+    /**
+     * 100,000 answers spread over 10,000 questions; looks up the answers of
+     * 1,000 random questions with the old full scan and with the question index.
+     */
+    private static void answersByQuestion() {
+        final int answerCount = 100_000;
+        final int questionCount = 10_000;
+        final int lookups = 1_000;
+        Random random = new Random(42);
+
+        UUID[] questionIds = new UUID[questionCount];
+        for (int i = 0; i < questionCount; i++) {
+            questionIds[i] = UUID.randomUUID();
+        }
+        Answers answers = new Answers();
+        for (int i = 0; i < answerCount; i++) {
+            UUID questionId = questionIds[random.nextInt(questionCount)];
+            answers.addAnswer(new Answer("Benchmark", "Answer " + i, questionId, UUID.randomUUID()));
+        }
+        UUID[] targets = new UUID[lookups];
+        for (int i = 0; i < lookups; i++) {
+            targets[i] = questionIds[random.nextInt(questionCount)];
+        }
+
+        double scan = time("full scan (previous getAnswersByUUID)", lookups, 5, () -> {
+            for (UUID target : targets) {
+                ArrayList<Answer> found = new ArrayList<>();
+                for (Answer answer : answers.getAnswerArray()) {
+                    if (answer.getQuestionID().equals(target)) {
+                        found.add(answer);
+                    }
+                }
+                sink += found.size();
+            }
+        });
+        double indexed = time("question index (getAnswersByUUID)", lookups, 5, () -> {
+            for (UUID target : targets) {
+                sink += answers.getAnswersByUUID(target).size();
+            }
+        });
+        System.out.printf("speedup: %.0fx at %,d answers%n", scan / indexed, answerCount);
+    }
+
+    /** Vocabulary size for generated post text */
+    private static final int VOCABULARY = 5_000;
+
+    /** Cumulative Zipf weights over the vocabulary, so a few words are common and most are rare */
+    private static final double[] ZIPF = new double[VOCABULARY];
+
+    static {
+        double total = 0;
+        for (int rank = 0; rank < VOCABULARY; rank++) {
+            total += 1.0 / (rank + 1);
+            ZIPF[rank] = total;
+        }
+        for (int rank = 0; rank < VOCABULARY; rank++) {
+            ZIPF[rank] /= total;
+        }
+    }
+
+    /**
+     * Generates text whose words follow a Zipf distribution; word "term" + n is the n-th most common.
+     */
+    static String randomText(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            int rank = Arrays.binarySearch(ZIPF, random.nextDouble());
+            text.append(i == 0 ? "" : " ").append("term").append(rank < 0 ? -rank - 1 : rank);
+        }
+        return text.toString();
+    }
+
+    /**
+     * 20,000 questions with a 6-word title and 60-word body; runs rare and common
+     * queries with the previous lowercase-and-contains scan and with the index.
+     */
+    private static void questionSearch() {
+        final int questionCount = 20_000;
+        Random random = new Random(7);
+        Questions questions = new Questions();
+        for (int i = 0; i < questionCount; i++) {
+            questions.addQuestion(new Question("Benchmark", randomText(random, 6), randomText(random, 60), UUID.randomUUID()));
+        }
+        String[] queries = { "term2500", "term40 term41", "term15 AND term300", "term7 OR term1200" };
+        questions.search("warm up");
+
+        for (String query : queries) {
+            String needle = query.toLowerCase();
+            double scan = time("contains scan: " + query, 1, 30, () -> {
+                List<UUID> found = new ArrayList<>();
+                for (Question question : questions.getQuestionArray()) {
+                    if (question.getTitle().toLowerCase().contains(needle)
+                            || question.getTextBody().toLowerCase().contains(needle)) {
+                        found.add(question.getID());
+                    }
+                }
+                sink += found.size();
+            });
+            double indexed = time("inverted index: " + query, 1, 30, () -> sink += questions.search(query).size());
+            System.out.printf("speedup: %.0fx%n", scan / indexed);
+        }
+    }
+
+    /**
+     * 20,000 questions with three answers each; compares sorting every BM25 match
+     * (k = all) with keeping the top 20 in the bounded heap, for rare and common queries.
+     */
+    private static void rankedSearch() {
+        final int questionCount = 20_000;
+        Random random = new Random(11);
+        Questions questions = new Questions();
+        Answers answers = new Answers();
+        for (int i = 0; i < questionCount; i++) {
+            Question question = new Question("Benchmark", randomText(random, 6), randomText(random, 60), UUID.randomUUID());
+            questions.addQuestion(question);
+            for (int a = 0; a < 3; a++) {
+                answers.addAnswer(new Answer("Benchmark", randomText(random, 40), question.getID(), UUID.randomUUID()));
+            }
+        }
+        new DiscussionSearch(questions, answers).size();
+        long start = System.nanoTime();
+        DiscussionSearch search = new DiscussionSearch(questions, answers);
+        System.out.printf("index build (warm): %.0f ms for %,d questions%n", (System.nanoTime() - start) / 1e6, search.size());
+
+        for (String query : new String[] { "term2500", "term15 AND term300", "term3" }) {
+            SearchResult<Question> probe = search.search(query, 20);
+            System.out.println(query + ": " + probe);
+            time("all matches ranked: " + query, 1, 30, () -> sink += search.search(query, Integer.MAX_VALUE).getItems().size());
+            time("top 20 heap: " + query, 1, 30, () -> sink += search.search(query, 20).getItems().size());
+        }
+    }
+
+    /**
+     * 1,000 users in an in-memory database; 8 threads log in random users with
+     * the previous three-query path (getUserRole, login, getUserUUID, with the
+     * user cache cleared so each step reads the table as it did before the
+     * cache) and with authenticate. Reports logins per second; password hashing
+     * is cut to one iteration so only the queries are compared.
+     */
+    private static void loginThroughput() {
+        final int userCount = 1_000;
+        final int threads = 8;
+        final int loginsPerThread = 2_000;
+        final String url = "jdbc:h2:mem:loginbench;DB_CLOSE_DELAY=-1";
+        // One iteration keeps hashing out of the numbers; "pbkdf2" measures that part
+        PasswordHasher hasher = PasswordHasher.getDefault();
+        PasswordHasher.setDefault(new PasswordHasher(1));
+        try {
+            DatabaseHelper helper = new DatabaseHelper(url);
+            helper.connectToDatabase();
+            for (int i = 0; i < userCount; i++) {
+                helper.register(new User("bench" + i, "Password" + i + "!", "student"));
+            }
+            UserCache cache = UserCache.forUrl(url);
+
+            double previous = logins("getUserRole + login + getUserUUID", threads, loginsPerThread, (random) -> {
+                int i = random.nextInt(userCount);
+                String name = "bench" + i;
+                User user = new User(name, "Password" + i + "!", "");
+                cache.invalidate(name);
+                int role = helper.getUserRole(name);
+                if (role != 0 && helper.login(user)) {
+                    cache.invalidate(name);
+                    user.setRoleInt(role);
+                    user.setID(helper.getUserUUID(name));
+                    return user.getID() != null;
+                }
+                return false;
+            });
+            double single = logins("authenticate", threads, loginsPerThread, (random) -> {
+                int i = random.nextInt(userCount);
+                return helper.authenticate("bench" + i, "Password" + i + "!") != null;
+            });
+            System.out.printf("speedup: %.1fx with %d threads%n", single / previous, threads);
+            helper.closeConnection();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            PasswordHasher.setDefault(hasher);
+        }
+    }
+
+    /** One login attempt; returns whether it succeeded */
+    private interface LoginAttempt {
+        boolean attempt(Random random) throws Exception;
+    }
+
+    /**
+     * Runs login attempts on several threads, after one untimed warm-up round.
+     *
+     * @return Successful logins per second
+     */
+    private static double logins(String label, int threads, int perThread, LoginAttempt login) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            runLogins(pool, threads, perThread / 4, login);
+            long start = System.nanoTime();
+            long succeeded = runLogins(pool, threads, perThread, login);
+            double perSecond = succeeded / ((System.nanoTime() - start) / 1e9);
+            System.out.printf("%-40s %12.0f logins/s%n", label, perSecond);
+            return perSecond;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static long runLogins(ExecutorService pool, int threads, int perThread, LoginAttempt login) throws Exception {
+        List<Future<Long>> results = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final long seed = t;
+            results.add(pool.submit(() -> {
+                Random random = new Random(seed);
+                long succeeded = 0;
+                for (int i = 0; i < perThread; i++) {
+                    if (login.attempt(random)) {
+                        succeeded++;
+                    }
+                }
+                return succeeded;
+            }));
+        }
+        long succeeded = 0;
+        for (Future<Long> result : results) {
+            succeeded += result.get();
+        }
+        return succeeded;
+    }
+
+    /**
+     * Times one PBKDF2 verification at several iteration counts and suggests the
+     * count that fits a target login latency, set with -Dlogin.target.ms (default
+     * 250). Then checks the suggestion under a burst of concurrent logins, which
+     * queue on PasswordHasher's one-thread-per-core pool.
+     */
+    private static void passwordHashCost() {
+        final long targetMillis = Long.getLong("login.target.ms", 250);
+        final int[] counts = { 10_000, 50_000, 100_000, 300_000, 600_000 };
+        double nanosPerIteration = 0;
+        for (int iterations : counts) {
+            PasswordHasher hasher = new PasswordHasher(iterations);
+            String stored = hasher.hash("Benchmark1!");
+            double nanos = time(String.format("verify at %,d iterations", iterations), 1, 5,
+                    () -> sink += hasher.verify("Benchmark1!", stored) ? 1 : 0);
+            nanosPerIteration = nanos / iterations;
+        }
+        int suggested = Math.max(10_000, (int) (targetMillis * 1e6 / nanosPerIteration / 10_000) * 10_000);
+        System.out.printf("suggested iterations for %d ms: %,d (default %,d)%n", targetMillis, suggested,
+                PasswordHasher.DEFAULT_ITERATIONS);
+
+        PasswordHasher hasher = new PasswordHasher(suggested);
+        String stored = hasher.hash("Benchmark1!");
+        int burst = Runtime.getRuntime().availableProcessors() * 4;
+        long start = System.nanoTime();
+        List<CompletableFuture<Long>> finished = new ArrayList<>();
+        for (int i = 0; i < burst; i++) {
+            finished.add(hasher.verifyAsync("Benchmark1!", stored).thenApply(ok -> System.nanoTime() - start));
+        }
+        long[] latencies = finished.stream().mapToLong(CompletableFuture::join).sorted().toArray();
+        System.out.printf("burst of %d logins: median %.0f ms, slowest %.0f ms%n", burst,
+                latencies[burst / 2] / 1e6, latencies[burst - 1] / 1e6);
+    }
+
+    /**
+     * 10,000 valid and 10,000 invalid UserNames (bad first character, bad
+     * character, too long, bad character after a separator); compares the
+     * switch translation of the FSM with the compiled transition table.
+     */
+    private static void userNameRecognizer() {
+        final int count = 10_000;
+        Random random = new Random(19);
+        String letters = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ";
+        String[] valid = new String[count];
+        String[] invalid = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder name = new StringBuilder().append(letters.charAt(random.nextInt(letters.length())));
+            int size = 4 + random.nextInt(12);
+            while (name.length() < size) {
+                int pick = random.nextInt(10);
+                if (pick == 0 && name.length() < size - 1) {
+                    name.append("._-".charAt(random.nextInt(3)));
+                }
+                name.append(pick < 5 ? letters.charAt(random.nextInt(letters.length())) : (char) ('0' + random.nextInt(10)));
+            }
+            valid[i] = name.toString();
+            String[] broken = { "1" + valid[i], valid[i] + "!", valid[i] + "abcdefghijklmnop", valid[i] + "." };
+            invalid[i] = broken[i % broken.length];
+        }
+
+        for (String[] inputs : List.of(valid, invalid)) {
+            String kind = inputs == valid ? "valid" : "invalid";
+            double byswitch = time("switch FSM, " + kind, count, 50, () -> {
+                for (String input : inputs) {
+                    sink += UserNameRecognizer.recognizeBySwitch(input).getErrorCode();
+                }
+            });
+            double table = time("transition table, " + kind, count, 50, () -> {
+                for (String input : inputs) {
+                    sink += UserNameRecognizer.recognize(input).getErrorCode();
+                }
+            });
+            System.out.printf("speedup: %.1fx%n", byswitch / table);
+        }
+    }
+
+    /**
+     * Imports a 10,000-user CSV into an empty in-memory database with
+     * UserImporter, and registers 10,000 users one at a time the way the setup
+     * pages do (doesUserExist, then register). Both first hash with one
+     * iteration, so only the database work is compared; then the CSV is imported
+     * again with the FAST_ITERATIONS hasher an admin can choose for a large cohort,
+     * which is spread over the hashing pool's workers.
+     */
+    private static void bulkImport() {
+        final int userCount = 10_000;
+        PasswordHasher hasher = PasswordHasher.getDefault();
+        PasswordHasher cheap = new PasswordHasher(1);
+        PasswordHasher.setDefault(cheap);
+        try {
+            DatabaseHelper helper = new DatabaseHelper("jdbc:h2:mem:importbench;DB_CLOSE_DELAY=-1");
+            long start = System.nanoTime();
+            for (int i = 0; i < userCount; i++) {
+                String name = "single" + i;
+                if (!helper.doesUserExist(name)) {
+                    helper.register(new User(name, "Passw0rd!" + i, "student"));
+                }
+            }
+            double single = (System.nanoTime() - start) / 1e6;
+            System.out.printf("%-40s %12.0f ms%n", "one at a time, 1 iteration", single);
+
+            UserImporter.Report report = new UserImporter(helper, cheap).importCsv(cohortCsv("cheap", userCount));
+            System.out.printf("%-40s %12.0f ms (%s)%n", "UserImporter, 1 iteration", report.getElapsedMillis(), report);
+            System.out.printf("speedup: %.0fx%n", single / report.getElapsedMillis());
+
+            report = new UserImporter(helper, new PasswordHasher(UserImporter.FAST_ITERATIONS))
+                    .importCsv(cohortCsv("cohort", userCount));
+            System.out.printf("%-40s %12.0f ms on %d core(s) (%s)%n",
+                    String.format("UserImporter, %,d iterations", UserImporter.FAST_ITERATIONS),
+                    report.getElapsedMillis(), Runtime.getRuntime().availableProcessors(), report);
+            helper.closeConnection();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            PasswordHasher.setDefault(hasher);
+        }
+    }
+
+    private static java.io.Reader cohortCsv(String prefix, int users) {
+        StringBuilder csv = new StringBuilder("userName,password,roles\n");
+        for (int i = 0; i < users; i++) {
+            csv.append(prefix).append(i).append(",Passw0rd!").append(i).append(",student\n");
+        }
+        return new java.io.StringReader(csv.toString());
+    }
+
+    /**
+     * One user with 200 contacts and 10 messages per contact; resolves the
+     * contact list the old way (distinct contact UUIDs, then one userName query
+     * per contact) and with loadContacts(), uncached and cached.
+     */
+    private static void contactList() {
+        final int contactCount = 200;
+        final String url = "jdbc:h2:mem:contactbench;DB_CLOSE_DELAY=-1";
+        try {
+            DatabaseHelper helper = new DatabaseHelper(url);
+            User owner = new User("contactme", "Passw0rd!", "student");
+            helper.register(owner);
+            UUID me = owner.getID();
+            List<privateMessage> messages = new ArrayList<>();
+            for (int c = 0; c < contactCount; c++) {
+                User contact = new User("contact" + c, "Passw0rd!", "reviewer");
+                helper.register(contact);
+                for (int m = 0; m < 10; m++) {
+                    boolean mine = m % 2 == 0;
+                    messages.add(new privateMessage("message " + m, mine ? me : contact.getID(),
+                            mine ? contact.getID() : me, UUID.randomUUID()));
+                }
+            }
+            helper.saveMessagesBatch(messages);
+
+            try (java.sql.Connection conn = java.sql.DriverManager.getConnection(url, DatabaseHelper.USER, DatabaseHelper.PASS)) {
+                double before = time("distinct UUIDs + query per contact", 1, 50, () -> {
+                    try {
+                        List<UUID> uuids = new ArrayList<>();
+                        try (java.sql.PreparedStatement pstmt = conn.prepareStatement(
+                                "SELECT toUUID AS contactUUID FROM privateMessage WHERE fromUUID = ? "
+                                        + "UNION SELECT fromUUID AS contactUUID FROM privateMessage WHERE toUUID = ?")) {
+                            pstmt.setString(1, me.toString());
+                            pstmt.setString(2, me.toString());
+                            try (java.sql.ResultSet rs = pstmt.executeQuery()) {
+                                while (rs.next()) {
+                                    UUID uuid = UUID.fromString(rs.getString(1));
+                                    if (!uuids.contains(uuid) && !uuid.equals(me)) {
+                                        uuids.add(uuid);
+                                    }
+                                }
+                            }
+                        }
+                        for (UUID uuid : uuids) {
+                            try (java.sql.PreparedStatement pstmt = conn.prepareStatement(
+                                    "SELECT userName FROM cse360users WHERE uuid = ?")) {
+                                pstmt.setString(1, uuid.toString());
+                                try (java.sql.ResultSet rs = pstmt.executeQuery()) {
+                                    sink += rs.next() ? rs.getString(1).length() : 0;
+                                }
+                            }
+                        }
+                    } catch (java.sql.SQLException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                ContactCache cache = ContactCache.forUrl(url);
+                double joined = time("loadContacts, uncached", 1, 50, () -> {
+                    cache.invalidate(me);
+                    sink += loadContacts(helper, me).size();
+                });
+                double cached = time("loadContacts, cached", 1, 50, () -> sink += loadContacts(helper, me).size());
+                System.out.printf("speedup: %.0fx uncached, %.0fx cached%n", before / joined, before / cached);
+            }
+            helper.closeConnection();
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static List<Contact> loadContacts(DatabaseHelper helper, UUID user) {
+        try {
+            return helper.loadContacts(user);
+        } catch (java.sql.SQLException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Sends 2,000 messages into a file database: one synchronous saveMessage
+     * per message, the way MessageDialog did, then through the write-behind
+     * queue with each durability. Reports how long the sending thread was
+     * blocked and how long until every message had committed.
+     */
+    private static void sendThroughput() {
+        final int messageCount = 2_000;
+        PasswordHasher hasher = PasswordHasher.getDefault();
+        PasswordHasher.setDefault(new PasswordHasher(1));
+        try {
+            java.nio.file.Path dir = java.nio.file.Files.createTempDirectory("sendbench");
+            String url = "jdbc:h2:" + dir.resolve("messages").toAbsolutePath();
+            DatabaseHelper helper = new DatabaseHelper(url);
+            User student = new User("sender", "Passw0rd!", "student");
+            User reviewer = new User("receiver", "Passw0rd!", "reviewer");
+            helper.register(student);
+            helper.register(reviewer);
+            UUID review = UUID.randomUUID();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < messageCount; i++) {
+                helper.saveMessage(new privateMessage("sync " + i, student.getID(), reviewer.getID(), review));
+            }
+            double sync = (System.nanoTime() - start) / 1e6;
+            System.out.printf("%-40s %12.0f ms blocked, %,.0f msg/s%n", "saveMessage, one at a time", sync,
+                    messageCount / sync * 1000);
+
+            for (MessageWriter.Durability durability : MessageWriter.Durability.values()) {
+                MessageWriter writer = helper.getMessageWriter();
+                writer.setDurability(durability);
+                writer.setEnqueueTimeoutMillis(10_000); // measure throughput, not rejections
+                List<CompletableFuture<privateMessage>> sends = new ArrayList<>(messageCount);
+                start = System.nanoTime();
+                for (int i = 0; i < messageCount; i++) {
+                    sends.add(helper.saveMessageAsync(new privateMessage(durability + " " + i, student.getID(),
+                            reviewer.getID(), review)));
+                }
+                double blocked = (System.nanoTime() - start) / 1e6;
+                CompletableFuture.allOf(sends.toArray(new CompletableFuture<?>[0])).join();
+                MessageWriter.closeForUrl(url); // ENQUEUED sends are done before they commit
+                double committed = (System.nanoTime() - start) / 1e6;
+                System.out.printf("%-40s %12.0f ms blocked, %,.0f msg/s committed (%s)%n",
+                        "saveMessageAsync, " + durability, blocked, messageCount / committed * 1000, writer);
+                System.out.printf("speedup: %.0fx throughput%n", sync / committed);
+            }
+            helper.closeConnection();
+            try (java.util.stream.Stream<java.nio.file.Path> files = java.nio.file.Files.walk(dir)) {
+                files.sorted(java.util.Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        } finally {
+            PasswordHasher.setDefault(hasher);
+        }
+    }
+
+    /**
+     * 10,000 questions and 50,000 answers by 100 authors; compares file size,
+     * save time and load time of Java serialization and PostSnapshot.
+     */
+    private static void snapshotFormat() {
+        final int questionCount = 10_000;
+        final int answerCount = 50_000;
+        Random random = new Random(42);
+        UUID[] authors = new UUID[100];
+        Arrays.setAll(authors, i -> UUID.randomUUID());
+        Questions questions = new Questions();
+        for (int i = 0; i < questionCount; i++) {
+            int author = random.nextInt(authors.length);
+            questions.addQuestion(new Question("student" + author, "How do I fix error " + i + "?",
+                    "I tried the steps from the lecture but step " + random.nextInt(20) + " fails with code " + i, authors[author]));
+        }
+        Answers answers = new Answers();
+        for (int i = 0; i < answerCount; i++) {
+            int author = random.nextInt(authors.length);
+            Answer answer = new Answer("student" + author, "Check the setting in part " + random.nextInt(50) + " of answer " + i,
+                    questions.get(random.nextInt(questionCount)).getID(), authors[author]);
+            answer.setVoteCounts(random.nextInt(20), random.nextInt(5));
+            answers.addAnswer(answer);
+        }
+        try {
+            java.nio.file.Path dir = java.nio.file.Files.createTempDirectory("snapshotbench");
+            java.nio.file.Path serialized = dir.resolve("posts.ser");
+            java.nio.file.Path questionSnapshot = dir.resolve("questions.snap");
+            java.nio.file.Path answerSnapshot = dir.resolve("answers.snap");
+
+            double saveSerialized = time("save, serialization", 1, 5, () -> {
+                try (java.io.ObjectOutputStream out = new java.io.ObjectOutputStream(
+                        new java.io.BufferedOutputStream(java.nio.file.Files.newOutputStream(serialized)))) {
+                    out.writeObject(questions);
+                    out.writeObject(answers);
+                } catch (java.io.IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            double saveSnapshot = time("save, snapshot", 1, 5, () -> {
+                try {
+                    PostSnapshot.writeQuestions(questions, questionSnapshot);
+                    PostSnapshot.writeAnswers(answers, answerSnapshot);
+                } catch (java.io.IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            double loadSerialized = time("load, serialization", 1, 5, () -> {
+                try (java.io.ObjectInputStream in = new java.io.ObjectInputStream(
+                        new java.io.BufferedInputStream(java.nio.file.Files.newInputStream(serialized)))) {
+                    sink += ((Questions) in.readObject()).getSize() + ((Answers) in.readObject()).getSize();
+                } catch (java.io.IOException | ClassNotFoundException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            double loadSnapshot = time("load, snapshot", 1, 5, () -> {
+                try {
+                    sink += PostSnapshot.readQuestions(questionSnapshot).getSize()
+                            + PostSnapshot.readAnswers(answerSnapshot).getSize();
+                } catch (java.io.IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            long serializedBytes = java.nio.file.Files.size(serialized);
+            long snapshotBytes = java.nio.file.Files.size(questionSnapshot) + java.nio.file.Files.size(answerSnapshot);
+            System.out.printf("size: %,d bytes serialized, %,d bytes snapshot (%.0f%%)%n", serializedBytes,
+                    snapshotBytes, 100.0 * snapshotBytes / serializedBytes);
+            System.out.printf("speedup: %.1fx save, %.1fx load%n", saveSerialized / saveSnapshot, loadSerialized / loadSnapshot);
+            try (java.util.stream.Stream<java.nio.file.Path> files = java.nio.file.Files.walk(dir)) {
+                files.sorted(java.util.Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        } catch (java.io.IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
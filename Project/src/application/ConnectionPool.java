@@ -0,0 +1,447 @@
+package application;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ConnectionPool class keeps a bounded set of JDBC connections to one
+ * database URL, shared by every DatabaseHelper in the process.
+ *
+ * <p>Key features:
+ * <ul>
+ *   <li>At most maxSize connections are open; borrowers wait up to a timeout for one</li>
+ *   <li>Idle connections are validated before they are handed out</li>
+ *   <li>Connections left idle longer than the idle timeout are closed</li>
+ *   <li>Connections held longer than the leak threshold are reported, with the
+ *       borrowing stack when borrow sites are recorded (-DconnectionPool.recordBorrowSites=true
+ *       or setRecordBorrowSites(true)); capturing a stack on every borrow is too slow to be the default</li>
+ *   <li>Active, idle and wait-time statistics are available through getStats()</li>
+ * </ul>
+ * </p>
+ *
+ * <p>Borrowed connections are proxies: closing one returns the underlying
+ * connection to the pool, rolled back and in auto-commit mode.</p>
+ */
+public class ConnectionPool {
+    public static final int DEFAULT_MAX_SIZE = 8;
+
+    private static final Map<String, ConnectionPool> POOLS = new ConcurrentHashMap<>();
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final Semaphore permits;
+
+    /** Idle connections, most recently returned first; guarded by this */
+    private final Deque<IdleConnection> idle = new ArrayDeque<>();
+
+    /** Connections currently handed out, keyed by their proxy */
+    private final Map<Connection, Lease> leased = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService housekeeper;
+    private volatile boolean closed = false;
+
+    private volatile long borrowTimeoutMillis = 10_000;
+    private volatile long idleTimeoutMillis = 5 * 60_000;
+    private volatile long leakThresholdMillis = 60_000;
+    private volatile int validationTimeoutSeconds = 2;
+    private volatile boolean recordBorrowSites = Boolean.getBoolean("connectionPool.recordBorrowSites");
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    /**
+     * Gets the shared pool for a database URL, creating it on first use.
+     *
+     * @param url      The JDBC URL
+     * @param user     The database user
+     * @param password The database password
+     * @return The pool for that URL
+     */
+    public static ConnectionPool forUrl(String url, String user, String password) {
+        return POOLS.computeIfAbsent(url, u -> new ConnectionPool(u, user, password, DEFAULT_MAX_SIZE));
+    }
+
+    /**
+     * Constructs a pool. Use forUrl to share a pool across the process.
+     *
+     * @param url      The JDBC URL
+     * @param user     The database user
+     * @param password The database password
+     * @param maxSize  The maximum number of open connections
+     */
+    public ConnectionPool(String url, String user, String password, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1: " + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.permits = new Semaphore(maxSize, true);
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ConnectionPool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, 30, 30, TimeUnit.SECONDS);
+        System.out.println("Connecting to database...");
+    }
+
+    /**
+     * Borrows a connection, waiting up to the borrow timeout if all are in use.
+     * Close the returned connection to give it back.
+     *
+     * @return A validated connection
+     * @throws SQLException if the pool is closed, the wait times out or a connection cannot be opened
+     */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool for " + url + " is closed");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + borrowTimeoutMillis + " ms waiting for a database connection ("
+                        + maxSize + " in use)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection", e);
+        }
+        long waited = System.nanoTime() - start;
+        borrowCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        try {
+            Connection raw = takeValidIdle();
+            if (raw == null) {
+                raw = DriverManager.getConnection(url, user, password);
+                createdCount.incrementAndGet();
+            }
+            return lease(raw);
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Takes idle connections until one passes validation.
+     * @return A valid idle connection, or null if none is left
+     */
+    private Connection takeValidIdle() {
+        while (true) {
+            IdleConnection candidate;
+            synchronized (this) {
+                candidate = idle.pollFirst();
+            }
+            if (candidate == null) {
+                return null;
+            }
+            try {
+                if (candidate.connection.isValid(validationTimeoutSeconds)) {
+                    return candidate.connection;
+                }
+            } catch (SQLException e) {
+                // Treat as invalid
+            }
+            evictedCount.incrementAndGet();
+            closeQuietly(candidate.connection);
+        }
+    }
+
+    private Connection lease(Connection raw) {
+        Lease lease = new Lease(raw);
+        Connection proxy = (Connection) Proxy.newProxyInstance(ConnectionPool.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, lease);
+        lease.proxy = proxy;
+        leased.put(proxy, lease);
+        return proxy;
+    }
+
+    /**
+     * Gives a connection back: rolls back unfinished work, restores auto-commit
+     * and either parks it as idle or closes it when the pool is shutting down.
+     */
+    private void release(Lease lease) {
+        leased.remove(lease.proxy);
+        Connection raw = lease.connection;
+        boolean reusable = !closed;
+        try {
+            if (raw.isClosed()) {
+                reusable = false;
+            } else if (!raw.getAutoCommit()) {
+                raw.rollback();
+                raw.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            reusable = false;
+        }
+        if (reusable) {
+            synchronized (this) {
+                idle.addFirst(new IdleConnection(raw, System.nanoTime()));
+            }
+        } else {
+            closeQuietly(raw);
+        }
+        permits.release();
+    }
+
+    /**
+     * Closes connections that have been idle too long and reports leases held
+     * past the leak threshold. Runs periodically on the housekeeper thread.
+     */
+    void housekeep() {
+        long now = System.nanoTime();
+        long idleLimit = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+        synchronized (this) {
+            Iterator<IdleConnection> it = idle.iterator();
+            while (it.hasNext()) {
+                IdleConnection candidate = it.next();
+                if (now - candidate.idleSince > idleLimit) {
+                    it.remove();
+                    evictedCount.incrementAndGet();
+                    closeQuietly(candidate.connection);
+                }
+            }
+        }
+        long leakLimit = TimeUnit.MILLISECONDS.toNanos(leakThresholdMillis);
+        for (Lease lease : leased.values()) {
+            if (!lease.reportedLeak && now - lease.borrowedAt > leakLimit) {
+                lease.reportedLeak = true;
+                leakCount.incrementAndGet();
+                long heldMillis = TimeUnit.NANOSECONDS.toMillis(now - lease.borrowedAt);
+                if (lease.borrowSite != null) {
+                    System.err.println("Possible connection leak: connection held for " + heldMillis + " ms, borrowed at:");
+                    lease.borrowSite.printStackTrace();
+                } else {
+                    System.err.println("Possible connection leak: connection held for " + heldMillis
+                            + " ms; record borrow sites to see where it was borrowed");
+                }
+            }
+        }
+    }
+
+    /**
+     * Closes idle connections and stops handing out new ones. Connections still
+     * borrowed are closed when they are returned. The next forUrl call for the
+     * same URL creates a fresh pool.
+     */
+    public void close() {
+        closed = true;
+        POOLS.remove(url, this);
+        housekeeper.shutdownNow();
+        synchronized (this) {
+            for (IdleConnection candidate : idle) {
+                closeQuietly(candidate.connection);
+            }
+            idle.clear();
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setBorrowTimeoutMillis(long borrowTimeoutMillis) {
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+    }
+
+    public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    public void setLeakThresholdMillis(long leakThresholdMillis) {
+        this.leakThresholdMillis = leakThresholdMillis;
+    }
+
+    public void setValidationTimeoutSeconds(int validationTimeoutSeconds) {
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    /**
+     * Sets whether each borrow captures its stack for leak reports. Applies to
+     * connections borrowed from then on.
+     * @param recordBorrowSites true to capture borrow stacks
+     */
+    public void setRecordBorrowSites(boolean recordBorrowSites) {
+        this.recordBorrowSites = recordBorrowSites;
+    }
+
+    /**
+     * Takes a snapshot of the pool counters.
+     * @return The current statistics
+     */
+    public Stats getStats() {
+        int idleCount;
+        synchronized (this) {
+            idleCount = idle.size();
+        }
+        return new Stats(leased.size(), idleCount, maxSize, borrowCount.get(), totalWaitNanos.get(),
+                maxWaitNanos.get(), createdCount.get(), evictedCount.get(), leakCount.get());
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // Nothing useful to do with a failure while discarding
+        }
+    }
+
+    /** A parked connection and the time it was returned */
+    private static class IdleConnection {
+        final Connection connection;
+        final long idleSince;
+
+        IdleConnection(Connection connection, long idleSince) {
+            this.connection = connection;
+            this.idleSince = idleSince;
+        }
+    }
+
+    /**
+     * One borrow of a connection. Forwards calls to the real connection and
+     * turns close() into a return to the pool.
+     */
+    private class Lease implements InvocationHandler {
+        final Connection connection;
+        final long borrowedAt = System.nanoTime();
+        // Null unless borrow sites are recorded
+        final Throwable borrowSite = recordBorrowSites ? new Throwable("Connection borrowed here") : null;
+        Connection proxy;
+        // Set once by the first close(); a second close must not return the connection again
+        final AtomicBoolean returned = new AtomicBoolean();
+        volatile boolean reportedLeak = false;
+
+        Lease(Connection connection) {
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+            case "close":
+                if (returned.compareAndSet(false, true)) {
+                    release(this);
+                }
+                return null;
+            case "isClosed":
+                return returned.get() || connection.isClosed();
+            case "equals":
+                return proxy == args[0];
+            case "hashCode":
+                return System.identityHashCode(proxy);
+            case "toString":
+                return "Pooled[" + connection + "]";
+            default:
+                if (returned.get()) {
+                    throw new SQLException("Connection has already been returned to the pool");
+                }
+                try {
+                    return method.invoke(connection, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+
+    /**
+     * A point-in-time view of the pool counters.
+     */
+    public static class Stats {
+        private final int active;
+        private final int idle;
+        private final int maxSize;
+        private final long borrowCount;
+        private final long totalWaitNanos;
+        private final long maxWaitNanos;
+        private final long created;
+        private final long evicted;
+        private final long leaks;
+
+        Stats(int active, int idle, int maxSize, long borrowCount, long totalWaitNanos, long maxWaitNanos,
+                long created, long evicted, long leaks) {
+            this.active = active;
+            this.idle = idle;
+            this.maxSize = maxSize;
+            this.borrowCount = borrowCount;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.created = created;
+            this.evicted = evicted;
+            this.leaks = leaks;
+        }
+
+        /** @return Connections currently borrowed */
+        public int getActive() { return active; }
+
+        /** @return Open connections waiting to be borrowed */
+        public int getIdle() { return idle; }
+
+        /** @return The maximum number of open connections */
+        public int getMaxSize() { return maxSize; }
+
+        /** @return Total number of borrows */
+        public long getBorrowCount() { return borrowCount; }
+
+        /** @return Total time borrowers spent waiting, in milliseconds */
+        public double getTotalWaitMillis() { return totalWaitNanos / 1_000_000.0; }
+
+        /** @return Average wait per borrow, in milliseconds */
+        public double getAverageWaitMillis() {
+            return borrowCount == 0 ? 0 : totalWaitNanos / 1_000_000.0 / borrowCount;
+        }
+
+        /** @return Longest single wait, in milliseconds */
+        public double getMaxWaitMillis() { return maxWaitNanos / 1_000_000.0; }
+
+        /** @return Physical connections opened */
+        public long getCreated() { return created; }
+
+        /** @return Connections closed for being idle or invalid */
+        public long getEvicted() { return evicted; }
+
+        /** @return Leases reported as possible leaks */
+        public long getLeaks() { return leaks; }
+
+        @Override
+        public String toString() {
+            return String.format("active=%d idle=%d max=%d borrows=%d avgWait=%.3fms maxWait=%.3fms created=%d evicted=%d leaks=%d",
+                    active, idle, maxSize, borrowCount, getAverageWaitMillis(), getMaxWaitMillis(), created, evicted,
+                    leaks);
+        }
+    }
+}
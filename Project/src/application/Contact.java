@@ -0,0 +1,56 @@
+package application;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * The Contact class is one entry of a user's contact list: someone the user
+ * has exchanged private messages with, summed over all of their threads.
+ * DatabaseHelper.loadContacts() reads the whole list with one joined query.
+ */
+public class Contact {
+    private final UUID uuid;
+    private final String userName;
+    private final LocalDate lastMessageDate;
+    private final int unreadCount;
+
+    /**
+     * Constructs a contact as read from the database.
+     *
+     * @param uuid            The contact's UUID
+     * @param userName        The contact's login name, or null if the account no longer exists
+     * @param lastMessageDate Date of the latest message between the two users
+     * @param unreadCount     Messages from the contact the user has not read
+     */
+    public Contact(UUID uuid, String userName, LocalDate lastMessageDate, int unreadCount) {
+        this.uuid = uuid;
+        this.userName = userName;
+        this.lastMessageDate = lastMessageDate;
+        this.unreadCount = unreadCount;
+    }
+
+    /** @return The contact's UUID */
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    /** @return The contact's login name, or null if the account no longer exists */
+    public String getUserName() {
+        return userName;
+    }
+
+    /** @return Date of the latest message between the two users, or null if there is none */
+    public LocalDate getLastMessageDate() {
+        return lastMessageDate;
+    }
+
+    /** @return Messages from the contact the user has not read */
+    public int getUnreadCount() {
+        return unreadCount;
+    }
+
+    @Override
+    public String toString() {
+        return (userName != null ? userName : uuid) + (unreadCount > 0 ? " (" + unreadCount + " unread)" : "");
+    }
+}
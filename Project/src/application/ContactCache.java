@@ -0,0 +1,148 @@
+package application;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The ContactCache class keeps each recently active user's contact list in
+ * memory, so redrawing the contact sidebar does not query the database until
+ * a message to or from the user is saved, deleted or read. Like UserCache,
+ * there is one cache per database URL, shared by every DatabaseHelper.
+ *
+ * <p>A list loaded while a write was committing could be older than the
+ * write's invalidation. To keep such a list out, loaders take a generation
+ * number before querying, and put() ignores the list if any user was
+ * invalidated since.</p>
+ */
+public class ContactCache {
+    public static final int DEFAULT_MAX_USERS = 200;
+    public static final long DEFAULT_TTL_MILLIS = 60_000;
+
+    private static final Map<String, ContactCache> CACHES = new ConcurrentHashMap<>();
+
+    /** A cached list and when it was loaded */
+    private static final class Entry {
+        final List<Contact> contacts;
+        final long loadedNanos;
+
+        Entry(List<Contact> contacts, long loadedNanos) {
+            this.contacts = contacts;
+            this.loadedNanos = loadedNanos;
+        }
+    }
+
+    private final int maxUsers;
+    private volatile long ttlNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TTL_MILLIS);
+
+    /** Contact lists by user in access order, least recently used first; guarded by this */
+    private final LinkedHashMap<UUID, Entry> byUser;
+
+    /** Bumped by every invalidation; guarded by this */
+    private long generation;
+
+    /**
+     * Gets the shared cache for a database URL, creating it on first use.
+     *
+     * @param url The JDBC URL
+     * @return The cache for that URL
+     */
+    public static ContactCache forUrl(String url) {
+        return CACHES.computeIfAbsent(url, u -> new ContactCache(DEFAULT_MAX_USERS));
+    }
+
+    /**
+     * Creates a standalone cache.
+     *
+     * @param maxUsers The largest number of contact lists kept
+     */
+    public ContactCache(int maxUsers) {
+        if (maxUsers < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1: " + maxUsers);
+        }
+        this.maxUsers = maxUsers;
+        this.byUser = new LinkedHashMap<UUID, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                return size() > ContactCache.this.maxUsers;
+            }
+        };
+    }
+
+    /**
+     * Sets how long a list is served before it is reloaded, bounding how stale
+     * a list can get when another process writes messages.
+     * @param ttlMillis The time-to-live in milliseconds
+     */
+    public void setTtlMillis(long ttlMillis) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * Gets a user's cached contact list.
+     *
+     * @param user The user
+     * @return The unmodifiable list, or null if it is not cached or has expired
+     */
+    public synchronized List<Contact> get(UUID user) {
+        Entry entry = byUser.get(user);
+        if (entry != null && System.nanoTime() - entry.loadedNanos > ttlNanos) {
+            byUser.remove(user);
+            return null;
+        }
+        return entry == null ? null : entry.contacts;
+    }
+
+    /**
+     * Gets the generation to pass to put() for a list about to be loaded.
+     * @return The current generation
+     */
+    public synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Caches a contact list just read from the database, unless an
+     * invalidation happened after its load began.
+     *
+     * @param user       The user the list belongs to
+     * @param contacts   The loaded list
+     * @param generation The value of generation() taken before the load
+     * @return The list as cached, unmodifiable
+     */
+    public synchronized List<Contact> put(UUID user, List<Contact> contacts, long generation) {
+        List<Contact> cached = Collections.unmodifiableList(contacts);
+        if (generation == this.generation) {
+            byUser.put(user, new Entry(cached, System.nanoTime()));
+        }
+        return cached;
+    }
+
+    /**
+     * Drops a user's list after a message to or from them changed.
+     * @param user The user
+     */
+    public synchronized void invalidate(UUID user) {
+        generation++;
+        byUser.remove(user);
+    }
+
+    /**
+     * Drops every cached list, for example after the tables were reset.
+     */
+    public synchronized void invalidateAll() {
+        generation++;
+        byUser.clear();
+    }
+
+    /** @return Contact lists currently cached */
+    public synchronized int size() {
+        return byUser.size();
+    }
+}
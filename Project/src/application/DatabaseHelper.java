@@ -3,14 +3,26 @@ package application;
 import java.sql.*;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -28,9 +40,38 @@ public class DatabaseHelper {
 	static final String USER = "sa";
 	static final String PASS = "";
 
-	private Connection connection = null;
-	private Statement statement = null;
-	// PreparedStatement pstmt
+	// Database URLs whose schema has already been created in this process
+	private static final Set<String> SCHEMA_READY = ConcurrentHashMap.newKeySet();
+
+	// Connections are borrowed from the shared pool per operation
+	private ConnectionPool pool = null;
+
+	// Profiles of recently looked-up users, shared by every helper on DB_URL
+	private UserCache userCache = null;
+
+	// Contact lists of recently active users, shared by every helper on DB_URL
+	private ContactCache contactCache = null;
+
+	// Pushes committed message changes to open dialogs, shared by every helper on DB_URL
+	private MessageBus messageBus = null;
+
+	// Number of rows sent to the driver per executeBatch() call in bulk writes
+	private int batchSize = 500;
+
+	// Binds one row's values to a reused prepared statement
+	private interface RowBinder<T> {
+		void bind(PreparedStatement pstmt, T row) throws SQLException;
+	}
+
+	// Maps the current row of a result set to an object
+	private interface RowReader<T> {
+		T read(ResultSet rs) throws SQLException;
+	}
+
+	// Work done on a connection inside one transaction; returns rows written
+	private interface TransactionWork {
+		int run(Connection conn) throws SQLException;
+	}
 
 	public DatabaseHelper() {
 		try {
@@ -52,11 +93,21 @@ public class DatabaseHelper {
 	public int ResetHard(String URL) {
 		if (URL.equals(DB_URL)) {
 			System.out.println("WARNING: Attempting to reset the database using DROP ALL OBJECTS...");
-			try {
+			try (Connection conn = getConnection(); Statement statement = conn.createStatement()) {
+				// Drop the full-text index first so H2 forgets its cached word list
+				try (ResultSet rs = statement.executeQuery(
+						"SELECT COUNT(*) FROM INFORMATION_SCHEMA.SCHEMATA WHERE SCHEMA_NAME = 'FT'")) {
+					rs.next();
+					if (rs.getInt(1) > 0) {
+						statement.execute("CALL FT_DROP_ALL()");
+					}
+				}
 				// Use H2's specific command for dropping everything
 				statement.execute("DROP ALL OBJECTS");
+				userCache.invalidateAll();
+				contactCache.invalidateAll();
 				System.out.println("Database reset successfully. All objects dropped.");
-				createTables();
+				createTables(conn);
 			} catch (SQLException e) {
 				System.err.println("Error during database reset: " + e.getMessage());
 			}
@@ -66,22 +117,75 @@ public class DatabaseHelper {
 
 	}
 
+	/**
+	 * Attaches this helper to the shared connection pool for DB_URL. The schema
+	 * is created only the first time a URL is used in the process, so creating
+	 * a DatabaseHelper for a dialog costs neither a new connection nor DDL.
+	 */
 	public void connectToDatabase() throws SQLException {
 		try {
 			Class.forName(JDBC_DRIVER); // Load the JDBC driver
-			System.out.println("Connecting to database...");
-			connection = DriverManager.getConnection(DB_URL, USER, PASS);
-			statement = connection.createStatement();
+			pool = ConnectionPool.forUrl(DB_URL, USER, PASS);
+			userCache = UserCache.forUrl(DB_URL);
+			contactCache = ContactCache.forUrl(DB_URL);
+			messageBus = MessageBus.forUrl(DB_URL);
 			// You can use this command to clear the database and restart from fresh.
 			// statement.execute("DROP ALL OBJECTS");
 
-			createTables();
+			if (!SCHEMA_READY.contains(DB_URL)) {
+				try (Connection conn = pool.getConnection()) {
+					createTables(conn);
+				}
+				SCHEMA_READY.add(DB_URL);
+			}
 		} catch (ClassNotFoundException e) {
 			System.err.println("JDBC Driver not found: " + e.getMessage());
 		}
 	}
 
-	private void createTables() throws SQLException {
+	// Borrows a connection from the shared pool; close it to give it back.
+	private Connection getConnection() throws SQLException {
+		if (pool == null || pool.isClosed()) {
+			connectToDatabase();
+		}
+		if (pool == null) {
+			throw new SQLException("No database connection pool for " + DB_URL);
+		}
+		return pool.getConnection();
+	}
+
+	// Gets a snapshot of the shared pool's active, idle and wait-time counters.
+	public ConnectionPool.Stats getPoolStats() {
+		try {
+			if (pool == null || pool.isClosed()) {
+				connectToDatabase();
+			}
+		} catch (SQLException e) {
+			System.err.println(e.getMessage());
+		}
+		return pool.getStats();
+	}
+
+	// Gets a snapshot of the shared user cache's hit, miss and eviction counters.
+	public UserCache.Stats getUserCacheStats() {
+		return userCache.getStats();
+	}
+
+	/**
+	 * Gets the bus that announces saved, edited and deleted private messages.
+	 * @return The shared bus for DB_URL
+	 */
+	public MessageBus getMessageBus() {
+		return messageBus;
+	}
+
+	private void createTables(Connection conn) throws SQLException {
+		try (Statement statement = conn.createStatement()) {
+			createTables(statement);
+		}
+	}
+
+	private void createTables(Statement statement) throws SQLException {
 		String userTable = "CREATE TABLE IF NOT EXISTS cse360users (" + "id INT AUTO_INCREMENT PRIMARY KEY, "
 				+ "userName VARCHAR(255) UNIQUE, " + "password VARCHAR(255), " + "role INT," + "reputation INT,"
 				+ "uuid VARCHAR(36) UNIQUE," + "trustedReviewers VARCHAR(2048))";
@@ -125,24 +229,255 @@ public class DatabaseHelper {
 			    "status VARCHAR(20), " +
 			    "date DATE)";
 		statement.execute(reviewTable);
+
+		migrateSchema(statement);
+	}
+
+	// Version of the schema this build expects; bump it when adding a migration
+	static final int SCHEMA_VERSION = 8;
+
+	/**
+	 * Brings an existing database up to SCHEMA_VERSION. The tables created above
+	 * are version 1; every later change is a numbered step that runs once and is
+	 * recorded in SchemaVersion, so databases made by older builds are upgraded
+	 * in place instead of being reset.
+	 */
+	private void migrateSchema(Statement statement) throws SQLException {
+		statement.execute("CREATE TABLE IF NOT EXISTS SchemaVersion (version INT PRIMARY KEY, appliedOn TIMESTAMP)");
+		int version = readSchemaVersion(statement);
+
+		if (version < 1) {
+			applyMigration(statement, 1);
+		}
+		if (version < 2) {
+			// Secondary indexes on the foreign-key and lookup columns the helper filters on
+			applyMigration(statement, 2,
+					"CREATE INDEX IF NOT EXISTS idx_answers_question ON Answers(question_uuid)",
+					"CREATE INDEX IF NOT EXISTS idx_message_to ON privateMessage(toUUID)",
+					"CREATE INDEX IF NOT EXISTS idx_message_review ON privateMessage(reviewUUID)",
+					"CREATE INDEX IF NOT EXISTS idx_message_from_to_date ON privateMessage(fromUUID, toUUID, date)",
+					"CREATE INDEX IF NOT EXISTS idx_message_to_from_date ON privateMessage(toUUID, fromUUID, date)",
+					"CREATE INDEX IF NOT EXISTS idx_review_answer ON Review(answerId)",
+					"CREATE INDEX IF NOT EXISTS idx_review_question ON Review(questionId)");
+		}
+		if (version < 3) {
+			// H2's native full-text index over the searchable text; triggers keep it current
+			applyMigration(statement, 3,
+					"CREATE ALIAS IF NOT EXISTS FT_INIT FOR 'org.h2.fulltext.FullText.init'",
+					"CALL FT_INIT()",
+					"CALL FT_CREATE_INDEX('PUBLIC', 'QUESTIONS', 'TITLE,TEXTBODY')",
+					"CALL FT_CREATE_INDEX('PUBLIC', 'ANSWERS', 'TEXTBODY')",
+					"CALL FT_CREATE_INDEX('PUBLIC', 'REVIEW', 'CONTENT')",
+					"CALL FT_CREATE_INDEX('PUBLIC', 'PRIVATEMESSAGE', 'TEXTBODY')");
+		}
+		if (version < 4) {
+			// (date, id) keys for keyset paging, so each page starts with an index seek
+			applyMigration(statement, 4,
+					"CREATE INDEX IF NOT EXISTS idx_questions_date_id ON Questions(date, id)",
+					"CREATE INDEX IF NOT EXISTS idx_answers_date_id ON Answers(date, id)",
+					"CREATE INDEX IF NOT EXISTS idx_review_date_id ON Review(date, id)",
+					"CREATE INDEX IF NOT EXISTS idx_message_date_id ON privateMessage(date, id)");
+		}
+		if (version < 5) {
+			// One row per vote instead of comma-joined voter lists, with the totals kept on the answer.
+			// Altering Answers invalidates its full-text index, so it is rebuilt afterwards
+			statement.execute("CALL FT_DROP_INDEX('PUBLIC', 'ANSWERS')");
+			statement.execute("CREATE TABLE IF NOT EXISTS AnswerVotes (answer_uuid VARCHAR(36), voter_uuid VARCHAR(36), "
+					+ "direction TINYINT NOT NULL, PRIMARY KEY (answer_uuid, voter_uuid))");
+			statement.execute("ALTER TABLE Answers ADD COLUMN IF NOT EXISTS upvotes INT DEFAULT 0 NOT NULL");
+			statement.execute("ALTER TABLE Answers ADD COLUMN IF NOT EXISTS downvotes INT DEFAULT 0 NOT NULL");
+			copyLegacyVotes(statement.getConnection());
+			applyMigration(statement, 5,
+					"UPDATE Answers a SET "
+							+ "upvotes = (SELECT COUNT(*) FROM AnswerVotes v WHERE v.answer_uuid = a.uuid AND v.direction = 1), "
+							+ "downvotes = (SELECT COUNT(*) FROM AnswerVotes v WHERE v.answer_uuid = a.uuid AND v.direction = -1)",
+					"ALTER TABLE Answers DROP COLUMN IF EXISTS upvotedBy",
+					"ALTER TABLE Answers DROP COLUMN IF EXISTS downvotedBy",
+					"CALL FT_CREATE_INDEX('PUBLIC', 'ANSWERS', 'TEXTBODY')");
+		}
+		if (version < 6) {
+			// Net score stored with each answer and indexed with reputation for the leaderboards
+			statement.execute("CALL FT_DROP_INDEX('PUBLIC', 'ANSWERS')");
+			applyMigration(statement, 6,
+					"ALTER TABLE Answers ADD COLUMN IF NOT EXISTS score INT GENERATED ALWAYS AS (upvotes - downvotes)",
+					"CREATE INDEX IF NOT EXISTS idx_answers_score ON Answers(score DESC, id)",
+					"CREATE INDEX IF NOT EXISTS idx_users_reputation ON cse360users(reputation)",
+					"CALL FT_CREATE_INDEX('PUBLIC', 'ANSWERS', 'TEXTBODY')");
+		}
+		if (version < 7) {
+			// Conversation threads keyed by (review, participant pair) with stored counters,
+			// and each user's unread total; existing messages are grouped and count as read
+			statement.execute("CALL FT_DROP_INDEX('PUBLIC', 'PRIVATEMESSAGE')");
+			applyMigration(statement, 7,
+					"CREATE TABLE IF NOT EXISTS MessageThreads (id INT AUTO_INCREMENT PRIMARY KEY, "
+							+ "reviewUUID VARCHAR(36) NOT NULL, userLow VARCHAR(36) NOT NULL, userHigh VARCHAR(36) NOT NULL, "
+							+ "messageCount INT DEFAULT 0 NOT NULL, lastDate DATE, "
+							+ "unreadLow INT DEFAULT 0 NOT NULL, unreadHigh INT DEFAULT 0 NOT NULL, "
+							+ "UNIQUE (reviewUUID, userLow, userHigh))",
+					"CREATE INDEX IF NOT EXISTS idx_threads_low ON MessageThreads(userLow)",
+					"CREATE INDEX IF NOT EXISTS idx_threads_high ON MessageThreads(userHigh)",
+					"ALTER TABLE privateMessage ADD COLUMN IF NOT EXISTS thread_id INT",
+					"ALTER TABLE cse360users ADD COLUMN IF NOT EXISTS unreadMessages INT DEFAULT 0 NOT NULL",
+					"INSERT INTO MessageThreads (reviewUUID, userLow, userHigh, messageCount, lastDate) "
+							+ "SELECT COALESCE(reviewUUID, ''), LEAST(fromUUID, toUUID), GREATEST(fromUUID, toUUID), COUNT(*), MAX(date) "
+							+ "FROM privateMessage GROUP BY COALESCE(reviewUUID, ''), LEAST(fromUUID, toUUID), GREATEST(fromUUID, toUUID)",
+					"UPDATE privateMessage m SET thread_id = (SELECT t.id FROM MessageThreads t "
+							+ "WHERE t.reviewUUID = COALESCE(m.reviewUUID, '') "
+							+ "AND t.userLow = LEAST(m.fromUUID, m.toUUID) AND t.userHigh = GREATEST(m.fromUUID, m.toUUID))",
+					"CREATE INDEX IF NOT EXISTS idx_message_thread_id ON privateMessage(thread_id, id)",
+					"CALL FT_CREATE_INDEX('PUBLIC', 'PRIVATEMESSAGE', 'TEXTBODY')");
+		}
+		if (version < 8) {
+			// Keyset paging orders and compares on (date, id), which skips rows without a date,
+			// so undated rows are moved to the start of the order and dates become required
+			statement.execute("CALL FT_DROP_INDEX('PUBLIC', 'QUESTIONS')");
+			statement.execute("CALL FT_DROP_INDEX('PUBLIC', 'ANSWERS')");
+			statement.execute("CALL FT_DROP_INDEX('PUBLIC', 'REVIEW')");
+			statement.execute("CALL FT_DROP_INDEX('PUBLIC', 'PRIVATEMESSAGE')");
+			applyMigration(statement, 8,
+					"UPDATE Questions SET date = DATE '0001-01-01' WHERE date IS NULL",
+					"UPDATE Answers SET date = DATE '0001-01-01' WHERE date IS NULL",
+					"UPDATE Review SET date = DATE '0001-01-01' WHERE date IS NULL",
+					"UPDATE privateMessage SET date = DATE '0001-01-01' WHERE date IS NULL",
+					"ALTER TABLE Questions ALTER COLUMN date SET NOT NULL",
+					"ALTER TABLE Answers ALTER COLUMN date SET NOT NULL",
+					"ALTER TABLE Review ALTER COLUMN date SET NOT NULL",
+					"ALTER TABLE privateMessage ALTER COLUMN date SET NOT NULL",
+					"CALL FT_CREATE_INDEX('PUBLIC', 'QUESTIONS', 'TITLE,TEXTBODY')",
+					"CALL FT_CREATE_INDEX('PUBLIC', 'ANSWERS', 'TEXTBODY')",
+					"CALL FT_CREATE_INDEX('PUBLIC', 'REVIEW', 'CONTENT')",
+					"CALL FT_CREATE_INDEX('PUBLIC', 'PRIVATEMESSAGE', 'TEXTBODY')");
+		}
+	}
+
+	// Moves the comma-joined voter lists of schema version 4 into AnswerVotes; safe to repeat
+	private void copyLegacyVotes(Connection conn) throws SQLException {
+		try (ResultSet columns = conn.getMetaData().getColumns(null, "PUBLIC", "ANSWERS", "UPVOTEDBY")) {
+			if (!columns.next()) {
+				return; // already moved
+			}
+		}
+		String select = "SELECT uuid, upvotedBy, downvotedBy FROM Answers WHERE upvotedBy IS NOT NULL OR downvotedBy IS NOT NULL";
+		try (Statement statement = conn.createStatement();
+				ResultSet rs = statement.executeQuery(select);
+				PreparedStatement merge = conn.prepareStatement(MERGE_VOTE)) {
+			while (rs.next()) {
+				String answer = rs.getString("uuid");
+				for (String[] column : new String[][] { { "upvotedBy", "1" }, { "downvotedBy", "-1" } }) {
+					String voters = rs.getString(column[0]);
+					if (voters == null || voters.isEmpty()) {
+						continue;
+					}
+					for (String voter : voters.split(",")) {
+						merge.setString(1, answer);
+						merge.setString(2, voter);
+						merge.setInt(3, Integer.parseInt(column[1]));
+						merge.addBatch();
+					}
+				}
+			}
+			merge.executeBatch();
+		}
+	}
+
+	private int readSchemaVersion(Statement statement) throws SQLException {
+		try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(version), 0) FROM SchemaVersion")) {
+			return rs.next() ? rs.getInt(1) : 0;
+		}
+	}
+
+	// Runs one migration step's statements and records its version number
+	private void applyMigration(Statement statement, int version, String... ddl) throws SQLException {
+		for (String sql : ddl) {
+			statement.execute(sql);
+		}
+		statement.execute("INSERT INTO SchemaVersion (version, appliedOn) VALUES (" + version + ", CURRENT_TIMESTAMP)");
+		System.out.println("Database schema migrated to version " + version);
+	}
+
+	// Gets the schema version recorded in the connected database.
+	public int getSchemaVersion() throws SQLException {
+		try (Connection conn = getConnection(); Statement statement = conn.createStatement()) {
+			return readSchemaVersion(statement);
+		}
+	}
+
+	// Matches the access-path comment H2 writes into an EXPLAIN plan for each table
+	private static final Pattern PLAN_ACCESS = Pattern.compile("/\\* (PUBLIC\\.[\\w.]+)(: [^*]*)? \\*/");
+
+	/**
+	 * Runs EXPLAIN on every keyed lookup the helper issues and returns the plans
+	 * that read a whole table, either as a table scan or as an index walk with
+	 * no condition. An empty list means every lookup is served by an index; the
+	 * JUnit suite fails if a query change or a missing migration breaks that.
+	 */
+	public List<String> findTableScans() throws SQLException {
+		List<String> scans = new ArrayList<>();
+		try (Connection conn = getConnection()) {
+			for (String query : indexedQueries()) {
+				try (PreparedStatement pstmt = conn.prepareStatement("EXPLAIN " + query)) {
+					int params = pstmt.getParameterMetaData().getParameterCount();
+					for (int i = 1; i <= params; i++) {
+						pstmt.setString(i, UUID.randomUUID().toString());
+					}
+					try (ResultSet rs = pstmt.executeQuery()) {
+						String plan = rs.next() ? rs.getString(1) : "";
+						Matcher access = PLAN_ACCESS.matcher(plan);
+						while (access.find()) {
+							if (access.group(1).endsWith(".tableScan") || access.group(2) == null) {
+								scans.add(query + " -> " + access.group(1));
+							}
+						}
+					}
+				}
+			}
+		}
+		return scans;
+	}
+
+	// The helper's lookups that must stay index-backed
+	private static List<String> indexedQueries() {
+		return List.of(
+				SELECT_PROFILE_BY_NAME, SELECT_PROFILE_BY_UUID, AUTHENTICATE, INSERT_USER_IF_ABSENT,
+				"SELECT userName FROM cse360users WHERE userName IN (?, ?, ?)",
+				"SELECT reputation FROM cse360users WHERE uuid = ?", ADD_REPUTATION, ADD_REPUTATION_BATCH,
+				LOCK_ANSWER, SELECT_VOTE, ADD_VOTE_COUNTS,
+				"SELECT uuid, reputation FROM cse360users WHERE uuid IN (?, ?, ?)",
+				REHASH_PASSWORD,
+				"UPDATE InvitationCodes SET isUsed = TRUE WHERE code = ? AND isUsed = FALSE",
+				"SELECT * FROM Answers WHERE question_uuid = ?", SELECT_INDEXED_WORDS,
+				SELECT_QUESTIONS_BY_UUID + " IN (?, ?, ?) ORDER BY id", SELECT_ANSWERS_BY_QUESTIONS + " IN (?, ?, ?) ORDER BY id",
+				DELETE_QUESTION, DELETE_ANSWER,
+				SELECT_MESSAGES_FROM, SELECT_MESSAGES_TO, SELECT_MESSAGES_INCLUDING, SELECT_CONVERSATION,
+				SELECT_CONTACTS, SELECT_MESSAGE_PARTICIPANTS, SELECT_MESSAGE, SELECT_MESSAGES_BY_REVIEW,
+				COUNT_THREAD_MESSAGE, COUNT_UNREAD, SELECT_THREAD, SELECT_THREADS_OF_USER, LOCK_THREAD,
+				SELECT_THREAD_MESSAGES, SELECT_UNREAD,
+				UNCOUNT_THREAD_MESSAGE, COUNT_LATER_TO_RECIPIENT, UNCOUNT_UNREAD,
+				SELECT_REVIEWS_BY_ANSWER, SELECT_REVIEWS_BY_QUESTION,
+				String.format(SELECT_PAGE_AFTER, "Questions"), String.format(SELECT_PAGE_AFTER, "Answers"),
+				String.format(SELECT_PAGE_AFTER, "Review"), String.format(SELECT_PAGE_AFTER, "privateMessage"));
 	}
 
 	// Check if the database is empty
 	public boolean isDatabaseEmpty() throws SQLException {
 		String query = "SELECT COUNT(*) AS count FROM cse360users";
-		ResultSet resultSet = statement.executeQuery(query);
-		if (resultSet.next()) {
-			return resultSet.getInt("count") == 0;
+		try (Connection conn = getConnection();
+				Statement statement = conn.createStatement();
+				ResultSet resultSet = statement.executeQuery(query)) {
+			if (resultSet.next()) {
+				return resultSet.getInt("count") == 0;
+			}
 		}
 		return true;
 	}
 
-	// Registers a new user in the database.
+	// Registers a new user in the database. Hashing is CPU-heavy; UI code should call registerAsync.
 	public void register(User user) throws SQLException {
 		String insertUser = "INSERT INTO cse360users (userName, password, role, uuid, reputation, trustedReviewers) VALUES (?, ?, ?, ?, ?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(insertUser)) {
+		String hash = PasswordHasher.getDefault().hash(user.getPassword()); // before borrowing a connection
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(insertUser)) {
 			pstmt.setString(1, user.getUserName());
-			pstmt.setString(2, user.getPassword());
+			pstmt.setString(2, hash);
 			pstmt.setInt(3, user.getRoleInt());
 			pstmt.setString(4, user.getID().toString());
 			pstmt.setInt(5, user.getReputation()); // Initialize to
@@ -151,14 +486,32 @@ public class DatabaseHelper {
 			pstmt.setString(6, trustedString);
 			pstmt.executeUpdate();
 		}
+		invalidateUser(user.getID(), user.getUserName());
+	}
+
+	/**
+	 * Runs register on PasswordHasher's bounded pool so the JavaFX thread
+	 * stays responsive while the password is hashed. Continue on the JavaFX
+	 * thread with Platform.runLater before touching the UI.
+	 *
+	 * @param user The user to register, with the plain-text password
+	 * @return Future of the registered user; it completes exceptionally if
+	 *         the insert fails or the pool is full
+	 */
+	public CompletableFuture<User> registerAsync(User user) {
+		return PasswordHasher.supplyAsync(() -> {
+			register(user);
+			return user;
+		});
 	}
 
 	// Registers a new reviewer in the database.
 	public void register(Reviewer reviewer) throws SQLException {
 		String insertUser = "INSERT INTO cse360users (userName, password, role, uuid,  reputation) VALUES (?, ?, ?, ?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(insertUser)) {
+		String hash = PasswordHasher.getDefault().hash(reviewer.getPassword()); // before borrowing a connection
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(insertUser)) {
 			pstmt.setString(1, reviewer.getUserName());
-			pstmt.setString(2, reviewer.getPassword());
+			pstmt.setString(2, hash);
 			pstmt.setInt(3, reviewer.getRoleInt());
 			pstmt.setString(4, reviewer.getID().toString());
 			pstmt.setInt(5, reviewer.getReputation());
@@ -167,18 +520,97 @@ public class DatabaseHelper {
 			pstmt.setString(9, trustedString);
 			pstmt.executeUpdate();
 		}
+		invalidateUser(reviewer.getID(), reviewer.getUserName());
 	}
 
-	// Retrieves the UUID of a user from the database using their UserName.
-	public UUID getUserUUID(String userName) {
-		String query = "SELECT uuid FROM cse360users WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, userName);
-			ResultSet rs = pstmt.executeQuery();
+	// Inserts a user unless the userName was taken since the caller checked
+	private static final String INSERT_USER_IF_ABSENT = "INSERT INTO cse360users (userName, password, role, uuid, reputation, trustedReviewers) "
+			+ "SELECT CAST(? AS VARCHAR(255)), CAST(? AS VARCHAR(255)), CAST(? AS INT), CAST(? AS VARCHAR(36)), CAST(? AS INT), CAST(? AS VARCHAR(2048)) "
+			+ "WHERE NOT EXISTS (SELECT 1 FROM cse360users WHERE userName = ?)";
 
-			if (rs.next()) {
-				return UUID.fromString(rs.getString("uuid")); // UUID from string
+	/**
+	 * Registers many users in one transaction with JDBC batches. Passwords are
+	 * hashed on PasswordHasher's bounded pool before the transaction starts, so
+	 * no connection is held while hashing. A user whose userName already exists is skipped, not
+	 * overwritten.
+	 *
+	 * @param users  The users to register, with plain-text passwords
+	 * @param hasher The hasher for their passwords
+	 * @return The users that were inserted, in input order
+	 * @throws SQLException if the batch fails; nothing is inserted then
+	 */
+	public List<User> registerAll(List<User> users, PasswordHasher hasher) throws SQLException {
+		List<String> hashes = hasher.hashAll(users.stream().map(User::getPassword).toList());
+		List<Integer> rows = new ArrayList<>(users.size());
+		for (int i = 0; i < users.size(); i++) {
+			rows.add(i);
+		}
+		int[][] counts = new int[1][];
+		try {
+			inTransaction(conn -> {
+				counts[0] = executeBatchCounts(conn, INSERT_USER_IF_ABSENT, rows, (pstmt, i) -> {
+					User user = users.get(i);
+					pstmt.setString(1, user.getUserName());
+					pstmt.setString(2, hashes.get(i));
+					pstmt.setInt(3, user.getRoleInt());
+					pstmt.setString(4, user.getID().toString());
+					pstmt.setInt(5, user.getReputation());
+					pstmt.setString(6, user.getTrustedReviewers().isEmpty() ? null
+							: String.join(",", user.getTrustedReviewers().stream().map(UUID::toString).toList()));
+					pstmt.setString(7, user.getUserName());
+				});
+				return countRows(counts[0]);
+			});
+		} finally {
+			for (User user : users) {
+				invalidateUser(user.getID(), user.getUserName());
+			}
+		}
+		List<User> inserted = new ArrayList<>();
+		for (int i = 0; i < users.size(); i++) {
+			if (counts[0][i] > 0 || counts[0][i] == Statement.SUCCESS_NO_INFO) {
+				inserted.add(users.get(i));
+			}
+		}
+		return inserted;
+	}
+
+	/**
+	 * Finds which of the given userNames are already registered, with one query
+	 * per MAX_IN_PARAMS names instead of one doesUserExist call per name.
+	 *
+	 * @param userNames The names to check; duplicates are checked once
+	 * @return The names that exist
+	 * @throws SQLException if a lookup fails
+	 */
+	public Set<String> findExistingUserNames(Collection<String> userNames) throws SQLException {
+		Set<String> existing = new HashSet<>();
+		List<String> distinct = new ArrayList<>(new LinkedHashSet<>(userNames));
+		try (Connection conn = getConnection()) {
+			for (int from = 0; from < distinct.size(); from += MAX_IN_PARAMS) {
+				List<String> chunk = distinct.subList(from, Math.min(from + MAX_IN_PARAMS, distinct.size()));
+				String sql = "SELECT userName FROM cse360users WHERE userName IN ("
+						+ String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+				try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+					for (int i = 0; i < chunk.size(); i++) {
+						pstmt.setString(i + 1, chunk.get(i));
+					}
+					try (ResultSet rs = pstmt.executeQuery()) {
+						while (rs.next()) {
+							existing.add(rs.getString("userName"));
+						}
+					}
+				}
 			}
+		}
+		return existing;
+	}
+
+	// Retrieves the UUID of a user from the database using their UserName.
+	public UUID getUserUUID(String userName) {
+		try {
+			UserCache.Profile profile = profileByName(userName);
+			return profile != null ? profile.getUuid() : null;
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
@@ -187,13 +619,10 @@ public class DatabaseHelper {
 
 	// Retrieves the reputation of a user from the database using their UserName.
 	public int getReputationByUUID(UUID uuid) {
-		String query = "SELECT reputation FROM cse360users WHERE uuid = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, uuid.toString());
-			ResultSet rs = pstmt.executeQuery();
-
-			if (rs.next()) {
-				return rs.getInt("reputation"); // UUID from string
+		try {
+			UserCache.Profile profile = profileByUuid(uuid);
+			if (profile != null) {
+				return profile.getReputation();
 			}
 		} catch (SQLException e) {
 			e.printStackTrace();
@@ -203,19 +632,10 @@ public class DatabaseHelper {
 
 	// Retrieves the reputation of a user from the database using their UserName.
 	public List<UUID> getTrustedByUUID(UUID uuid) {
-		String query = "SELECT trustedReviewers FROM cse360users WHERE uuid = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, uuid.toString());
-			ResultSet rs = pstmt.executeQuery();
-
-			if (rs.next()) {
-				String downvotedByStr = rs.getString("trustedReviewers");
-				List<UUID> newList = new ArrayList<>();
-				if (downvotedByStr != null && !downvotedByStr.isEmpty()) {
-					newList = Arrays.stream(downvotedByStr.split(",")).map(UUID::fromString)
-							.collect(Collectors.toList());
-				}
-				return newList; // UUID from string
+		try {
+			UserCache.Profile profile = profileByUuid(uuid);
+			if (profile != null) {
+				return new ArrayList<>(profile.getTrustedReviewers()); // caller's own copy
 			}
 		} catch (SQLException e) {
 			e.printStackTrace();
@@ -226,7 +646,7 @@ public class DatabaseHelper {
 	public int setTrustedByUUID(UUID uuid, List<UUID> trustedReviewers) {
 		String query = "UPDATE cse360users SET trustedReviewers = ? WHERE uuid = ?";
 
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			String trustedReviewersStr = null; // Default to null if the list is empty or null
 			if (trustedReviewers != null && !trustedReviewers.isEmpty()) {
 				trustedReviewersStr = trustedReviewers.stream().map(UUID::toString).collect(Collectors.joining(","));
@@ -235,7 +655,9 @@ public class DatabaseHelper {
 			pstmt.setString(1, trustedReviewersStr); // Set to null or comma-separated string
 			pstmt.setString(2, uuid.toString());
 
-			return pstmt.executeUpdate(); // Returns the number of rows updated (1 if successful, 0 if user not found)
+			int updated = pstmt.executeUpdate(); // Returns the number of rows updated (1 if successful, 0 if user not found)
+			userCache.invalidate(uuid);
+			return updated;
 
 		} catch (SQLException e) {
 			e.printStackTrace();
@@ -245,29 +667,81 @@ public class DatabaseHelper {
 
 	// Validates a user's login credentials.
 	public boolean login(User user) throws SQLException {
-		String query = "SELECT * FROM cse360users WHERE userName = ? AND password = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, user.getUserName());
-			pstmt.setString(2, user.getPassword());
-//			pstmt.setInt(3, user.getRoleInt());
+		return authenticate(user.getUserName(), user.getPassword()) != null;
+	}
+
+	private static final String AUTHENTICATE = "SELECT uuid, userName, password, role, reputation, trustedReviewers FROM cse360users WHERE userName = ?";
+	private static final String REHASH_PASSWORD = "UPDATE cse360users SET password = ? WHERE uuid = ? AND password = ?";
+
+	/**
+	 * Checks a user's credentials and loads their profile with one indexed
+	 * lookup on userName, so the login screen does not need separate role and
+	 * UUID queries afterwards. The row also refreshes the user cache.
+	 *
+	 * <p>The password is checked with PasswordHasher after the connection is
+	 * returned to the pool. A plain-text password from before hashing, or a
+	 * hash with an outdated iteration count, is replaced after a successful
+	 * login. This is CPU-heavy; UI code should call authenticateAsync.
+	 *
+	 * @param userName The login name entered
+	 * @param password The password entered
+	 * @return The user with role bits, UUID, reputation and trusted reviewers
+	 *         set, or null if there is no such user or the password is wrong
+	 * @throws SQLException if the lookup fails
+	 */
+	public User authenticate(String userName, String password) throws SQLException {
+		UserCache.Profile profile;
+		String stored;
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(AUTHENTICATE)) {
+			pstmt.setString(1, userName);
 			try (ResultSet rs = pstmt.executeQuery()) {
-				return rs.next();
+				if (!rs.next() || rs.getString("uuid") == null) {
+					return null;
+				}
+				profile = readProfile(rs);
+				stored = rs.getString("password");
 			}
 		}
+		userCache.put(profile);
+
+		PasswordHasher hasher = PasswordHasher.getDefault();
+		if (!hasher.verify(password, stored)) {
+			return null;
+		}
+		if (hasher.needsRehash(stored)) {
+			// Only replaces the value just checked, so a concurrent password change wins
+			try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(REHASH_PASSWORD)) {
+				pstmt.setString(1, hasher.hash(password));
+				pstmt.setString(2, profile.getUuid().toString());
+				pstmt.setString(3, stored);
+				pstmt.executeUpdate();
+			}
+		}
+		User user = new User(profile.getUserName(), password, profile.getRole());
+		user.setID(profile.getUuid());
+		user.setReputation(profile.getReputation());
+		user.setTrustedReviewers(new ArrayList<>(profile.getTrustedReviewers()));
+		return user;
+	}
+
+	/**
+	 * Runs authenticate on PasswordHasher's bounded pool so the JavaFX thread
+	 * stays responsive while the password is hashed. Continue on the JavaFX
+	 * thread with Platform.runLater before touching the UI.
+	 *
+	 * @param userName The login name entered
+	 * @param password The password entered
+	 * @return Future of the user, or of null if the credentials are wrong; it
+	 *         completes exceptionally if the lookup fails or the pool is full
+	 */
+	public CompletableFuture<User> authenticateAsync(String userName, String password) {
+		return PasswordHasher.supplyAsync(() -> authenticate(userName, password));
 	}
 
 	// Checks if a user already exists in the database based on their userName.
 	public boolean doesUserExist(String userName) {
-		String query = "SELECT COUNT(*) FROM cse360users WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-
-			pstmt.setString(1, userName);
-			ResultSet rs = pstmt.executeQuery();
-
-			if (rs.next()) {
-				// If the count is greater than 0, the user exists
-				return rs.getInt(1) > 0;
-			}
+		try {
+			return profileByName(userName) != null;
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
@@ -276,13 +750,10 @@ public class DatabaseHelper {
 
 	// Retrieves the role of a user from the database using their UserName.
 	public int getUserRole(String userName) {
-		String query = "SELECT role FROM cse360users WHERE userName = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, userName);
-			ResultSet rs = pstmt.executeQuery();
-
-			if (rs.next()) {
-				return rs.getInt("role"); // Return the role if user exists
+		try {
+			UserCache.Profile profile = profileByName(userName);
+			if (profile != null) {
+				return profile.getRole(); // Return the role if user exists
 			}
 		} catch (SQLException e) {
 			e.printStackTrace();
@@ -290,12 +761,64 @@ public class DatabaseHelper {
 		return 0; // If no user exists or an error occurs
 	}
 
+	// =============================================
+	// code for the user cache
+	// =============================================
+	private static final String SELECT_PROFILE_BY_NAME = "SELECT uuid, userName, role, reputation, trustedReviewers FROM cse360users WHERE userName = ?";
+	private static final String SELECT_PROFILE_BY_UUID = "SELECT uuid, userName, role, reputation, trustedReviewers FROM cse360users WHERE uuid = ?";
+
+	// Reads through the user cache: returns the cached profile or loads and caches it; null if no such user
+	private UserCache.Profile profileByName(String userName) throws SQLException {
+		UserCache.Profile profile = userCache.get(userName);
+		return profile != null ? profile : loadProfile(SELECT_PROFILE_BY_NAME, userName);
+	}
+
+	private UserCache.Profile profileByUuid(UUID uuid) throws SQLException {
+		UserCache.Profile profile = userCache.get(uuid);
+		return profile != null ? profile : loadProfile(SELECT_PROFILE_BY_UUID, uuid.toString());
+	}
+
+	private UserCache.Profile loadProfile(String sql, String key) throws SQLException {
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+			pstmt.setString(1, key);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				if (!rs.next() || rs.getString("uuid") == null) {
+					return null;
+				}
+				UserCache.Profile profile = readProfile(rs);
+				userCache.put(profile);
+				return profile;
+			}
+		}
+	}
+
+	// Maps the profile columns of the current cse360users row
+	private static UserCache.Profile readProfile(ResultSet rs) throws SQLException {
+		String trusted = rs.getString("trustedReviewers");
+		List<UUID> trustedReviewers = new ArrayList<>();
+		if (trusted != null && !trusted.isEmpty()) {
+			trustedReviewers = Arrays.stream(trusted.split(",")).map(UUID::fromString).collect(Collectors.toList());
+		}
+		return new UserCache.Profile(UUID.fromString(rs.getString("uuid")), rs.getString("userName"),
+				rs.getInt("role"), rs.getInt("reputation"), trustedReviewers);
+	}
+
+	// Drops a user whose row was just written, by UUID and by name
+	private void invalidateUser(UUID uuid, String userName) {
+		if (uuid != null) {
+			userCache.invalidate(uuid);
+		}
+		if (userName != null) {
+			userCache.invalidate(userName);
+		}
+	}
+
 	// Generates a new invitation code and inserts it into the database.
 	public String generateInvitationCode() {
 		String code = UUID.randomUUID().toString().substring(0, 4); // Generate a random 4-character code
 		String query = "INSERT INTO InvitationCodes (code) VALUES (?)";
 
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, code);
 			pstmt.executeUpdate();
 		} catch (SQLException e) {
@@ -305,223 +828,686 @@ public class DatabaseHelper {
 		return code;
 	}
 
-	// Validates an invitation code to check if it is unused.
+	// Validates an invitation code to check if it is unused, marking it as used.
+	// Checking and marking is one UPDATE so two registrations cannot share a code.
 	public boolean validateInvitationCode(String code) {
-		String query = "SELECT * FROM InvitationCodes WHERE code = ? AND isUsed = FALSE";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		String query = "UPDATE InvitationCodes SET isUsed = TRUE WHERE code = ? AND isUsed = FALSE";
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, code);
-			ResultSet rs = pstmt.executeQuery();
-			if (rs.next()) {
-				// Mark the code as used
-				markInvitationCodeAsUsed(code);
-				return true;
-			}
+			return pstmt.executeUpdate() > 0;
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
 		return false;
 	}
 
-	// Marks the invitation code as used in the database.
-	private void markInvitationCodeAsUsed(String code) {
-		String query = "UPDATE InvitationCodes SET isUsed = TRUE WHERE code = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, code);
-			pstmt.executeUpdate();
-		} catch (SQLException e) {
-			e.printStackTrace();
+	// =============================================
+	// bulk writes
+	// =============================================
+
+	public int getBatchSize() {
+		return batchSize;
+	}
+
+	// Sets how many rows are sent per executeBatch() call by the bulk writes.
+	public void setBatchSize(int batchSize) {
+		if (batchSize < 1) {
+			throw new IllegalArgumentException("Batch size must be at least 1: " + batchSize);
 		}
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Runs the work in one explicit transaction, committing on success and
+	 * rolling back on any failure, and reports the rows written and the time taken.
+	 */
+	private BatchResult inTransaction(TransactionWork work) throws SQLException {
+		long start = System.nanoTime();
+		try (Connection conn = getConnection()) {
+			conn.setAutoCommit(false);
+			try {
+				int rows = work.run(conn);
+				conn.commit();
+				return new BatchResult(rows, System.nanoTime() - start);
+			} catch (SQLException e) {
+				conn.rollback();
+				throw e;
+			}
+		}
+	}
+
+	/**
+	 * Prepares the statement once and sends the rows with addBatch/executeBatch,
+	 * batchSize rows at a time. Must be called inside inTransaction.
+	 */
+	private <T> int executeBatch(Connection conn, String sql, Collection<? extends T> rows, RowBinder<T> binder)
+			throws SQLException {
+		return countRows(executeBatchCounts(conn, sql, rows, binder));
+	}
+
+	// As executeBatch, but returns the driver's update count for each row, in order
+	private <T> int[] executeBatchCounts(Connection conn, String sql, Collection<? extends T> rows,
+			RowBinder<T> binder) throws SQLException {
+		int[] counts = new int[rows.size()];
+		int done = 0;
+		int pending = 0;
+		try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+			for (T row : rows) {
+				binder.bind(pstmt, row);
+				pstmt.addBatch();
+				if (++pending == batchSize) {
+					done = copyCounts(pstmt.executeBatch(), counts, done);
+					pending = 0;
+				}
+			}
+			if (pending > 0) {
+				copyCounts(pstmt.executeBatch(), counts, done);
+			}
+		}
+		return counts;
+	}
+
+	private static int copyCounts(int[] batch, int[] counts, int offset) {
+		System.arraycopy(batch, 0, counts, offset, batch.length);
+		return offset + batch.length;
+	}
+
+	private static int countRows(int[] updateCounts) {
+		int rows = 0;
+		for (int count : updateCounts) {
+			if (count > 0) {
+				rows += count;
+			} else if (count == Statement.SUCCESS_NO_INFO) {
+				rows++;
+			}
+		}
+		return rows;
+	}
+
+	// Upserts the questions by uuid in one transaction.
+	public BatchResult saveQuestionsBatch(Collection<Question> questions) throws SQLException {
+		BatchResult result = inTransaction(conn -> executeBatch(conn, MERGE_QUESTION, questions, this::bindQuestion));
+		questions.forEach(Post::markClean);
+		return result;
+	}
+
+	// Upserts the answers by uuid in one transaction.
+	public BatchResult saveAnswersBatch(Collection<Answer> answers) throws SQLException {
+		BatchResult result = inTransaction(conn -> executeBatch(conn, MERGE_ANSWER, answers, this::bindAnswer));
+		answers.forEach(Post::markClean);
+		return result;
+	}
+
+	// Upserts the reviews by id in one transaction.
+	public BatchResult saveReviewsBatch(Collection<Review> reviews) throws SQLException {
+		return inTransaction(conn -> executeBatch(conn, MERGE_REVIEW, reviews, this::bindReview));
+	}
+
+	// Inserts the private messages in one transaction.
+	public BatchResult saveMessagesBatch(Collection<privateMessage> messages) throws SQLException {
+		// Threads first, then users, the same lock order markThreadRead uses
+		BatchResult result = inTransaction(conn -> {
+			executeBatch(conn, MERGE_THREAD, messages, (pstmt, message) -> bindThreadKey(pstmt, 1, message));
+			executeBatch(conn, COUNT_THREAD_MESSAGE, messages, this::bindThreadCount);
+			executeBatch(conn, COUNT_UNREAD, messages, (pstmt, message) -> pstmt.setString(1, recipientOf(message)));
+			return executeBatch(conn, INSERT_MESSAGE, messages, this::bindMessage);
+		});
+		List<MessageBus.Event> events = new ArrayList<>(messages.size());
+		for (privateMessage message : messages) {
+			contactCache.invalidate(message.getFromUUID());
+			contactCache.invalidate(message.getToUUID());
+			events.add(new MessageBus.Event(MessageBus.Kind.SAVED, message));
+		}
+		messageBus.publishAll(events);
+		return result;
 	}
 
 //=============================================
 // new code for question
 //=============================================
 
-	public void saveQuestions(Questions questionsList) throws SQLException {
-		// Delete all existing questions from the table
-		String deleteQuestionsQuery = "DELETE FROM Questions";
-		try (PreparedStatement deletePstmt = connection.prepareStatement(deleteQuestionsQuery)) {
-			deletePstmt.executeUpdate();
-			System.out.println("Existing questions deleted from database.");
+	private static final String MERGE_QUESTION = "MERGE INTO Questions (uuid, name, title, textBody, date, chosenAnswer, uuidUSER, UnderReview) KEY (uuid) VALUES (?,?,?,?,?,?,?,?)";
+	private static final String DELETE_QUESTION = "DELETE FROM Questions WHERE uuid = ?";
+
+	/**
+	 * Writes the changes made to a question collection since it was loaded or
+	 * last saved. New and modified questions are upserted by uuid and removed
+	 * questions are deleted, all in one batched transaction. Unchanged rows are
+	 * not touched, so the cost follows the number of edits rather than the table size.
+	 */
+	public BatchResult saveQuestions(Questions questionsList) throws SQLException {
+		List<Question> changed = new ArrayList<>();
+		for (int i = 0; i < questionsList.getSize(); i++) {
+			Question question = questionsList.get(i);
+			if (question.getChangeState() != Post.ChangeState.CLEAN) {
+				changed.add(question);
+			}
+		}
+		List<Question> removed = questionsList.getPendingDeletes();
+		if (changed.isEmpty() && removed.isEmpty()) {
+			return new BatchResult(0, 0);
+		}
+
+		BatchResult result;
+		try {
+			result = inTransaction(conn -> executeBatch(conn, MERGE_QUESTION, changed, this::bindQuestion)
+					+ executeBatch(conn, DELETE_QUESTION, removed, this::bindUuid));
 		} catch (SQLException e) {
-			System.err.println("Error deleting existing questions: " + e.getMessage());
+			System.err.println("Error saving questions: " + e.getMessage());
 			throw e; // Re-throw the exception to indicate failure
 		}
-		for (int i = 0; i < questionsList.getSize(); i++) {
-			saveQuestion(questionsList.get(i)); // Save each question individually
-		}
-		System.out.println("Questions saved to database."); // Confirmation message
+
+		changed.forEach(Post::markClean);
+		questionsList.clearPendingDeletes();
+		System.out.println("Questions saved to database: " + result); // Confirmation message
+		return result;
 	}
 
 	public void saveQuestion(Question question) {
-		String query = "INSERT INTO Questions (uuid, name, title, textBody, date, chosenAnswer, uuidUSER, UnderReview) VALUES (?,?,?,?,?,?,?,?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, question.getID().toString());
-			pstmt.setString(2, question.getName());
-			pstmt.setString(3, question.getTitle());
-			pstmt.setString(4, question.getTextBody());
-			pstmt.setDate(5, Date.valueOf(question.getDate()));
-			pstmt.setString(6, question.getChosenAnswer() != null ? question.getChosenAnswer().toString() : null);
-			pstmt.setString(7, question.getUserUUID().toString());
-			pstmt.setBoolean(8, question.getUnderReview());
-			pstmt.executeUpdate();
+		try {
+			saveQuestionsBatch(List.of(question));
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
 	}
 
+	private void bindQuestion(PreparedStatement pstmt, Question question) throws SQLException {
+		pstmt.setString(1, question.getID().toString());
+		pstmt.setString(2, question.getName());
+		pstmt.setString(3, question.getTitle());
+		pstmt.setString(4, question.getTextBody());
+		pstmt.setDate(5, Date.valueOf(question.getDate()));
+		pstmt.setString(6, question.getChosenAnswer() != null ? question.getChosenAnswer().toString() : null);
+		pstmt.setString(7, question.getUserUUID().toString());
+		pstmt.setBoolean(8, question.getUnderReview());
+	}
+
+	private void bindUuid(PreparedStatement pstmt, Post post) throws SQLException {
+		pstmt.setString(1, post.getID().toString());
+	}
+
 	public Questions loadQuestions() throws SQLException {
 		Questions questionsList = new Questions();
 		String query = "SELECT * FROM Questions";
-		try (PreparedStatement pstmt = connection.prepareStatement(query); ResultSet rs = pstmt.executeQuery()) {
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(query); ResultSet rs = pstmt.executeQuery()) {
+			while (rs.next()) {
+				questionsList.addQuestion(readQuestion(rs));
+			}
+		}
+		return questionsList;
+	}
+
+	/**
+	 * Loads only the first page of questions, oldest first. The returned
+	 * collection remembers where it stopped; pass it to loadMoreQuestions to
+	 * extend it by another page.
+	 *
+	 * @param pageSize Number of questions to load
+	 * @return A window holding at most pageSize questions
+	 */
+	public Questions loadQuestions(int pageSize) throws SQLException {
+		Questions window = new Questions();
+		appendPage(window, loadQuestionsPage(pageSize, null));
+		return window;
+	}
+
+	/**
+	 * Extends a window from loadQuestions(int) with the next page of questions.
+	 *
+	 * @param window   Questions loaded by loadQuestions(int)
+	 * @param pageSize Number of questions to add
+	 * @return Number of questions added; 0 once every question is loaded
+	 */
+	public int loadMoreQuestions(Questions window, int pageSize) throws SQLException {
+		if (!window.hasMorePages()) {
+			return 0;
+		}
+		return appendPage(window, loadQuestionsPage(pageSize, window.getNextPageToken()));
+	}
+
+	/**
+	 * Loads one page of questions in (date, id) order.
+	 *
+	 * @param pageSize  Largest number of questions on the page
+	 * @param pageToken Token from the previous page, or null for the first page
+	 * @return The page, with the token for the page after it
+	 */
+	public Page<Question> loadQuestionsPage(int pageSize, String pageToken) throws SQLException {
+		return loadPage("Questions", pageSize, pageToken, this::readQuestion);
+	}
+
+	// Questions already in the window, such as ones posted since it was opened, are not added twice
+	private int appendPage(Questions window, Page<Question> page) {
+		for (Question question : page.getItems()) {
+			if (window.getByUUID(question.getID()) == null) {
+				window.addQuestion(question);
+			}
+		}
+		window.setNextPageToken(page.getNextToken());
+		return page.getItems().size();
+	}
+
+	/**
+	 * Finds the questions whose title or body contains every word of the query,
+	 * using the full-text index, and loads only that page of them.
+	 *
+	 * @param query  Words to search for
+	 * @param limit  Largest number of questions to return
+	 * @param offset Number of matching questions to skip, oldest first
+	 * @return The matching questions, in the order they were posted
+	 */
+	public Questions searchQuestions(String query, int limit, int offset) throws SQLException {
+		Questions questionsList = new Questions();
+		try (Connection conn = getConnection();
+				PreparedStatement pstmt = prepareSearch(conn, SEARCH_QUESTIONS, query, limit, offset);
+				ResultSet rs = pstmt.executeQuery()) {
 			while (rs.next()) {
-				Question q = new Question();
-				q.setID(UUID.fromString(rs.getString("uuid"))); // UUID from string
-				q.setName(rs.getString("name"));
-				q.setTitle(rs.getString("title"));
-				q.setTextBody(rs.getString("textBody"));
-				q.setDate(rs.getDate("date").toLocalDate()); // Convert Date to LocalDate
-				q.setChosenAnswer(
-						rs.getString("chosenAnswer") != null ? UUID.fromString(rs.getString("chosenAnswer")) : null);
-				q.setUserUUID(UUID.fromString(rs.getString("uuidUSER"))); // UUID from string
-				q.setUnderReview(rs.getBoolean("UnderReview"));
-				questionsList.addQuestion(q);
+				questionsList.addQuestion(readQuestion(rs));
 			}
 		}
 		return questionsList;
 	}
 
+	private Question readQuestion(ResultSet rs) throws SQLException {
+		Question q = new Question();
+		q.setID(UUID.fromString(rs.getString("uuid"))); // UUID from string
+		q.setName(rs.getString("name"));
+		q.setTitle(rs.getString("title"));
+		q.setTextBody(rs.getString("textBody"));
+		q.setDate(rs.getDate("date").toLocalDate()); // Convert Date to LocalDate
+		q.setChosenAnswer(
+				rs.getString("chosenAnswer") != null ? UUID.fromString(rs.getString("chosenAnswer")) : null);
+		q.setUserUUID(UUID.fromString(rs.getString("uuidUSER"))); // UUID from string
+		q.setUnderReview(rs.getBoolean("UnderReview"));
+		q.markClean();
+		return q;
+	}
+
 	// =============================================
 	// code for answer
 	// =============================================
-	public void saveAnswers(Answers answersList) throws SQLException {
-		// Delete all existing questions from the table
-		String deleteQuestionsQuery = "DELETE FROM Answers";
-		try (PreparedStatement deletePstmt = connection.prepareStatement(deleteQuestionsQuery)) {
-			deletePstmt.executeUpdate();
-			System.out.println("Existing questions deleted from database.");
-		} catch (SQLException e) {
-			System.err.println("Error deleting existing questions: " + e.getMessage());
-			throw e; // Re-throw the exception to indicate failure
-		}
+	// Vote totals are left out: castVote maintains them, so saving an answer cannot overwrite newer votes
+	private static final String MERGE_ANSWER = "MERGE INTO Answers (uuid, question_uuid, name, textBody, date, uuidUSER, UnderReview) KEY (uuid) VALUES (?,?,?,?,?,?,?)";
+	private static final String DELETE_ANSWER = "DELETE FROM Answers WHERE uuid = ?";
+
+	/**
+	 * Writes the changes made to an answer collection since it was loaded or last
+	 * saved, the same way saveQuestions does: upserts for new and modified
+	 * answers, deletes for removed ones, in a single batched transaction.
+	 */
+	public BatchResult saveAnswers(Answers answersList) throws SQLException {
+		List<Answer> changed = new ArrayList<>();
 		for (int i = 0; i < answersList.getSize(); i++) {
-			saveAnswer(answersList.get(i)); // Save each question individually
+			Answer answer = answersList.get(i);
+			if (answer.getChangeState() != Post.ChangeState.CLEAN) {
+				changed.add(answer);
+			}
+		}
+		List<Answer> removed = answersList.getPendingDeletes();
+		if (changed.isEmpty() && removed.isEmpty()) {
+			return new BatchResult(0, 0);
 		}
-		System.out.println("Questions saved to database."); // Confirmation message
+
+		BatchResult result;
+		try {
+			result = inTransaction(conn -> executeBatch(conn, MERGE_ANSWER, changed, this::bindAnswer)
+					+ executeBatch(conn, DELETE_ANSWER, removed, this::bindUuid));
+		} catch (SQLException e) {
+			System.err.println("Error saving answers: " + e.getMessage());
+			throw e; // Re-throw the exception to indicate failure
+		}
+
+		changed.forEach(Post::markClean);
+		answersList.clearPendingDeletes();
+		System.out.println("Answers saved to database: " + result); // Confirmation message
+		return result;
 	}
 
 	public void saveAnswer(Answer answer) {
-		String query = "INSERT INTO Answers (uuid, question_uuid, name, textBody, date, uuidUSER, UnderReview, upvotedBy, downvotedBy) VALUES (?,?,?,?,?,?,?,?,?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-			pstmt.setString(1, answer.getID().toString());
-			pstmt.setString(2, answer.getQuestionID().toString());
-			pstmt.setString(3, answer.getName());
-			pstmt.setString(4, answer.getTextBody());
-			pstmt.setDate(5, Date.valueOf(answer.getDate()));
-			pstmt.setString(6, answer.getUserUUID().toString());
-			pstmt.setBoolean(7, answer.getUnderReview());
-			pstmt.setBoolean(7, answer.getUnderReview());
-
-			// Handle empty lists by setting NULL
-			String upvotedByStr = answer.getUpvotedBy().isEmpty() ? null
-					: String.join(",", answer.getUpvotedBy().stream().map(UUID::toString).toList());
-			String downvotedByStr = answer.getDownvotedBy().isEmpty() ? null
-					: String.join(",", answer.getDownvotedBy().stream().map(UUID::toString).toList());
-
-			pstmt.setString(8, upvotedByStr);
-			pstmt.setString(9, downvotedByStr);
-			pstmt.executeUpdate();
+		try {
+			saveAnswersBatch(List.of(answer));
 		} catch (SQLException e) {
 			e.printStackTrace();
 		}
 	}
 
+	private void bindAnswer(PreparedStatement pstmt, Answer answer) throws SQLException {
+		pstmt.setString(1, answer.getID().toString());
+		pstmt.setString(2, answer.getQuestionID().toString());
+		pstmt.setString(3, answer.getName());
+		pstmt.setString(4, answer.getTextBody());
+		pstmt.setDate(5, Date.valueOf(answer.getDate()));
+		pstmt.setString(6, answer.getUserUUID().toString());
+		pstmt.setBoolean(7, answer.getUnderReview());
+	}
+
 	public Answers loadAnswer() throws SQLException {
 		Answers answersList = new Answers();
 		String query = "SELECT * FROM Answers";
-		try (PreparedStatement pstmt = connection.prepareStatement(query); ResultSet rs = pstmt.executeQuery()) {
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(query); ResultSet rs = pstmt.executeQuery()) {
 			while (rs.next()) {
-				Answer ans = new Answer();
-				ans.setID(UUID.fromString(rs.getString("uuid")));
-				ans.setQuestionID(UUID.fromString(rs.getString("question_uuid")));
-				ans.setName(rs.getString("name"));
-				ans.setTextBody(rs.getString("textBody"));
-				ans.setDate(rs.getDate("date").toLocalDate());
-				ans.setUserUUID(UUID.fromString(rs.getString("uuidUSER")));
-				ans.setUnderReview(rs.getBoolean("UnderReview"));
-				
-
-				// Load upvotedBy (handle NULL)
-				String upvotedByStr = rs.getString("upvotedBy");
-				if (upvotedByStr != null && !upvotedByStr.isEmpty()) {
-					ans.setUpvotedBy(
-							Arrays.stream(upvotedByStr.split(",")).map(UUID::fromString).collect(Collectors.toList()));
-				} else {
-					ans.setUpvotedBy(new ArrayList<>()); // Initialize empty list
-				}
+				answersList.addAnswer(readAnswer(rs));
+			}
+		}
+		return answersList;
+	}
 
-				// Load downvotedBy (handle NULL)
-				String downvotedByStr = rs.getString("downvotedBy");
-				if (downvotedByStr != null && !downvotedByStr.isEmpty()) {
-					ans.setDownvotedBy(Arrays.stream(downvotedByStr.split(",")).map(UUID::fromString)
-							.collect(Collectors.toList()));
-				} else {
-					ans.setDownvotedBy(new ArrayList<>()); // Initialize empty list
-				}
+	/**
+	 * Loads only the first page of answers, oldest first. The returned collection
+	 * remembers where it stopped; pass it to loadMoreAnswers to extend it.
+	 *
+	 * @param pageSize Number of answers to load
+	 * @return A window holding at most pageSize answers
+	 */
+	public Answers loadAnswer(int pageSize) throws SQLException {
+		Answers window = new Answers();
+		appendPage(window, loadAnswersPage(pageSize, null));
+		return window;
+	}
+
+	/**
+	 * Extends a window from loadAnswer(int) with the next page of answers.
+	 *
+	 * @param window   Answers loaded by loadAnswer(int)
+	 * @param pageSize Number of answers to add
+	 * @return Number of answers added; 0 once every answer is loaded
+	 */
+	public int loadMoreAnswers(Answers window, int pageSize) throws SQLException {
+		if (!window.hasMorePages()) {
+			return 0;
+		}
+		return appendPage(window, loadAnswersPage(pageSize, window.getNextPageToken()));
+	}
+
+	/**
+	 * Loads one page of answers in (date, id) order.
+	 *
+	 * @param pageSize  Largest number of answers on the page
+	 * @param pageToken Token from the previous page, or null for the first page
+	 * @return The page, with the token for the page after it
+	 */
+	public Page<Answer> loadAnswersPage(int pageSize, String pageToken) throws SQLException {
+		return loadPage("Answers", pageSize, pageToken, this::readAnswer);
+	}
 
-				answersList.addAnswer(ans);
+	// Answers already in the window, such as ones posted since it was opened, are not added twice
+	private int appendPage(Answers window, Page<Answer> page) {
+		for (Answer answer : page.getItems()) {
+			if (window.getByUUID(answer.getID()) == null) {
+				window.addAnswer(answer);
+			}
+		}
+		window.setNextPageToken(page.getNextToken());
+		return page.getItems().size();
+	}
+
+	/**
+	 * Finds the answers whose text contains every word of the query, using the
+	 * full-text index, and loads only that page of them.
+	 *
+	 * @param query  Words to search for
+	 * @param limit  Largest number of answers to return
+	 * @param offset Number of matching answers to skip, oldest first
+	 * @return The matching answers, in the order they were posted
+	 */
+	public Answers searchAnswers(String query, int limit, int offset) throws SQLException {
+		Answers answersList = new Answers();
+		try (Connection conn = getConnection();
+				PreparedStatement pstmt = prepareSearch(conn, SEARCH_ANSWERS, query, limit, offset);
+				ResultSet rs = pstmt.executeQuery()) {
+			while (rs.next()) {
+				answersList.addAnswer(readAnswer(rs));
 			}
 		}
 		return answersList;
 	}
 
+	private Answer readAnswer(ResultSet rs) throws SQLException {
+		Answer ans = new Answer();
+		ans.setID(UUID.fromString(rs.getString("uuid")));
+		ans.setQuestionID(UUID.fromString(rs.getString("question_uuid")));
+		ans.setName(rs.getString("name"));
+		ans.setTextBody(rs.getString("textBody"));
+		ans.setDate(rs.getDate("date").toLocalDate());
+		ans.setUserUUID(UUID.fromString(rs.getString("uuidUSER")));
+		ans.setUnderReview(rs.getBoolean("UnderReview"));
+
+		ans.setVoteCounts(rs.getInt("upvotes"), rs.getInt("downvotes"));
+
+		ans.markClean();
+		return ans;
+	}
+
+	// One statement does the read, the add and the write under the row lock, so
+	// concurrent votes cannot overwrite each other; FINAL TABLE returns the new value
+	private static final String ADD_REPUTATION = "SELECT reputation FROM FINAL TABLE ("
+			+ "UPDATE cse360users SET reputation = COALESCE(reputation, 0) + ? WHERE uuid = ?)";
+	private static final String ADD_REPUTATION_BATCH = "UPDATE cse360users SET reputation = COALESCE(reputation, 0) + ? WHERE uuid = ?";
+
+	/**
+	 * Adds to a user's reputation in one atomic statement.
+	 *
+	 * @param userUuid The user whose reputation changes
+	 * @param change   The amount to add; negative to subtract
+	 * @return The reputation after the change, or -1 if the user does not exist or the update fails
+	 */
 	public int updateReputation(UUID userUuid, int change) {
-		String selectSql = "SELECT reputation FROM cse360users WHERE uuid = ?";
-		String updateSql = "UPDATE cse360users SET reputation = ? WHERE uuid = ?";
-		try (PreparedStatement selectStatement = connection.prepareStatement(selectSql);
-				PreparedStatement updateStatement = connection.prepareStatement(updateSql)) {
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(ADD_REPUTATION)) {
+			pstmt.setInt(1, change);
+			pstmt.setString(2, userUuid.toString());
+			try (ResultSet resultSet = pstmt.executeQuery()) {
+				userCache.invalidate(userUuid);
+				if (resultSet.next()) {
+					return resultSet.getInt("reputation");
+				}
+			}
+			System.err.println("Reputation not found for UUID: " + userUuid);
+			return -1; // Indicate failure
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return -1; // Indicate failure
+		}
+	}
 
-			// 1. Get the current reputation from the database
-			selectStatement.setString(1, userUuid.toString());
-			ResultSet resultSet = selectStatement.executeQuery();
+	/**
+	 * Applies many reputation changes in one transaction. Rows are updated in
+	 * UUID order, so two batches touching the same users lock them in the same
+	 * order and cannot deadlock.
+	 *
+	 * @param changes Amount to add per user
+	 * @return The number of users updated and the time taken
+	 */
+	public BatchResult updateReputations(Map<UUID, Integer> changes) throws SQLException {
+		List<Map.Entry<UUID, Integer>> ordered = new ArrayList<>(new TreeMap<>(changes).entrySet());
+		try {
+			return inTransaction(conn -> executeBatch(conn, ADD_REPUTATION_BATCH, ordered, (pstmt, change) -> {
+				pstmt.setInt(1, change.getValue());
+				pstmt.setString(2, change.getKey().toString());
+			}));
+		} finally {
+			changes.keySet().forEach(userCache::invalidate);
+		}
+	}
 
-			if (!resultSet.next()) {
-				System.err.println("Reputation not found for UUID: " + userUuid);
-				return -1; // Indicate failure
+	// =============================================
+	// code for answer votes
+	// =============================================
+	private static final String LOCK_ANSWER = "SELECT uuidUSER, upvotes, downvotes FROM Answers WHERE uuid = ? FOR UPDATE";
+	private static final String SELECT_VOTE = "SELECT direction FROM AnswerVotes WHERE answer_uuid = ? AND voter_uuid = ?";
+	private static final String MERGE_VOTE = "MERGE INTO AnswerVotes (answer_uuid, voter_uuid, direction) KEY (answer_uuid, voter_uuid) VALUES (?, ?, ?)";
+	private static final String ADD_VOTE_COUNTS = "UPDATE Answers SET upvotes = upvotes + ?, downvotes = downvotes + ? WHERE uuid = ?";
+
+	/**
+	 * Records a user's vote on an answer. The vote, the answer's totals and the
+	 * author's reputation change in one transaction, with the answer row locked so
+	 * concurrent votes on it apply one after another. Repeating a vote changes
+	 * nothing; switching sides replaces the earlier vote and moves the author's
+	 * reputation by one, as voting always has. The answer's totals and the
+	 * voter's vote state are updated to match.
+	 *
+	 * @param answer    The answer voted on; it must already be saved
+	 * @param voterId   The UUID of the voting user
+	 * @param direction Answer.UPVOTE or Answer.DOWNVOTE
+	 * @return The author's reputation after the vote, or -1 if the vote could not be recorded
+	 */
+	public int castVote(Answer answer, UUID voterId, int direction) {
+		if (direction != Answer.UPVOTE && direction != Answer.DOWNVOTE) {
+			throw new IllegalArgumentException("Vote direction must be UPVOTE or DOWNVOTE: " + direction);
+		}
+		int[] outcome = new int[3]; // reputation, upvotes, downvotes
+		UUID[] author = new UUID[1];
+		try {
+			inTransaction(conn -> {
+				try (PreparedStatement lock = conn.prepareStatement(LOCK_ANSWER)) {
+					lock.setString(1, answer.getID().toString());
+					try (ResultSet rs = lock.executeQuery()) {
+						if (!rs.next()) {
+							throw new SQLException("Answer not found for vote: " + answer.getID());
+						}
+						author[0] = UUID.fromString(rs.getString("uuidUSER"));
+						outcome[1] = rs.getInt("upvotes");
+						outcome[2] = rs.getInt("downvotes");
+					}
+				}
+				int previous = readVote(conn, answer.getID(), voterId);
+				if (previous == direction) {
+					outcome[0] = readReputation(conn, author[0]);
+					return 0;
+				}
+				try (PreparedStatement merge = conn.prepareStatement(MERGE_VOTE)) {
+					merge.setString(1, answer.getID().toString());
+					merge.setString(2, voterId.toString());
+					merge.setInt(3, direction);
+					merge.executeUpdate();
+				}
+				int upChange = (direction == Answer.UPVOTE ? 1 : 0) - (previous == Answer.UPVOTE ? 1 : 0);
+				int downChange = (direction == Answer.DOWNVOTE ? 1 : 0) - (previous == Answer.DOWNVOTE ? 1 : 0);
+				try (PreparedStatement counts = conn.prepareStatement(ADD_VOTE_COUNTS)) {
+					counts.setInt(1, upChange);
+					counts.setInt(2, downChange);
+					counts.setString(3, answer.getID().toString());
+					counts.executeUpdate();
+				}
+				outcome[1] += upChange;
+				outcome[2] += downChange;
+				try (PreparedStatement reputation = conn.prepareStatement(ADD_REPUTATION)) {
+					reputation.setInt(1, direction);
+					reputation.setString(2, author[0].toString());
+					try (ResultSet rs = reputation.executeQuery()) {
+						outcome[0] = rs.next() ? rs.getInt("reputation") : -1;
+					}
+				}
+				return 1;
+			});
+		} catch (SQLException e) {
+			System.err.println("Error recording vote: " + e.getMessage());
+			return -1;
+		} finally {
+			if (author[0] != null) {
+				userCache.invalidate(author[0]);
 			}
+		}
+		answer.setVoteCounts(outcome[1], outcome[2]);
+		answer.setVote(voterId, direction);
+		return outcome[0];
+	}
 
-			int currentReputation = resultSet.getInt("reputation");
+	// Largest number of UUIDs bound into one IN (...) list; bigger sets are split
+	private static final int MAX_IN_PARAMS = 500;
 
-			// 2. Calculate the new reputation
-			int newReputation = currentReputation + change;
+	/**
+	 * Gets the reputations of many users with one query per MAX_IN_PARAMS users,
+	 * instead of one query per user.
+	 *
+	 * @param userUuids The users to look up; duplicates are looked up once
+	 * @return Reputation per user; users not found are left out
+	 */
+	public Map<UUID, Integer> getReputations(Collection<UUID> userUuids) {
+		Map<UUID, Integer> reputations = new HashMap<>();
+		List<UUID> distinct = new ArrayList<>(new LinkedHashSet<>(userUuids));
+		try (Connection conn = getConnection()) {
+			for (int from = 0; from < distinct.size(); from += MAX_IN_PARAMS) {
+				List<UUID> chunk = distinct.subList(from, Math.min(from + MAX_IN_PARAMS, distinct.size()));
+				String sql = "SELECT uuid, reputation FROM cse360users WHERE uuid IN ("
+						+ String.join(", ", Collections.nCopies(chunk.size(), "?")) + ")";
+				try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+					for (int i = 0; i < chunk.size(); i++) {
+						pstmt.setString(i + 1, chunk.get(i).toString());
+					}
+					try (ResultSet rs = pstmt.executeQuery()) {
+						while (rs.next()) {
+							reputations.put(UUID.fromString(rs.getString("uuid")), rs.getInt("reputation"));
+						}
+					}
+				}
+			}
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return reputations;
+	}
 
-			// 3. Save the new reputation to the database
-			updateStatement.setInt(1, newReputation);
-			updateStatement.setString(2, userUuid.toString());
+	private static final String SELECT_TOP_ANSWERS = "SELECT * FROM Answers ORDER BY score DESC, id LIMIT ?";
 
-			int affectedRows = updateStatement.executeUpdate();
+	/**
+	 * Loads the answers with the highest net score, reading only those rows.
+	 *
+	 * @param n The largest number of answers to load
+	 * @return Up to n answers, highest score first
+	 */
+	public Answers loadTopAnswers(int n) throws SQLException {
+		Answers top = new Answers();
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(SELECT_TOP_ANSWERS)) {
+			pstmt.setInt(1, Math.max(n, 0));
+			try (ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					top.addAnswer(readAnswer(rs));
+				}
+			}
+		}
+		return top;
+	}
+
+	/**
+	 * Gets how a user voted on an answer.
+	 *
+	 * @param answerId The answer's UUID
+	 * @param voterId  The user's UUID
+	 * @return Answer.UPVOTE, Answer.DOWNVOTE, or Answer.NO_VOTE if they have not voted or the lookup fails
+	 */
+	public int getVote(UUID answerId, UUID voterId) {
+		try (Connection conn = getConnection()) {
+			return readVote(conn, answerId, voterId);
+		} catch (SQLException e) {
+			e.printStackTrace();
+			return Answer.NO_VOTE;
+		}
+	}
 
-			if (affectedRows > 0) {
-				return newReputation;
-			} else {
-				System.err.println("Failed to update reputation for UUID: " + userUuid);
-				return -1; // Indicate failure
+	private int readVote(Connection conn, UUID answerId, UUID voterId) throws SQLException {
+		try (PreparedStatement pstmt = conn.prepareStatement(SELECT_VOTE)) {
+			pstmt.setString(1, answerId.toString());
+			pstmt.setString(2, voterId.toString());
+			try (ResultSet rs = pstmt.executeQuery()) {
+				return rs.next() ? rs.getInt("direction") : Answer.NO_VOTE;
 			}
+		}
+	}
 
-		} catch (SQLException e) {
-			e.printStackTrace();
-			return -1; // Indicate failure
+	private int readReputation(Connection conn, UUID userUuid) throws SQLException {
+		try (PreparedStatement pstmt = conn.prepareStatement("SELECT reputation FROM cse360users WHERE uuid = ?")) {
+			pstmt.setString(1, userUuid.toString());
+			try (ResultSet rs = pstmt.executeQuery()) {
+				return rs.next() ? rs.getInt("reputation") : -1;
+			}
 		}
 	}
 
 	public int getReputation(UUID userUuid) {
-		String sql = "SELECT reputation FROM cse360users WHERE uuid = ?";
-		try (PreparedStatement preparedStatement = connection.prepareStatement(sql)) {
-			preparedStatement.setString(1, userUuid.toString());
-			ResultSet resultSet = preparedStatement.executeQuery();
-
-			if (resultSet.next()) {
-				return resultSet.getInt("reputation");
+		try {
+			UserCache.Profile profile = profileByUuid(userUuid);
+			if (profile != null) {
+				return profile.getReputation();
 			} else {
 				System.err.println("Reputation not found for UUID: " + userUuid);
 				return -1; // Or throw an exception, depending on your error handling strategy
@@ -533,19 +1519,12 @@ public class DatabaseHelper {
 		}
 	}
 
-	// Closes the database connection and statement.
+	// Closes the shared pool's connections for this database. Helpers reopen
+	// the pool on their next operation.
 	public void closeConnection() {
-		try {
-			if (statement != null)
-				statement.close();
-		} catch (SQLException se2) {
-			se2.printStackTrace();
-		}
-		try {
-			if (connection != null)
-				connection.close();
-		} catch (SQLException se) {
-			se.printStackTrace();
+		MessageWriter.closeForUrl(DB_URL); // queued sends are written before the pool goes away
+		if (pool != null) {
+			pool.close();
 		}
 	}
 
@@ -553,29 +1532,75 @@ public class DatabaseHelper {
 	// code for privateMessage
 	// =============================================
 
+	private static final String INSERT_MESSAGE = "INSERT INTO privateMessage (uuid, fromUUID, toUUID, reviewUUID, textBody, date, thread_id) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, (SELECT id FROM MessageThreads WHERE reviewUUID = ? AND userLow = ? AND userHigh = ?))";
+
 	// Make a new message
 	public int saveMessage(privateMessage message) {
-		String sql = "INSERT INTO privateMessage (uuid, fromUUID, toUUID, reviewUUID, textBody, date) VALUES (?, ?, ?, ?, ?, ?)";
-		try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-			pstmt.setString(1, message.getID().toString());
-			pstmt.setString(2, message.getFromUUID().toString());
-			pstmt.setString(3, message.getToUUID().toString());
-			pstmt.setString(4, message.getReviewUUID().toString());
-			pstmt.setString(5, message.getTextBody());
-			pstmt.setDate(6, Date.valueOf(message.getDate()));
-
-			return pstmt.executeUpdate(); // Returns the number of rows affected. Should be 1 if successful
+		try {
+			return saveMessagesBatch(List.of(message)).getRowsWritten(); // Should be 1 if successful
 		} catch (SQLException e) {
 			e.printStackTrace();
 			return -1; // Indicate failure
 		}
 	}
 
+	/**
+	 * Gets the background writer that saves messages sent with saveMessageAsync.
+	 * @return The shared writer for DB_URL
+	 */
+	public MessageWriter getMessageWriter() {
+		return MessageWriter.forUrl(DB_URL, this::saveMessagesBatch);
+	}
+
+	/**
+	 * Queues a message to be saved in the background, grouped with other sends
+	 * into one transaction, so the caller never waits on the database. The
+	 * message is announced on the MessageBus once it has committed.
+	 *
+	 * @param message The message to save
+	 * @return Future of the message, completed when it is queued or committed
+	 *         as the writer's durability says
+	 */
+	public CompletableFuture<privateMessage> saveMessageAsync(privateMessage message) {
+		return getMessageWriter().submit(message);
+	}
+
+	private void bindMessage(PreparedStatement pstmt, privateMessage message) throws SQLException {
+		pstmt.setString(1, message.getID().toString());
+		pstmt.setString(2, message.getFromUUID().toString());
+		pstmt.setString(3, message.getToUUID().toString());
+		pstmt.setString(4, message.getReviewUUID().toString());
+		pstmt.setString(5, message.getTextBody());
+		pstmt.setDate(6, Date.valueOf(message.getDate()));
+		bindThreadKey(pstmt, 7, message);
+	}
+
+	private static final String SELECT_MESSAGES_FROM = "SELECT * FROM privateMessage WHERE fromUUID = ? ORDER BY id";
+	private static final String SELECT_MESSAGES_TO = "SELECT * FROM privateMessage WHERE toUUID = ? ORDER BY id";
+	// Two indexed lookups instead of one OR, which H2 can only answer with a table scan
+	private static final String SELECT_MESSAGES_INCLUDING = "SELECT * FROM ("
+			+ "SELECT * FROM privateMessage WHERE toUUID = ? "
+			+ "UNION ALL SELECT * FROM privateMessage WHERE fromUUID = ? AND toUUID <> ?) ORDER BY id";
+	private static final String SELECT_CONVERSATION = "SELECT * FROM ("
+			+ "SELECT * FROM privateMessage WHERE fromUUID = ? AND toUUID = ? "
+			+ "UNION ALL SELECT * FROM privateMessage WHERE fromUUID = ? AND toUUID = ?) ORDER BY date, id";
+	// One row per contact from the user's thread rows, named by a join; a contact whose account is gone has no name
+	private static final String SELECT_CONTACTS = "SELECT c.contactUUID, u.userName, "
+			+ "MAX(c.lastDate) AS lastMessageDate, SUM(c.unread) AS unreadCount FROM ("
+			+ "SELECT userHigh AS contactUUID, lastDate, unreadLow AS unread FROM MessageThreads WHERE userLow = ? AND userHigh <> ? "
+			+ "UNION ALL SELECT userLow, lastDate, unreadHigh FROM MessageThreads WHERE userHigh = ? AND userLow <> ?) c "
+			+ "LEFT JOIN cse360users u ON u.uuid = c.contactUUID "
+			+ "GROUP BY c.contactUUID, u.userName ORDER BY lastMessageDate DESC, u.userName";
+	private static final String SELECT_MESSAGE_PARTICIPANTS = "SELECT id, thread_id, fromUUID, toUUID, reviewUUID FROM privateMessage WHERE uuid = ?";
+	private static final String SELECT_MESSAGE = "SELECT * FROM privateMessage WHERE uuid = ?";
+	private static final String SELECT_MESSAGES_BY_REVIEW = "SELECT * FROM privateMessage WHERE reviewUUID = ? ORDER BY id";
+
 	// Get all messages from a specific user
 	public privateMessageList getMessagesFromUser(UUID fromUUID) {
 		privateMessageList messageList = new privateMessageList();
-		String sql = "SELECT * FROM privateMessage WHERE fromUUID = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+		String sql = SELECT_MESSAGES_FROM;
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 			pstmt.setString(1, fromUUID.toString());
 			ResultSet rs = pstmt.executeQuery();
 
@@ -598,8 +1623,8 @@ public class DatabaseHelper {
 	// Get all messages to a specific user
 	public privateMessageList getMessagesToUser(UUID toUUID) {
 		privateMessageList messageList = new privateMessageList();
-		String sql = "SELECT * FROM privateMessage WHERE toUUID = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+		String sql = SELECT_MESSAGES_TO;
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 			pstmt.setString(1, toUUID.toString());
 			ResultSet rs = pstmt.executeQuery();
 
@@ -622,10 +1647,11 @@ public class DatabaseHelper {
 	// Get all messages that either include user from or to
 	public privateMessageList getMessagesIncludingUser(UUID userUUID) {
 		privateMessageList messageList = new privateMessageList();
-		String sql = "SELECT * FROM privateMessage WHERE toUUID = ? OR fromUUID = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+		String sql = SELECT_MESSAGES_INCLUDING;
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 			pstmt.setString(1, userUUID.toString());
 			pstmt.setString(2, userUUID.toString());
+			pstmt.setString(3, userUUID.toString());
 			ResultSet rs = pstmt.executeQuery();
 
 			while (rs.next()) {
@@ -647,24 +1673,66 @@ public class DatabaseHelper {
 	// Update the text body of a message
 	public int updateMessage(UUID uuid, String newTextBody) {
 		String sql = "UPDATE privateMessage SET textBody = ? WHERE uuid = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+		int rows;
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 			pstmt.setString(1, newTextBody);
 			pstmt.setString(2, uuid.toString());
 
-			return pstmt.executeUpdate(); // Returns the number of rows affected. Should be 1 if successful
+			rows = pstmt.executeUpdate(); // Returns the number of rows affected. Should be 1 if successful
 		} catch (SQLException e) {
 			e.printStackTrace();
 			return -1; // Indicate failure
 		}
+		// Read the saved message only once the connection is back, so an exhausted pool cannot deadlock here
+		if (rows > 0 && messageBus.hasSubscribers()) {
+			privateMessage message = getMessageByUUID(uuid);
+			if (message != null) {
+				messageBus.publish(new MessageBus.Event(MessageBus.Kind.UPDATED, message));
+			}
+		}
+		return rows;
 	}
 
-	// Delete a message
+	// Delete a message; its thread's message count goes down with it, and so do the recipient's unread counts if it was unread
 	public int deleteMessage(UUID uuid) {
 		String sql = "DELETE FROM privateMessage WHERE uuid = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-			pstmt.setString(1, uuid.toString());
-
-			return pstmt.executeUpdate(); // Returns the number of rows affected. Should be 1 if successful
+		List<UUID> participants = new ArrayList<>(2);
+		privateMessage[] deleted = new privateMessage[1];
+		try {
+			int rows = inTransaction(conn -> {
+				int messageId = 0;
+				int threadId = 0; // thread ids start at 1
+				try (PreparedStatement pstmt = conn.prepareStatement(SELECT_MESSAGE_PARTICIPANTS)) {
+					pstmt.setString(1, uuid.toString());
+					try (ResultSet rs = pstmt.executeQuery()) {
+						if (rs.next()) {
+							messageId = rs.getInt("id");
+							threadId = rs.getInt("thread_id");
+							participants.add(UUID.fromString(rs.getString("fromUUID")));
+							participants.add(UUID.fromString(rs.getString("toUUID")));
+							String review = rs.getString("reviewUUID");
+							deleted[0] = new privateMessage(uuid, null, null, participants.get(0), participants.get(1),
+									review == null ? null : UUID.fromString(review));
+						}
+					}
+				}
+				if (threadId > 0) {
+					uncountIfUnread(conn, threadId, messageId, deleted[0]);
+				}
+				try (PreparedStatement pstmt = conn.prepareStatement(UNCOUNT_THREAD_MESSAGE)) {
+					pstmt.setString(1, uuid.toString());
+					pstmt.executeUpdate();
+				}
+				try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+					pstmt.setString(1, uuid.toString());
+					return pstmt.executeUpdate(); // Returns the number of rows affected. Should be 1 if successful
+				}
+			}).getRowsWritten();
+			participants.forEach(contactCache::invalidate);
+			if (rows > 0 && deleted[0] != null) {
+				messageBus.publish(new MessageBus.Event(MessageBus.Kind.DELETED, deleted[0]));
+			}
+			return rows;
 		} catch (SQLException e) {
 			e.printStackTrace();
 			return -1; // Indicate failure
@@ -675,7 +1743,7 @@ public class DatabaseHelper {
 	public privateMessageList getAllMessages() {
 		privateMessageList messageList = new privateMessageList();
 		String sql = "SELECT * FROM privateMessage";
-		try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+		try (Connection conn = getConnection(); Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
 
 			while (rs.next()) {
 				UUID uuid = UUID.fromString(rs.getString("uuid"));
@@ -695,10 +1763,9 @@ public class DatabaseHelper {
 
 	public privateMessageList getCommunicationBetweenUsers(UUID user1UUID, UUID user2UUID) {
 		privateMessageList messageList = new privateMessageList();
-		String sql = "SELECT * FROM privateMessage "
-				+ "WHERE (fromUUID = ? AND toUUID = ?) OR (fromUUID = ? AND toUUID = ?) " + "ORDER BY date";
+		String sql = SELECT_CONVERSATION;
 
-		try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
 			pstmt.setString(1, user1UUID.toString());
 			pstmt.setString(2, user2UUID.toString());
 			pstmt.setString(3, user2UUID.toString());
@@ -724,42 +1791,56 @@ public class DatabaseHelper {
 
 	/**
 	 * Retrieves a list of unique UUIDs of users that 'otherUUID' has communicated
-	 * with (either sent or received messages).
+	 * with (either sent or received messages), most recent first.
 	 */
 	public List<UUID> getContactListUUID(UUID otherUUID) {
 		List<UUID> contactList = new ArrayList<>();
-		String sql = "SELECT DISTINCT " + "CASE " + "   WHEN fromUUID = ? THEN toUUID " + "   ELSE fromUUID "
-				+ "END AS contactUUID " + "FROM privateMessage " + "WHERE fromUUID = ? OR toUUID = ?";
-
-		try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-			pstmt.setString(1, otherUUID.toString());
-			pstmt.setString(2, otherUUID.toString());
-			pstmt.setString(3, otherUUID.toString());
-
-			ResultSet rs = pstmt.executeQuery();
-
-			while (rs.next()) {
-				String contactUUIDString = rs.getString("contactUUID");
-				if (contactUUIDString != null) { // Prevent NullPointerException
-					UUID contactUUID = UUID.fromString(contactUUIDString);
-					if (!contactList.contains(contactUUID) && !contactUUID.equals(otherUUID)) { // Avoid Duplicates and
-																								// self
-						contactList.add(contactUUID);
-					}
-				}
+		try {
+			for (Contact contact : loadContacts(otherUUID)) {
+				contactList.add(contact.getUuid());
 			}
-
 		} catch (SQLException e) {
 			e.printStackTrace(); // Consider more robust error handling (logging, throwing exception)
 		}
-
 		return contactList;
 	}
 
+	/**
+	 * Loads the users someone has exchanged private messages with, each with the
+	 * date of their latest message and the number the user has not read, most
+	 * recent first. One joined query over the user's thread rows answers it
+	 * however many contacts there are, and the list is cached until a message
+	 * to or from the user is saved, deleted or read.
+	 *
+	 * @param userUUID The user
+	 * @return Unmodifiable list of the user's contacts, excluding the user
+	 */
+	public List<Contact> loadContacts(UUID userUUID) throws SQLException {
+		List<Contact> cached = contactCache.get(userUUID);
+		if (cached != null) {
+			return cached;
+		}
+		long generation = contactCache.generation();
+		List<Contact> contacts = new ArrayList<>();
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(SELECT_CONTACTS)) {
+			for (int i = 1; i <= 4; i++) {
+				pstmt.setString(i, userUUID.toString());
+			}
+			try (ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					Date lastDate = rs.getDate("lastMessageDate");
+					contacts.add(new Contact(UUID.fromString(rs.getString("contactUUID")), rs.getString("userName"),
+							lastDate == null ? null : lastDate.toLocalDate(), rs.getInt("unreadCount")));
+				}
+			}
+		}
+		return contactCache.put(userUUID, contacts, generation);
+	}
+
 	// Retrieves the reputation of a user from the database using their UserName.
 	public privateMessage getMessageByUUID(UUID searchUUID) {
-		String query = "SELECT * FROM privateMessage WHERE uuid = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		String query = SELECT_MESSAGE;
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, searchUUID.toString());
 			ResultSet rs = pstmt.executeQuery();
 			if (rs.next()) {
@@ -781,8 +1862,8 @@ public class DatabaseHelper {
 	// Retrieves the reputation of a user from the database using their UserName.
 	public privateMessageList getMessageByResponceUUID(UUID searchUUID) {
 		privateMessageList messageList = new privateMessageList();
-		String query = "SELECT * FROM privateMessage WHERE reviewUUID = ?";
-		try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+		String query = SELECT_MESSAGES_BY_REVIEW;
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 			pstmt.setString(1, searchUUID.toString());
 			ResultSet rs = pstmt.executeQuery();
 
@@ -805,30 +1886,303 @@ public class DatabaseHelper {
 
 	public List<String> getcontactListString(UUID otherUUID) {
 		List<String> usernames = new ArrayList<>();
-		List<UUID> contactList = getContactListUUID(otherUUID); // Use the existing getContactList function
+		try {
+			for (Contact contact : loadContacts(otherUUID)) {
+				if (contact.getUserName() != null) {
+					usernames.add(contact.getUserName());
+				}
+			}
+		} catch (SQLException e) {
+			e.printStackTrace(); // Log the error
+		}
+		return usernames;
+	}
+	
+	// =============================================
+	// code for message threads
+	// =============================================
+
+	private static final String MERGE_THREAD = "MERGE INTO MessageThreads (reviewUUID, userLow, userHigh) KEY (reviewUUID, userLow, userHigh) VALUES (?, ?, ?)";
+	// The recipient's unread count goes up; a note to oneself has no recipient (null matches nothing)
+	private static final String COUNT_THREAD_MESSAGE = "UPDATE MessageThreads SET messageCount = messageCount + 1, "
+			+ "lastDate = GREATEST(COALESCE(lastDate, ?), ?), "
+			+ "unreadLow = unreadLow + CASE WHEN userLow = ? THEN 1 ELSE 0 END, "
+			+ "unreadHigh = unreadHigh + CASE WHEN userHigh = ? THEN 1 ELSE 0 END "
+			+ "WHERE reviewUUID = ? AND userLow = ? AND userHigh = ?";
+	private static final String COUNT_UNREAD = "UPDATE cse360users SET unreadMessages = unreadMessages + 1 WHERE uuid = ?";
+	private static final String SELECT_THREAD = "SELECT * FROM MessageThreads WHERE reviewUUID = ? AND userLow = ? AND userHigh = ?";
+	// Each thread with the other participant's name, joined in like the contact list
+	private static final String SELECT_THREADS_OF_USER = "SELECT t.*, u.userName AS otherUserName FROM ("
+			+ "SELECT MessageThreads.*, userHigh AS otherUUID FROM MessageThreads WHERE userLow = ? "
+			+ "UNION ALL SELECT MessageThreads.*, userLow AS otherUUID FROM MessageThreads WHERE userHigh = ? AND userLow <> ?) t "
+			+ "LEFT JOIN cse360users u ON u.uuid = t.otherUUID ORDER BY t.lastDate DESC, t.id DESC";
+	private static final String LOCK_THREAD = "SELECT * FROM MessageThreads WHERE id = ? FOR UPDATE";
+	private static final String SELECT_THREAD_MESSAGES = "SELECT * FROM privateMessage WHERE thread_id = ? AND id < ? ORDER BY id DESC LIMIT ?";
+	private static final String SELECT_UNREAD = "SELECT unreadMessages FROM cse360users WHERE uuid = ?";
+	private static final String UNCOUNT_THREAD_MESSAGE = "UPDATE MessageThreads SET messageCount = messageCount - 1 "
+			+ "WHERE id = (SELECT thread_id FROM privateMessage WHERE uuid = ?)";
+	// Messages to the recipient from a given one on, counting no further than needed
+	private static final String COUNT_LATER_TO_RECIPIENT = "SELECT COUNT(*) FROM (SELECT 1 FROM privateMessage "
+			+ "WHERE thread_id = ? AND id >= ? AND toUUID = ? LIMIT ?)";
+	private static final String UNCOUNT_UNREAD = "UPDATE cse360users SET unreadMessages = GREATEST(unreadMessages - 1, 0) WHERE uuid = ?";
+
+	private static String reviewKey(UUID reviewUUID) {
+		return reviewUUID == null ? "" : reviewUUID.toString();
+	}
+
+	// Binds (reviewUUID, userLow, userHigh) of a message's thread from the given parameter on
+	private static void bindThreadKey(PreparedStatement pstmt, int first, privateMessage message) throws SQLException {
+		UUID[] pair = MessageThread.participants(message.getFromUUID(), message.getToUUID());
+		pstmt.setString(first, reviewKey(message.getReviewUUID()));
+		pstmt.setString(first + 1, pair[0].toString());
+		pstmt.setString(first + 2, pair[1].toString());
+	}
+
+	private void bindThreadCount(PreparedStatement pstmt, privateMessage message) throws SQLException {
+		Date date = Date.valueOf(message.getDate());
+		pstmt.setDate(1, date);
+		pstmt.setDate(2, date);
+		pstmt.setString(3, recipientOf(message));
+		pstmt.setString(4, recipientOf(message));
+		bindThreadKey(pstmt, 5, message);
+	}
+
+	// The user whose unread count a message raises, or null for a message to oneself
+	private static String recipientOf(privateMessage message) {
+		return message.getToUUID().equals(message.getFromUUID()) ? null : message.getToUUID().toString();
+	}
+
+	private MessageThread readThread(ResultSet rs) throws SQLException {
+		return readThread(rs, null);
+	}
+
+	private MessageThread readThread(ResultSet rs, String otherUserName) throws SQLException {
+		Date lastDate = rs.getDate("lastDate");
+		String review = rs.getString("reviewUUID");
+		return new MessageThread(rs.getInt("id"), review.isEmpty() ? null : UUID.fromString(review),
+				UUID.fromString(rs.getString("userLow")), UUID.fromString(rs.getString("userHigh")),
+				rs.getInt("messageCount"), lastDate == null ? null : lastDate.toLocalDate(),
+				rs.getInt("unreadLow"), rs.getInt("unreadHigh"), otherUserName);
+	}
+
+	/**
+	 * Takes a message that is about to be deleted off its recipient's unread
+	 * counts if the recipient has not read it. Reading a thread marks all of it
+	 * read, so the unread messages are always the latest ones sent to the
+	 * recipient: the message is unread if no more than the unread count of them
+	 * were sent from it on. The thread row is locked first, as saves and
+	 * markThreadRead do, so the count cannot change in between.
+	 *
+	 * @param conn      The connection of the deleting transaction
+	 * @param threadId  The message's thread
+	 * @param messageId The message's row id
+	 * @param message   The message's participants
+	 */
+	private void uncountIfUnread(Connection conn, int threadId, int messageId, privateMessage message) throws SQLException {
+		String recipient = recipientOf(message);
+		if (recipient == null) {
+			return;
+		}
+		String column;
+		int unread;
+		try (PreparedStatement pstmt = conn.prepareStatement(LOCK_THREAD)) {
+			pstmt.setInt(1, threadId);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				if (!rs.next()) {
+					return;
+				}
+				column = recipient.equals(rs.getString("userLow")) ? "unreadLow" : "unreadHigh";
+				unread = rs.getInt(column);
+			}
+		}
+		if (unread == 0) {
+			return;
+		}
+		try (PreparedStatement pstmt = conn.prepareStatement(COUNT_LATER_TO_RECIPIENT)) {
+			pstmt.setInt(1, threadId);
+			pstmt.setInt(2, messageId);
+			pstmt.setString(3, recipient);
+			pstmt.setInt(4, unread + 1);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				if (!rs.next() || rs.getInt(1) > unread) {
+					return; // read before the later ones arrived
+				}
+			}
+		}
+		try (PreparedStatement pstmt = conn.prepareStatement(
+				"UPDATE MessageThreads SET " + column + " = GREATEST(" + column + " - 1, 0) WHERE id = ?")) {
+			pstmt.setInt(1, threadId);
+			pstmt.executeUpdate();
+		}
+		try (PreparedStatement pstmt = conn.prepareStatement(UNCOUNT_UNREAD)) {
+			pstmt.setString(1, recipient);
+			pstmt.executeUpdate();
+		}
+	}
 
-		if (contactList == null || contactList.isEmpty()) {
-			return usernames; // Return empty list if contactList is null or empty
+	/**
+	 * Finds the conversation two users have about a review.
+	 *
+	 * @param reviewUUID The review
+	 * @param userA      One participant
+	 * @param userB      The other participant, in either order
+	 * @return The thread, or null if they have not exchanged messages about it
+	 */
+	public MessageThread findThread(UUID reviewUUID, UUID userA, UUID userB) throws SQLException {
+		UUID[] pair = MessageThread.participants(userA, userB);
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(SELECT_THREAD)) {
+			pstmt.setString(1, reviewKey(reviewUUID));
+			pstmt.setString(2, pair[0].toString());
+			pstmt.setString(3, pair[1].toString());
+			try (ResultSet rs = pstmt.executeQuery()) {
+				return rs.next() ? readThread(rs) : null;
+			}
 		}
+	}
 
-		for (UUID contactUUID : contactList) {
-			String sql = "SELECT userName FROM cse360users WHERE uuid = ?";
-			try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
-				pstmt.setString(1, contactUUID.toString());
-				ResultSet rs = pstmt.executeQuery();
-				if (rs.next()) {
-					usernames.add("userName");
+	/**
+	 * Loads every conversation a user takes part in, latest activity first, with
+	 * the other participant's name. Reads only thread and user rows, however many
+	 * messages the threads hold.
+	 *
+	 * @param userUUID The user
+	 * @return The user's threads
+	 */
+	public List<MessageThread> loadThreads(UUID userUUID) throws SQLException {
+		List<MessageThread> threads = new ArrayList<>();
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(SELECT_THREADS_OF_USER)) {
+			pstmt.setString(1, userUUID.toString());
+			pstmt.setString(2, userUUID.toString());
+			pstmt.setString(3, userUUID.toString());
+			try (ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					threads.add(readThread(rs, rs.getString("otherUserName")));
 				}
-			} catch (SQLException e) {
-				e.printStackTrace(); // Log the error
 			}
 		}
-		return usernames;
+		return threads;
 	}
-	
+
+	/**
+	 * Loads the latest messages of a thread before a cursor, walking the
+	 * (thread_id, id) index backwards, so a page of a years-long conversation
+	 * costs the same as a page of a new one.
+	 *
+	 * @param threadId    The thread's id
+	 * @param pageSize    Largest number of messages on the page
+	 * @param beforeToken Token of the previous page to continue further back, or
+	 *                    null for the latest messages
+	 * @return The page in the order sent, oldest first; its token loads the
+	 *         messages before it
+	 */
+	public Page<privateMessage> loadThreadMessages(int threadId, int pageSize, String beforeToken) throws SQLException {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+		}
+		int before;
+		try {
+			before = beforeToken == null ? Integer.MAX_VALUE : Integer.parseInt(beforeToken);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Malformed page token: " + beforeToken);
+		}
+		List<privateMessage> items = new ArrayList<>();
+		String nextToken = null;
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(SELECT_THREAD_MESSAGES)) {
+			pstmt.setInt(1, threadId);
+			pstmt.setInt(2, before);
+			pstmt.setInt(3, pageSize + 1);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				String oldestId = null;
+				while (rs.next()) {
+					if (items.size() == pageSize) {
+						nextToken = oldestId;
+						break;
+					}
+					items.add(readMessage(rs));
+					oldestId = rs.getString("id");
+				}
+			}
+		}
+		Collections.reverse(items);
+		return new Page<>(items, nextToken);
+	}
+
+	/**
+	 * Marks every message of a thread as read by one participant and takes them
+	 * off the user's unread total.
+	 *
+	 * @param threadId The thread's id
+	 * @param userUUID The participant who read it
+	 * @return The number of messages that were unread
+	 */
+	public int markThreadRead(int threadId, UUID userUUID) throws SQLException {
+		int[] marked = new int[1];
+		inTransaction(conn -> {
+			String column;
+			try (PreparedStatement pstmt = conn.prepareStatement(LOCK_THREAD)) {
+				pstmt.setInt(1, threadId);
+				try (ResultSet rs = pstmt.executeQuery()) {
+					if (!rs.next()) {
+						return 0;
+					}
+					MessageThread thread = readThread(rs);
+					marked[0] = thread.getUnreadFor(userUUID);
+					column = userUUID.toString().equals(rs.getString("userLow")) ? "unreadLow" : "unreadHigh";
+				}
+			}
+			if (marked[0] == 0) {
+				return 0;
+			}
+			try (PreparedStatement pstmt = conn.prepareStatement("UPDATE MessageThreads SET " + column + " = 0 WHERE id = ?")) {
+				pstmt.setInt(1, threadId);
+				pstmt.executeUpdate();
+			}
+			try (PreparedStatement pstmt = conn.prepareStatement(
+					"UPDATE cse360users SET unreadMessages = GREATEST(unreadMessages - ?, 0) WHERE uuid = ?")) {
+				pstmt.setInt(1, marked[0]);
+				pstmt.setString(2, userUUID.toString());
+				return pstmt.executeUpdate() + 1;
+			}
+		});
+		if (marked[0] > 0) {
+			contactCache.invalidate(userUUID);
+		}
+		return marked[0];
+	}
+
+	/**
+	 * Gets how many messages a user has not read, from the counter kept on the
+	 * user's row; no messages are scanned.
+	 *
+	 * @param userUUID The user
+	 * @return The user's unread total, or 0 if the user does not exist
+	 */
+	public int getUnreadCount(UUID userUUID) throws SQLException {
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(SELECT_UNREAD)) {
+			pstmt.setString(1, userUUID.toString());
+			try (ResultSet rs = pstmt.executeQuery()) {
+				return rs.next() ? rs.getInt(1) : 0;
+			}
+		}
+	}
+
+	// Gets a user's name from the user cache, or null if there is no such user
+	public String getUserNameByUUID(UUID uuid) {
+		try {
+			UserCache.Profile profile = profileByUuid(uuid);
+			return profile != null ? profile.getUserName() : null;
+		} catch (SQLException e) {
+			e.printStackTrace();
+		}
+		return null;
+	}
+
+	private static final String SELECT_REVIEWS_BY_ANSWER = "SELECT * FROM Review WHERE answerId = ?";
+	private static final String SELECT_REVIEWS_BY_QUESTION = "SELECT * FROM Review WHERE questionId = ?";
+
 	public Review getReviewByAnswerId(UUID answerId) {
-	    String query = "SELECT * FROM Review WHERE answerId = ?";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    String query = SELECT_REVIEWS_BY_ANSWER;
+	    try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, answerId.toString());
 	        ResultSet rs = pstmt.executeQuery();
 	        if (rs.next()) {
@@ -845,70 +2199,328 @@ public class DatabaseHelper {
 	    return null;
 	}
 	
+	private static final String MERGE_REVIEW = "MERGE INTO Review (id, reviewerId, questionId, answerId, content, status, date) KEY (id) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
 	public void saveReview(Review review) throws SQLException {
-	    String query = "INSERT INTO Review (id, reviewerId, questionId, answerId, content, status, date) VALUES (?, ?, ?, ?, ?, ?, ?)";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
-	        pstmt.setString(1, review.getId().toString());
-	        pstmt.setString(2, review.getReviewerId().toString());
-	        pstmt.setString(3, review.getQuestionId() != null ? review.getQuestionId().toString() : null);
-	        pstmt.setString(4, review.getAnswerId() != null ? review.getAnswerId().toString() : null);
-	        pstmt.setString(5, review.getContent());
-	        pstmt.setString(6, review.getStatus().name());
-	        pstmt.setDate(7, Date.valueOf(review.getDate()));
-	        pstmt.executeUpdate();
-	    }
+	    saveReviewsBatch(List.of(review));
+	}
+
+	private void bindReview(PreparedStatement pstmt, Review review) throws SQLException {
+	    pstmt.setString(1, review.getId().toString());
+	    pstmt.setString(2, review.getReviewerId().toString());
+	    pstmt.setString(3, review.getQuestionId() != null ? review.getQuestionId().toString() : null);
+	    pstmt.setString(4, review.getAnswerId() != null ? review.getAnswerId().toString() : null);
+	    pstmt.setString(5, review.getContent());
+	    pstmt.setString(6, review.getStatus().name());
+	    pstmt.setDate(7, Date.valueOf(review.getDate()));
 	}
 
 	public List<Review> loadReviews() throws SQLException {
 	    List<Review> reviews = new ArrayList<>();
 	    String query = "SELECT * FROM Review";
-	    try (PreparedStatement pstmt = connection.prepareStatement(query);
+	    try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(query);
 	         ResultSet rs = pstmt.executeQuery()) {
 	        while (rs.next()) {
-	            Review review = new Review(
-	                UUID.fromString(rs.getString("reviewerId")),
-	                UUID.fromString(rs.getString("questionId")),
-	                UUID.fromString(rs.getString("answerId")),
-	                rs.getString("content")
-	            );
-	            review.setId(UUID.fromString(rs.getString("id")));
-	            review.setStatus(Review.ReviewStatus.valueOf(rs.getString("status")));
-	            review.setDate(rs.getDate("date").toLocalDate());
-	            reviews.add(review);
+	            reviews.add(readReview(rs));
 	        }
 	    }
 	    return reviews;
 	}
 	
 	public List<Review> getReviewsByQuestionId(UUID questionId) throws SQLException {
-	    String query = "SELECT * FROM Review WHERE questionId = ?";
+	    String query = SELECT_REVIEWS_BY_QUESTION;
 	    return executeReviewQuery(query, questionId.toString());
 	}
 
 	public List<Review> getReviewsByAnswerId(UUID answerId) throws SQLException {
-	    String query = "SELECT * FROM Review WHERE answerId = ?";
+	    String query = SELECT_REVIEWS_BY_ANSWER;
 	    return executeReviewQuery(query, answerId.toString());
 	}
 
 	private List<Review> executeReviewQuery(String query, String id) throws SQLException {
 	    List<Review> reviews = new ArrayList<>();
-	    try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+	    try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(query)) {
 	        pstmt.setString(1, id);
 	        ResultSet rs = pstmt.executeQuery();
 	        while (rs.next()) {
-	            Review review = new Review(
-	                UUID.fromString(rs.getString("reviewerId")),
-	                rs.getString("questionId") != null ? UUID.fromString(rs.getString("questionId")) : null,
-	                rs.getString("answerId") != null ? UUID.fromString(rs.getString("answerId")) : null,
-	                rs.getString("content")
-	            );
-	            review.setId(UUID.fromString(rs.getString("id")));
-	            review.setStatus(Review.ReviewStatus.valueOf(rs.getString("status")));
-	            review.setDate(rs.getDate("date").toLocalDate());
-	            reviews.add(review);
+	            reviews.add(readReview(rs));
+	        }
+	    }
+	    return reviews;
+	}
+
+	private Review readReview(ResultSet rs) throws SQLException {
+	    Review review = new Review(
+	        UUID.fromString(rs.getString("reviewerId")),
+	        rs.getString("questionId") != null ? UUID.fromString(rs.getString("questionId")) : null,
+	        rs.getString("answerId") != null ? UUID.fromString(rs.getString("answerId")) : null,
+	        rs.getString("content")
+	    );
+	    review.setId(UUID.fromString(rs.getString("id")));
+	    review.setStatus(Review.ReviewStatus.valueOf(rs.getString("status")));
+	    review.setDate(rs.getDate("date").toLocalDate());
+	    return review;
+	}
+
+	// =============================================
+	// code for full-text search
+	// =============================================
+
+	// FT_SEARCH_DATA returns the primary key of every row containing all the words;
+	// the join loads only that table's rows, one page at a time
+	private static final String SEARCH_QUESTIONS = "SELECT q.* FROM FT_SEARCH_DATA(?, 0, 0) ft "
+			+ "JOIN Questions q ON q.id = CAST(ft.KEYS[1] AS INT) WHERE ft.\"TABLE\" = 'QUESTIONS' "
+			+ "ORDER BY q.id LIMIT ? OFFSET ?";
+	private static final String SEARCH_ANSWERS = "SELECT a.* FROM FT_SEARCH_DATA(?, 0, 0) ft "
+			+ "JOIN Answers a ON a.id = CAST(ft.KEYS[1] AS INT) WHERE ft.\"TABLE\" = 'ANSWERS' "
+			+ "ORDER BY a.id LIMIT ? OFFSET ?";
+	private static final String SEARCH_REVIEWS = "SELECT r.* FROM FT_SEARCH_DATA(?, 0, 0) ft "
+			+ "JOIN Review r ON r.id = ft.KEYS[1] WHERE ft.\"TABLE\" = 'REVIEW' "
+			+ "ORDER BY r.date, r.id LIMIT ? OFFSET ?";
+	private static final String SEARCH_MESSAGES = "SELECT m.* FROM FT_SEARCH_DATA(?, 0, 0) ft "
+			+ "JOIN privateMessage m ON m.id = CAST(ft.KEYS[1] AS INT) WHERE ft.\"TABLE\" = 'PRIVATEMESSAGE' "
+			+ "ORDER BY m.id LIMIT ? OFFSET ?";
+
+	/**
+	 * Finds the reviews whose content contains every word of the query, using
+	 * the full-text index, and loads only that page of them.
+	 *
+	 * @param query  Words to search for
+	 * @param limit  Largest number of reviews to return
+	 * @param offset Number of matching reviews to skip, oldest first
+	 * @return The matching reviews, oldest first
+	 */
+	public List<Review> searchReviews(String query, int limit, int offset) throws SQLException {
+	    List<Review> reviews = new ArrayList<>();
+	    try (Connection conn = getConnection();
+	            PreparedStatement pstmt = prepareSearch(conn, SEARCH_REVIEWS, query, limit, offset);
+	            ResultSet rs = pstmt.executeQuery()) {
+	        while (rs.next()) {
+	            reviews.add(readReview(rs));
 	        }
 	    }
 	    return reviews;
 	}
 
+	/**
+	 * Finds the private messages whose text contains every word of the query,
+	 * using the full-text index, and loads only that page of them.
+	 *
+	 * @param query  Words to search for
+	 * @param limit  Largest number of messages to return
+	 * @param offset Number of matching messages to skip, oldest first
+	 * @return The matching messages, in the order they were sent
+	 */
+	public privateMessageList searchMessages(String query, int limit, int offset) throws SQLException {
+		privateMessageList messageList = new privateMessageList();
+		try (Connection conn = getConnection();
+				PreparedStatement pstmt = prepareSearch(conn, SEARCH_MESSAGES, query, limit, offset);
+				ResultSet rs = pstmt.executeQuery()) {
+			while (rs.next()) {
+				messageList.addPrivateMessage(readMessage(rs));
+			}
+		}
+		return messageList;
+	}
+
+	// Words of the full-text index starting with a prefix: a range over the index's unique, uppercase word column
+	private static final String SELECT_INDEXED_WORDS = "SELECT NAME FROM FT.WORDS WHERE NAME >= ? AND NAME < ? ORDER BY NAME LIMIT ?";
+	private static final String SELECT_QUESTIONS_BY_UUID = "SELECT * FROM Questions WHERE uuid";
+	private static final String SELECT_ANSWERS_BY_QUESTIONS = "SELECT * FROM Answers WHERE question_uuid";
+
+	/**
+	 * Finds the words of the full-text index that start with a prefix, so a word
+	 * still being typed can be searched as the complete words it may become.
+	 *
+	 * @param prefix The start of a word
+	 * @param limit  Largest number of words to return
+	 * @return The indexed words starting with the prefix, lowercase and in alphabetical order
+	 */
+	public List<String> findIndexedWords(String prefix, int limit) throws SQLException {
+		List<String> words = new ArrayList<>();
+		String from = prefix.toUpperCase(Locale.ROOT);
+		if (from.isEmpty()) {
+			return words;
+		}
+		String to = from.substring(0, from.length() - 1) + (char) (from.charAt(from.length() - 1) + 1);
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(SELECT_INDEXED_WORDS)) {
+			pstmt.setString(1, from);
+			pstmt.setString(2, to);
+			pstmt.setInt(3, Math.max(limit, 0));
+			try (ResultSet rs = pstmt.executeQuery()) {
+				while (rs.next()) {
+					words.add(rs.getString(1).toLowerCase(Locale.ROOT));
+				}
+			}
+		}
+		return words;
+	}
+
+	/**
+	 * Loads the questions with the given UUIDs, with one query per MAX_IN_PARAMS of them.
+	 *
+	 * @param uuids The questions to load; duplicates are loaded once
+	 * @return The questions found
+	 */
+	public Questions loadQuestionsByUUID(Collection<UUID> uuids) throws SQLException {
+		Questions questionsList = new Questions();
+		for (Question question : selectByUuids(SELECT_QUESTIONS_BY_UUID, uuids, this::readQuestion)) {
+			questionsList.addQuestion(question);
+		}
+		return questionsList;
+	}
+
+	/**
+	 * Loads every answer to the given questions, with one query per MAX_IN_PARAMS questions.
+	 *
+	 * @param questionUuids The questions whose answers to load
+	 * @return Their answers
+	 */
+	public Answers loadAnswersForQuestions(Collection<UUID> questionUuids) throws SQLException {
+		Answers answersList = new Answers();
+		for (Answer answer : selectByUuids(SELECT_ANSWERS_BY_QUESTIONS, questionUuids, this::readAnswer)) {
+			answersList.addAnswer(answer);
+		}
+		return answersList;
+	}
+
+	/**
+	 * Adds the answers to one question that the collection does not hold yet.
+	 * Answers already in it, or removed from it but not yet saved, are left as they are.
+	 *
+	 * @param window       The answers loaded so far
+	 * @param questionUUID The question whose answers to load
+	 * @return The number of answers added
+	 */
+	public int loadAnswersOf(Answers window, UUID questionUUID) throws SQLException {
+		Set<UUID> removed = new HashSet<>();
+		for (Answer answer : window.getPendingDeletes()) {
+			removed.add(answer.getID());
+		}
+		int added = 0;
+		for (Answer answer : loadAnswersForQuestions(List.of(questionUUID)).getAnswerArray()) {
+			if (window.getByUUID(answer.getID()) == null && !removed.contains(answer.getID())) {
+				window.addAnswer(answer);
+				added++;
+			}
+		}
+		return added;
+	}
+
+	// Runs "<select> IN (...)" over the distinct UUIDs, one query per MAX_IN_PARAMS of them, in id order per query
+	private <T> List<T> selectByUuids(String select, Collection<UUID> uuids, RowReader<T> reader) throws SQLException {
+		List<T> rows = new ArrayList<>();
+		List<UUID> distinct = new ArrayList<>(new LinkedHashSet<>(uuids));
+		if (distinct.isEmpty()) {
+			return rows;
+		}
+		try (Connection conn = getConnection()) {
+			for (int from = 0; from < distinct.size(); from += MAX_IN_PARAMS) {
+				List<UUID> chunk = distinct.subList(from, Math.min(from + MAX_IN_PARAMS, distinct.size()));
+				String sql = select + " IN (" + String.join(", ", Collections.nCopies(chunk.size(), "?")) + ") ORDER BY id";
+				try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+					for (int i = 0; i < chunk.size(); i++) {
+						pstmt.setString(i + 1, chunk.get(i).toString());
+					}
+					try (ResultSet rs = pstmt.executeQuery()) {
+						while (rs.next()) {
+							rows.add(reader.read(rs));
+						}
+					}
+				}
+			}
+		}
+		return rows;
+	}
+
+	// Binds the query text and page bounds shared by every full-text search
+	private PreparedStatement prepareSearch(Connection conn, String sql, String query, int limit, int offset)
+			throws SQLException {
+		PreparedStatement pstmt = conn.prepareStatement(sql);
+		pstmt.setString(1, query == null ? "" : query);
+		pstmt.setInt(2, Math.max(limit, 0));
+		pstmt.setInt(3, Math.max(offset, 0));
+		return pstmt;
+	}
+
+	private privateMessage readMessage(ResultSet rs) throws SQLException {
+		UUID uuid = UUID.fromString(rs.getString("uuid"));
+		UUID toUUID = UUID.fromString(rs.getString("toUUID"));
+		UUID fromUUID = UUID.fromString(rs.getString("fromUUID"));
+		UUID review = UUID.fromString(rs.getString("reviewUUID"));
+		String textBody = rs.getString("textBody");
+		LocalDate date = rs.getDate("date").toLocalDate();
+		return new privateMessage(uuid, textBody, date, fromUUID, toUUID, review);
+	}
+
+	// =============================================
+	// code for keyset paging
+	// =============================================
+
+	// Pages continue after the last (date, id) seen rather than skipping an OFFSET,
+	// so every page costs the same index seek however deep the reader has paged
+	private static final String SELECT_PAGE_FIRST = "SELECT * FROM %s ORDER BY date, id LIMIT ?";
+	private static final String SELECT_PAGE_AFTER = "SELECT * FROM %s WHERE (date, id) > (?, ?) ORDER BY date, id LIMIT ?";
+
+	/**
+	 * Loads one page of reviews in (date, id) order.
+	 *
+	 * @param pageSize  Largest number of reviews on the page
+	 * @param pageToken Token from the previous page, or null for the first page
+	 * @return The page, with the token for the page after it
+	 */
+	public Page<Review> loadReviewsPage(int pageSize, String pageToken) throws SQLException {
+		return loadPage("Review", pageSize, pageToken, this::readReview);
+	}
+
+	/**
+	 * Loads one page of private messages in (date, id) order.
+	 *
+	 * @param pageSize  Largest number of messages on the page
+	 * @param pageToken Token from the previous page, or null for the first page
+	 * @return The page, with the token for the page after it
+	 */
+	public Page<privateMessage> loadMessagesPage(int pageSize, String pageToken) throws SQLException {
+		return loadPage("privateMessage", pageSize, pageToken, this::readMessage);
+	}
+
+	/**
+	 * Reads the page of a table that follows a continuation token. One row past
+	 * the page is fetched to tell whether another page follows; the token of a
+	 * page is the "date:id" key of its last row. Dates are NOT NULL since schema
+	 * version 8, so every row has a key.
+	 */
+	private <T> Page<T> loadPage(String table, int pageSize, String pageToken, RowReader<T> reader) throws SQLException {
+		if (pageSize < 1) {
+			throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+		}
+		String sql = String.format(pageToken == null ? SELECT_PAGE_FIRST : SELECT_PAGE_AFTER, table);
+		List<T> items = new ArrayList<>();
+		String nextToken = null;
+		try (Connection conn = getConnection(); PreparedStatement pstmt = conn.prepareStatement(sql)) {
+			int param = 1;
+			if (pageToken != null) {
+				int split = pageToken.indexOf(':');
+				if (split < 0) {
+					throw new IllegalArgumentException("Malformed page token: " + pageToken);
+				}
+				pstmt.setDate(param++, Date.valueOf(pageToken.substring(0, split)));
+				pstmt.setString(param++, pageToken.substring(split + 1));
+			}
+			pstmt.setInt(param, pageSize + 1);
+			try (ResultSet rs = pstmt.executeQuery()) {
+				String lastKey = null;
+				while (rs.next()) {
+					if (items.size() == pageSize) {
+						nextToken = lastKey;
+						break;
+					}
+					items.add(reader.read(rs));
+					lastKey = rs.getDate("date") + ":" + rs.getString("id");
+				}
+			}
+		}
+		return new Page<>(items, nextToken);
+	}
+
 }
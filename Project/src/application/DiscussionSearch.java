@@ -0,0 +1,309 @@
+package application;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * The DiscussionSearch class ranks questions against a query using the whole
+ * discussion: each question is indexed with its title, its body and the text of
+ * the answers attached to it in an Answers collection. Results are scored with
+ * BM25, the title weighing most and the answers least, and only the top results
+ * are returned.
+ *
+ * <p>The index follows both collections: adding, removing or editing a question or
+ * an answer, or moving an answer to another question, marks the affected questions,
+ * which are re-indexed in one pass before the next search.</p>
+ *
+ * <p>{@link #searchDatabase} ranks the same way without loading the board: the
+ * database's full-text index picks every candidate question, and only those and
+ * their answers are loaded and indexed for the query.</p>
+ */
+public class DiscussionSearch {
+    /** Field boosts, in the order title, body, answers */
+    public static final double TITLE_BOOST = 3.0;
+    public static final double BODY_BOOST = 1.0;
+    public static final double ANSWER_BOOST = 0.5;
+
+    /** Number of results returned when no limit is given */
+    public static final int DEFAULT_LIMIT = 50;
+
+    /** Number of full-text hits read from the database per query while collecting candidates */
+    public static final int CANDIDATE_PAGE = 500;
+
+    /** Largest number of indexed words a word still being typed is searched as */
+    public static final int PREFIX_EXPANSIONS = 64;
+
+    private final Questions questions;
+    private final Answers answers;
+    private final SearchIndex<Question> index;
+
+    /** Question each indexed answer was last counted under, to re-index both sides of a move */
+    private final IdentityHashMap<Answer, UUID> answerQuestion = new IdentityHashMap<>();
+
+    /** Questions added, removed or edited since the last search */
+    private final Set<Question> dirtyQuestions = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    /** Questions whose answers changed since the last search */
+    private final Set<UUID> dirtyAnswerText = new HashSet<>();
+
+    private final Consumer<Post> questionEdited = post -> dirtyQuestions.add((Question) post);
+    private final Consumer<Post> answerEdited = post -> markAnswered(((Answer) post).getQuestionID());
+
+    /**
+     * Builds the index over the current questions and answers and starts following changes.
+     *
+     * @param questions The questions to search
+     * @param answers The answers whose text counts toward their questions
+     */
+    public DiscussionSearch(Questions questions, Answers answers) {
+        this.questions = questions;
+        this.answers = answers;
+        this.index = new SearchIndex<Question>(q -> new String[] { q.getTitle(), q.getTextBody(), answerText(q) });
+        for (Answer answer : answers.getAnswerArray()) {
+            answerQuestion.put(answer, answer.getQuestionID());
+            answer.addTextListener(answerEdited);
+        }
+        for (Question question : questions.getQuestionArray()) {
+            index.add(question);
+            question.addTextListener(questionEdited);
+        }
+        questions.addChangeListener(this::questionChanged);
+        answers.addChangeListener(this::answerChanged);
+    }
+
+    /**
+     * Searches with the default limit.
+     *
+     * @param query The query, using the syntax described in SearchIndex
+     * @return The best questions with their scores, match count and latency
+     */
+    public SearchResult<Question> search(String query) {
+        return search(query, DEFAULT_LIMIT);
+    }
+
+    /**
+     * Searches titles, bodies and answers and returns the best k questions.
+     *
+     * @param query The query, using the syntax described in SearchIndex
+     * @param k The largest number of questions to return
+     * @return The best questions with their scores, match count and latency
+     */
+    public SearchResult<Question> search(String query, int k) {
+        flush();
+        return index.searchTop(query, k, TITLE_BOOST, BODY_BOOST, ANSWER_BOOST);
+    }
+
+    /**
+     * Gets the number of questions in the index.
+     *
+     * @return The number of indexed questions
+     */
+    public int size() {
+        flush();
+        return index.size();
+    }
+
+    /**
+     * Searches through the database's full-text index, without needing any questions
+     * or answers in memory. A question is a candidate if its title or body, or the
+     * text of one of its answers, holds every complete word of one OR-ed clause of
+     * the query; a word still being typed stands for the indexed words it starts.
+     * Every candidate is read, a page at a time, then loaded with its answers and
+     * ranked as search() ranks, so phrases, OR and the prefix still apply and the
+     * match count covers the whole board. A question whose words are split between
+     * its own text and its answers is not found this way.
+     *
+     * @param db The database to search
+     * @param query The query, using the syntax described in SearchIndex
+     * @param k The largest number of questions to return
+     * @return The best questions with their scores, match count and latency, or null
+     *         if the database cannot narrow the query (a clause with no complete word
+     *         and a word being typed that starts more than PREFIX_EXPANSIONS words)
+     */
+    public static SearchResult<Question> searchDatabase(DatabaseHelper db, String query, int k) throws SQLException {
+        long start = System.nanoTime();
+        List<String> clauses = requiredWords(query);
+        if (clauses == null) {
+            return null;
+        }
+        String typed = typedWord(query);
+        if (typed != null && clauses.get(clauses.size() - 1).isEmpty()) {
+            // the typed word is all its clause has: search the words it may become
+            List<String> words = db.findIndexedWords(typed, PREFIX_EXPANSIONS + 1);
+            if (words.size() > PREFIX_EXPANSIONS) {
+                return null;
+            }
+            clauses.remove(clauses.size() - 1);
+            clauses.addAll(words);
+        }
+        if (clauses.contains("")) {
+            return null;
+        }
+
+        Map<UUID, Question> candidates = new LinkedHashMap<>();
+        Set<UUID> answered = new LinkedHashSet<>();
+        for (String words : clauses) {
+            for (int offset = 0;; offset += CANDIDATE_PAGE) {
+                Questions page = db.searchQuestions(words, CANDIDATE_PAGE, offset);
+                for (Question hit : page.getQuestionArray()) {
+                    candidates.putIfAbsent(hit.getID(), hit);
+                }
+                if (page.getSize() < CANDIDATE_PAGE) {
+                    break;
+                }
+            }
+            for (int offset = 0;; offset += CANDIDATE_PAGE) {
+                Answers page = db.searchAnswers(words, CANDIDATE_PAGE, offset);
+                for (Answer hit : page.getAnswerArray()) {
+                    answered.add(hit.getQuestionID());
+                }
+                if (page.getSize() < CANDIDATE_PAGE) {
+                    break;
+                }
+            }
+        }
+        answered.removeAll(candidates.keySet());
+        for (Question question : db.loadQuestionsByUUID(answered).getQuestionArray()) {
+            candidates.putIfAbsent(question.getID(), question);
+        }
+        Answers answers = db.loadAnswersForQuestions(candidates.keySet());
+
+        SearchIndex<Question> index = new SearchIndex<Question>(
+                q -> new String[] { q.getTitle(), q.getTextBody(), answerText(answers, q) });
+        for (Question candidate : candidates.values()) {
+            index.add(candidate);
+        }
+        SearchResult<Question> ranked = index.searchTop(query, k, TITLE_BOOST, BODY_BOOST, ANSWER_BOOST);
+        double[] scores = new double[ranked.getItems().size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = ranked.getScore(i);
+        }
+        return new SearchResult<>(ranked.getItems(), scores, ranked.getMatchCount(), System.nanoTime() - start);
+    }
+
+    /**
+     * Gets the complete words each OR-ed clause of a query requires, for the
+     * database's full-text index, which only matches whole words that must all be
+     * present. The word still being typed is left out, as it may become a longer one.
+     *
+     * @param query The query, using the syntax described in SearchIndex
+     * @return The words of each clause separated by spaces, empty for a clause with
+     *         no complete word; null for an empty query
+     */
+    static List<String> requiredWords(String query) {
+        if (query == null || query.isBlank()) {
+            return null;
+        }
+        List<String> clauses = new ArrayList<>();
+        List<String> words = new ArrayList<>();
+        for (String token : query.trim().split("\\s+")) {
+            if (token.equals("OR")) {
+                clauses.add(String.join(" ", words));
+                words.clear();
+            } else if (!token.equals("AND")) {
+                words.addAll(SearchIndex.tokenize(token));
+            }
+        }
+        if (typedWord(query) != null) {
+            words.remove(words.size() - 1);
+        }
+        clauses.add(String.join(" ", words));
+        return clauses;
+    }
+
+    /**
+     * Gets the word still being typed: the last word of a query that does not end
+     * in a space or a closing quote. SearchIndex also matches it as a prefix.
+     *
+     * @param query The query
+     * @return The lowercase word, or null if the query ends in a complete word
+     */
+    static String typedWord(String query) {
+        if (query == null || query.isEmpty()) {
+            return null;
+        }
+        char last = query.charAt(query.length() - 1);
+        if (Character.isWhitespace(last) || last == '"') {
+            return null;
+        }
+        String[] tokens = query.trim().split("\\s+");
+        String token = tokens[tokens.length - 1];
+        if (token.equals("OR") || token.equals("AND")) {
+            return null;
+        }
+        List<String> words = SearchIndex.tokenize(token);
+        return words.isEmpty() ? null : words.get(words.size() - 1);
+    }
+
+    private String answerText(Question question) {
+        return answerText(answers, question);
+    }
+
+    private static String answerText(Answers answers, Question question) {
+        StringBuilder text = new StringBuilder();
+        for (Answer answer : answers.getAnswersByUUID(question.getID())) {
+            if (answer.getTextBody() != null) {
+                text.append(answer.getTextBody()).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    private void questionChanged(Question question) {
+        dirtyQuestions.add(question);
+    }
+
+    private void answerChanged(Answer answer) {
+        markAnswered(answerQuestion.get(answer));
+        if (answers.getByUUID(answer.getID()) == answer) {
+            if (!answerQuestion.containsKey(answer)) {
+                answer.addTextListener(answerEdited);
+            }
+            answerQuestion.put(answer, answer.getQuestionID());
+            markAnswered(answer.getQuestionID());
+        } else {
+            answerQuestion.remove(answer);
+            answer.removeTextListener(answerEdited);
+        }
+    }
+
+    private void markAnswered(UUID questionID) {
+        if (questionID != null) {
+            dirtyAnswerText.add(questionID);
+        }
+    }
+
+    /**
+     * Re-indexes the questions marked since the last search.
+     */
+    private void flush() {
+        for (UUID questionID : dirtyAnswerText) {
+            Question question = questions.getByUUID(questionID);
+            if (question != null) {
+                dirtyQuestions.add(question);
+            }
+        }
+        dirtyAnswerText.clear();
+        for (Question question : new ArrayList<>(dirtyQuestions)) {
+            if (questions.getByUUID(question.getID()) == question) {
+                if (!index.contains(question)) {
+                    question.addTextListener(questionEdited);
+                }
+                index.add(question);
+            } else if (index.remove(question)) {
+                question.removeTextListener(questionEdited);
+            }
+        }
+        dirtyQuestions.clear();
+    }
+}
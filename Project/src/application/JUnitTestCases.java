@@ -1,5 +1,7 @@
 package application;
 
+import java.io.File;
+import java.io.IOException;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.util.List;
@@ -28,6 +30,8 @@ class JUnitTestCases {
 	@BeforeAll
 	static void setupPM() throws SQLException {
 		helper = new DatabaseHelper(DATABASE_URL);
+		// Cheap hashing keeps the many test registrations fast; test 47 covers the real cost
+		PasswordHasher.setDefault(new PasswordHasher(1_000));
 		helper.ResetHard(DATABASE_URL);
 		try {
 //			helper.createTables();
@@ -642,4 +646,1273 @@ class JUnitTestCases {
 		assertFalse(answer.getUnderReview(), "answer underReview is False");
 	}
 
-}
\ No newline at end of file
+	// 31
+	/*
+	 * Questions: Saving writes only the changed rows
+	 */
+	@Test
+	@Order(31)
+	@DisplayName("Questions: Incremental save of edited and removed questions")
+	void testIncrementalQuestionSave() throws SQLException {
+		helper.ResetHard(DATABASE_URL);
+		Questions questions = new Questions();
+		Question keep = new Question("User1", "Keep", "unchanged body", user1.getID());
+		Question edit = new Question("User1", "Edit", "old body", user1.getID());
+		Question drop = new Question("User1", "Drop", "removed body", user1.getID());
+		questions.addQuestion(keep);
+		questions.addQuestion(edit);
+		questions.addQuestion(drop);
+		assertEquals(Post.ChangeState.NEW, keep.getChangeState(), "Unsaved question is NEW");
+
+		helper.saveQuestions(questions);
+		assertEquals(Post.ChangeState.CLEAN, keep.getChangeState(), "Saved question is CLEAN");
+
+		edit.setTextBody("new body");
+		assertEquals(Post.ChangeState.MODIFIED, edit.getChangeState(), "Edited question is MODIFIED");
+		questions.removeByUUID(drop.getID());
+		assertEquals(Post.ChangeState.DELETED, drop.getChangeState(), "Removed question is DELETED");
+		assertEquals(1, questions.getPendingDeletes().size(), "Removed question awaits deletion");
+
+		helper.saveQuestions(questions);
+		assertEquals(0, questions.getPendingDeletes().size(), "Pending deletes are flushed");
+
+		Questions reloaded = helper.loadQuestions();
+		assertEquals(2, reloaded.getSize(), "Only the removed row is deleted");
+		assertEquals("new body", reloaded.getByUUID(edit.getID()).getTextBody(), "Edit is persisted");
+		assertNull(reloaded.getByUUID(drop.getID()), "Removed question is gone");
+		assertEquals(Post.ChangeState.CLEAN, reloaded.get(0).getChangeState(), "Loaded question is CLEAN");
+
+		questions.removeByUUID(keep.getID());
+		questions.addQuestion(keep);
+		assertEquals(0, questions.getPendingDeletes().size(), "Adding a question back cancels its delete");
+		helper.saveQuestions(questions);
+		assertNotNull(helper.loadQuestions().getByUUID(keep.getID()), "Re-added question survives the save");
+
+		Answers answers = new Answers();
+		Answer answer = new Answer("User1", "Re-added answer", keep.getID(), user1.getID());
+		answers.addAnswer(answer);
+		helper.saveAnswers(answers);
+		answers.removeByUUID(answer.getID());
+		answers.addAnswer(answer);
+		assertEquals(0, answers.getPendingDeletes().size(), "Adding an answer back cancels its delete");
+		helper.saveAnswers(answers);
+		assertNotNull(helper.loadAnswer().getByUUID(answer.getID()), "Re-added answer survives the save");
+	}
+
+	// 32
+	/*
+	 * Database: Bulk writes are batched and roll back as a unit
+	 */
+	@Test
+	@Order(32)
+	@DisplayName("Database: Batched message writes and rollback")
+	void testBatchedMessageWrites() throws SQLException {
+		helper.ResetHard(DATABASE_URL);
+		helper.setBatchSize(100);
+		List<privateMessage> messages = new java.util.ArrayList<>();
+		for (int i = 0; i < 250; i++) {
+			messages.add(new privateMessage("Bulk " + i, user1.getID(), user2.getID(), UUID.randomUUID()));
+		}
+		BatchResult result = helper.saveMessagesBatch(messages);
+		assertEquals(250, result.getRowsWritten(), "Every message should be written");
+		assertTrue(result.getElapsedNanos() > 0, "Elapsed time should be reported");
+		assertEquals(250, helper.getAllMessages().getSize());
+
+		// A duplicate uuid fails the batch, and nothing from it is kept
+		List<privateMessage> failing = List.of(
+				new privateMessage("Fresh", user1.getID(), user2.getID(), UUID.randomUUID()), messages.get(0));
+		assertThrows(SQLException.class, () -> helper.saveMessagesBatch(failing));
+		assertEquals(250, helper.getAllMessages().getSize(), "Failed batch should be rolled back");
+		helper.setBatchSize(500);
+	}
+
+	// 33
+	/*
+	 * Database: Connection pool bounds, reuse, leak detection and idle eviction
+	 */
+	@Test
+	@Order(33)
+	@DisplayName("Database: Connection pool bounds, reuse and leak detection")
+	void testConnectionPool() throws Exception {
+		ConnectionPool pool = new ConnectionPool(DATABASE_URL, "sa", "", 2);
+		pool.setBorrowTimeoutMillis(50);
+		java.sql.Connection first = pool.getConnection();
+		java.sql.Connection second = pool.getConnection();
+		assertEquals(2, pool.getStats().getActive(), "Two connections are borrowed");
+		assertThrows(SQLException.class, pool::getConnection, "Pool should not grow past its bound");
+
+		first.close();
+		assertEquals(1, pool.getStats().getIdle(), "Closing returns the connection to the pool");
+		assertThrows(SQLException.class, first::createStatement, "Returned connection cannot be used");
+		java.sql.Connection third = pool.getConnection();
+		assertEquals(2, pool.getStats().getCreated(), "Idle connection is reused");
+
+		pool.setLeakThresholdMillis(0);
+		Thread.sleep(5);
+		pool.housekeep();
+		assertEquals(2, pool.getStats().getLeaks(), "Held connections are reported as leaks");
+
+		second.close();
+		pool.setRecordBorrowSites(true);
+		java.sql.Connection traced = pool.getConnection();
+		pool.housekeep();
+		assertEquals(3, pool.getStats().getLeaks(), "Leaks are reported with or without borrow sites");
+		traced.close();
+		pool.setRecordBorrowSites(false);
+		third.close();
+		pool.setIdleTimeoutMillis(0);
+		pool.housekeep();
+		assertEquals(0, pool.getStats().getIdle(), "Idle connections are evicted");
+
+		pool.setIdleTimeoutMillis(60_000);
+		java.sql.Connection raced = pool.getConnection();
+		java.util.concurrent.CyclicBarrier start = new java.util.concurrent.CyclicBarrier(8);
+		List<Thread> closers = new java.util.ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			Thread closer = new Thread(() -> {
+				try {
+					start.await();
+					raced.close();
+				} catch (Exception e) {
+					throw new RuntimeException(e);
+				}
+			});
+			closer.start();
+			closers.add(closer);
+		}
+		for (Thread closer : closers) {
+			closer.join();
+		}
+		assertEquals(1, pool.getStats().getIdle(), "Concurrent closes return the connection once");
+		java.sql.Connection fourth = pool.getConnection();
+		java.sql.Connection fifth = pool.getConnection();
+		assertThrows(SQLException.class, pool::getConnection, "Concurrent closes do not add permits");
+		fourth.close();
+		fifth.close();
+		pool.close();
+	}
+
+	// 34
+	/*
+	 * Database: Every keyed lookup is served by an index after migration
+	 */
+	@Test
+	@Order(34)
+	@DisplayName("Database: Schema migration and query plans without table scans")
+	void testLookupsUseIndexes() throws SQLException {
+		helper.ResetHard(DATABASE_URL);
+		assertEquals(DatabaseHelper.SCHEMA_VERSION, helper.getSchemaVersion(), "Schema is migrated to the current version");
+		List<String> scans = helper.findTableScans();
+		assertTrue(scans.isEmpty(), "Queries falling back to a table scan: " + scans);
+	}
+
+	// 35
+	/*
+	 * Questions: Hash-indexed removal keeps order and survives save/load
+	 */
+	@Test
+	@Order(35)
+	@DisplayName("Questions: Indexed lookup, tombstone removal and compaction")
+	void testIndexedQuestions() throws IOException {
+		Questions indexed = new Questions();
+		for (int i = 0; i < 10; i++) {
+			indexed.addQuestion(new Question("Indexer", "Indexed " + i, "Body " + i, user1.getID()));
+		}
+		Question third = indexed.get(3);
+		assertTrue(indexed.removeByUUID(indexed.get(1).getID()), "Remove by UUID");
+		assertFalse(indexed.removeByUUID(UUID.randomUUID()), "Unknown UUID is not removed");
+		assertTrue(indexed.removeByIndex(0), "Remove by index");
+		assertEquals(8, indexed.getSize(), "Two questions removed");
+		assertEquals("Indexed 2", indexed.get(0).getTitle(), "Insertion order is kept after removal");
+		assertEquals(third.getID(), indexed.getUUIDbyIndex(1), "Positions shift past removed questions");
+		assertSame(third, indexed.getByUUID(third.getID()), "Lookup by UUID after compaction");
+
+		File file = File.createTempFile("questions", ".ser");
+		file.deleteOnExit();
+		assertTrue(indexed.saveQuestions(file.getPath()), "Saved to file");
+		Questions loaded = Questions.loadQuestions(file.getPath());
+		assertEquals(8, loaded.getSize(), "Loaded every question");
+		assertEquals("Indexed 9", loaded.getByUUID(indexed.get(7).getID()).getTitle(), "Index is rebuilt on load");
+
+		indexed.addQuestion(new Question("Indexer", "Indexed 10", "Body 10", user1.getID()));
+		assertTrue(indexed.removeByIndex(4), "Remove in the middle");
+		java.util.List<String> titles = new java.util.ArrayList<>();
+		for (int i = 0; i < indexed.getSize(); i++) {
+			titles.add(indexed.get(i).getTitle());
+		}
+		assertEquals(List.of("Indexed 2", "Indexed 3", "Indexed 4", "Indexed 5", "Indexed 7", "Indexed 8", "Indexed 9",
+				"Indexed 10"), titles, "Positions skip tombstones and include questions added after a removal");
+		assertThrows(IndexOutOfBoundsException.class, () -> indexed.get(8), "Positions past the live questions");
+
+		UUID oldID = third.getID();
+		UUID newID = UUID.randomUUID();
+		third.setID(newID);
+		assertSame(third, indexed.getByUUID(newID), "Lookup by the new UUID after setID");
+		assertNull(indexed.getByUUID(oldID), "The old UUID is no longer indexed");
+		assertTrue(indexed.removeByUUID(newID), "Remove by the new UUID");
+	}
+
+	// 36
+	/*
+	 * Answers: Per-question index follows adds, removals and moved answers
+	 */
+	@Test
+	@Order(36)
+	@DisplayName("Answers: Question index kept current by add, remove and setQuestionID")
+	void testAnswerQuestionIndex() {
+		Answers indexed = new Answers();
+		UUID first = UUID.randomUUID();
+		UUID second = UUID.randomUUID();
+		Answer a1 = new Answer("Indexer", "First A", first, user1.getID());
+		Answer a2 = new Answer("Indexer", "First B", first, user1.getID());
+		Answer a3 = new Answer("Indexer", "Second A", second, user2.getID());
+		indexed.addAnswer(a1);
+		indexed.addAnswer(a2);
+		indexed.addAnswer(a3);
+
+		List<Answer> forFirst = indexed.getAnswersByUUID(first);
+		assertEquals(List.of(a1, a2), forFirst, "Answers of a question in insertion order");
+		assertThrows(UnsupportedOperationException.class, () -> forFirst.add(a3), "Lookup returns a read-only view");
+		assertTrue(indexed.getAnswersByUUID(UUID.randomUUID()).isEmpty(), "Unknown question has no answers");
+
+		a2.setQuestionID(second);
+		assertEquals(List.of(a1), indexed.getAnswersByUUID(first), "Moved answer leaves its old question");
+		assertEquals(List.of(a3, a2), indexed.getAnswersByUUID(second), "Moved answer joins its new question");
+
+		assertTrue(indexed.removeByUUID(a3.getID()), "Remove by UUID");
+		assertTrue(indexed.removeByIndex(0), "Remove by index");
+		assertNull(indexed.getByUUID(a1.getID()), "Removed answer is not found by ID");
+		assertTrue(indexed.getAnswersByUUID(first).isEmpty(), "Removed answer leaves its question");
+		assertSame(a2, indexed.getByUUID(a2.getID()), "Remaining answer is found by ID");
+
+		a1.setQuestionID(second);
+		assertEquals(List.of(a2), indexed.getAnswersByUUID(second), "Removed answers no longer update the index");
+	}
+
+	// 37
+	/*
+	 * Questions: Full-text index queries and incremental updates
+	 */
+	@Test
+	@Order(37)
+	@DisplayName("Questions: Indexed search with phrases, AND, OR and edits")
+	void testIndexedSearch() {
+		Questions indexed = new Questions();
+		Question java = new Question("Searcher", "Java streams", "How do parallel streams split work?", user1.getID());
+		Question python = new Question("Searcher", "Python lists", "Are lists faster than streams here?", user1.getID());
+		Question both = new Question("Searcher", "Java or Python", "Java java JAVA", user2.getID());
+		indexed.addQuestion(java);
+		indexed.addQuestion(python);
+		indexed.addQuestion(both);
+
+		assertEquals(List.of(both.getID(), java.getID()), indexed.search("java"), "Ranked by occurrences");
+		assertEquals(List.of(java.getID()), indexed.search("parallel streams"), "Words typed together are a phrase");
+		assertEquals(List.of(java.getID()), indexed.search("java AND streams"), "AND requires both");
+		assertEquals(3, indexed.search("\"java streams\" OR python").size(), "OR accepts either");
+		assertEquals(List.of(python.getID()), indexed.search("fast"), "Last word matches as a prefix");
+		assertTrue(indexed.search("aster").isEmpty(), "A fragment from inside a word does not match");
+		assertTrue(indexed.search("fast lists").isEmpty(), "Only the last word matches as a prefix");
+		assertTrue(indexed.search("\"streams split\" AND python").isEmpty(), "AND with no common question");
+
+		python.setTextBody("Nothing about that here");
+		assertEquals(List.of(java.getID()), indexed.search("streams"), "Edits are re-indexed");
+		indexed.update(0, "Rewritten body");
+		assertTrue(indexed.search("parallel").isEmpty(), "update() is re-indexed");
+		indexed.removeByUUID(both.getID());
+		assertEquals(List.of(java.getID()), indexed.search("java"), "Removed questions are not found");
+		Question late = new Question("Searcher", "Late java question", "", user3.getID());
+		indexed.addQuestion(late);
+		assertEquals(List.of(java.getID(), late.getID()), indexed.search("java"), "Added questions are found");
+	}
+
+	// 38
+	/*
+	 * Search: BM25 ranking over titles, bodies and answers with a top-k limit
+	 */
+	@Test
+	@Order(38)
+	@DisplayName("Search: Ranked discussion search with field boosts and top-k")
+	void testRankedDiscussionSearch() {
+		Questions board = new Questions();
+		Answers replies = new Answers();
+		Question inTitle = new Question("Ranker", "Deadlock in threads", "Two locks taken in order", user1.getID());
+		Question inBody = new Question("Ranker", "Program hangs", "I think it is a deadlock somewhere", user1.getID());
+		Question inAnswer = new Question("Ranker", "Stuck forever", "Nothing happens after start", user2.getID());
+		Question unrelated = new Question("Ranker", "Formatting dates", "How to print a LocalDate", user2.getID());
+		board.addQuestion(inAnswer);
+		board.addQuestion(inBody);
+		board.addQuestion(inTitle);
+		board.addQuestion(unrelated);
+		replies.addAnswer(new Answer("Helper", "Looks like a deadlock to me", inAnswer.getID(), user3.getID()));
+
+		DiscussionSearch search = new DiscussionSearch(board, replies);
+		SearchResult<Question> result = search.search("deadlock");
+		assertEquals(List.of(inTitle, inBody, inAnswer), result.getItems(), "Title beats body beats answers");
+		assertEquals(3, result.getMatchCount(), "Three questions match");
+		assertTrue(result.getScore(0) > result.getScore(1) && result.getScore(1) > result.getScore(2), "Scores descend");
+		assertTrue(result.getElapsedNanos() > 0, "Latency is reported");
+
+		SearchResult<Question> top = search.search("deadlock", 2);
+		assertEquals(List.of(inTitle, inBody), top.getItems(), "Only the top k are returned");
+		assertEquals(3, top.getMatchCount(), "Match count still covers every match");
+
+		Answer late = new Answer("Helper", "Format it with DateTimeFormatter", unrelated.getID(), user3.getID());
+		replies.addAnswer(late);
+		assertEquals(List.of(unrelated), search.search("datetimeformatter").getItems(), "New answers are indexed");
+		late.setQuestionID(inBody.getID());
+		assertEquals(List.of(inBody), search.search("datetimeformatter").getItems(), "Moved answers follow their question");
+		board.removeByUUID(inTitle.getID());
+		assertEquals(2, search.search("deadlock").getMatchCount(), "Removed questions are dropped");
+		inBody.setTitle("Deadlock again");
+		assertEquals(inBody, search.search("deadlock").getItems().get(0), "Edited titles are re-indexed");
+	}
+
+	// 39
+	/*
+	 * Database: Full-text search returns only matching rows, a page at a time
+	 */
+	@Test
+	@Order(39)
+	@DisplayName("Database: Full-text search over questions, answers, reviews and messages")
+	void testFullTextSearch() throws SQLException {
+		helper.ResetHard(DATABASE_URL);
+		Questions questions = new Questions();
+		Question lambdas = new Question("Alice", "Java lambdas", "How do closures capture variables?", user1.getID());
+		Question streams = new Question("Bob", "Streams", "Are java streams lazy?", user1.getID());
+		Question css = new Question("Carol", "CSS grid", "Centering a div", user2.getID());
+		questions.addQuestion(lambdas);
+		questions.addQuestion(streams);
+		questions.addQuestion(css);
+		helper.saveQuestions(questions);
+
+		Questions found = helper.searchQuestions("java", 10, 0);
+		assertEquals(List.of(lambdas.getID(), streams.getID()), found.getUUIDArray(), "Title and body matches, in posting order");
+		assertEquals(List.of(streams.getID()), helper.searchQuestions("java", 10, 1).getUUIDArray(), "Offset skips earlier matches");
+		assertEquals(1, helper.searchQuestions("java", 1, 0).getSize(), "Limit caps the page");
+		assertEquals(0, helper.searchQuestions("python", 10, 0).getSize(), "No matches loads nothing");
+		assertEquals(List.of(streams.getID()), helper.searchQuestions("java lazy", 10, 0).getUUIDArray(), "All words must match");
+
+		Answer answer = new Answer("Dave", "Streams are evaluated lazily", streams.getID(), user2.getID());
+		helper.saveAnswer(answer);
+		assertEquals(answer.getID(), helper.searchAnswers("lazily", 10, 0).get(0).getID(), "Answers are indexed on save");
+		assertEquals(0, helper.searchQuestions("lazily", 10, 0).getSize(), "Results come only from the searched table");
+
+		Review review = new Review(user3.getID(), streams.getID(), answer.getID(), "Mention terminal operations");
+		helper.saveReview(review);
+		assertEquals(review.getId(), helper.searchReviews("terminal", 10, 0).get(0).getId(), "Reviews are indexed");
+
+		privateMessage message = new privateMessage("Thanks for the terminal tip", user2.getID(), user3.getID(), review.getId());
+		helper.saveMessage(message);
+		assertEquals(1, helper.searchMessages("tip", 10, 0).getSize(), "Messages are indexed");
+
+		streams.setTitle("Iterators");
+		streams.setTextBody("Are iterators lazy?");
+		helper.saveQuestions(questions);
+		assertEquals(List.of(lambdas.getID()), helper.searchQuestions("java", 10, 0).getUUIDArray(), "Edits update the index");
+
+		SearchResult<Question> ranked = DiscussionSearch.searchDatabase(helper, "closures capt", 10);
+		assertEquals(List.of(lambdas.getID()), ranked.getItems().stream().map(Question::getID).toList(),
+				"Database narrows on complete words, the last word is a prefix");
+		ranked = DiscussionSearch.searchDatabase(helper, "evaluated lazily", 10);
+		assertEquals(List.of(streams.getID()), ranked.getItems().stream().map(Question::getID).toList(),
+				"Questions are found through their answers, loaded from the database");
+		assertTrue(DiscussionSearch.searchDatabase(helper, "\"java lambdas\"", 10).getItems().stream()
+				.anyMatch(q -> q.getID().equals(lambdas.getID())), "Quoted phrases are matched in full");
+		assertEquals(2, DiscussionSearch.searchDatabase(helper, "java OR centering", 10).getMatchCount(), "OR clauses are searched one by one");
+		assertEquals(List.of(lambdas.getID()), DiscussionSearch.searchDatabase(helper, "jav", 10).getItems().stream()
+				.map(Question::getID).toList(), "A word still being typed is searched as the indexed words it starts");
+		assertEquals(List.of("iterators"), helper.findIndexedWords("it", 10));
+		assertEquals(0, DiscussionSearch.searchDatabase(helper, "xyz", 10).getMatchCount(), "No indexed word, no matches");
+
+		Questions many = new Questions();
+		for (int i = 0; i < DiscussionSearch.CANDIDATE_PAGE + 20; i++) {
+			many.addQuestion(new Question("Eve", "Generics " + i, "Bounded wildcards", user1.getID()));
+		}
+		helper.saveQuestions(many);
+		ranked = DiscussionSearch.searchDatabase(helper, "bounded wildcards", 5);
+		assertEquals(DiscussionSearch.CANDIDATE_PAGE + 20, ranked.getMatchCount(), "Every hit is a candidate, not only the first page");
+		assertEquals(5, ranked.getItems().size());
+		assertNull(DiscussionSearch.requiredWords(" "));
+		assertEquals(List.of("java", ""), DiscussionSearch.requiredWords("java OR c"), "The typed word is left to the prefix search");
+		assertNull(DiscussionSearch.typedWord("java OR"));
+	}
+
+	// 40
+	/*
+	 * Database: Keyset paging walks every row once in (date, id) order
+	 */
+	@Test
+	@Order(40)
+	@DisplayName("Database: Keyset-paginated loading and partial windows")
+	void testKeysetPaging() throws SQLException {
+		helper.ResetHard(DATABASE_URL);
+		Questions questions = new Questions();
+		LocalDate start = LocalDate.of(2025, 1, 1);
+		for (int i = 0; i < 7; i++) {
+			Question q = new Question("Pager", "Question " + i, "Body " + i, user1.getID());
+			q.setDate(start.plusDays(i < 4 ? 6 - i : i)); // dates out of insertion order, and one shared date
+			questions.addQuestion(q);
+		}
+		helper.saveQuestions(questions);
+
+		Page<Question> first = helper.loadQuestionsPage(3, null);
+		assertEquals(3, first.getItems().size(), "First page is full");
+		assertTrue(first.hasMore(), "More pages follow");
+		Page<Question> second = helper.loadQuestionsPage(3, first.getNextToken());
+		Page<Question> third = helper.loadQuestionsPage(3, second.getNextToken());
+		assertEquals(1, third.getItems().size(), "Last page holds the remainder");
+		assertFalse(third.hasMore(), "No token after the last page");
+
+		List<Question> all = new java.util.ArrayList<>(first.getItems());
+		all.addAll(second.getItems());
+		all.addAll(third.getItems());
+		assertEquals(7, all.stream().map(Question::getID).distinct().count(), "Every row is seen exactly once");
+		for (int i = 1; i < all.size(); i++) {
+			assertFalse(all.get(i).getDate().isBefore(all.get(i - 1).getDate()), "Pages are in date order");
+		}
+
+		Questions window = helper.loadQuestions(5);
+		assertEquals(5, window.getSize(), "Window holds only the first page");
+		assertTrue(window.hasMorePages(), "Window knows more rows exist");
+		assertEquals(2, helper.loadMoreQuestions(window, 5), "Next page extends the window");
+		assertFalse(window.hasMorePages(), "Window is complete");
+		assertEquals(0, helper.loadMoreQuestions(window, 5), "Nothing left to load");
+
+		Questions posting = helper.loadQuestions(3);
+		Question posted = new Question("Pager", "Posted here", "Body", user1.getID());
+		posted.setDate(start.plusDays(30));
+		posting.addQuestion(posted);
+		helper.saveQuestions(posting);
+		while (posting.hasMorePages()) {
+			helper.loadMoreQuestions(posting, 3);
+		}
+		assertEquals(8, posting.getSize(), "A question posted in the window is not paged in again");
+
+		Answers answers = helper.loadAnswer(10);
+		assertEquals(0, answers.getSize(), "Empty table gives an empty window");
+		assertFalse(answers.hasMorePages(), "Empty window is complete");
+		assertThrows(IllegalArgumentException.class, () -> helper.loadReviewsPage(0, null), "Page size must be positive");
+
+		Answers thread = new Answers();
+		Answer kept = new Answer("Pager", "Kept", posted.getID(), user1.getID());
+		Answer dropped = new Answer("Pager", "Dropped", posted.getID(), user1.getID());
+		thread.addAnswer(kept);
+		thread.addAnswer(dropped);
+		helper.saveAnswers(thread);
+		Answers shown = new Answers();
+		assertEquals(2, helper.loadAnswersOf(shown, posted.getID()), "Answers of a shown question are loaded");
+		shown.removeByUUID(dropped.getID());
+		shown.addAnswer(new Answer("Pager", "Unsaved", posted.getID(), user1.getID()));
+		assertEquals(0, helper.loadAnswersOf(shown, posted.getID()), "Loaded and removed answers are left as they are");
+		assertEquals(2, shown.getAnswersByUUID(posted.getID()).size(), "The removal and the new answer are kept");
+
+		try (java.sql.Connection conn = java.sql.DriverManager.getConnection(DATABASE_URL, "sa", "");
+				java.sql.Statement statement = conn.createStatement()) {
+			assertThrows(SQLException.class, () -> statement.executeUpdate("INSERT INTO Questions (uuid, title, date) "
+					+ "VALUES ('" + UUID.randomUUID() + "', 'Undated', NULL)"), "Rows without a date have no page key");
+			statement.executeUpdate("INSERT INTO Questions (uuid, uuidUSER, name, title, textBody, date) VALUES ('"
+					+ UUID.randomUUID() + "', '" + user1.getID() + "', 'Pager', 'Oldest', 'Body', DATE '0001-01-01')");
+		}
+		Page<Question> oldest = helper.loadQuestionsPage(1, null);
+		assertEquals("Oldest", oldest.getItems().get(0).getTitle(), "Backfilled dates sort first");
+		assertEquals(3, helper.loadQuestionsPage(3, oldest.getNextToken()).getItems().size(), "The token of an old date parses");
+	}
+
+	// 41
+	/*
+	 * Database: Concurrent reputation updates are never lost
+	 */
+	@Test
+	@Order(41)
+	@DisplayName("Database: Atomic and batched reputation updates under contention")
+	void testConcurrentReputationUpdates() throws Exception {
+		helper.ResetHard(DATABASE_URL);
+		makeNewUsers("RepAuthor", "RepAuthor1!", "student");
+		makeNewUsers("RepOther", "RepOther1!", "student");
+		UUID authorID = helper.getUserUUID("RepAuthor");
+		UUID otherID = helper.getUserUUID("RepOther");
+		assertEquals(1, helper.updateReputation(authorID, 1), "Returns the new value");
+		assertEquals(0, helper.updateReputation(authorID, -1), "Negative changes subtract");
+		assertEquals(-1, helper.updateReputation(UUID.randomUUID(), 1), "Unknown users report failure");
+
+		final int threads = 8;
+		final int votes = 50;
+		java.util.concurrent.ExecutorService executor = java.util.concurrent.Executors.newFixedThreadPool(threads);
+		java.util.concurrent.CountDownLatch go = new java.util.concurrent.CountDownLatch(1);
+		List<java.util.concurrent.Future<?>> done = new java.util.ArrayList<>();
+		for (int t = 0; t < threads; t++) {
+			final boolean batched = t % 2 == 0;
+			done.add(executor.submit(() -> {
+				go.await();
+				for (int v = 0; v < votes; v++) {
+					if (batched) {
+						helper.updateReputations(java.util.Map.of(authorID, 1, otherID, 2));
+					} else {
+						assertTrue(helper.updateReputation(authorID, 1) > 0, "Single update succeeds");
+					}
+				}
+				return null;
+			}));
+		}
+		go.countDown();
+		for (java.util.concurrent.Future<?> future : done) {
+			future.get(60, java.util.concurrent.TimeUnit.SECONDS);
+		}
+		executor.shutdown();
+
+		assertEquals(threads * votes, helper.getReputation(authorID), "Every increment to the author is counted");
+		assertEquals(threads / 2 * votes * 2, helper.getReputation(otherID), "Every batched increment is counted");
+	}
+
+	// 42
+	/*
+	 * Answer: Votes are single rows; repeats are ignored and switching replaces the vote
+	 */
+	@Test
+	@Order(42)
+	@DisplayName("Answer: Idempotent votes in the AnswerVotes table with stored totals")
+	void testAnswerVotes() throws SQLException {
+		helper.ResetHard(DATABASE_URL);
+		makeNewUsers("VoteAuthor", "VoteAuthor1!", "student");
+		UUID author = helper.getUserUUID("VoteAuthor");
+		UUID voter = UUID.randomUUID();
+		UUID otherVoter = UUID.randomUUID();
+		Answer answer = new Answer("VoteAuthor", "Vote on me", UUID.randomUUID(), author);
+		helper.saveAnswer(answer);
+
+		assertEquals(Answer.NO_VOTE, answer.getVote(helper, voter), "No vote yet");
+		assertEquals(1, answer.increaseReputation(helper, voter), "Upvote raises the author's reputation");
+		assertEquals(1, answer.increaseReputation(helper, voter), "Repeating a vote changes nothing");
+		assertEquals(1, answer.getUpvotes(), "One upvote counted");
+		assertEquals(Answer.UPVOTE, answer.getVote(helper, voter), "Voter's state follows the vote");
+
+		assertEquals(0, answer.decreaseReputation(helper, voter), "Switching sides moves reputation by one");
+		assertEquals(0, answer.getUpvotes(), "Switched vote leaves the upvotes");
+		assertEquals(1, answer.getDownvotes(), "Switched vote joins the downvotes");
+		assertEquals(1, answer.increaseReputation(helper, otherVoter), "Another voter counts separately");
+
+		Answer loaded = helper.loadAnswer().getByUUID(answer.getID());
+		assertEquals(1, loaded.getUpvotes(), "Upvotes are stored");
+		assertEquals(1, loaded.getDownvotes(), "Downvotes are stored");
+		assertEquals(0, loaded.getScore(), "Score is upvotes minus downvotes");
+		assertEquals(Answer.DOWNVOTE, loaded.getVote(helper, voter), "Vote state loads on demand");
+
+		loaded.setTextBody("Edited");
+		helper.saveAnswer(loaded);
+		assertEquals(1, helper.loadAnswer().getByUUID(answer.getID()).getUpvotes(), "Saving an answer keeps its votes");
+
+		Answer unsaved = new Answer("VoteAuthor", "Not saved", UUID.randomUUID(), author);
+		assertEquals(0, unsaved.increaseReputation(helper, voter), "Votes on unsaved answers are not recorded");
+		assertEquals(0, unsaved.getUpvotes(), "Unsaved answer has no votes");
+	}
+
+	// 43
+	/*
+	 * Leaderboard: Stored scores and reputations ranked without per-answer queries
+	 */
+	@Test
+	@Order(43)
+	@DisplayName("Leaderboard: Answer scores and reputations kept current by votes")
+	void testLeaderboards() throws SQLException {
+		Leaderboard<String> board = new Leaderboard<>();
+		board.put("a", 5);
+		board.put("b", 7);
+		board.put("c", 5);
+		assertEquals(List.of("b", "a", "c"), board.top(10), "Highest first, ties in insertion order");
+		assertEquals(8, board.add("a", 3), "Add changes the score");
+		assertEquals(List.of("a", "b"), board.top(2), "Top is re-ranked and capped");
+		assertTrue(board.remove("b"));
+		assertEquals(-1, board.get("b", -1), "Removed keys fall back to the default");
+
+		helper.ResetHard(DATABASE_URL);
+		makeNewUsers("BoardAuthor", "BoardAuthor1!", "student");
+		UUID author = helper.getUserUUID("BoardAuthor");
+		UUID question = UUID.randomUUID();
+		Answers answers = new Answers();
+		Answer low = new Answer("BoardAuthor", "Low", question, author);
+		Answer high = new Answer("BoardAuthor", "High", question, author);
+		answers.addAnswer(low);
+		answers.addAnswer(high);
+		helper.saveAnswers(answers);
+
+		assertEquals(List.of(low, high), answers.getTopAnswers(2), "Equal scores keep insertion order");
+		answers.increaseReputation(helper, high.getID(), UUID.randomUUID());
+		answers.increaseReputation(helper, high.getID(), UUID.randomUUID());
+		answers.decreaseReputation(helper, low.getID(), UUID.randomUUID());
+		assertEquals(List.of(high, low), answers.getTopAnswers(2), "Votes re-rank the answers");
+
+		Answers top = helper.loadTopAnswers(1);
+		assertEquals(high.getID(), top.get(0).getID(), "Stored score ranks answers in the database");
+		assertEquals(2, top.get(0).getScore(), "Score column is upvotes minus downvotes");
+		assertEquals(1, answers.getReputation(author), "Votes record the author's new reputation");
+		UUID rival = UUID.randomUUID();
+		answers.putReputation(rival, 5);
+		assertEquals(List.of(rival, author), answers.getTopAuthors(2), "Authors ranked by reputation");
+		answers.increaseReputation(helper, low.getID(), UUID.randomUUID());
+		answers.increaseReputation(helper, high.getID(), UUID.randomUUID());
+		answers.increaseReputation(helper, low.getID(), UUID.randomUUID());
+		answers.increaseReputation(helper, high.getID(), UUID.randomUUID());
+		answers.increaseReputation(helper, low.getID(), UUID.randomUUID());
+		assertEquals(6, answers.getReputation(author));
+		assertEquals(List.of(author, rival), answers.getTopAuthors(2), "Votes re-rank the authors");
+	}
+
+	// 44
+	/*
+	 * Database: Reputations of many authors resolved in chunked IN queries
+	 */
+	@Test
+	@Order(44)
+	@DisplayName("Database: Batched reputation lookup and per-question prefetch")
+	void testBatchedReputations() throws SQLException {
+		helper.ResetHard(DATABASE_URL);
+		makeNewUsers("BatchOne", "BatchOne1!", "student");
+		makeNewUsers("BatchTwo", "BatchTwo1!", "student");
+		UUID one = helper.getUserUUID("BatchOne");
+		UUID two = helper.getUserUUID("BatchTwo");
+		helper.updateReputation(one, 4);
+		helper.updateReputation(two, 9);
+
+		List<UUID> lookup = new java.util.ArrayList<>();
+		for (int i = 0; i < 1200; i++) {
+			lookup.add(UUID.randomUUID()); // unknown users spread the known ones across chunks
+		}
+		lookup.add(700, two);
+		lookup.add(one);
+		lookup.add(one);
+		java.util.Map<UUID, Integer> reputations = helper.getReputations(lookup);
+		assertEquals(java.util.Map.of(one, 4, two, 9), reputations, "Known users across all chunks, unknown ones left out");
+		assertTrue(helper.getReputations(List.of()).isEmpty(), "No users, no query results");
+
+		UUID question = UUID.randomUUID();
+		Answers answers = new Answers();
+		Answer first = new Answer("BatchOne", "First", question, one);
+		Answer second = new Answer("BatchTwo", "Second", question, two);
+		Answer elsewhere = new Answer("BatchTwo", "Other question", UUID.randomUUID(), two);
+		answers.addAnswer(first);
+		answers.addAnswer(second);
+		answers.addAnswer(elsewhere);
+		assertEquals(2, answers.prefetchReputations(helper, question).size(), "One entry per author of the question");
+		assertEquals(4, first.getRepuation(), "Prefetched reputation is cached on the answer");
+		assertEquals(9, second.getRepuation(), "Prefetched reputation is cached on the answer");
+		assertEquals(0, elsewhere.getRepuation(), "Answers to other questions are untouched");
+		assertEquals(9, answers.getReputation(two), "Prefetched reputations go on the reputation board");
+		assertEquals(List.of(one, two), new java.util.ArrayList<>(answers.getAuthors()), "Each author once, first answer first");
+		assertEquals(java.util.Map.of(one, 4, two, 9), helper.getReputations(answers.getAuthors()), "Only the loaded authors are read");
+		helper.updateReputation(two, 1);
+		answers.prefetchReputations(helper, question);
+		assertEquals(10, answers.getReputation(two), "Prefetching again picks up changes made elsewhere");
+		assertEquals(List.of(two, one), answers.getTopAuthors(2));
+	}
+
+	// 45
+	/*
+	 * Database: User lookups are served from the cache and refreshed after writes
+	 */
+	@Test
+	@Order(45)
+	@DisplayName("Database: Read-through user cache with invalidation, TTL and LRU eviction")
+	void testUserCache() throws Exception {
+		helper.ResetHard(DATABASE_URL);
+		makeNewUsers("CacheUser", "CacheUser1!", "student");
+		UserCache.Stats before = helper.getUserCacheStats();
+		UUID id = helper.getUserUUID("CacheUser");
+		assertEquals(id, helper.getUserUUID("CacheUser"));
+		assertTrue(helper.doesUserExist("CacheUser"));
+		assertEquals(0, helper.getReputationByUUID(id));
+		UserCache.Stats after = helper.getUserCacheStats();
+		assertEquals(1, after.getMisses() - before.getMisses(), "Only the first lookup reads the database");
+		assertEquals(3, after.getHits() - before.getHits(), "Later lookups by name and UUID are hits");
+
+		helper.updateReputation(id, 5);
+		assertEquals(5, helper.getReputationByUUID(id), "Reputation changes invalidate the profile");
+		UUID trusted = UUID.randomUUID();
+		helper.setTrustedByUUID(id, List.of(trusted));
+		assertEquals(List.of(trusted), helper.getTrustedByUUID(id), "Trusted-reviewer changes invalidate the profile");
+		assertFalse(helper.doesUserExist("CacheNewcomer"), "Unknown users are not found");
+		makeNewUsers("CacheNewcomer", "CacheNew1!", "student");
+		assertTrue(helper.doesUserExist("CacheNewcomer"), "Registration is visible at once");
+
+		UserCache cache = new UserCache(2);
+		UserCache.Profile a = new UserCache.Profile(UUID.randomUUID(), "a", 1, 0, List.of());
+		UserCache.Profile b = new UserCache.Profile(UUID.randomUUID(), "b", 1, 0, List.of());
+		UserCache.Profile c = new UserCache.Profile(UUID.randomUUID(), "c", 1, 0, List.of());
+		cache.put(a);
+		cache.put(b);
+		assertSame(a, cache.get("a"), "Touching a makes b the least recently used");
+		cache.put(c);
+		assertNull(cache.get(b.getUuid()), "Least recently used profile is evicted");
+		assertNull(cache.get("b"), "Evicted profile is gone by name too");
+		assertSame(c, cache.get(c.getUuid()));
+		assertEquals(1, cache.getStats().getEvictions());
+		cache.setTtlMillis(0);
+		Thread.sleep(2);
+		assertNull(cache.get(a.getUuid()), "Expired profiles are reloaded");
+		assertEquals(1, cache.getStats().getExpirations());
+	}
+
+	// 46
+	/*
+	 * Database: Logging in returns the whole profile from one lookup
+	 */
+	@Test
+	@Order(46)
+	@DisplayName("Database: authenticate returns a fully populated user or null")
+	void testAuthenticate() throws SQLException {
+		helper.ResetHard(DATABASE_URL);
+		User registered = makeNewUsers("AuthUser", "AuthUser1!", "student");
+		registered.setRole("reviewer");
+		UUID trusted = UUID.randomUUID();
+		helper.setTrustedByUUID(registered.getID(), List.of(trusted));
+		helper.updateReputation(registered.getID(), 7);
+
+		User user = helper.authenticate("AuthUser", "AuthUser1!");
+		assertNotNull(user, "Correct credentials log in");
+		assertEquals("AuthUser", user.getUserName());
+		assertEquals(registered.getID(), user.getID(), "UUID comes from the stored row");
+		assertEquals(1, user.getRoleInt(), "Role bits come from the stored row");
+		assertEquals(7, user.getReputation());
+		assertEquals(List.of(trusted), user.getTrustedReviewers());
+		assertTrue(user.addTrustedReviewer(UUID.randomUUID()), "The user's trusted list is its own copy");
+		assertEquals(List.of(trusted), helper.getTrustedByUUID(registered.getID()));
+
+		assertNull(helper.authenticate("AuthUser", "wrong"), "Wrong password is rejected");
+		assertNull(helper.authenticate("NoSuchUser", "AuthUser1!"), "Unknown user is rejected");
+		assertEquals(1, helper.getUserRole("AuthUser"), "A failed login still tells the account exists");
+	}
+
+	// 47
+	/*
+	 * Database: Passwords are stored as salted hashes and legacy rows are rehashed on login
+	 */
+	@Test
+	@Order(47)
+	@DisplayName("Database: Salted PBKDF2 password hashing with lazy rehash and async login")
+	void testPasswordHashing() throws Exception {
+		PasswordHasher hasher = new PasswordHasher(2_000);
+		String first = hasher.hash("Secret1!");
+		String second = hasher.hash("Secret1!");
+		assertNotEquals(first, second, "Each hash has its own salt");
+		assertTrue(hasher.verify("Secret1!", first));
+		assertFalse(hasher.verify("Secret2!", first));
+		assertTrue(hasher.verify("Legacy1!", "Legacy1!"), "Plain-text legacy values still verify");
+		assertTrue(hasher.needsRehash("Legacy1!"));
+		assertFalse(hasher.needsRehash(first));
+		assertTrue(new PasswordHasher(3_000).needsRehash(first), "A new iteration count rehashes old hashes");
+		assertTrue(new PasswordHasher(3_000).verify("Secret1!", first), "Old hashes verify with their own count");
+		assertTrue(hasher.verifyAsync("Secret1!", hasher.hashAsync("Secret1!").get()).get());
+
+		helper.ResetHard(DATABASE_URL);
+		User hashed = makeNewUsers("HashUser", "HashUser1!", "student");
+		try (java.sql.Connection conn = java.sql.DriverManager.getConnection(DATABASE_URL, "sa", "");
+				java.sql.Statement statement = conn.createStatement()) {
+			try (java.sql.ResultSet rs = statement.executeQuery("SELECT password FROM cse360users WHERE userName = 'HashUser'")) {
+				assertTrue(rs.next());
+				assertTrue(PasswordHasher.isHashed(rs.getString(1)), "Registration never stores plain text");
+			}
+			statement.executeUpdate("UPDATE cse360users SET password = 'Legacy1!' WHERE userName = 'HashUser'");
+			assertNotNull(helper.authenticateAsync("HashUser", "Legacy1!").get(), "Legacy password logs in");
+			try (java.sql.ResultSet rs = statement.executeQuery("SELECT password FROM cse360users WHERE userName = 'HashUser'")) {
+				assertTrue(rs.next());
+				assertTrue(PasswordHasher.isHashed(rs.getString(1)), "Legacy password is rehashed on login");
+			}
+		}
+		assertEquals(hashed.getID(), helper.authenticateAsync("HashUser", "Legacy1!").get().getID());
+		assertNull(helper.authenticateAsync("HashUser", "HashUser1!").get(), "The replaced password no longer works");
+		assertTrue(helper.login(new User("HashUser", "Legacy1!", "")));
+
+		User async = new User("AsyncUser", "AsyncUser1!", "student");
+		assertSame(async, helper.registerAsync(async).get(), "Registration completes with the user");
+		assertEquals(async.getID(), helper.authenticateAsync("AsyncUser", "AsyncUser1!").get().getID());
+		assertThrows(java.util.concurrent.ExecutionException.class, () -> helper.registerAsync(async).get(),
+				"A failed insert fails the future");
+	}
+
+	// 48
+	/*
+	 * Validators: UserName and password checks are reentrant and allocation-free when valid
+	 */
+	@Test
+	@Order(48)
+	@DisplayName("Validators: Reentrant UserNameRecognizer and PasswordEvaluator with immutable results")
+	void testReentrantValidators() {
+		assertEquals("", UserNameRecognizer.checkForValidUserName("Valid.User_1"));
+		assertTrue(UserNameRecognizer.checkForValidUserName("1abc").contains("must start"));
+		assertTrue(UserNameRecognizer.checkForValidUserName("abc").contains("at\nleast 4"));
+		assertTrue(UserNameRecognizer.checkForValidUserName("abcdefghijklmnopq").contains("no more"));
+		UserNameRecognizer.Result badSeparator = UserNameRecognizer.recognize("abcd.");
+		assertEquals(UserNameRecognizer.Result.BAD_CHARACTER_AFTER_SEPARATOR, badSeparator.getErrorCode());
+		assertEquals(5, badSeparator.getIndexOfError());
+		UserNameRecognizer.Result badChar = UserNameRecognizer.recognize("abcd!e");
+		assertEquals(UserNameRecognizer.Result.INVALID_CHARACTER, badChar.getErrorCode());
+		assertEquals(4, badChar.getIndexOfError());
+
+		assertEquals("", PasswordEvaluator.evaluatePassword("Passw0rd!"));
+		assertEquals("Numeric digits; Special character; Password conditions were not satisfied",
+				PasswordEvaluator.evaluatePassword("Password"));
+		PasswordEvaluator.Result invalid = PasswordEvaluator.evaluate("Pass word1!");
+		assertEquals(PasswordEvaluator.Result.INVALID_CHARACTER, invalid.getErrorCode());
+		assertEquals(4, invalid.getIndexOfError());
+		PasswordEvaluator.Result shortOne = PasswordEvaluator.evaluate("Pa1!");
+		assertFalse(shortOne.foundLongEnough());
+		assertTrue(shortOne.foundUpperCase() && shortOne.foundSpecialChar());
+
+		// Interleaved calls from many threads each see only their own input
+		List<String> names = new java.util.ArrayList<>();
+		for (int i = 0; i < 20_000; i++) {
+			names.add(i % 2 == 0 ? "User" + i : i + "User");
+		}
+		long valid = names.parallelStream().filter(name -> UserNameRecognizer.recognize(name).isValid()
+				&& PasswordEvaluator.evaluate(name + "Aa1!").isValid()).count();
+		assertEquals(10_000, valid, "Every even name is valid and every odd one is not");
+
+		// The valid path returns one shared result and allocates nothing
+		assertSame(UserNameRecognizer.recognize("GoodName"), UserNameRecognizer.recognize("OtherName1"));
+		assertSame(PasswordEvaluator.evaluate("Passw0rd!"), PasswordEvaluator.evaluate("Other0ne?"));
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) java.lang.management.ManagementFactory.getThreadMXBean();
+		long threadId = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < 100_000; i++) {
+			UserNameRecognizer.recognize("GoodName");
+			PasswordEvaluator.evaluate("Passw0rd!");
+		}
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+		assertTrue(allocated < 4_096, "Valid inputs should not allocate, allocated " + allocated + " bytes");
+	}
+
+	// 49
+	/*
+	 * Validators: The compiled transition table agrees with the switch FSM
+	 */
+	@Test
+	@Order(49)
+	@DisplayName("Validators: Table-driven UserName DFA matches the switch FSM on every input")
+	void testUserNameTransitionTable() {
+		String alphabet = "aZ09._-!é ";
+		java.util.Random random = new java.util.Random(19);
+		List<String> inputs = new java.util.ArrayList<>(List.of("", "a", "abcd", "abcdefghijklmnop", "abcdefghijklmnopq",
+				"abcdefghijklmno.q", "ab..cd", "abcd-", "_abc", "abc!", "Ábcd"));
+		for (int i = 0; i < 50_000; i++) {
+			StringBuilder input = new StringBuilder();
+			int length = random.nextInt(22);
+			for (int c = 0; c < length; c++) {
+				input.append(alphabet.charAt(random.nextInt(alphabet.length())));
+			}
+			inputs.add(input.toString());
+		}
+		for (String input : inputs) {
+			UserNameRecognizer.Result expected = UserNameRecognizer.recognizeBySwitch(input);
+			UserNameRecognizer.Result actual = UserNameRecognizer.recognize(input);
+			assertEquals(expected.getErrorCode(), actual.getErrorCode(), "Error code for \"" + input + "\"");
+			assertEquals(expected.getIndexOfError(), actual.getIndexOfError(), "Error index for \"" + input + "\"");
+			assertEquals(expected.getUserNameSize(), actual.getUserNameSize(), "Size for \"" + input + "\"");
+			assertEquals(expected.getMessage(), actual.getMessage());
+		}
+	}
+
+	// 50
+	/*
+	 * Database: A CSV cohort is validated, de-duplicated and registered in batches
+	 */
+	@Test
+	@Order(50)
+	@DisplayName("Database: Bulk user import with parallel validation and a per-line error report")
+	void testUserImporter() throws Exception {
+		helper.ResetHard(DATABASE_URL);
+		makeNewUsers("Existing", "Existing1!", "student");
+		String csv = String.join("\n",
+				"userName,password,roles",
+				"Alice1,Alice1!pass,student",
+				"Bob_2,\"Pass,with\"\"quote1A\",student;reviewer",
+				"",
+				"1bad,Valid1!pass,student",
+				"Carol,weak,student",
+				"Dave,Dave1!pass,wizard",
+				"Alice1,Other1!pass,student",
+				"Existing,Existing1!,student",
+				"Erin,\"unterminated,student",
+				"Frank,Frank1!pass");
+		UserImporter importer = new UserImporter(helper, new PasswordHasher(1_000));
+		importer.setChunkSize(3);
+		UserImporter.Report report = importer.importCsv(new java.io.StringReader(csv));
+
+		assertEquals(9, report.getRowsRead(), "Header and blank lines are not rows");
+		assertEquals(2, report.getImported());
+		List<UserImporter.RowError> errors = report.getErrors();
+		assertEquals(List.of(5, 6, 7, 8, 9, 10, 11), errors.stream().map(UserImporter.RowError::getLineNumber).toList());
+		assertTrue(errors.get(0).getMessage().contains("must start"), errors.get(0).toString());
+		assertTrue(errors.get(1).getMessage().contains("Password conditions"), errors.get(1).toString());
+		assertEquals("Unknown role: wizard", errors.get(2).getMessage());
+		assertEquals("Duplicate of line 2", errors.get(3).getMessage());
+		assertEquals("User already exists", errors.get(4).getMessage());
+		assertEquals("Expected userName,password,roles", errors.get(5).getMessage());
+		assertEquals("Expected userName,password,roles", errors.get(6).getMessage());
+
+		User bob = helper.authenticate("Bob_2", "Pass,with\"quote1A");
+		assertNotNull(bob, "Quoted password with a comma and a quote is imported intact");
+		assertEquals(1 | 4, bob.getRoleInt(), "Both roles are set");
+		assertNotNull(helper.authenticate("Alice1", "Alice1!pass"), "First occurrence of a duplicate wins");
+		assertEquals(java.util.Set.of("Alice1", "Existing"), helper.findExistingUserNames(List.of("Alice1", "Existing", "Nobody")));
+		assertEquals(1, helper.registerAll(List.of(new User("Alice1", "Again1!pass", "student"),
+				new User("Grace", "Grace1!pass", "student")), new PasswordHasher(1_000)).size(),
+				"registerAll skips names taken after the check");
+
+		new UserImporter(helper).importCsv(new java.io.StringReader("Heidi,Heidi1!pass,student"));
+		try (java.sql.Connection conn = java.sql.DriverManager.getConnection(DATABASE_URL, "sa", "");
+				java.sql.Statement statement = conn.createStatement();
+				java.sql.ResultSet rs = statement.executeQuery("SELECT password FROM cse360users WHERE userName = 'Heidi'")) {
+			assertTrue(rs.next());
+			assertTrue(rs.getString(1).startsWith("pbkdf2-sha256$" + PasswordHasher.getDefault().getIterations() + "$"),
+					"The default importer hashes like any registration");
+		}
+		PasswordHasher batch = new PasswordHasher(1_000);
+		List<String> passwords = new java.util.ArrayList<>();
+		for (int i = 0; i < 4 * Runtime.getRuntime().availableProcessors() + 3; i++) {
+			passwords.add("Batch" + i + "!pass");
+		}
+		List<String> hashes = batch.hashAll(passwords);
+		assertEquals(passwords.size(), hashes.size(), "One hash per password, more than the pool holds at once");
+		for (int i = 0; i < passwords.size(); i++) {
+			assertTrue(batch.verify(passwords.get(i), hashes.get(i)), "Hashes stay in input order");
+		}
+	}
+
+	// 51
+	/*
+	 * Database: Messages are grouped into threads with paging and stored unread counters
+	 */
+	@Test
+	@Order(51)
+	@DisplayName("Database: Conversation threads with before-cursor paging and unread counters")
+	void testMessageThreads() throws SQLException {
+		helper.ResetHard(DATABASE_URL);
+		User student = makeNewUsers("ThreadStudent", "Thread1!pass", "student");
+		User reviewer = makeNewUsers("ThreadReviewer", "Thread1!pass", "reviewer");
+		UUID review = UUID.randomUUID();
+		UUID otherReview = UUID.randomUUID();
+		List<privateMessage> sent = new java.util.ArrayList<>();
+		for (int i = 0; i < 25; i++) {
+			boolean fromStudent = i % 5 != 4;
+			sent.add(new privateMessage("Message " + i, fromStudent ? student.getID() : reviewer.getID(),
+					fromStudent ? reviewer.getID() : student.getID(), review));
+		}
+		helper.saveMessagesBatch(sent);
+		helper.saveMessage(new privateMessage("Elsewhere", student.getID(), reviewer.getID(), otherReview));
+
+		MessageThread thread = helper.findThread(review, reviewer.getID(), student.getID());
+		assertNotNull(thread, "Either participant order finds the thread");
+		assertEquals(thread.getId(), helper.findThread(review, student.getID(), reviewer.getID()).getId());
+		assertEquals(25, thread.getMessageCount());
+		assertEquals(20, thread.getUnreadFor(reviewer.getID()));
+		assertEquals(5, thread.getUnreadFor(student.getID()));
+		assertEquals(21, helper.getUnreadCount(reviewer.getID()), "Unread total spans threads");
+		assertEquals(2, helper.loadThreads(reviewer.getID()).size());
+		assertEquals(java.util.Set.of("ThreadStudent"), helper.loadThreads(reviewer.getID()).stream()
+				.map(MessageThread::getOtherUserName).collect(java.util.stream.Collectors.toSet()), "Names come with the threads");
+		assertEquals("ThreadReviewer", helper.loadThreads(student.getID()).get(0).getOtherUserName(), "Named for the viewer");
+		assertNull(thread.getOtherUserName(), "Threads found directly carry no name");
+
+		Page<privateMessage> latest = helper.loadThreadMessages(thread.getId(), 10, null);
+		assertEquals(List.of("Message 15", "Message 16", "Message 17", "Message 18", "Message 19", "Message 20",
+				"Message 21", "Message 22", "Message 23", "Message 24"),
+				latest.getItems().stream().map(privateMessage::getTextBody).toList(), "Latest page, oldest first");
+		assertTrue(latest.hasMore());
+		Page<privateMessage> earlier = helper.loadThreadMessages(thread.getId(), 10, latest.getNextToken());
+		assertEquals("Message 5", earlier.getItems().get(0).getTextBody());
+		Page<privateMessage> first = helper.loadThreadMessages(thread.getId(), 10, earlier.getNextToken());
+		assertEquals(5, first.getItems().size());
+		assertFalse(first.hasMore(), "The first messages end the thread");
+
+		assertEquals(20, helper.markThreadRead(thread.getId(), reviewer.getID()));
+		assertEquals(0, helper.markThreadRead(thread.getId(), reviewer.getID()), "Marking read twice changes nothing");
+		assertEquals(1, helper.getUnreadCount(reviewer.getID()));
+		assertEquals(5, helper.getUnreadCount(student.getID()));
+		assertEquals(5, helper.findThread(review, student.getID(), reviewer.getID()).getUnreadFor(student.getID()));
+
+		assertEquals(1, helper.deleteMessage(sent.get(0).getID()));
+		assertEquals(24, helper.findThread(review, student.getID(), reviewer.getID()).getMessageCount());
+		assertEquals(24, helper.getMessageByResponceUUID(review).getPrivateMessageArray().size(),
+				"Review lookups still see the thread's messages");
+		assertEquals(1, helper.getUnreadCount(reviewer.getID()), "Deleting a read message leaves unread counts alone");
+
+		helper.saveMessage(new privateMessage("Unread reply", student.getID(), reviewer.getID(), review));
+		assertEquals(1, helper.deleteMessage(sent.get(1).getID()));
+		assertEquals(2, helper.getUnreadCount(reviewer.getID()), "A message read before newer ones arrived stays read");
+		assertEquals(1, helper.deleteMessage(sent.get(4).getID()));
+		assertEquals(1, helper.deleteMessage(sent.get(24).getID()));
+		thread = helper.findThread(review, student.getID(), reviewer.getID());
+		assertEquals(22, thread.getMessageCount());
+		assertEquals(3, thread.getUnreadFor(student.getID()), "Deleted unread messages leave the thread's unread count");
+		assertEquals(1, thread.getUnreadFor(reviewer.getID()));
+		assertEquals(3, helper.getUnreadCount(student.getID()), "and the recipient's total");
+		assertEquals(3, helper.markThreadRead(thread.getId(), student.getID()));
+		assertEquals(0, helper.getUnreadCount(student.getID()));
+		assertNull(helper.findThread(UUID.randomUUID(), student.getID(), reviewer.getID()));
+	}
+
+	// 52
+	/*
+	 * Database: The contact list is one joined query, cached until a message changes it
+	 */
+	@Test
+	@Order(52)
+	@DisplayName("Database: Contact list with names, recency and unread counts in one query")
+	void testContactList() throws SQLException {
+		helper.ResetHard(DATABASE_URL);
+		User me = makeNewUsers("ContactMe", "Contact1!pass", "student");
+		User older = makeNewUsers("ContactOlder", "Contact1!pass", "reviewer");
+		User newer = makeNewUsers("ContactNewer", "Contact1!pass", "reviewer");
+		UUID review = UUID.randomUUID();
+		java.time.LocalDate today = java.time.LocalDate.now();
+		helper.saveMessagesBatch(List.of(
+				new privateMessage(UUID.randomUUID(), "Old question", today.minusDays(3), me.getID(), older.getID(), review),
+				new privateMessage(UUID.randomUUID(), "Old answer", today.minusDays(2), older.getID(), me.getID(), review),
+				new privateMessage(UUID.randomUUID(), "Other review", today.minusDays(2), older.getID(), me.getID(), UUID.randomUUID()),
+				new privateMessage(UUID.randomUUID(), "New question", today.minusDays(1), me.getID(), newer.getID(), review),
+				new privateMessage(UUID.randomUUID(), "Note to self", today, me.getID(), me.getID(), review)));
+
+		List<Contact> contacts = helper.loadContacts(me.getID());
+		assertEquals(List.of("ContactNewer", "ContactOlder"), contacts.stream().map(Contact::getUserName).toList(),
+				"Most recent first, self excluded");
+		assertEquals(today.minusDays(2), contacts.get(1).getLastMessageDate());
+		assertEquals(2, contacts.get(1).getUnreadCount(), "Unread counts add up across threads");
+		assertEquals(0, contacts.get(0).getUnreadCount());
+		assertSame(contacts, helper.loadContacts(me.getID()), "A repeat load is served from the cache");
+		assertEquals(List.of(newer.getID(), older.getID()), helper.getContactListUUID(me.getID()));
+		assertEquals(List.of("ContactNewer", "ContactOlder"), helper.getcontactListString(me.getID()));
+
+		privateMessage reply = new privateMessage(UUID.randomUUID(), "Reply", today, older.getID(), me.getID(), review);
+		helper.saveMessage(reply);
+		contacts = helper.loadContacts(me.getID());
+		assertEquals("ContactOlder", contacts.get(0).getUserName(), "Saving a message refreshes the list");
+		assertEquals(3, contacts.get(0).getUnreadCount());
+
+		helper.markThreadRead(helper.findThread(review, me.getID(), older.getID()).getId(), me.getID());
+		assertEquals(1, helper.loadContacts(me.getID()).get(0).getUnreadCount(), "Reading a thread refreshes the list");
+
+		List<Contact> before = helper.loadContacts(older.getID());
+		assertEquals(1, helper.deleteMessage(reply.getID()));
+		assertNotSame(before, helper.loadContacts(older.getID()), "Deleting a message refreshes both participants");
+		assertEquals(today.minusDays(1), helper.loadContacts(newer.getID()).get(0).getLastMessageDate());
+		assertTrue(helper.loadContacts(UUID.randomUUID()).isEmpty());
+	}
+
+	// 53
+	/*
+	 * Database: Message changes are pushed to subscribers, merged per delivery
+	 */
+	@Test
+	@Order(53)
+	@DisplayName("Database: Message bus delivers a burst of changes as one merged update")
+	void testMessageBus() throws SQLException {
+		helper.ResetHard(DATABASE_URL);
+		User student = makeNewUsers("BusStudent", "Bus1!passw", "student");
+		User reviewer = makeNewUsers("BusReviewer", "Bus1!passw", "reviewer");
+		UUID review = UUID.randomUUID();
+		java.util.ArrayDeque<Runnable> fxQueue = new java.util.ArrayDeque<>();
+		List<List<MessageBus.Event>> reviewDeliveries = new java.util.ArrayList<>();
+		List<List<MessageBus.Event>> inboxDeliveries = new java.util.ArrayList<>();
+		MessageBus bus = helper.getMessageBus();
+		MessageBus.Subscription onReview = bus.subscribe(MessageBus.reviewTopic(review), fxQueue::add, reviewDeliveries::add);
+		MessageBus.Subscription onInbox = bus.subscribe(MessageBus.recipientTopic(reviewer.getID()), fxQueue::add,
+				inboxDeliveries::add);
+		assertTrue(bus.hasSubscribers());
+
+		privateMessage first = new privateMessage("First", student.getID(), reviewer.getID(), review);
+		privateMessage second = new privateMessage("Second", student.getID(), reviewer.getID(), review);
+		privateMessage third = new privateMessage("Third", student.getID(), reviewer.getID(), review);
+		helper.saveMessagesBatch(List.of(first, second, third));
+		assertEquals(1, helper.updateMessage(first.getID(), "First, edited"));
+		assertEquals(1, helper.deleteMessage(second.getID()));
+		helper.saveMessage(new privateMessage("Elsewhere", reviewer.getID(), student.getID(), UUID.randomUUID()));
+		assertEquals(2, fxQueue.size(), "One delivery is scheduled per subscription for the whole burst");
+		while (!fxQueue.isEmpty()) {
+			fxQueue.poll().run();
+		}
+
+		assertEquals(1, reviewDeliveries.size());
+		List<MessageBus.Event> events = reviewDeliveries.get(0);
+		assertEquals(List.of(first.getID(), third.getID()), events.stream().map(e -> e.getMessage().getID()).toList(),
+				"A message saved and deleted in one burst is dropped");
+		assertEquals(MessageBus.Kind.SAVED, events.get(0).getKind());
+		assertEquals("First, edited", events.get(0).getMessage().getTextBody(), "The edit is merged into the new message");
+		assertTrue(events.get(0).isInConversation(review, reviewer.getID(), student.getID()));
+		assertEquals(1, inboxDeliveries.size());
+		assertEquals(2, inboxDeliveries.get(0).size(), "The reply to the student is not in the reviewer's inbox");
+
+		assertEquals(1, helper.deleteMessage(third.getID()));
+		fxQueue.poll().run();
+		assertEquals(MessageBus.Kind.DELETED, reviewDeliveries.get(1).get(0).getKind());
+		fxQueue.clear();
+
+		ConnectionPool pool = ConnectionPool.forUrl(DATABASE_URL, "sa", "");
+		pool.setBorrowTimeoutMillis(200);
+		List<java.sql.Connection> held = new java.util.ArrayList<>();
+		try {
+			while (held.size() < pool.getMaxSize() - 1) {
+				held.add(pool.getConnection());
+			}
+			assertEquals(1, helper.updateMessage(first.getID(), "First, edited again"), "An edit needs only one connection");
+		} finally {
+			for (java.sql.Connection connection : held) {
+				connection.close();
+			}
+			pool.setBorrowTimeoutMillis(10_000);
+		}
+		fxQueue.poll().run();
+		assertEquals("First, edited again", reviewDeliveries.get(2).get(0).getMessage().getTextBody(),
+				"The edit is published from the last free connection");
+		fxQueue.clear();
+
+		onReview.close();
+		onInbox.close();
+		assertFalse(bus.hasSubscribers());
+		helper.saveMessage(new privateMessage("Unheard", student.getID(), reviewer.getID(), review));
+		assertTrue(fxQueue.isEmpty(), "Closed subscriptions get nothing");
+	}
+
+	// 54
+	/*
+	 * Database: Message sends are queued and written in group commits
+	 */
+	@Test
+	@Order(54)
+	@DisplayName("Database: Write-behind message queue with batching, backpressure and drain")
+	void testMessageWriter() throws Exception {
+		java.util.concurrent.CountDownLatch entered = new java.util.concurrent.CountDownLatch(1);
+		java.util.concurrent.CountDownLatch release = new java.util.concurrent.CountDownLatch(1);
+		List<Integer> batchSizes = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+		MessageWriter.Sink sink = batch -> {
+			entered.countDown();
+			try {
+				release.await();
+			} catch (InterruptedException e) {
+				throw new SQLException(e);
+			}
+			if (batch.stream().anyMatch(m -> "bad".equals(m.getTextBody()))) {
+				throw new SQLException("rejected by the database");
+			}
+			batchSizes.add(batch.size());
+		};
+		UUID from = UUID.randomUUID();
+		UUID to = UUID.randomUUID();
+		MessageWriter writer = new MessageWriter(sink, 30, 10, 5);
+		writer.setEnqueueTimeoutMillis(0);
+		java.util.concurrent.CompletableFuture<privateMessage> blocked = writer.submit(new privateMessage("first", from, to, null));
+		assertTrue(entered.await(5, java.util.concurrent.TimeUnit.SECONDS), "The writer thread waits in the sink");
+		List<java.util.concurrent.CompletableFuture<privateMessage>> sends = new java.util.ArrayList<>();
+		for (int i = 0; i < 29; i++) {
+			sends.add(writer.submit(new privateMessage(i == 7 ? "bad" : "queued " + i, from, to, null)));
+		}
+		java.util.concurrent.CompletableFuture<privateMessage> early = writer.submit(new privateMessage("early", from, to, null),
+				MessageWriter.Durability.ENQUEUED);
+		assertTrue(early.isDone() && !early.isCompletedExceptionally(), "ENQUEUED completes once queued");
+		java.util.concurrent.CompletableFuture<privateMessage> overflow = writer.submit(new privateMessage("overflow", from, to, null));
+		assertTrue(overflow.isCompletedExceptionally(), "A full queue refuses the send");
+		assertThrows(java.util.concurrent.ExecutionException.class, overflow::get);
+		assertFalse(blocked.isDone(), "COMMITTED waits for the commit");
+
+		release.countDown();
+		writer.close();
+		assertTrue(blocked.isDone() && !blocked.isCompletedExceptionally());
+		assertTrue(sends.get(7).isCompletedExceptionally(), "Only the bad message fails");
+		assertEquals(28, sends.stream().filter(f -> f.isDone() && !f.isCompletedExceptionally()).count());
+		assertEquals(30, writer.getWrittenCount(), "close() drains the queue");
+		assertEquals(1, writer.getFailedCount());
+		assertTrue(batchSizes.stream().allMatch(size -> size <= 10));
+		assertTrue(writer.getBatchCount() < 30, "Queued messages share transactions");
+		assertTrue(writer.submit(new privateMessage("late", from, to, null)).isCompletedExceptionally());
+
+		helper.ResetHard(DATABASE_URL);
+		User student = makeNewUsers("WriterStudent", "Writer1!pass", "student");
+		User reviewer = makeNewUsers("WriterReviewer", "Writer1!pass", "reviewer");
+		UUID review = UUID.randomUUID();
+		List<java.util.concurrent.CompletableFuture<privateMessage>> saved = new java.util.ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			saved.add(helper.saveMessageAsync(new privateMessage("Async " + i, student.getID(), reviewer.getID(), review)));
+		}
+		MessageWriter.closeForUrl(DATABASE_URL);
+		assertTrue(saved.stream().allMatch(f -> f.isDone() && !f.isCompletedExceptionally()));
+		assertEquals(100, helper.findThread(review, student.getID(), reviewer.getID()).getMessageCount());
+		assertEquals(100, helper.getUnreadCount(reviewer.getID()));
+	}
+
+	// 55
+	/*
+	 * Questions/Answers: Saved as checksummed binary snapshots, older serialized files still load
+	 */
+	@Test
+	@Order(55)
+	@DisplayName("Questions/Answers: Binary snapshot round trip, checksum and legacy files")
+	void testPostSnapshots() throws IOException, ClassNotFoundException {
+		UUID author = UUID.randomUUID();
+		Questions questions = new Questions();
+		for (int i = 0; i < 200; i++) {
+			questions.addQuestion(new Question(i % 2 == 0 ? "Ada" : "Grace", "Title " + i, "Body \u00e9\u4e2d " + i, author));
+		}
+		Question big = questions.get(5);
+		big.setTextBody("x".repeat(200_000)); // crosses the 64 KB buffer
+		big.setChosenAnswer(UUID.randomUUID());
+		questions.get(6).setUnderReview(null);
+		questions.get(7).markClean();
+		questions.get(8).markClean();
+		questions.get(8).setTitle("Edited");
+
+		File file = File.createTempFile("questions", ".snap");
+		file.deleteOnExit();
+		assertTrue(questions.saveQuestions(file.getPath()));
+		assertTrue(PostSnapshot.isSnapshot(file.toPath()));
+		Questions loaded = Questions.loadQuestions(file.getPath());
+		assertEquals(200, loaded.getSize());
+		for (int i = 0; i < 200; i++) {
+			Question expected = questions.get(i);
+			Question actual = loaded.get(i);
+			assertEquals(expected.getID(), actual.getID());
+			assertEquals(expected.getName(), actual.getName());
+			assertEquals(expected.getTitle(), actual.getTitle());
+			assertEquals(expected.getTextBody(), actual.getTextBody());
+			assertEquals(expected.getDate(), actual.getDate());
+			assertEquals(expected.getUserUUID(), actual.getUserUUID());
+			assertEquals(expected.getChosenAnswer(), actual.getChosenAnswer());
+			assertEquals(expected.getUnderReview(), actual.getUnderReview());
+			assertEquals(expected.getChangeState(), actual.getChangeState(), "Change state survives the round trip");
+		}
+		assertSame(loaded.get(9), loaded.getByUUID(questions.get(9).getID()), "Index is rebuilt on load");
+
+		Answers answers = new Answers();
+		for (int i = 0; i < 50; i++) {
+			Answer answer = new Answer("Ada", "Answer " + i, questions.get(i % 10).getID(), author);
+			answer.setVoteCounts(i, i / 2);
+			answer.setRepuation(-i);
+			answers.addAnswer(answer);
+		}
+		File answerFile = File.createTempFile("answers", ".snap");
+		answerFile.deleteOnExit();
+		assertTrue(answers.saveAnswers(answerFile.getPath()));
+		Answers loadedAnswers = Answers.loadAnswers(answerFile.getPath());
+		assertEquals(50, loadedAnswers.getSize());
+		Answer answer = loadedAnswers.get(49);
+		assertEquals(answers.get(49).getID(), answer.getID());
+		assertEquals(49, answer.getUpvotes());
+		assertEquals(24, answer.getDownvotes());
+		assertEquals(-49, answer.getRepuation(), "Negative numbers survive the varint encoding");
+		assertEquals(5, loadedAnswers.getAnswersByUUID(questions.get(9).getID()).size(), "Question index is rebuilt");
+		assertEquals(answers.getTopAnswers(1).get(0).getID(), loadedAnswers.getTopAnswers(1).get(0).getID());
+		assertThrows(IOException.class, () -> PostSnapshot.readQuestions(answerFile.toPath()), "Kinds are not mixed up");
+
+		File legacy = File.createTempFile("questions", ".ser");
+		legacy.deleteOnExit();
+		try (java.io.ObjectOutputStream out = new java.io.ObjectOutputStream(new java.io.FileOutputStream(legacy))) {
+			out.writeObject(questions);
+		}
+		assertTrue(legacy.length() > file.length(), "The snapshot is smaller than the serialized object");
+		assertEquals(200, Questions.loadQuestions(legacy.getPath()).getSize(), "Serialized files still load");
+
+		byte[] bytes = java.nio.file.Files.readAllBytes(file.toPath());
+		bytes[bytes.length / 2] ^= 1;
+		java.nio.file.Files.write(file.toPath(), bytes);
+		assertThrows(IOException.class, () -> PostSnapshot.readQuestions(file.toPath()), "A flipped bit fails the checksum");
+		assertEquals(0, Questions.loadQuestions(file.getPath()).getSize());
+		assertEquals(0, Questions.loadQuestions(file.getPath() + ".missing").getSize());
+	}
+}
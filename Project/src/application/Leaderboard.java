@@ -0,0 +1,127 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The Leaderboard class keeps a score per key and the keys ranked by score, so a
+ * score can be read or changed in O(log n) and the top N read without sorting.
+ * Ties are ranked by when the key was first added, earliest first.
+ *
+ * @param <K> The type of key ranked, such as a user UUID or an Answer
+ */
+public class Leaderboard<K> {
+
+    /** One ranked key; entries are replaced, never changed, while in the ranking */
+    private static final class Entry<K> {
+        final K key;
+        final int score;
+        final long order;
+
+        Entry(K key, int score, long order) {
+            this.key = key;
+            this.score = score;
+            this.order = order;
+        }
+    }
+
+    private final HashMap<K, Entry<K>> entries = new HashMap<>();
+    private final TreeSet<Entry<K>> ranking = new TreeSet<>((a, b) -> a.score != b.score
+            ? Integer.compare(b.score, a.score)
+            : Long.compare(a.order, b.order));
+    private long nextOrder;
+
+    /**
+     * Sets a key's score, adding the key if it is new.
+     *
+     * @param key   The key to rank
+     * @param score Its score
+     */
+    public void put(K key, int score) {
+        Entry<K> old = entries.get(key);
+        if (old != null) {
+            if (old.score == score) {
+                return;
+            }
+            ranking.remove(old);
+        }
+        Entry<K> entry = new Entry<>(key, score, old != null ? old.order : nextOrder++);
+        entries.put(key, entry);
+        ranking.add(entry);
+    }
+
+    /**
+     * Adds to a key's score; a new key starts from 0.
+     *
+     * @param key    The key to change
+     * @param change The amount to add
+     * @return The key's new score
+     */
+    public int add(K key, int change) {
+        int score = get(key, 0) + change;
+        put(key, score);
+        return score;
+    }
+
+    /**
+     * Gets a key's score.
+     *
+     * @param key          The key to look up
+     * @param defaultScore The value returned for keys not on the board
+     * @return The key's score, or defaultScore
+     */
+    public int get(K key, int defaultScore) {
+        Entry<K> entry = entries.get(key);
+        return entry == null ? defaultScore : entry.score;
+    }
+
+    /**
+     * Checks whether a key is on the board.
+     * @param key The key to look for
+     * @return true if the key has a score
+     */
+    public boolean contains(K key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * Removes a key from the board.
+     * @param key The key to remove
+     * @return true if the key was on the board
+     */
+    public boolean remove(K key) {
+        Entry<K> entry = entries.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        ranking.remove(entry);
+        return true;
+    }
+
+    /**
+     * Gets the highest-scoring keys.
+     *
+     * @param n The largest number of keys to return
+     * @return Up to n keys, highest score first
+     */
+    public List<K> top(int n) {
+        List<K> top = new ArrayList<>(Math.min(Math.max(n, 0), ranking.size()));
+        for (Entry<K> entry : ranking) {
+            if (top.size() >= n) {
+                break;
+            }
+            top.add(entry.key);
+        }
+        return top;
+    }
+
+    /**
+     * Gets the number of keys on the board.
+     * @return The number of ranked keys
+     */
+    public int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,302 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import javafx.application.Platform;
+
+/**
+ * The MessageBus class pushes private message changes to the parts of the UI
+ * that show them, so an open conversation or inbox updates without polling
+ * the database. DatabaseHelper publishes an event after each saved, edited or
+ * deleted message commits; there is one bus per database URL, shared by every
+ * DatabaseHelper in the process, like the connection pool.
+ *
+ * <p>Key features:
+ * <ul>
+ *   <li>Events are published on a topic per review and a topic per recipient</li>
+ *   <li>Each subscription delivers on its own executor, for example the JavaFX
+ *       thread</li>
+ *   <li>Events that arrive before a delivery runs are handed over together, so
+ *       a burst becomes one UI update</li>
+ *   <li>Within a delivery, events about the same message are merged: an edit
+ *       of a new message arrives as the new message, and a message saved and
+ *       deleted in the same burst does not arrive at all</li>
+ * </ul>
+ * Messages saved by other processes are not seen; they show up on the next load.</p>
+ */
+public class MessageBus {
+    private static final Map<String, MessageBus> BUSES = new ConcurrentHashMap<>();
+
+    /** What happened to a message */
+    public enum Kind {
+        SAVED, UPDATED, DELETED
+    }
+
+    /**
+     * One change to a private message. The event holds its own copy of the
+     * message, so listeners may keep it; a DELETED event's copy has only the
+     * message's ids.
+     */
+    public static final class Event {
+        private final Kind kind;
+        private final privateMessage message;
+
+        /**
+         * Creates an event for a message as it is now.
+         *
+         * @param kind    What happened to the message
+         * @param message The message; it is copied
+         */
+        public Event(Kind kind, privateMessage message) {
+            this.kind = kind;
+            this.message = new privateMessage(message.getID(), message.getTextBody(), message.getDate(),
+                    message.getFromUUID(), message.getToUUID(), message.getReviewUUID());
+        }
+
+        /** @return What happened to the message */
+        public Kind getKind() { return kind; }
+
+        /** @return The message after the change */
+        public privateMessage getMessage() { return message; }
+
+        /**
+         * Checks whether the message belongs to a conversation.
+         *
+         * @param reviewUUID The conversation's review
+         * @param userA      One participant
+         * @param userB      The other participant, in either order
+         * @return true if the message is between the two users about the review
+         */
+        public boolean isInConversation(UUID reviewUUID, UUID userA, UUID userB) {
+            return reviewUUID.equals(message.getReviewUUID())
+                    && (userA.equals(message.getFromUUID()) && userB.equals(message.getToUUID())
+                            || userB.equals(message.getFromUUID()) && userA.equals(message.getToUUID()));
+        }
+
+        @Override
+        public String toString() {
+            return kind + " " + message.getID();
+        }
+    }
+
+    /**
+     * A listener's registration on one topic. Closing it stops delivery,
+     * including of events already queued.
+     */
+    public final class Subscription implements AutoCloseable {
+        private final String topic;
+        private final Executor executor;
+        private final Consumer<List<Event>> listener;
+        private volatile boolean closed;
+
+        /** Events waiting for the next delivery; guarded by this */
+        private List<Event> pending = new ArrayList<>();
+        private boolean scheduled;
+
+        private Subscription(String topic, Executor executor, Consumer<List<Event>> listener) {
+            this.topic = topic;
+            this.executor = executor;
+            this.listener = listener;
+        }
+
+        private void enqueue(List<Event> events) {
+            synchronized (this) {
+                pending.addAll(events);
+                if (scheduled) {
+                    return; // the delivery already scheduled picks these up
+                }
+                scheduled = true;
+            }
+            try {
+                executor.execute(this::deliver);
+            } catch (RuntimeException e) {
+                synchronized (this) {
+                    scheduled = false;
+                }
+                System.err.println("Could not deliver message events on " + topic + ": " + e);
+            }
+        }
+
+        private void deliver() {
+            List<Event> events;
+            synchronized (this) {
+                events = pending;
+                pending = new ArrayList<>();
+                scheduled = false;
+            }
+            if (closed) {
+                return;
+            }
+            List<Event> merged = coalesce(events);
+            if (merged.isEmpty()) {
+                return;
+            }
+            try {
+                listener.accept(merged);
+            } catch (RuntimeException e) {
+                System.err.println("Message listener on " + topic + " failed: " + e);
+                e.printStackTrace();
+            }
+        }
+
+        /** @return The topic the listener is registered on */
+        public String getTopic() {
+            return topic;
+        }
+
+        /**
+         * Removes the listener from the bus.
+         */
+        @Override
+        public void close() {
+            closed = true;
+            List<Subscription> subscriptions = topics.get(topic);
+            if (subscriptions != null) {
+                subscriptions.remove(this);
+            }
+        }
+    }
+
+    /** Subscriptions by topic */
+    private final Map<String, CopyOnWriteArrayList<Subscription>> topics = new ConcurrentHashMap<>();
+
+    /**
+     * Gets the shared bus for a database URL, creating it on first use.
+     *
+     * @param url The JDBC URL
+     * @return The bus for that URL
+     */
+    public static MessageBus forUrl(String url) {
+        return BUSES.computeIfAbsent(url, u -> new MessageBus());
+    }
+
+    /**
+     * Gets the topic of every message about a review.
+     * @param reviewUUID The review
+     * @return The topic key
+     */
+    public static String reviewTopic(UUID reviewUUID) {
+        return "review:" + reviewUUID;
+    }
+
+    /**
+     * Gets the topic of every message sent to a user.
+     * @param userUUID The recipient
+     * @return The topic key
+     */
+    public static String recipientTopic(UUID userUUID) {
+        return "recipient:" + userUUID;
+    }
+
+    /**
+     * Registers a listener on a topic.
+     *
+     * @param topic    The topic, from reviewTopic() or recipientTopic()
+     * @param executor Runs each delivery
+     * @param listener Receives the merged events of each delivery, oldest first
+     * @return The subscription; close it when the listener goes away
+     */
+    public Subscription subscribe(String topic, Executor executor, Consumer<List<Event>> listener) {
+        Subscription subscription = new Subscription(topic, executor, listener);
+        topics.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Registers a listener that runs on the JavaFX application thread. Everything
+     * published before the thread gets to the delivery arrives as one list.
+     *
+     * @param topic    The topic, from reviewTopic() or recipientTopic()
+     * @param listener Receives the merged events of each delivery, oldest first
+     * @return The subscription; close it when the window closes
+     */
+    public Subscription subscribeOnFxThread(String topic, Consumer<List<Event>> listener) {
+        return subscribe(topic, Platform::runLater, listener);
+    }
+
+    /**
+     * Checks whether anyone listens, so publishers can skip building events.
+     * @return true if at least one subscription is open
+     */
+    public boolean hasSubscribers() {
+        for (List<Subscription> subscriptions : topics.values()) {
+            if (!subscriptions.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Publishes one event on its message's review and recipient topics.
+     * @param event The change
+     */
+    public void publish(Event event) {
+        publishAll(List.of(event));
+    }
+
+    /**
+     * Publishes events on their messages' review and recipient topics. Each
+     * subscription is handed its share of the events in one step.
+     *
+     * @param events The changes, oldest first
+     */
+    public void publishAll(Collection<Event> events) {
+        if (events.isEmpty() || topics.isEmpty()) {
+            return;
+        }
+        Map<String, List<Event>> byTopic = new LinkedHashMap<>();
+        for (Event event : events) {
+            privateMessage message = event.getMessage();
+            if (message.getReviewUUID() != null) {
+                byTopic.computeIfAbsent(reviewTopic(message.getReviewUUID()), t -> new ArrayList<>()).add(event);
+            }
+            byTopic.computeIfAbsent(recipientTopic(message.getToUUID()), t -> new ArrayList<>()).add(event);
+        }
+        byTopic.forEach((topic, topicEvents) -> {
+            List<Subscription> subscriptions = topics.get(topic);
+            if (subscriptions != null) {
+                for (Subscription subscription : subscriptions) {
+                    subscription.enqueue(topicEvents);
+                }
+            }
+        });
+    }
+
+    /**
+     * Merges the events of one delivery that concern the same message, keeping
+     * the position of the first.
+     *
+     * @param events Events in the order published
+     * @return At most one event per message
+     */
+    static List<Event> coalesce(List<Event> events) {
+        if (events.size() < 2) {
+            return events;
+        }
+        Map<UUID, Event> byMessage = new LinkedHashMap<>();
+        for (Event event : events) {
+            UUID id = event.getMessage().getID();
+            Event earlier = byMessage.get(id);
+            if (earlier == null) {
+                byMessage.put(id, event);
+            } else if (earlier.getKind() == Kind.SAVED && event.getKind() == Kind.DELETED) {
+                byMessage.remove(id); // never seen, never shown
+            } else if (earlier.getKind() == Kind.SAVED && event.getKind() == Kind.UPDATED) {
+                byMessage.put(id, new Event(Kind.SAVED, event.getMessage()));
+            } else {
+                byMessage.put(id, event);
+            }
+        }
+        return new ArrayList<>(byMessage.values());
+    }
+}
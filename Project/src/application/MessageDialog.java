@@ -1,6 +1,9 @@
 package application;
 
+import java.sql.SQLException;
+import java.util.List;
 import java.util.UUID;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
@@ -21,7 +24,11 @@ import javafx.stage.Stage;
  * <ul>
  *   <li>Displays message history in a scrollable list</li>
  *   <li>Provides input area for new messages</li>
- *   <li>Automatically loads existing messages</li>
+ *   <li>Opens on the latest page of the thread; earlier pages load on request,
+ *       so long conversations open as fast as new ones</li>
+ *   <li>Marks the thread read for the current user when it is shown</li>
+ *   <li>While open, messages saved, edited or deleted anywhere in the
+ *       application appear through the MessageBus, without reloading</li>
  *   <li>Formats messages with sender info and timestamps</li>
  * </ul>
  * </p>
@@ -34,6 +41,13 @@ public class MessageDialog {
     private DatabaseHelper dbHelper = new DatabaseHelper();
     private ListView<privateMessage> messageListView = new ListView<>();
     private TextArea messageArea = new TextArea();
+    private Button earlierButton = new Button("Load earlier messages");
+
+    /** Messages shown per page of the thread */
+    private static final int PAGE_SIZE = 50;
+    private MessageThread thread;
+    private String earlierToken;
+    private MessageBus.Subscription subscription;
 
     /**
      * Constructs a new MessageDialog for a specific review conversation.
@@ -48,15 +62,55 @@ public class MessageDialog {
         this.otherUserUUID = otherUserUUID;
         stage = new Stage();
         buildUI();
+        subscribe(); // before the first page, so nothing saved in between is missed
         loadMessages(); // Load existing messages when dialog opens
     }
 
+    // Listens for changes to this conversation until the dialog is hidden
+    private void subscribe() {
+        subscription = dbHelper.getMessageBus().subscribeOnFxThread(MessageBus.reviewTopic(reviewUUID),
+                this::applyEvents);
+    }
+
     /**
-     * Loads and displays all messages related to the current review.
+     * Loads and displays the latest page of this conversation and marks it read.
      */
     private void loadMessages() {
-        privateMessageList messages = dbHelper.getMessageByResponceUUID(reviewUUID);
-        messageListView.getItems().setAll(messages.getPrivateMessageArray());
+        try {
+            thread = dbHelper.findThread(reviewUUID, currentUserUUID, otherUserUUID);
+            if (thread == null) {
+                messageListView.getItems().clear();
+                earlierToken = null;
+            } else {
+                Page<privateMessage> page = dbHelper.loadThreadMessages(thread.getId(), PAGE_SIZE, null);
+                messageListView.getItems().setAll(page.getItems());
+                earlierToken = page.getNextToken();
+                dbHelper.markThreadRead(thread.getId(), currentUserUUID);
+            }
+        } catch (SQLException e) {
+            System.err.println("Failed to load messages: " + e.getMessage());
+            e.printStackTrace();
+        }
+        earlierButton.setVisible(earlierToken != null);
+        messageListView.scrollTo(messageListView.getItems().size() - 1);
+    }
+
+    /**
+     * Adds the page of messages before the oldest one shown to the top of the list.
+     */
+    private void loadEarlierMessages() {
+        if (thread == null || earlierToken == null) {
+            return;
+        }
+        try {
+            Page<privateMessage> page = dbHelper.loadThreadMessages(thread.getId(), PAGE_SIZE, earlierToken);
+            messageListView.getItems().addAll(0, page.getItems());
+            earlierToken = page.getNextToken();
+        } catch (SQLException e) {
+            System.err.println("Failed to load messages: " + e.getMessage());
+            e.printStackTrace();
+        }
+        earlierButton.setVisible(earlierToken != null);
     }
 
     /**
@@ -69,6 +123,9 @@ public class MessageDialog {
         // Configure message list view
         messageListView.setCellFactory(lv -> new MessageListCell());
         root.setCenter(messageListView);
+        earlierButton.setOnAction(e -> loadEarlierMessages());
+        earlierButton.setVisible(false);
+        root.setTop(earlierButton);
 
         // Configure input area
         VBox inputBox = new VBox(10);
@@ -88,11 +145,76 @@ public class MessageDialog {
         // Set up the stage
         stage.setScene(new Scene(root, 400, 300));
         stage.setTitle("Direct Messages");
+        stage.setOnHidden(e -> {
+            if (subscription != null) {
+                subscription.close();
+                subscription = null;
+            }
+        });
+    }
+
+    /**
+     * Applies one delivery of message changes to the list shown. Messages the
+     * loaded page already holds are replaced, not added again. Messages to the
+     * current user that arrive while the dialog is open are marked read.
+     *
+     * @param events The merged changes, oldest first
+     */
+    private void applyEvents(List<MessageBus.Event> events) {
+        boolean appended = false;
+        boolean received = false;
+        List<privateMessage> items = messageListView.getItems();
+        for (MessageBus.Event event : events) {
+            if (!event.isInConversation(reviewUUID, currentUserUUID, otherUserUUID)) {
+                continue;
+            }
+            privateMessage message = event.getMessage();
+            int index = indexOf(message.getID());
+            if (event.getKind() == MessageBus.Kind.DELETED) {
+                if (index >= 0) {
+                    items.remove(index);
+                }
+            } else if (index >= 0) {
+                items.set(index, message); // already on the page; keep the newer copy, never a second row
+            } else if (event.getKind() == MessageBus.Kind.SAVED) {
+                items.add(message);
+                appended = true;
+                received |= currentUserUUID.equals(message.getToUUID()) && !currentUserUUID.equals(message.getFromUUID());
+            }
+        }
+        if (!appended) {
+            return;
+        }
+        messageListView.scrollTo(items.size() - 1);
+        try {
+            if (thread == null) {
+                thread = dbHelper.findThread(reviewUUID, currentUserUUID, otherUserUUID);
+            }
+            if (received && thread != null) {
+                dbHelper.markThreadRead(thread.getId(), currentUserUUID);
+            }
+        } catch (SQLException e) {
+            System.err.println("Failed to mark messages read: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    // Position of a shown message, or -1; a page holds at most a few hundred messages
+    private int indexOf(UUID messageId) {
+        List<privateMessage> items = messageListView.getItems();
+        for (int i = items.size() - 1; i >= 0; i--) {
+            if (items.get(i).getID().equals(messageId)) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
      * Sends a new message and updates the conversation view.
      * Validates that the message text is not empty before sending.
+     * The message is saved in the background; if the save fails, its text is
+     * put back in the input area so it can be sent again.
      */
     private void sendMessage() {
         String text = messageArea.getText().trim();
@@ -103,16 +225,29 @@ public class MessageDialog {
                 otherUserUUID, 
                 reviewUUID
             );
-            dbHelper.saveMessage(msg);
-            messageArea.clear();
-            loadMessages(); // Refresh the message list
+            messageArea.clear(); // the bus adds the message to the list once it is saved
+            dbHelper.saveMessageAsync(msg).whenComplete((saved, error) -> {
+                if (error != null) {
+                    System.err.println("Failed to send message: " + error.getMessage());
+                    Platform.runLater(() -> {
+                        if (messageArea.getText().isEmpty()) {
+                            messageArea.setText(text);
+                        }
+                    });
+                }
+            });
         }
     }
 
     /**
-     * Displays the message dialog to the user.
+     * Displays the message dialog to the user. A dialog shown again after being
+     * hidden listens for changes again and reloads what it missed.
      */
     public void show() {
+        if (subscription == null) {
+            subscribe();
+            loadMessages();
+        }
         stage.show();
     }
 
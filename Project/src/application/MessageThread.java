@@ -0,0 +1,144 @@
+package application;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * The MessageThread class is one conversation: the private messages two users
+ * exchange about one review. A thread is identified by the review and the
+ * unordered pair of participants, stored as the lower and higher UUID string
+ * so either participant finds the same thread.
+ *
+ * <p>The thread row keeps the message count, the date of the last message and
+ * each participant's unread count, so listing conversations and showing
+ * unread badges do not read the messages themselves.</p>
+ */
+public class MessageThread {
+    private final int id;
+    private final UUID reviewUUID;
+    private final UUID userLow;
+    private final UUID userHigh;
+    private final int messageCount;
+    private final LocalDate lastDate;
+    private final int unreadLow;
+    private final int unreadHigh;
+    private final String otherUserName;
+
+    /**
+     * Constructs a thread as read from the database.
+     *
+     * @param id           The thread's database id
+     * @param reviewUUID   The review the conversation is about
+     * @param userLow      The participant whose UUID string sorts first
+     * @param userHigh     The other participant
+     * @param messageCount Number of messages in the thread
+     * @param lastDate     Date of the latest message, or null if there is none
+     * @param unreadLow    Messages userLow has not read
+     * @param unreadHigh   Messages userHigh has not read
+     */
+    public MessageThread(int id, UUID reviewUUID, UUID userLow, UUID userHigh, int messageCount, LocalDate lastDate,
+            int unreadLow, int unreadHigh) {
+        this(id, reviewUUID, userLow, userHigh, messageCount, lastDate, unreadLow, unreadHigh, null);
+    }
+
+    /**
+     * Constructs a thread as listed for one of its participants, with the other
+     * participant's name read in the same query.
+     *
+     * @param id            The thread's database id
+     * @param reviewUUID    The review the conversation is about
+     * @param userLow       The participant whose UUID string sorts first
+     * @param userHigh      The other participant
+     * @param messageCount  Number of messages in the thread
+     * @param lastDate      Date of the latest message, or null if there is none
+     * @param unreadLow     Messages userLow has not read
+     * @param unreadHigh    Messages userHigh has not read
+     * @param otherUserName Login name of the participant the thread was not listed for
+     */
+    public MessageThread(int id, UUID reviewUUID, UUID userLow, UUID userHigh, int messageCount, LocalDate lastDate,
+            int unreadLow, int unreadHigh, String otherUserName) {
+        this.id = id;
+        this.reviewUUID = reviewUUID;
+        this.userLow = userLow;
+        this.userHigh = userHigh;
+        this.messageCount = messageCount;
+        this.lastDate = lastDate;
+        this.unreadLow = unreadLow;
+        this.unreadHigh = unreadHigh;
+        this.otherUserName = otherUserName;
+    }
+
+    /**
+     * Orders a pair of participants the way threads store them.
+     *
+     * @param a One participant
+     * @param b The other participant
+     * @return The two UUIDs, lower UUID string first
+     */
+    static UUID[] participants(UUID a, UUID b) {
+        return a.toString().compareTo(b.toString()) <= 0 ? new UUID[] { a, b } : new UUID[] { b, a };
+    }
+
+    /** @return The thread's database id, used to page its messages */
+    public int getId() {
+        return id;
+    }
+
+    /** @return The review the conversation is about */
+    public UUID getReviewUUID() {
+        return reviewUUID;
+    }
+
+    /**
+     * Gets the participant other than the given user.
+     * @param user One participant
+     * @return The other participant
+     */
+    public UUID getOtherParticipant(UUID user) {
+        return userLow.equals(user) ? userHigh : userLow;
+    }
+
+    /**
+     * Gets the login name of the other participant, as read by DatabaseHelper.loadThreads().
+     * @return The name, or null if the thread was loaded another way or the account no longer exists
+     */
+    public String getOtherUserName() {
+        return otherUserName;
+    }
+
+    /**
+     * Checks whether a user takes part in the thread.
+     * @param user The user to check
+     * @return true if the user is one of the two participants
+     */
+    public boolean hasParticipant(UUID user) {
+        return userLow.equals(user) || userHigh.equals(user);
+    }
+
+    /** @return Number of messages in the thread */
+    public int getMessageCount() {
+        return messageCount;
+    }
+
+    /** @return Date of the latest message, or null if there is none */
+    public LocalDate getLastDate() {
+        return lastDate;
+    }
+
+    /**
+     * Gets how many messages in the thread a participant has not read.
+     * @param user A participant
+     * @return The unread count, or 0 if the user is not a participant
+     */
+    public int getUnreadFor(UUID user) {
+        if (userLow.equals(user)) {
+            return unreadLow;
+        }
+        return userHigh.equals(user) ? unreadHigh : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "thread " + id + " about " + reviewUUID + ": " + messageCount + " message(s)";
+    }
+}
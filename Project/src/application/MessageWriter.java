@@ -0,0 +1,310 @@
+package application;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The MessageWriter class saves private messages in the background so sending
+ * one never waits on the database from the JavaFX thread. Messages go into a
+ * bounded queue; one writer thread takes them off in groups and saves each
+ * group with DatabaseHelper.saveMessagesBatch(), one transaction per group.
+ *
+ * <p>Key features:
+ * <ul>
+ *   <li>A group is written once it holds batchSize messages or its first
+ *       message has waited flushMillis, whichever comes first</li>
+ *   <li>When the queue is full, submit() waits up to the enqueue timeout for
+ *       room and then fails the send, instead of letting the queue grow</li>
+ *   <li>Durability.ENQUEUED completes a send as soon as it is queued;
+ *       Durability.COMMITTED completes it once its group has committed</li>
+ *   <li>If a group fails, its messages are retried one by one, so one bad
+ *       message fails only its own send</li>
+ *   <li>close() writes everything still queued before it returns;
+ *       DatabaseHelper.closeConnection() calls it</li>
+ * </ul>
+ * There is one writer per database URL, shared by every DatabaseHelper, and
+ * its thread starts with the first send.</p>
+ */
+public class MessageWriter implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1_024;
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    public static final long DEFAULT_FLUSH_MILLIS = 10;
+    public static final long DEFAULT_ENQUEUE_TIMEOUT_MILLIS = 100;
+
+    /** How long close() waits for the queue to drain */
+    private static final long DRAIN_TIMEOUT_MILLIS = 30_000;
+
+    private static final Map<String, MessageWriter> WRITERS = new ConcurrentHashMap<>();
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    /** When a send counts as done */
+    public enum Durability {
+        /** Done once queued; a later write failure is only logged */
+        ENQUEUED,
+        /** Done once the transaction holding the message has committed */
+        COMMITTED
+    }
+
+    /** Saves one group of messages in a single transaction */
+    public interface Sink {
+        void write(List<privateMessage> batch) throws SQLException;
+    }
+
+    /** A queued message and the send waiting on it */
+    private static final class Pending {
+        final privateMessage message;
+        final CompletableFuture<privateMessage> future = new CompletableFuture<>();
+
+        Pending(privateMessage message) {
+            this.message = message;
+        }
+    }
+
+    private final Sink sink;
+    private final BlockingQueue<Pending> queue;
+    private final int batchSize;
+    private final long flushNanos;
+    private final Thread thread;
+    private volatile long enqueueTimeoutMillis = DEFAULT_ENQUEUE_TIMEOUT_MILLIS;
+    private volatile Durability durability = Durability.COMMITTED;
+    private volatile boolean closed;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    /**
+     * Gets the shared writer for a database URL, creating it on first use.
+     *
+     * @param url  The JDBC URL
+     * @param sink Saves a group of messages; used only if the writer is created
+     * @return The writer for that URL
+     */
+    public static MessageWriter forUrl(String url, Sink sink) {
+        return WRITERS.computeIfAbsent(url, u -> new MessageWriter(sink, DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE,
+                DEFAULT_FLUSH_MILLIS));
+    }
+
+    /**
+     * Drains and stops the shared writer for a database URL, if there is one.
+     * @param url The JDBC URL
+     */
+    public static void closeForUrl(String url) {
+        MessageWriter writer = WRITERS.remove(url);
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    /**
+     * Creates a standalone writer and starts its thread.
+     *
+     * @param sink        Saves a group of messages in one transaction
+     * @param capacity    The most messages queued at once
+     * @param batchSize   The most messages written per transaction
+     * @param flushMillis The longest a message waits for its group to fill
+     */
+    public MessageWriter(Sink sink, int capacity, int batchSize, long flushMillis) {
+        if (capacity < 1 || batchSize < 1 || flushMillis < 0) {
+            throw new IllegalArgumentException("Invalid writer settings: capacity " + capacity + ", batch size "
+                    + batchSize + ", flush " + flushMillis + " ms");
+        }
+        this.sink = sink;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        this.thread = new Thread(this::run, "message-writer-" + THREAD_COUNT.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Sets when sends made without a durability complete.
+     * @param durability The default durability
+     */
+    public void setDurability(Durability durability) {
+        this.durability = durability;
+    }
+
+    /** @return The durability of sends made without one */
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * Sets how long submit() waits for room in a full queue before failing.
+     * @param enqueueTimeoutMillis The wait in milliseconds; 0 fails at once
+     */
+    public void setEnqueueTimeoutMillis(long enqueueTimeoutMillis) {
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+    }
+
+    /**
+     * Queues a message with the default durability.
+     *
+     * @param message The message to save
+     * @return Future of the message, completed as the durability says
+     */
+    public CompletableFuture<privateMessage> submit(privateMessage message) {
+        return submit(message, durability);
+    }
+
+    /**
+     * Queues a message. The future fails with RejectedExecutionException if
+     * the writer is closed or the queue stays full for the enqueue timeout.
+     *
+     * @param message    The message to save
+     * @param durability When the future completes
+     * @return Future of the message, completed as the durability says
+     */
+    public CompletableFuture<privateMessage> submit(privateMessage message, Durability durability) {
+        Pending pending = new Pending(message);
+        boolean queued = false;
+        if (!closed) {
+            try {
+                queued = queue.offer(pending, enqueueTimeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (!queued) {
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException(
+                    closed ? "Message writer is closed" : "Message queue is full"));
+        }
+        if (closed && queue.remove(pending)) {
+            // closed while we queued it; the drain may already be done
+            rejected.incrementAndGet();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Message writer is closed"));
+        }
+        if (durability == Durability.ENQUEUED) {
+            pending.future.complete(message);
+        }
+        return pending.future;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(batchSize);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushNanos;
+                while (batch.size() < batchSize) {
+                    // take what is already queued without waiting; wait only for the rest of the window
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 && !closed ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                closed = true; // finish what is queued, then stop
+            }
+            if (!batch.isEmpty()) {
+                write(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        List<privateMessage> messages = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            messages.add(pending.message);
+        }
+        try {
+            sink.write(messages);
+            batches.incrementAndGet();
+            written.addAndGet(batch.size());
+            for (Pending pending : batch) {
+                pending.future.complete(pending.message);
+            }
+            return;
+        } catch (SQLException | RuntimeException e) {
+            if (batch.size() == 1) {
+                fail(batch.get(0), e);
+                return;
+            }
+        }
+        for (Pending pending : batch) {
+            write(List.of(pending));
+        }
+    }
+
+    private void fail(Pending pending, Exception e) {
+        failed.incrementAndGet();
+        if (!pending.future.completeExceptionally(e)) {
+            System.err.println("Could not save message " + pending.message.getID() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stops taking messages, writes everything still queued and stops the
+     * writer thread. Waits up to 30 seconds for the queue to drain.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        WRITERS.values().remove(this);
+        try {
+            thread.join(DRAIN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            System.err.println("Message writer did not drain in time; " + queue.size() + " message(s) left");
+        }
+    }
+
+    /** @return Messages waiting to be written */
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /** @return Messages saved */
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    /** @return Messages whose save failed */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /** @return Sends refused because the queue was full or the writer closed */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /** @return Transactions that saved a group of messages */
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    @Override
+    public String toString() {
+        long batchCount = batches.get();
+        return String.format("written=%d batches=%d avgBatch=%.1f failed=%d rejected=%d queued=%d", written.get(),
+                batchCount, batchCount == 0 ? 0.0 : (double) written.get() / batchCount, failed.get(),
+                rejected.get(), queue.size());
+    }
+}
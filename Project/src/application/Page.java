@@ -0,0 +1,56 @@
+package application;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The Page class holds one page of rows read in (date, id) order, together with
+ * the continuation token that reads the page after it. The token is opaque to
+ * callers: pass it back to the same DatabaseHelper load method to continue.
+ *
+ * @param <T> The type of row loaded
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final String nextToken;
+
+    /**
+     * Constructs a page.
+     *
+     * @param items     The rows on this page, in order
+     * @param nextToken The token for the next page, or null if this is the last one
+     */
+    public Page(List<T> items, String nextToken) {
+        this.items = Collections.unmodifiableList(items);
+        this.nextToken = nextToken;
+    }
+
+    /**
+     * Gets the rows on this page.
+     * @return Unmodifiable list of rows, in (date, id) order
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the token that continues after this page.
+     * @return The continuation token, or null if there are no more rows
+     */
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    /**
+     * Checks whether more rows follow this page.
+     * @return true if getNextToken() can load another page
+     */
+    public boolean hasMore() {
+        return nextToken != null;
+    }
+
+    @Override
+    public String toString() {
+        return items.size() + " row(s)" + (hasMore() ? ", more follow" : ", last page");
+    }
+}
@@ -20,6 +20,9 @@ public class PasswordEvaluator {
 	 * @author Lynn Robert Carter
 	 * 
 	 * @version 0.00 2018-02-22 Initial baseline
+	 * @version 0.01 2026-10-17 State moved from static fields into locals so the
+	 *          evaluator is reentrant; results are returned as immutable Result
+	 *          objects and the valid path allocates nothing.
 	 * 
 	 */
 
@@ -27,149 +30,161 @@ public class PasswordEvaluator {
 	 * 
 	 * Result attributes to be used for GUI applications where a detailed error
 	 * message and a pointer to the character of the error will enhance the user
-	 * experience.
+	 * experience. Results are immutable, so any number of threads may evaluate
+	 * passwords at once.
 	 * 
 	 */
+	public static final class Result {
+		public static final int VALID = 0;
+		public static final int EMPTY = 1;
+		public static final int INVALID_CHARACTER = 2;
+		public static final int CONDITIONS_NOT_MET = 3;
+
+		// Bits of getFlags(), one per password condition
+		public static final int UPPER_CASE = 1 << 0;
+		public static final int LOWER_CASE = 1 << 1;
+		public static final int NUMERIC_DIGIT = 1 << 2;
+		public static final int SPECIAL_CHAR = 1 << 3;
+		public static final int LONG_ENOUGH = 1 << 4;
+		public static final int ALL_CONDITIONS = (1 << 5) - 1;
+
+		private static final String EMPTY_MESSAGE = "*** Error *** The password is empty!";
+		private static final String INVALID_MESSAGE = "*** Error *** An invalid character has been found!";
+
+		// The message for every combination of unmet conditions, built once
+		private static final String[] CONDITION_MESSAGES = new String[ALL_CONDITIONS + 1];
+
+		static {
+			String[] names = { "Upper case; ", "Lower case; ", "Numeric digits; ", "Special character; ", "Long Enough; " };
+			for (int flags = 0; flags < ALL_CONDITIONS; flags++) {
+				StringBuilder message = new StringBuilder();
+				for (int bit = 0; bit < names.length; bit++) {
+					if ((flags & (1 << bit)) == 0) {
+						message.append(names[bit]);
+					}
+				}
+				CONDITION_MESSAGES[flags] = message.append("Password conditions were not satisfied").toString();
+			}
+			CONDITION_MESSAGES[ALL_CONDITIONS] = "";
+		}
 
-	public static String passwordErrorMessage = ""; // The error message text
-	public static String passwordInput = ""; // The input being processed
-	public static int passwordIndexofError = -1; // The index where the error was located
-	public static boolean foundUpperCase = false;
-	public static boolean foundLowerCase = false;
-	public static boolean foundNumericDigit = false;
-	public static boolean foundSpecialChar = false;
-	public static boolean foundLongEnough = false;
-	private static String inputLine = ""; // The input line
-	private static char currentChar; // The current character in the line
-	private static int currentCharNdx; // The index of the current character
-	private static boolean running; // The flag that specifies if the FSM is
-	private static boolean debugMessages = false;
-	// running
+		// Shared by every valid password so the common path allocates nothing
+		private static final Result OK = new Result(VALID, -1, ALL_CONDITIONS);
 
-	/**********
-	 * This private method display the input line and then on a line under it
-	 * displays an up arrow at the point where an error should one be detected. This
-	 * method is designed to be used to display the error message on the console
-	 * terminal.
-	 * 
-	 * @param input          The input string
-	 * @param currentCharNdx The location where an error was found
-	 * @return Two lines, the entire input line followed by a line with an up arrow
-	 */
-	private static void displayInputState() {
-		// Display the entire input line
-		System.out.println(inputLine);
-		System.out.println(inputLine.substring(0, currentCharNdx) + "?");
-		System.out.println("The password size: " + inputLine.length() + "  |  The currentCharNdx: " + currentCharNdx
-				+ "  |  The currentChar: \"" + currentChar + "\"");
+		private final int errorCode;
+		private final int indexOfError;
+		private final int flags;
+
+		private Result(int errorCode, int indexOfError, int flags) {
+			this.errorCode = errorCode;
+			this.indexOfError = indexOfError;
+			this.flags = flags;
+		}
+
+		/** @return true if the password satisfies every condition */
+		public boolean isValid() {
+			return errorCode == VALID;
+		}
+
+		/** @return One of the error codes above; VALID if there is no error */
+		public int getErrorCode() {
+			return errorCode;
+		}
+
+		/** @return The index where the error was located, or -1 */
+		public int getIndexOfError() {
+			return indexOfError;
+		}
+
+		/** @return The condition bits that were satisfied */
+		public int getFlags() {
+			return flags;
+		}
+
+		public boolean foundUpperCase() {
+			return (flags & UPPER_CASE) != 0;
+		}
+
+		public boolean foundLowerCase() {
+			return (flags & LOWER_CASE) != 0;
+		}
+
+		public boolean foundNumericDigit() {
+			return (flags & NUMERIC_DIGIT) != 0;
+		}
+
+		public boolean foundSpecialChar() {
+			return (flags & SPECIAL_CHAR) != 0;
+		}
+
+		public boolean foundLongEnough() {
+			return (flags & LONG_ENOUGH) != 0;
+		}
+
+		/** @return The error message, or an empty string if the password is valid */
+		public String getMessage() {
+			switch (errorCode) {
+			case EMPTY:
+				return EMPTY_MESSAGE;
+			case INVALID_CHARACTER:
+				return INVALID_MESSAGE;
+			default:
+				return CONDITION_MESSAGES[flags];
+			}
+		}
 	}
 
+	private static final String SPECIAL_CHARACTERS = "~`!@#$%^&*()_-+={}[]|\\:;\"'<>,.?/";
+
 	/**********
 	 * This method is a mechanical transformation of a Directed Graph diagram into a
 	 * Java method.
 	 * 
 	 * @param input The input string for directed graph processing
 	 * @return An output string that is empty if every things is okay or it will be
-	 *         a string with a help description of the error follow by two lines
-	 *         that shows the input line follow by a line with an up arrow at the
-	 *         point where the error was found.
+	 *         a string with a help description of the error
 	 */
 	public static String evaluatePassword(String input) {
-		// The following are the local variable used to perform the Directed Graph
-		// simulation
-		passwordErrorMessage = "";
-		passwordIndexofError = 0; // Initialize the IndexofError
-		inputLine = input; // Save the reference to the input line as a global
-		currentCharNdx = 0; // The index of the current character
+		return evaluate(input).getMessage();
+	}
 
+	/**********
+	 * Runs the Directed Graph over the input. All of the state is local to the
+	 * call, so this may be called from several threads at once.
+	 * 
+	 * @param input The input string for directed graph processing
+	 * @return The result; Result.isValid() is true if every thing is okay
+	 */
+	public static Result evaluate(String input) {
 		if (input.length() <= 0)
-			return "*** Error *** The password is empty!";
-
-		// The input is not empty, so we can access the first character
-		currentChar = input.charAt(0); // The current character from the above indexed position
+			return new Result(Result.EMPTY, 0, 0);
 
 		// The Directed Graph simulation continues until the end of the input is reached
-		// or at some
-		// state the current character does not match any valid transition to a next
-		// state
-
-		passwordInput = input; // Save a copy of the input
-		foundUpperCase = false; // Reset the Boolean flag
-		foundLowerCase = false; // Reset the Boolean flag
-		foundNumericDigit = false; // Reset the Boolean flag
-		foundSpecialChar = false; // Reset the Boolean flag
-		foundNumericDigit = false; // Reset the Boolean flag
-		foundLongEnough = false; // Reset the Boolean flag
-		running = true; // Start the loop
+		// or the current character does not match any valid transition
+		int flags = 0;
+		for (int currentCharNdx = 0; currentCharNdx < input.length(); currentCharNdx++) {
+			char currentChar = input.charAt(currentCharNdx);
 
-		// The Directed Graph simulation continues until the end of the input is reached
-		// or at some
-		// state the current character does not match any valid transition
-		while (running) {
-			if (debugMessages)
-				displayInputState();
 			// The cascading if statement sequentially tries the current character against
-			// all of the
-			// valid transitions
+			// all of the valid transitions
 			if (currentChar >= 'A' && currentChar <= 'Z') {
-				if (debugMessages)
-					System.out.println("Upper case letter found");
-				foundUpperCase = true;
+				flags |= Result.UPPER_CASE;
 			} else if (currentChar >= 'a' && currentChar <= 'z') {
-				if (debugMessages)
-					System.out.println("Lower case letter found");
-				foundLowerCase = true;
+				flags |= Result.LOWER_CASE;
 			} else if (currentChar >= '0' && currentChar <= '9') {
-				if (debugMessages)
-					System.out.println("Digit found");
-				foundNumericDigit = true;
-			} else if ("~`!@#$%^&*()_-+={}[]|\\:;\"'<>,.?/".indexOf(currentChar) >= 0) {
-				if (debugMessages)
-					System.out.println("Special character found");
-				foundSpecialChar = true;
+				flags |= Result.NUMERIC_DIGIT;
+			} else if (SPECIAL_CHARACTERS.indexOf(currentChar) >= 0) {
+				flags |= Result.SPECIAL_CHAR;
 			} else {
-				passwordIndexofError = currentCharNdx;
-				return "*** Error *** An invalid character has been found!";
+				return new Result(Result.INVALID_CHARACTER, currentCharNdx, flags);
 			}
 			if (currentCharNdx >= 7) {
-				if (debugMessages)
-					System.out.println("At least 8 characters found");
-				foundLongEnough = true;
+				flags |= Result.LONG_ENOUGH;
 			}
-
-			// Go to the next character if there is one
-			currentCharNdx++;
-			if (currentCharNdx >= inputLine.length())
-				running = false;
-			else
-				currentChar = input.charAt(currentCharNdx);
-
-			if (debugMessages)
-				System.out.println();
 		}
 
-		String errMessage = "";
-		if (!foundUpperCase)
-			errMessage += "Upper case; ";
-
-		if (!foundLowerCase)
-			errMessage += "Lower case; ";
-
-		if (!foundNumericDigit)
-			errMessage += "Numeric digits; ";
-
-		if (!foundSpecialChar)
-			errMessage += "Special character; ";
-
-		if (!foundLongEnough)
-			errMessage += "Long Enough; ";
-
-		if (errMessage == "")
-			return "";
-
-		/// Kevin Y: What's the point of this line???
-		passwordIndexofError = currentCharNdx;
-		return errMessage + "Password conditions were not satisfied";
-
+		if (flags == Result.ALL_CONDITIONS)
+			return Result.OK;
+		return new Result(Result.CONDITIONS_NOT_MET, input.length(), flags);
 	}
 }
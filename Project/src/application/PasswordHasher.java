@@ -0,0 +1,254 @@
+package application;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+/**
+ * The PasswordHasher class turns passwords into salted PBKDF2 hashes for the
+ * password column of cse360users and checks login attempts against them.
+ *
+ * <p>Key features:
+ * <ul>
+ *   <li>Each hash has its own random 16-byte salt</li>
+ *   <li>The iteration count is stored in the hash, so it can be raised later
+ *       without breaking existing rows; needsRehash() reports old hashes</li>
+ *   <li>Rows stored before hashing was added are plain text; verify() still
+ *       accepts them so they can be rehashed on the next login</li>
+ *   <li>hashAsync(), verifyAsync() and hashAll() run on a small bounded pool,
+ *       keeping the CPU-heavy work off the JavaFX thread</li>
+ * </ul>
+ * </p>
+ *
+ * Stored format: {@code pbkdf2-sha256$<iterations>$<base64 salt>$<base64 hash>}
+ */
+public class PasswordHasher {
+    /** Iteration count for new hashes unless overridden; see Benchmarks "pbkdf2" */
+    public static final int DEFAULT_ITERATIONS = Integer.getInteger("cse360.pbkdf2.iterations", 600_000);
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    /** Hashing jobs waiting beyond this many are rejected rather than queued */
+    private static final int MAX_QUEUED = 64;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static volatile PasswordHasher defaultHasher = new PasswordHasher(DEFAULT_ITERATIONS);
+
+    // One worker per core: the work is pure CPU, so more threads only add waiting
+    private static final ThreadPoolExecutor EXECUTOR;
+
+    static {
+        int threads = Runtime.getRuntime().availableProcessors();
+        AtomicInteger count = new AtomicInteger();
+        EXECUTOR = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED), r -> {
+                    Thread thread = new Thread(r, "password-hasher-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private final int iterations;
+
+    /**
+     * Creates a hasher.
+     * @param iterations PBKDF2 iterations for new hashes
+     */
+    public PasswordHasher(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("Iterations must be at least 1: " + iterations);
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * Gets the hasher DatabaseHelper uses.
+     * @return The shared hasher
+     */
+    public static PasswordHasher getDefault() {
+        return defaultHasher;
+    }
+
+    /**
+     * Replaces the hasher DatabaseHelper uses, for example to change the iteration count.
+     * @param hasher The new shared hasher
+     */
+    public static void setDefault(PasswordHasher hasher) {
+        defaultHasher = hasher;
+    }
+
+    /** @return PBKDF2 iterations used for new hashes */
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Hashes a password with a new random salt.
+     *
+     * @param password The plain-text password
+     * @return The encoded hash to store
+     */
+    public String hash(String password) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder base64 = Base64.getEncoder();
+        return PREFIX + "$" + iterations + "$" + base64.encodeToString(salt) + "$"
+                + base64.encodeToString(derive(password, salt, iterations));
+    }
+
+    /**
+     * Hashes many passwords on the bounded hashing pool. At most one hash per
+     * worker is in flight at a time, so logins hashed meanwhile still find room
+     * in the queue; if the pool is full anyway, the caller hashes the password
+     * itself, which also slows its submissions down.
+     *
+     * @param passwords The plain-text passwords
+     * @return Their encoded hashes, in the same order
+     */
+    public List<String> hashAll(List<String> passwords) {
+        int window = EXECUTOR.getMaximumPoolSize();
+        List<CompletableFuture<String>> hashes = new ArrayList<>(passwords.size());
+        for (int i = 0; i < passwords.size(); i++) {
+            if (i >= window) {
+                hashes.get(i - window).join();
+            }
+            String password = passwords.get(i);
+            CompletableFuture<String> hash = supplyAsync(() -> hash(password));
+            if (hash.isCompletedExceptionally()) {
+                hash = CompletableFuture.completedFuture(hash(password));
+            }
+            hashes.add(hash);
+        }
+        List<String> encoded = new ArrayList<>(hashes.size());
+        for (CompletableFuture<String> hash : hashes) {
+            encoded.add(hash.join());
+        }
+        return encoded;
+    }
+
+    /**
+     * Checks a password against a stored value. Plain-text values from before
+     * hashing was added are compared directly.
+     *
+     * @param password The password entered
+     * @param stored   The value in the password column
+     * @return true if the password matches
+     */
+    public boolean verify(String password, String stored) {
+        if (password == null || stored == null) {
+            return false;
+        }
+        if (!isHashed(stored)) {
+            return MessageDigest.isEqual(password.getBytes(StandardCharsets.UTF_8),
+                    stored.getBytes(StandardCharsets.UTF_8));
+        }
+        String[] parts = stored.split("\\$");
+        if (parts.length != 4) {
+            return false;
+        }
+        try {
+            Base64.Decoder base64 = Base64.getDecoder();
+            byte[] expected = base64.decode(parts[3]);
+            return MessageDigest.isEqual(expected, derive(password, base64.decode(parts[2]), Integer.parseInt(parts[1])));
+        } catch (IllegalArgumentException e) {
+            return false; // corrupt hash never matches
+        }
+    }
+
+    /**
+     * Checks whether a stored value is a hash made by this class.
+     * @param stored The value in the password column
+     * @return true if it is a PBKDF2 hash, false if it is legacy plain text
+     */
+    public static boolean isHashed(String stored) {
+        return stored != null && stored.startsWith(PREFIX + "$");
+    }
+
+    /**
+     * Checks whether a stored value should be replaced after a successful login:
+     * it is plain text or was hashed with a different iteration count.
+     *
+     * @param stored The value in the password column
+     * @return true if the password should be hashed again
+     */
+    public boolean needsRehash(String stored) {
+        if (!isHashed(stored)) {
+            return true;
+        }
+        String[] parts = stored.split("\\$");
+        return parts.length != 4 || !parts[1].equals(Integer.toString(iterations));
+    }
+
+    /**
+     * Hashes a password on the hashing pool.
+     * @param password The plain-text password
+     * @return Future of the encoded hash
+     */
+    public CompletableFuture<String> hashAsync(String password) {
+        return supplyAsync(() -> hash(password));
+    }
+
+    /**
+     * Verifies a password on the hashing pool.
+     *
+     * @param password The password entered
+     * @param stored   The value in the password column
+     * @return Future of whether the password matches
+     */
+    public CompletableFuture<Boolean> verifyAsync(String password, String stored) {
+        return supplyAsync(() -> verify(password, stored));
+    }
+
+    /**
+     * Runs a task on the bounded hashing pool. Checked exceptions complete the
+     * future exceptionally; so does a full queue, instead of blocking the caller.
+     *
+     * @param task The work to run
+     * @return Future of the task's result
+     */
+    static <T> CompletableFuture<T> supplyAsync(Callable<T> task) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return task.call();
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, EXECUTOR);
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+}
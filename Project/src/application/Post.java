@@ -1,7 +1,10 @@
 package application;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.io.*;
 
 /**
@@ -23,6 +26,7 @@ import java.io.*;
  *   <li>Creation timestamp</li>
  *   <li>Unique identifier</li>
  *   <li>Review status flag</li>
+ *   <li>Change state used for incremental saves</li>
  * </ul>
  * </p>
  */
@@ -34,6 +38,26 @@ public class Post implements Serializable {
     private UUID userUUID;
     protected UUID ID;
     protected Boolean underReview;
+    private ChangeState changeState = ChangeState.NEW;
+
+    /** Search indexes covering this post; told when its searchable text changes */
+    private transient List<Consumer<Post>> textListeners;
+
+    /**
+     * Persistence state of a post relative to its database row.
+     * Setters move a CLEAN post to MODIFIED so that a save only has to
+     * write the posts that actually changed.
+     */
+    public enum ChangeState {
+        /** Created in memory and not yet written to the database */
+        NEW,
+        /** Matches the row stored in the database */
+        CLEAN,
+        /** Stored in the database, but edited since it was loaded or saved */
+        MODIFIED,
+        /** Removed in memory; the stored row still has to be deleted */
+        DELETED
+    }
 
     /**
      * Default constructor for serialization purposes.
@@ -68,6 +92,7 @@ public class Post implements Serializable {
      */
     public void isUnderReview() {
         underReview = true;
+        markModified();
     }
 
     /**
@@ -75,6 +100,7 @@ public class Post implements Serializable {
      */
     public void notUnderReview() {
         underReview = false;
+        markModified();
     }
     
     /**
@@ -91,6 +117,7 @@ public class Post implements Serializable {
      */
     public void setUnderReview(Boolean rev) {
         underReview = rev;
+        markModified();
     }
 
     /**
@@ -107,6 +134,7 @@ public class Post implements Serializable {
      */
     public void setUserUUID(UUID useruuid) {
         userUUID = useruuid;
+        markModified();
     }
 
     /**
@@ -125,6 +153,7 @@ public class Post implements Serializable {
      */
     public void setID(UUID iD) {
         ID = iD;
+        markModified();
     }
 
     /**
@@ -141,6 +170,7 @@ public class Post implements Serializable {
      */
     public void setName(String name) {
         this.name = name;
+        markModified();
     }
 
     /**
@@ -157,6 +187,8 @@ public class Post implements Serializable {
      */
     public void setTextBody(String textBody) {
         this.textBody = textBody;
+        markModified();
+        textChanged();
     }
 
     /**
@@ -175,5 +207,74 @@ public class Post implements Serializable {
      */
     public void setDate(LocalDate newDate) {
         date = newDate;
+        markModified();
+    }
+
+    /**
+     * Gets the persistence state of the post.
+     * Posts restored from older serialized files have no recorded state and
+     * are reported as NEW so that the next save writes them.
+     *
+     * @return The current change state
+     */
+    public ChangeState getChangeState() {
+        return changeState == null ? ChangeState.NEW : changeState;
+    }
+
+    /**
+     * Records that the post has been edited since it was last saved.
+     * NEW and DELETED posts keep their state.
+     */
+    public void markModified() {
+        if (changeState == ChangeState.CLEAN) {
+            changeState = ChangeState.MODIFIED;
+        }
+    }
+
+    /**
+     * Registers a listener called whenever the post's searchable text changes.
+     * @param listener The listener, usually a collection re-indexing the post
+     */
+    void addTextListener(Consumer<Post> listener) {
+        if (textListeners == null) {
+            textListeners = new ArrayList<>(1);
+        }
+        textListeners.add(listener);
+    }
+
+    /**
+     * Unregisters a text listener.
+     * @param listener The listener to remove
+     */
+    void removeTextListener(Consumer<Post> listener) {
+        if (textListeners != null) {
+            textListeners.remove(listener);
+        }
+    }
+
+    /**
+     * Tells the text listeners that a searchable field was edited.
+     */
+    protected void textChanged() {
+        if (textListeners != null) {
+            for (Consumer<Post> listener : new ArrayList<>(textListeners)) {
+                listener.accept(this);
+            }
+        }
+    }
+
+    /**
+     * Records that the post has been removed from its collection.
+     */
+    public void markDeleted() {
+        changeState = ChangeState.DELETED;
+    }
+
+    /**
+     * Records that the post matches its database row.
+     * Called by DatabaseHelper after loading or saving the post.
+     */
+    public void markClean() {
+        changeState = ChangeState.CLEAN;
     }
 }
\ No newline at end of file
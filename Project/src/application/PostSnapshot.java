@@ -0,0 +1,529 @@
+package application;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * The PostSnapshot class writes Questions and Answers collections to files in
+ * a compact binary format and reads them back, in place of Java serialization.
+ * Questions.saveQuestions() and Answers.saveAnswers() use it.
+ *
+ * <p>Layout, all numbers big-endian:
+ * <pre>
+ *   int    magic "CSES"
+ *   short  format version
+ *   byte   kind: 1 questions, 2 answers
+ *   int    number of records
+ *   record*: varint length, then the record's fields
+ *   int    CRC-32C of every byte before it
+ * </pre>
+ * Inside a record:
+ * <ul>
+ *   <li>UUIDs are a presence byte and two longs</li>
+ *   <li>Dates are a presence byte and the epoch day as an int</li>
+ *   <li>Strings are UTF-8, prefixed by their length plus one (0 is null)</li>
+ *   <li>Author names go through a string table: a varint index of a name
+ *       already seen, or 0 followed by a new name that joins the table</li>
+ * </ul>
+ * Each record carries its length, so a reader can skip fields that a later
+ * version appends. Files are written to a temporary file that replaces the
+ * target only once complete, and the checksum is verified before a loaded
+ * collection is returned.</p>
+ */
+public final class PostSnapshot {
+    /** "CSES", the first four bytes of every snapshot */
+    public static final int MAGIC = 0x43534553;
+    public static final short VERSION = 1;
+
+    private static final byte KIND_QUESTIONS = 1;
+    private static final byte KIND_ANSWERS = 2;
+    private static final int HEADER_BYTES = 11;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final Post.ChangeState[] STATES = Post.ChangeState.values();
+
+    private PostSnapshot() {
+    }
+
+    /**
+     * Checks whether a file starts like a snapshot.
+     *
+     * @param file The file to check
+     * @return true if the file begins with the snapshot magic number
+     * @throws IOException if the file cannot be read
+     */
+    public static boolean isSnapshot(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer head = ByteBuffer.allocate(4);
+            while (head.hasRemaining() && channel.read(head) >= 0) {
+                // keep reading until four bytes or end of file
+            }
+            return !head.hasRemaining() && head.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Writes the questions of a collection to a snapshot file.
+     *
+     * @param questions The collection
+     * @param file      The file to write; replaced only once the snapshot is complete
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeQuestions(Questions questions, Path file) throws IOException {
+        List<Question> items = questions.getQuestionArray();
+        try (Writer writer = new Writer(file, KIND_QUESTIONS, items.size())) {
+            for (Question question : items) {
+                writer.writePost(question);
+                writer.record.string(question.getTitle());
+                writer.record.uuid(question.getChosenAnswer());
+                writer.endRecord();
+            }
+            writer.finish();
+        }
+    }
+
+    /**
+     * Writes the answers of a collection to a snapshot file.
+     *
+     * @param answers The collection
+     * @param file    The file to write; replaced only once the snapshot is complete
+     * @throws IOException if the file cannot be written
+     */
+    public static void writeAnswers(Answers answers, Path file) throws IOException {
+        List<Answer> items = answers.getAnswerArray();
+        try (Writer writer = new Writer(file, KIND_ANSWERS, items.size())) {
+            for (Answer answer : items) {
+                writer.writePost(answer);
+                writer.record.uuid(answer.getQuestionID());
+                writer.record.varint(answer.getRepuation());
+                writer.record.varint(answer.getUpvotes());
+                writer.record.varint(answer.getDownvotes());
+                writer.endRecord();
+            }
+            writer.finish();
+        }
+    }
+
+    /**
+     * Reads a questions snapshot in one streaming pass.
+     *
+     * @param file The snapshot file
+     * @return The questions, with the change states they were saved with
+     * @throws IOException if the file cannot be read, is not a questions
+     *                     snapshot, or fails its checksum
+     */
+    public static Questions readQuestions(Path file) throws IOException {
+        try (Reader reader = new Reader(file, KIND_QUESTIONS)) {
+            Questions questions = new Questions();
+            for (int i = 0; i < reader.count; i++) {
+                int end = reader.beginRecord();
+                Question question = new Question();
+                Post.ChangeState state = reader.readPost(question);
+                question.setTitle(reader.string());
+                question.setChosenAnswer(reader.uuid());
+                reader.endRecord(end);
+                restore(question, state);
+                questions.addQuestion(question);
+            }
+            reader.verifyChecksum();
+            return questions;
+        }
+    }
+
+    /**
+     * Reads an answers snapshot in one streaming pass.
+     *
+     * @param file The snapshot file
+     * @return The answers, with the change states they were saved with
+     * @throws IOException if the file cannot be read, is not an answers
+     *                     snapshot, or fails its checksum
+     */
+    public static Answers readAnswers(Path file) throws IOException {
+        try (Reader reader = new Reader(file, KIND_ANSWERS)) {
+            Answers answers = new Answers();
+            for (int i = 0; i < reader.count; i++) {
+                int end = reader.beginRecord();
+                Answer answer = new Answer();
+                Post.ChangeState state = reader.readPost(answer);
+                answer.setQuestionID(reader.uuid());
+                answer.setRepuation(reader.varint());
+                answer.setVoteCounts(reader.varint(), reader.varint());
+                reader.endRecord(end);
+                restore(answer, state);
+                answers.addAnswer(answer);
+            }
+            reader.verifyChecksum();
+            return answers;
+        }
+    }
+
+    // The setters used while reading mark nothing, as a new post stays NEW; apply the saved state last
+    private static void restore(Post post, Post.ChangeState state) {
+        switch (state) {
+            case CLEAN:
+                post.markClean();
+                break;
+            case MODIFIED:
+                post.markClean();
+                post.markModified();
+                break;
+            case DELETED:
+                post.markDeleted();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** A growable buffer one record is encoded into before its length is known */
+    private static final class RecordBuffer {
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+
+        void put(byte b) {
+            ensure(1);
+            bytes[size++] = b;
+        }
+
+        void putInt(int v) {
+            ensure(4);
+            bytes[size++] = (byte) (v >>> 24);
+            bytes[size++] = (byte) (v >>> 16);
+            bytes[size++] = (byte) (v >>> 8);
+            bytes[size++] = (byte) v;
+        }
+
+        void putLong(long v) {
+            putInt((int) (v >>> 32));
+            putInt((int) v);
+        }
+
+        // Unsigned LEB128; negative values take five bytes
+        void varint(int v) {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes[size++] = (byte) v;
+        }
+
+        void uuid(UUID uuid) {
+            put((byte) (uuid == null ? 0 : 1));
+            if (uuid != null) {
+                putLong(uuid.getMostSignificantBits());
+                putLong(uuid.getLeastSignificantBits());
+            }
+        }
+
+        void date(LocalDate date) {
+            put((byte) (date == null ? 0 : 1));
+            if (date != null) {
+                putInt((int) date.toEpochDay());
+            }
+        }
+
+        void string(String s) {
+            if (s == null) {
+                varint(0);
+                return;
+            }
+            byte[] utf8 = s.getBytes(StandardCharsets.UTF_8);
+            varint(utf8.length + 1);
+            ensure(utf8.length);
+            System.arraycopy(utf8, 0, bytes, size, utf8.length);
+            size += utf8.length;
+        }
+    }
+
+    /** Writes a snapshot through a buffered channel into a temporary file */
+    private static final class Writer implements AutoCloseable {
+        private final Path file;
+        private final Path temp;
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        private final CRC32C crc = new CRC32C();
+        private final Map<String, Integer> names = new HashMap<>();
+        private final RecordBuffer record = new RecordBuffer();
+        private final RecordBuffer prefix = new RecordBuffer();
+        private boolean complete;
+
+        Writer(Path file, byte kind, int count) throws IOException {
+            this.file = file.toAbsolutePath();
+            Path dir = this.file.getParent();
+            this.temp = Files.createTempFile(dir, this.file.getFileName().toString(), ".tmp");
+            this.channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+            buffer.putInt(MAGIC).putShort(VERSION).put(kind).putInt(count);
+            crc.update(buffer.array(), 0, HEADER_BYTES);
+        }
+
+        void writePost(Post post) {
+            record.size = 0;
+            record.uuid(post.getID());
+            Integer index = names.get(post.getName());
+            if (index != null) {
+                record.varint(index);
+            } else {
+                record.varint(0);
+                record.string(post.getName());
+                if (post.getName() != null) {
+                    names.put(post.getName(), names.size() + 1);
+                }
+            }
+            record.string(post.getTextBody());
+            record.date(post.getDate());
+            record.uuid(post.getUserUUID());
+            Boolean underReview = post.getUnderReview();
+            record.put((byte) (underReview == null ? 2 : underReview ? 1 : 0));
+            record.put((byte) post.getChangeState().ordinal());
+        }
+
+        void endRecord() throws IOException {
+            prefix.size = 0;
+            prefix.varint(record.size);
+            write(prefix.bytes, prefix.size);
+            write(record.bytes, record.size);
+        }
+
+        private void write(byte[] bytes, int length) throws IOException {
+            crc.update(bytes, 0, length);
+            int offset = 0;
+            while (offset < length) {
+                if (!buffer.hasRemaining()) {
+                    flush();
+                }
+                int n = Math.min(buffer.remaining(), length - offset);
+                buffer.put(bytes, offset, n);
+                offset += n;
+            }
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        // Appends the checksum and puts the finished file in place of the target
+        void finish() throws IOException {
+            if (buffer.remaining() < 4) {
+                flush();
+            }
+            buffer.putInt((int) crc.getValue());
+            flush();
+            channel.force(false);
+            channel.close();
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            complete = true;
+        }
+
+        // Leaves the target untouched if the snapshot was not finished
+        @Override
+        public void close() throws IOException {
+            if (!complete) {
+                channel.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /** Reads a snapshot through a buffered channel, checksumming as it goes */
+    private static final class Reader implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        private final CRC32C crc = new CRC32C();
+        private final List<String> names = new ArrayList<>();
+        private long position; // bytes consumed since the start of the file
+        final int count;
+
+        Reader(Path file, byte kind) throws IOException {
+            channel = FileChannel.open(file, StandardOpenOption.READ);
+            buffer.flip();
+            try {
+                if (readInt() != MAGIC) {
+                    throw new IOException(file + " is not a snapshot");
+                }
+                short version = readShort();
+                if (version > VERSION) {
+                    throw new IOException(file + " has snapshot version " + version + ", newer than " + VERSION);
+                }
+                byte fileKind = readByte();
+                if (fileKind != kind) {
+                    throw new IOException(file + " holds " + (fileKind == KIND_QUESTIONS ? "questions" : "answers"));
+                }
+                count = readInt();
+                if (count < 0) {
+                    throw new IOException(file + " is corrupt: record count " + count);
+                }
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        // Makes n bytes available, checksumming the bytes about to be dropped from the buffer
+        private void require(int n) throws IOException {
+            if (buffer.remaining() >= n) {
+                return;
+            }
+            buffer.compact();
+            while (buffer.position() < n) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Snapshot ends early");
+                }
+            }
+            buffer.flip();
+        }
+
+        private void consumed(int from, int n) {
+            crc.update(buffer.array(), from, n);
+            position += n;
+        }
+
+        byte readByte() throws IOException {
+            require(1);
+            int from = buffer.position();
+            byte b = buffer.get();
+            consumed(from, 1);
+            return b;
+        }
+
+        short readShort() throws IOException {
+            require(2);
+            int from = buffer.position();
+            short v = buffer.getShort();
+            consumed(from, 2);
+            return v;
+        }
+
+        int readInt() throws IOException {
+            require(4);
+            int from = buffer.position();
+            int v = buffer.getInt();
+            consumed(from, 4);
+            return v;
+        }
+
+        long readLong() throws IOException {
+            require(8);
+            int from = buffer.position();
+            long v = buffer.getLong();
+            consumed(from, 8);
+            return v;
+        }
+
+        int varint() throws IOException {
+            int v = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = readByte();
+                v |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return v;
+                }
+            }
+            throw new IOException("Snapshot is corrupt: varint too long");
+        }
+
+        UUID uuid() throws IOException {
+            return readByte() == 0 ? null : new UUID(readLong(), readLong());
+        }
+
+        LocalDate date() throws IOException {
+            return readByte() == 0 ? null : LocalDate.ofEpochDay(readInt());
+        }
+
+        String string() throws IOException {
+            int length = varint() - 1;
+            if (length < 0) {
+                return null;
+            }
+            byte[] utf8 = new byte[length];
+            int offset = 0;
+            while (offset < length) {
+                require(1);
+                int n = Math.min(buffer.remaining(), length - offset);
+                int from = buffer.position();
+                buffer.get(utf8, offset, n);
+                consumed(from, n);
+                offset += n;
+            }
+            return new String(utf8, StandardCharsets.UTF_8);
+        }
+
+        // Returns the file position at which the record ends
+        int beginRecord() throws IOException {
+            int length = varint();
+            return (int) (position + length);
+        }
+
+        Post.ChangeState readPost(Post post) throws IOException {
+            post.setID(uuid());
+            int index = varint();
+            String name;
+            if (index == 0) {
+                name = string();
+                if (name != null) {
+                    names.add(name);
+                }
+            } else if (index <= names.size()) {
+                name = names.get(index - 1);
+            } else {
+                throw new IOException("Snapshot is corrupt: unknown name " + index);
+            }
+            post.setName(name);
+            post.setTextBody(string());
+            post.setDate(date());
+            post.setUserUUID(uuid());
+            byte underReview = readByte();
+            post.setUnderReview(underReview == 2 ? null : underReview == 1);
+            int state = readByte();
+            return state >= 0 && state < STATES.length ? STATES[state] : Post.ChangeState.NEW;
+        }
+
+        // Skips fields a newer version appended to the record
+        void endRecord(int end) throws IOException {
+            if (position > end) {
+                throw new IOException("Snapshot is corrupt: record overruns its length");
+            }
+            while (position < end) {
+                readByte();
+            }
+        }
+
+        void verifyChecksum() throws IOException {
+            int expected = (int) crc.getValue();
+            require(4);
+            int stored = buffer.getInt();
+            if (stored != expected) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
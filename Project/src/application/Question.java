@@ -2,6 +2,8 @@ package application;
 
 import java.lang.String;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 import java.io.Serializable;
 
@@ -24,6 +26,9 @@ public class Question extends Post implements Serializable {
     private String title;
     private UUID chosenAnswer;
 
+    /** Questions collections holding this question; told when its ID changes so their indexes stay current */
+    private transient List<Questions> owners;
+
     /**
      * Default constructor for serialization purposes.
      */
@@ -58,6 +63,8 @@ public class Question extends Post implements Serializable {
      */
     public void setTitle(String title) {
         this.title = title;
+        markModified();
+        textChanged();
     }
 
     /**
@@ -74,5 +81,45 @@ public class Question extends Post implements Serializable {
      */
     public void setChosenAnswer(UUID best_answer) {
         chosenAnswer = best_answer;
+        markModified();
+    }
+
+    /**
+     * Sets the unique identifier of this question and re-keys it in the collections holding it.
+     *
+     * @param iD The UUID to set as the question identifier
+     */
+    @Override
+    public void setID(UUID iD) {
+        UUID oldID = getID();
+        super.setID(iD);
+        if (owners != null) {
+            for (Questions owner : owners) {
+                owner.reindex(this, oldID);
+            }
+        }
+    }
+
+    /**
+     * Registers a collection that indexes this question by its ID.
+     *
+     * @param owner The Questions collection the question was added to
+     */
+    void addOwner(Questions owner) {
+        if (owners == null) {
+            owners = new ArrayList<>(1);
+        }
+        owners.add(owner);
+    }
+
+    /**
+     * Unregisters a collection the question was removed from.
+     *
+     * @param owner The Questions collection the question was removed from
+     */
+    void removeOwner(Questions owner) {
+        if (owners != null) {
+            owners.remove(owner);
+        }
     }
 }
\ No newline at end of file
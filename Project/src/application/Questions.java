@@ -1,55 +1,116 @@
 package application;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 import java.io.*;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 
 /**
  * The Questions class manages a collection of Question objects and their associated UUIDs.
  * It provides functionality for storing, retrieving, and searching questions,
  * as well as serialization support for persistence.
+ *
+ * Questions are kept in insertion order in slots, with a hash index from UUID to slot.
+ * Removing a question leaves a tombstone (null) in its slot instead of shifting the list;
+ * the slots are compacted only once tombstones make up half of the slots. Until then a
+ * Fenwick tree counting the live slots maps a position to its slot in O(log n).
  */
 public class Questions implements Serializable {
     private static final long serialVersionUID = 1L;
     
-    /** List containing all Question objects */
+    /** Slots holding the Question objects in insertion order; null marks a removed question */
     private ArrayList<Question> questionArray;
-    
-    /** Parallel list containing UUIDs of all questions for quick lookup */
-    private ArrayList<UUID> UUIDArray;
+
+    /** Index from question UUID to its slot in questionArray, rebuilt after deserialization */
+    private transient HashMap<UUID, Integer> slotIndex;
+
+    /** Number of null slots left by removals since the last compaction */
+    private transient int tombstones;
+
+    /** Live questions per slot range, used to find the slot of a position; null while there are no tombstones */
+    private transient LiveSlots liveSlots;
+
+    /** Full-text index over titles and bodies, built by the first search */
+    private transient SearchIndex<Question> searchIndex;
+
+    /** Re-indexes a question whose title or body was edited */
+    private transient Consumer<Post> reindexer;
+
+    /** Listeners told when a question is added to or removed from the collection */
+    private transient List<Consumer<Question>> changeListeners;
+
+    /** Token of the next page when only a window of the questions has been loaded; null once all are */
+    private transient String nextPageToken;
+
+    /** Removed questions whose database rows still have to be deleted */
+    private transient ArrayList<Question> pendingDeletes;
 
     /**
      * Constructs an empty Questions collection.
      */
     public Questions() {
         this.questionArray = new ArrayList<Question>();
-        this.UUIDArray = new ArrayList<UUID>();
+        this.slotIndex = new HashMap<UUID, Integer>();
     }
 
     /**
-     * Gets the list of all questions.
+     * Gets the list of all questions. The list must not be modified; once questions
+     * have been removed it is a copy of the live questions.
      * @return ArrayList containing all Question objects
      */
     public ArrayList<Question> getQuestionArray() {
-        return questionArray;
+        if (tombstones == 0) {
+            return questionArray;
+        }
+        ArrayList<Question> live = new ArrayList<Question>(getSize());
+        for (Question question : questionArray) {
+            if (question != null) {
+                live.add(question);
+            }
+        }
+        return live;
     }
 
     /**
-     * Gets the list of all question UUIDs.
-     * @return ArrayList containing all question UUIDs
+     * Gets the UUIDs of all questions, in the same order as getQuestionArray().
+     * @return A new ArrayList containing all question UUIDs
      */
     public ArrayList<UUID> getUUIDArray() {
-        return UUIDArray;
+        ArrayList<UUID> ids = new ArrayList<UUID>(getSize());
+        for (Question question : questionArray) {
+            if (question != null) {
+                ids.add(question.getID());
+            }
+        }
+        return ids;
     }
 
     /**
-     * Adds a question to the collection.
+     * Adds a question to the collection. If a question with the same UUID is
+     * already present, lookups by UUID keep returning the earlier one. Adding
+     * back a removed question cancels its pending delete.
      * @param question The Question object to add
      */
     public void addQuestion(Question question) {
-        this.UUIDArray.add(question.getID());
+        if (pendingDeletes != null) {
+            pendingDeletes.removeIf(removed -> removed.getID().equals(question.getID()));
+        }
+        slotIndex.putIfAbsent(question.getID(), questionArray.size());
         this.questionArray.add(question);
+        if (liveSlots != null) {
+            liveSlots.append();
+        }
+        question.addOwner(this);
+        if (searchIndex != null) {
+            searchIndex.add(question);
+            question.addTextListener(reindexer);
+        }
+        fireChanged(question);
     }
 
     /**
@@ -58,28 +119,35 @@ public class Questions implements Serializable {
      * @return The matching Question object, or null if not found
      */
     public Question getByUUID(UUID ID) {
-        for (int i = 0; i < UUIDArray.size(); i++) {
-            if (UUIDArray.get(i).equals(ID)) {
-                return questionArray.get(i);
-            }
-        }
-        return null;
+        Integer slot = slotIndex.get(ID);
+        return slot == null ? null : questionArray.get(slot);
     }
 
     /**
-     * Removes a question by its UUID.
+     * Removes a question by its UUID in constant time by leaving a tombstone in its slot.
      * @param ID The UUID of the question to remove
      * @return true if the question was found and removed, false otherwise
      */
     public boolean removeByUUID(UUID ID) {
-        for (int i = 0; i < UUIDArray.size(); i++) {
-            if (UUIDArray.get(i).equals(ID)) {
-                UUIDArray.remove(i);
-                questionArray.remove(i);
-                return true;
-            }
+        Integer slot = slotIndex.remove(ID);
+        if (slot == null) {
+            return false;
+        }
+        Question question = questionArray.set(slot, null);
+        question.removeOwner(this);
+        if (searchIndex != null) {
+            searchIndex.remove(question);
+            question.removeTextListener(reindexer);
+        }
+        recordDelete(question);
+        fireChanged(question);
+        tombstones++;
+        if (tombstones > questionArray.size() / 2) {
+            compact();
+        } else if (liveSlots != null) {
+            liveSlots.remove(slot);
         }
-        return false;
+        return true;
     }
 
     /**
@@ -89,7 +157,16 @@ public class Questions implements Serializable {
      * @throws IndexOutOfBoundsException if the index is out of range
      */
     public Question get(int i) {
-        return this.questionArray.get(i);
+        if (tombstones == 0) {
+            return this.questionArray.get(i);
+        }
+        if (i < 0 || i >= getSize()) {
+            throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + getSize());
+        }
+        if (liveSlots == null) {
+            liveSlots = new LiveSlots(questionArray);
+        }
+        return questionArray.get(liveSlots.slotOf(i));
     }
 
     /**
@@ -99,9 +176,120 @@ public class Questions implements Serializable {
      * @throws IndexOutOfBoundsException if the index is out of range
      */
     public boolean removeByIndex(int i) {
-        UUIDArray.remove(i);
-        questionArray.remove(i);
-        return true;
+        return removeByUUID(get(i).getID());
+    }
+
+    /**
+     * Moves a question to its new key after its ID was changed.
+     *
+     * @param question The question whose ID changed
+     * @param oldID The ID it was indexed under
+     */
+    void reindex(Question question, UUID oldID) {
+        if (oldID == null || oldID.equals(question.getID())) {
+            return;
+        }
+        Integer slot = slotIndex.get(oldID);
+        if (slot != null && questionArray.get(slot) == question) {
+            slotIndex.remove(oldID);
+            slotIndex.putIfAbsent(question.getID(), slot);
+        }
+    }
+
+    /**
+     * Drops the tombstones left by removals so slots line up with positions again.
+     */
+    private void compact() {
+        if (tombstones > 0) {
+            rebuildSlots();
+        }
+    }
+
+    /**
+     * Copies the live questions into fresh slots and rebuilds the UUID index over them.
+     */
+    private void rebuildSlots() {
+        ArrayList<Question> live = new ArrayList<Question>(questionArray.size() - tombstones);
+        slotIndex.clear();
+        for (Question question : questionArray) {
+            if (question != null) {
+                slotIndex.putIfAbsent(question.getID(), live.size());
+                live.add(question);
+            }
+        }
+        questionArray = live;
+        tombstones = 0;
+        liveSlots = null;
+    }
+
+    /**
+     * Registers a listener told whenever a question is added or removed.
+     * @param listener The listener, given the question that was added or removed
+     */
+    void addChangeListener(Consumer<Question> listener) {
+        if (changeListeners == null) {
+            changeListeners = new ArrayList<Consumer<Question>>();
+        }
+        changeListeners.add(listener);
+    }
+
+    private void fireChanged(Question question) {
+        if (changeListeners != null) {
+            for (Consumer<Question> listener : changeListeners) {
+                listener.accept(question);
+            }
+        }
+    }
+
+    /**
+     * Marks a removed question as deleted and remembers it until the next save.
+     * Questions that were never saved have no row to delete and are dropped.
+     * @param question The question that was removed from the collection
+     */
+    private void recordDelete(Question question) {
+        boolean stored = question.getChangeState() != Post.ChangeState.NEW;
+        question.markDeleted();
+        if (stored) {
+            getPendingDeletes().add(question);
+        }
+    }
+
+    /**
+     * Gets the questions removed since the last save whose rows still exist in the database.
+     * @return List of removed questions awaiting deletion
+     */
+    public ArrayList<Question> getPendingDeletes() {
+        if (pendingDeletes == null) {
+            pendingDeletes = new ArrayList<Question>();
+        }
+        return pendingDeletes;
+    }
+
+    /**
+     * Forgets the removed questions once their rows have been deleted.
+     */
+    public void clearPendingDeletes() {
+        getPendingDeletes().clear();
+    }
+
+    /**
+     * Checks whether this collection is a window with more questions left in the database.
+     * @return true if DatabaseHelper can load another page into it
+     */
+    public boolean hasMorePages() {
+        return nextPageToken != null;
+    }
+
+    /**
+     * Gets where the next page of questions starts.
+     * @return The continuation token, or null if every question is loaded
+     */
+    public String getNextPageToken() {
+        return nextPageToken;
+    }
+
+    void setNextPageToken(String nextPageToken) {
+        this.nextPageToken = nextPageToken;
     }
 
     /**
@@ -109,7 +297,7 @@ public class Questions implements Serializable {
      * @return The size of the question collection
      */
     public int getSize() {
-        return questionArray.size();
+        return questionArray.size() - tombstones;
     }
 
     /**
@@ -119,7 +307,7 @@ public class Questions implements Serializable {
      * @throws IndexOutOfBoundsException if the index is out of range
      */
     public UUID getUUIDbyIndex(int i) {
-        return UUIDArray.get(i);
+        return get(i).getID();
     }
 
     /**
@@ -129,15 +317,17 @@ public class Questions implements Serializable {
      * @throws IndexOutOfBoundsException if the index is out of range
      */
     public void update(int i, String text) {
-        questionArray.get(i).setTextBody(text);
+        get(i).setTextBody(text);
     }
 
     /**
-     * Searches for questions containing the specified text in either title or body.
-     * The search is case-insensitive.
+     * Searches the titles and bodies of the questions through the full-text index.
+     * The search is case-insensitive and supports phrases, AND and OR as described
+     * in SearchIndex. The index is built on the first search and kept current by
+     * later adds, removals and edits.
      * 
      * @param toSearch The text to search for
-     * @return List of UUIDs for questions containing the search text,
+     * @return List of UUIDs for matching questions, best match first,
      *         or empty list if no matches found or search text is empty
      */
     public List<UUID> search(String toSearch) {
@@ -145,29 +335,130 @@ public class Questions implements Serializable {
         if (toSearch == null || toSearch.trim().isEmpty()) {
             return indexes;
         }
-        toSearch = toSearch.toLowerCase();
-        for (int i = 0; i < questionArray.size(); i++) {
-            if (questionArray.get(i).getTitle().toLowerCase().contains(toSearch)
-                    || questionArray.get(i).getTextBody().toLowerCase().contains(toSearch)) {
-                indexes.add(questionArray.get(i).getID());
-            }
+        for (Question question : getSearchIndex().search(toSearch)) {
+            indexes.add(question.getID());
         }
         return indexes;
     }
 
+    /**
+     * Gets the full-text index, building it over the current questions on first use.
+     * @return The search index
+     */
+    private SearchIndex<Question> getSearchIndex() {
+        if (searchIndex == null) {
+            searchIndex = new SearchIndex<Question>(q -> new String[] { q.getTitle(), q.getTextBody() });
+            reindexer = post -> searchIndex.update((Question) post);
+            for (Question question : questionArray) {
+                if (question != null) {
+                    searchIndex.add(question);
+                    question.addTextListener(reindexer);
+                }
+            }
+        }
+        return searchIndex;
+    }
+
+    /**
+     * A Fenwick tree over the slots counting the live questions, so that removing a
+     * question and finding the slot of a position both take O(log n).
+     */
+    private static final class LiveSlots {
+        /** 1-based tree; tree[i] counts the live slots in (i - lowbit(i), i] */
+        private int[] tree;
+        private int size;
+
+        LiveSlots(List<Question> slots) {
+            size = slots.size();
+            tree = new int[Math.max(16, size + 1)];
+            for (int i = 1; i <= size; i++) {
+                if (slots.get(i - 1) != null) {
+                    tree[i]++;
+                }
+                int parent = i + (i & -i);
+                if (parent <= size) {
+                    tree[parent] += tree[i];
+                }
+            }
+        }
+
+        /** Adds a live slot after the last one. */
+        void append() {
+            int i = ++size;
+            if (i == tree.length) {
+                tree = Arrays.copyOf(tree, tree.length * 2);
+            }
+            tree[i] = 1 + prefix(i - 1) - prefix(i - (i & -i));
+        }
+
+        /** Marks a slot as a tombstone. */
+        void remove(int slot) {
+            for (int i = slot + 1; i <= size; i += i & -i) {
+                tree[i]--;
+            }
+        }
+
+        /** Counts the live slots among the first n. */
+        private int prefix(int n) {
+            int count = 0;
+            for (int i = n; i > 0; i -= i & -i) {
+                count += tree[i];
+            }
+            return count;
+        }
+
+        /** Finds the slot holding the live question at a position. */
+        int slotOf(int position) {
+            int remaining = position + 1;
+            int slot = 0;
+            for (int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+                if (slot + step <= size && tree[slot + step] < remaining) {
+                    slot += step;
+                    remaining -= tree[slot];
+                }
+            }
+            return slot;
+        }
+    }
+
     // ===============================================================================
     // Save and Load Methods
     // ===============================================================================
 
     /**
-     * Saves the question collection to a file.
+     * Writes the collection without tombstones.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        compact();
+        out.defaultWriteObject();
+    }
+
+    /**
+     * Reads the collection and rebuilds the UUID index. Files written before the
+     * index existed also carry a parallel UUIDArray field; it duplicates the
+     * questions' own IDs, so it is skipped and the index is built from the questions.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (questionArray == null) {
+            questionArray = new ArrayList<Question>();
+        }
+        slotIndex = new HashMap<UUID, Integer>();
+        rebuildSlots();
+        for (Question question : questionArray) {
+            question.addOwner(this);
+        }
+    }
+
+    /**
+     * Saves the question collection to a file as a PostSnapshot; the previous
+     * file stays intact if the save fails.
      * @param filename The name of the file to save to
      * @return true if the save was successful, false otherwise
      */
     public boolean saveQuestions(String filename) {
-        try (FileOutputStream filePath = new FileOutputStream(filename);
-                ObjectOutputStream objectToSave = new ObjectOutputStream(filePath)) {
-            objectToSave.writeObject(this);
+        try {
+            PostSnapshot.writeQuestions(this, Path.of(filename));
             return true;
         } catch (IOException e) {
             e.printStackTrace();
@@ -176,12 +467,25 @@ public class Questions implements Serializable {
     }
 
     /**
-     * Loads a question collection from a file.
+     * Loads a question collection from a snapshot or, for older files, a serialized object.
      * @param filename The name of the file to load from
      * @return The loaded Questions object, or a new empty collection if loading fails
      */
     public static Questions loadQuestions(String filename) {
         Questions questionArray = null;
+        try {
+            if (PostSnapshot.isSnapshot(Path.of(filename))) {
+                questionArray = PostSnapshot.readQuestions(Path.of(filename));
+                System.out.println("The questions object has been loaded from " + filename);
+                return questionArray;
+            }
+        } catch (NoSuchFileException e) {
+            return new Questions();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new Questions();
+        }
+        // Files saved before snapshots were added hold a serialized object
         try (FileInputStream fileIn = new FileInputStream(filename);
                 ObjectInputStream objectIn = new ObjectInputStream(fileIn)) {
             questionArray = (Questions) objectIn.readObject();
@@ -0,0 +1,714 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * The SearchIndex class is an in-memory inverted index over the text of a collection's
+ * items. Text is split into lowercase words; each word maps to the items containing it
+ * and the positions it occurs at, so a query only touches the posting lists of its own
+ * words instead of scanning every item's text.
+ *
+ * <p>Query syntax:
+ * <ul>
+ *   <li>Words typed together are matched as a phrase, in order ({@code user1 to})</li>
+ *   <li>Quotes make a phrase explicit ({@code "new title"})</li>
+ *   <li>{@code AND} requires both sides, {@code OR} accepts either; AND binds tighter</li>
+ *   <li>The last unquoted word also matches as a prefix, so results follow typing</li>
+ * </ul>
+ * Query words match whole words of the text, except that the last unquoted word also
+ * matches words it starts. This differs from the substring search it replaced: a
+ * fragment from the middle or end of a word ({@code ell} in {@code hello}) no longer
+ * matches, and punctuation only separates words, so {@code c++} is the word {@code c}.
+ * {@link #search} ranks matches by how often the query occurs in the item, ties in the
+ * order the items were added. {@link #searchTop} ranks them with BM25 over per-field
+ * boosts and keeps only the best k in a bounded heap.
+ * </p>
+ *
+ * <p>The owning collection keeps the index current by calling {@link #add},
+ * {@link #update} and {@link #remove}. Items are tracked by identity, so changing an
+ * item's ID does not disturb the index.</p>
+ *
+ * @param <T> The type of item indexed
+ */
+public class SearchIndex<T> {
+    /** Position offset between fields, so a phrase never matches across two fields */
+    private static final int FIELD_GAP = 1 << 20;
+
+    /** Extracts the searchable fields of an item; null fields are skipped */
+    private final Function<T, String[]> fields;
+
+    /** Items by document number; null once removed */
+    private final ArrayList<T> docs = new ArrayList<>();
+
+    /** Distinct words of each document, so removal only touches its own postings */
+    private final ArrayList<String[]> docWords = new ArrayList<>();
+
+    /** Document number of each indexed item */
+    private final IdentityHashMap<T, Integer> docIds = new IdentityHashMap<>();
+
+    /** Number of words in each field of each document, for BM25 length normalization */
+    private final ArrayList<int[]> fieldLengths = new ArrayList<>();
+
+    /** Total words per field over all indexed documents */
+    private long[] fieldTotals = new long[0];
+
+    /** BM25 term-frequency saturation */
+    private static final double K1 = 1.2;
+
+    /** BM25 length normalization strength */
+    private static final double B = 0.75;
+
+    /** Word to its postings; sorted so the words sharing a prefix are a range */
+    private final TreeMap<String, Postings> postings = new TreeMap<>();
+
+    /**
+     * Constructs an empty index.
+     * @param fields Function returning the text fields of an item to index
+     */
+    public SearchIndex(Function<T, String[]> fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * Adds an item to the index. Adding an item that is already indexed re-indexes it.
+     * @param item The item to add
+     */
+    public void add(T item) {
+        Integer docId = docIds.get(item);
+        if (docId != null) {
+            update(item);
+            return;
+        }
+        docId = docs.size();
+        docs.add(item);
+        docWords.add(null);
+        fieldLengths.add(null);
+        docIds.put(item, docId);
+        indexText(docId, item);
+    }
+
+    /**
+     * Re-indexes an item after its text changed. The item keeps its place in the
+     * tie-break order. Items not in the index are ignored.
+     * @param item The edited item
+     */
+    public void update(T item) {
+        Integer docId = docIds.get(item);
+        if (docId != null) {
+            unindexText(docId);
+            indexText(docId, item);
+        }
+    }
+
+    /**
+     * Removes an item from the index.
+     * @param item The item to remove
+     * @return true if the item was indexed
+     */
+    public boolean remove(T item) {
+        Integer docId = docIds.remove(item);
+        if (docId == null) {
+            return false;
+        }
+        unindexText(docId);
+        docs.set(docId, null);
+        return true;
+    }
+
+    /**
+     * Checks whether an item is in the index.
+     * @param item The item to look for
+     * @return true if the item is indexed
+     */
+    public boolean contains(T item) {
+        return docIds.containsKey(item);
+    }
+
+    /**
+     * Gets the number of items in the index.
+     * @return The number of indexed items
+     */
+    public int size() {
+        return docIds.size();
+    }
+
+    private void indexText(int docId, T item) {
+        // Positions per word; slot 0 holds the count so the lists stay unboxed
+        HashMap<String, int[]> positions = new HashMap<>();
+        String[] text = fields.apply(item);
+        int[] lengths = new int[text.length];
+        if (fieldTotals.length < text.length) {
+            fieldTotals = Arrays.copyOf(fieldTotals, text.length);
+        }
+        for (int field = 0; field < text.length; field++) {
+            List<String> words = tokenize(text[field]);
+            lengths[field] = words.size();
+            fieldTotals[field] += words.size();
+            for (int i = 0; i < words.size(); i++) {
+                int[] at = positions.get(words.get(i));
+                if (at == null) {
+                    at = new int[2];
+                } else if (at[0] + 1 == at.length) {
+                    at = Arrays.copyOf(at, at.length * 2);
+                }
+                at[++at[0]] = field * FIELD_GAP + i;
+                positions.put(words.get(i), at);
+            }
+        }
+        String[] words = new String[positions.size()];
+        int w = 0;
+        for (Map.Entry<String, int[]> entry : positions.entrySet()) {
+            int[] at = entry.getValue();
+            Postings docsWithWord = postings.get(entry.getKey());
+            if (docsWithWord == null) {
+                docsWithWord = new Postings();
+                postings.put(entry.getKey(), docsWithWord);
+            }
+            docsWithWord.put(docId, Arrays.copyOfRange(at, 1, at[0] + 1));
+            words[w++] = entry.getKey();
+        }
+        docWords.set(docId, words);
+        fieldLengths.set(docId, lengths);
+    }
+
+    private void unindexText(int docId) {
+        String[] words = docWords.get(docId);
+        if (words == null) {
+            return;
+        }
+        int[] lengths = fieldLengths.get(docId);
+        for (int field = 0; field < lengths.length; field++) {
+            fieldTotals[field] -= lengths[field];
+        }
+        fieldLengths.set(docId, null);
+        for (String word : words) {
+            Postings docsWithWord = postings.get(word);
+            if (docsWithWord != null) {
+                docsWithWord.remove(docId);
+                if (docsWithWord.size == 0) {
+                    postings.remove(word);
+                }
+            }
+        }
+        docWords.set(docId, null);
+    }
+
+    /**
+     * Splits text into lowercase words of letters and digits.
+     * @param text The text to split; null gives no words
+     * @return The words in order
+     */
+    static List<String> tokenize(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                word.append(Character.toLowerCase(c));
+            } else if (word.length() > 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        if (word.length() > 0) {
+            words.add(word.toString());
+        }
+        return words;
+    }
+
+    // ===============================================================================
+    // Postings
+    // ===============================================================================
+
+    /**
+     * The documents containing one word, sorted by document number, with the word's
+     * positions in each. New documents have the highest number, so adding appends.
+     */
+    private static final class Postings {
+        int[] docs = new int[4];
+        int[][] positions = new int[4][];
+        int size;
+
+        int find(int doc) {
+            if (size > 0 && docs[size - 1] < doc) {
+                return -size - 1;
+            }
+            return Arrays.binarySearch(docs, 0, size, doc);
+        }
+
+        void put(int doc, int[] at) {
+            int i = find(doc);
+            if (i >= 0) {
+                positions[i] = at;
+                return;
+            }
+            i = -i - 1;
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                positions = Arrays.copyOf(positions, size * 2);
+            }
+            System.arraycopy(docs, i, docs, i + 1, size - i);
+            System.arraycopy(positions, i, positions, i + 1, size - i);
+            docs[i] = doc;
+            positions[i] = at;
+            size++;
+        }
+
+        void remove(int doc) {
+            int i = find(doc);
+            if (i >= 0) {
+                System.arraycopy(docs, i + 1, docs, i, size - i - 1);
+                System.arraycopy(positions, i + 1, positions, i, size - i - 1);
+                positions[--size] = null;
+            }
+        }
+    }
+
+    /** Documents matched by part of a query, sorted by document number, with their scores */
+    private static final class Matches {
+        int[] docs;
+        int[] scores;
+        int size;
+
+        Matches(int capacity) {
+            docs = new int[Math.max(capacity, 1)];
+            scores = new int[Math.max(capacity, 1)];
+        }
+
+        void add(int doc, int score) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                scores = Arrays.copyOf(scores, size * 2);
+            }
+            docs[size] = doc;
+            scores[size] = score;
+            size++;
+        }
+
+        /** Documents in both, scores added */
+        Matches and(Matches other) {
+            Matches both = new Matches(Math.min(size, other.size));
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                if (docs[i] < other.docs[j]) {
+                    i++;
+                } else if (docs[i] > other.docs[j]) {
+                    j++;
+                } else {
+                    both.add(docs[i], scores[i++] + other.scores[j++]);
+                }
+            }
+            return both;
+        }
+
+        /** Documents in either, scores added */
+        Matches or(Matches other) {
+            Matches either = new Matches(size + other.size);
+            int i = 0;
+            int j = 0;
+            while (i < size || j < other.size) {
+                if (j == other.size || (i < size && docs[i] < other.docs[j])) {
+                    either.add(docs[i], scores[i++]);
+                } else if (i == size || docs[i] > other.docs[j]) {
+                    either.add(other.docs[j], other.scores[j++]);
+                } else {
+                    either.add(docs[i], scores[i++] + other.scores[j++]);
+                }
+            }
+            return either;
+        }
+    }
+
+    // ===============================================================================
+    // Queries
+    // ===============================================================================
+
+    /** One phrase of a query: its words, and whether the last word matches as a prefix */
+    private static class Phrase {
+        final List<String> words = new ArrayList<>();
+        boolean prefixLast;
+    }
+
+    /**
+     * Searches the index.
+     * @param query The query, using the syntax described on the class
+     * @return Matching items, best first; empty if the query has no words
+     */
+    public List<T> search(String query) {
+        List<T> results = new ArrayList<>();
+        if (query == null || query.trim().isEmpty()) {
+            return results;
+        }
+        Matches matches = evaluate(parse(query));
+        // Best score first, then document number: pack both into one sortable key
+        long[] ranked = new long[matches.size];
+        for (int i = 0; i < matches.size; i++) {
+            ranked[i] = ((long) (Integer.MAX_VALUE - matches.scores[i]) << 32) | matches.docs[i];
+        }
+        Arrays.sort(ranked);
+        for (long key : ranked) {
+            results.add(docs.get((int) key));
+        }
+        return results;
+    }
+
+    /**
+     * Searches the index and ranks the matches with BM25, returning only the best k.
+     * A field's term frequency is weighted by its boost and normalized by the field's
+     * length against that field's average, and the weighted sum is saturated once per
+     * term (the BM25F scheme). The query's boolean structure decides which items match;
+     * every word of the query, with the last word's prefix expansions, contributes to
+     * the score. Ties keep the order the items were added.
+     *
+     * @param query The query, using the syntax described on the class
+     * @param k The largest number of results to return
+     * @param boosts Weight of each field, in the order the fields function returns them;
+     *               missing entries count as 1
+     * @return The top results with their scores, match count and the time the query took
+     */
+    public SearchResult<T> searchTop(String query, int k, double... boosts) {
+        long start = System.nanoTime();
+        if (query == null || query.trim().isEmpty() || k < 1) {
+            return new SearchResult<>(new ArrayList<>(), new double[0], 0, System.nanoTime() - start);
+        }
+        List<List<Phrase>> clauses = parse(query);
+        Matches matches = evaluate(clauses);
+
+        // Posting lists of every query word, each counted once
+        TreeMap<String, Postings> terms = new TreeMap<>();
+        for (List<Phrase> clause : clauses) {
+            for (Phrase phrase : clause) {
+                for (int w = 0; w < phrase.words.size(); w++) {
+                    String word = phrase.words.get(w);
+                    if (phrase.prefixLast && w == phrase.words.size() - 1) {
+                        terms.putAll(postings.subMap(word, word + Character.MAX_VALUE));
+                    } else if (postings.containsKey(word)) {
+                        terms.put(word, postings.get(word));
+                    }
+                }
+            }
+        }
+        Postings[] lists = terms.values().toArray(new Postings[0]);
+        int documents = size();
+        double[] idf = new double[lists.length];
+        for (int t = 0; t < lists.length; t++) {
+            int df = lists[t].size;
+            idf[t] = Math.log(1 + (documents - df + 0.5) / (df + 0.5));
+        }
+        double[] averageLength = new double[fieldTotals.length];
+        for (int field = 0; field < fieldTotals.length; field++) {
+            averageLength[field] = documents == 0 ? 0 : fieldTotals[field] / (double) documents;
+        }
+
+        // Score term at a time: walk each posting list once, adding into the matched documents
+        int[] matchSlot = new int[docs.size()];
+        Arrays.fill(matchSlot, -1);
+        for (int m = 0; m < matches.size; m++) {
+            matchSlot[matches.docs[m]] = m;
+        }
+        double[] totals = new double[matches.size];
+        double[] weighted = new double[fieldTotals.length];
+        for (int t = 0; t < lists.length; t++) {
+            Postings list = lists[t];
+            for (int i = 0; i < list.size; i++) {
+                int m = matchSlot[list.docs[i]];
+                if (m < 0) {
+                    continue;
+                }
+                int[] lengths = fieldLengths.get(list.docs[i]);
+                for (int position : list.positions[i]) {
+                    weighted[position / FIELD_GAP]++;
+                }
+                double tf = 0;
+                for (int field = 0; field < lengths.length; field++) {
+                    if (weighted[field] > 0) {
+                        double boost = field < boosts.length ? boosts[field] : 1;
+                        double norm = 1 - B + B * lengths[field] / averageLength[field];
+                        tf += boost * weighted[field] / norm;
+                        weighted[field] = 0;
+                    }
+                }
+                totals[m] += idf[t] * tf / (K1 + tf);
+            }
+        }
+
+        // Min-heap of the best k so far; the root is the weakest result kept
+        int capacity = Math.min(k, matches.size);
+        double[] heapScores = new double[capacity];
+        int[] heapDocs = new int[capacity];
+        int heapSize = 0;
+        for (int m = 0; m < matches.size; m++) {
+            int doc = matches.docs[m];
+            double score = totals[m];
+            if (heapSize < capacity) {
+                heapScores[heapSize] = score;
+                heapDocs[heapSize] = doc;
+                siftUp(heapScores, heapDocs, heapSize++);
+            } else if (capacity > 0 && worse(heapScores[0], heapDocs[0], score, doc)) {
+                heapScores[0] = score;
+                heapDocs[0] = doc;
+                siftDown(heapScores, heapDocs, heapSize);
+            }
+        }
+
+        // Pop the weakest first and fill the result from the back
+        T[] items = newArray(heapSize);
+        double[] scores = new double[heapSize];
+        for (int n = heapSize; n > 0; n--) {
+            items[n - 1] = docs.get(heapDocs[0]);
+            scores[n - 1] = heapScores[0];
+            heapScores[0] = heapScores[n - 1];
+            heapDocs[0] = heapDocs[n - 1];
+            siftDown(heapScores, heapDocs, n - 1);
+        }
+        return new SearchResult<>(new ArrayList<>(Arrays.asList(items)), scores, matches.size, System.nanoTime() - start);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T[] newArray(int length) {
+        return (T[]) new Object[length];
+    }
+
+    /** Whether result (scoreA, docA) ranks below (scoreB, docB); equal scores favor earlier documents */
+    private static boolean worse(double scoreA, int docA, double scoreB, int docB) {
+        return scoreA < scoreB || (scoreA == scoreB && docA > docB);
+    }
+
+    private static void siftUp(double[] scores, int[] docs, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!worse(scores[i], docs[i], scores[parent], docs[parent])) {
+                break;
+            }
+            swap(scores, docs, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(double[] scores, int[] docs, int size) {
+        int i = 0;
+        while (true) {
+            int weakest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && worse(scores[left], docs[left], scores[weakest], docs[weakest])) {
+                weakest = left;
+            }
+            if (right < size && worse(scores[right], docs[right], scores[weakest], docs[weakest])) {
+                weakest = right;
+            }
+            if (weakest == i) {
+                return;
+            }
+            swap(scores, docs, i, weakest);
+            i = weakest;
+        }
+    }
+
+    private static void swap(double[] scores, int[] docs, int a, int b) {
+        double score = scores[a];
+        scores[a] = scores[b];
+        scores[b] = score;
+        int doc = docs[a];
+        docs[a] = docs[b];
+        docs[b] = doc;
+    }
+
+    /**
+     * Evaluates parsed clauses: the union of the clauses, each the intersection of its phrases.
+     */
+    private Matches evaluate(List<List<Phrase>> clauses) {
+        Matches matches = null;
+        for (List<Phrase> clause : clauses) {
+            Matches matched = matchAll(clause);
+            matches = matches == null ? matched : matches.or(matched);
+        }
+        return matches == null ? new Matches(0) : matches;
+    }
+
+    /**
+     * Parses a query into OR-ed clauses of AND-ed phrases.
+     */
+    private static List<List<Phrase>> parse(String query) {
+        List<List<Phrase>> clauses = new ArrayList<>();
+        List<Phrase> clause = new ArrayList<>();
+        Phrase phrase = new Phrase();
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '"') {
+                int end = query.indexOf('"', i + 1);
+                if (end < 0) {
+                    end = query.length();
+                }
+                addPhrase(clause, phrase);
+                Phrase quoted = new Phrase();
+                quoted.words.addAll(tokenize(query.substring(i + 1, end)));
+                addPhrase(clause, quoted);
+                phrase = new Phrase();
+                i = end + 1;
+            } else {
+                int end = i;
+                while (end < query.length() && !Character.isWhitespace(query.charAt(end)) && query.charAt(end) != '"') {
+                    end++;
+                }
+                String word = query.substring(i, end);
+                if (word.equals("AND")) {
+                    addPhrase(clause, phrase);
+                    phrase = new Phrase();
+                } else if (word.equals("OR")) {
+                    addPhrase(clause, phrase);
+                    phrase = new Phrase();
+                    if (!clause.isEmpty()) {
+                        clauses.add(clause);
+                    }
+                    clause = new ArrayList<>();
+                } else {
+                    List<String> words = tokenize(word);
+                    phrase.words.addAll(words);
+                    phrase.prefixLast = end == query.length() && !words.isEmpty();
+                }
+                i = end;
+            }
+        }
+        addPhrase(clause, phrase);
+        if (!clause.isEmpty()) {
+            clauses.add(clause);
+        }
+        return clauses;
+    }
+
+    private static void addPhrase(List<Phrase> clause, Phrase phrase) {
+        if (!phrase.words.isEmpty()) {
+            clause.add(phrase);
+        }
+    }
+
+    /**
+     * Matches every phrase of a clause; a document's score is the sum of its phrase counts.
+     */
+    private Matches matchAll(List<Phrase> clause) {
+        Matches matches = null;
+        for (Phrase phrase : clause) {
+            Matches matched = match(phrase);
+            matches = matches == null ? matched : matches.and(matched);
+            if (matches.size == 0) {
+                break;
+            }
+        }
+        return matches == null ? new Matches(0) : matches;
+    }
+
+    /**
+     * Finds the documents containing a phrase, walking the shortest posting list and
+     * seeking forward in the others.
+     * @return The documents with the number of times the phrase occurs in each
+     */
+    private Matches match(Phrase phrase) {
+        int length = phrase.words.size();
+        Postings[] lists = new Postings[length];
+        int smallest = 0;
+        for (int k = 0; k < length; k++) {
+            boolean prefix = phrase.prefixLast && k == length - 1;
+            lists[k] = prefix ? prefixPostings(phrase.words.get(k)) : postings.get(phrase.words.get(k));
+            if (lists[k] == null || lists[k].size == 0) {
+                return new Matches(0);
+            }
+            if (lists[k].size < lists[smallest].size) {
+                smallest = k;
+            }
+        }
+
+        Postings driver = lists[smallest];
+        Matches matches = new Matches(driver.size);
+        int[] cursors = new int[length];
+        int[][] positions = new int[length][];
+        candidates:
+        for (int d = 0; d < driver.size; d++) {
+            int doc = driver.docs[d];
+            for (int k = 0; k < length; k++) {
+                Postings list = lists[k];
+                int i = Arrays.binarySearch(list.docs, cursors[k], list.size, doc);
+                if (i < 0) {
+                    cursors[k] = -i - 1;
+                    continue candidates;
+                }
+                cursors[k] = i;
+                positions[k] = list.positions[i];
+            }
+            int count = 0;
+            starts:
+            for (int start : positions[0]) {
+                for (int k = 1; k < length; k++) {
+                    if (Arrays.binarySearch(positions[k], start + k) < 0) {
+                        continue starts;
+                    }
+                }
+                count++;
+            }
+            if (count > 0) {
+                matches.add(doc, count);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Merges the postings of every word starting with a prefix.
+     */
+    private Postings prefixPostings(String prefix) {
+        Map<String, Postings> range = postings.subMap(prefix, prefix + Character.MAX_VALUE);
+        if (range.size() <= 1) {
+            return range.isEmpty() ? null : range.values().iterator().next();
+        }
+        // Sort every (document, entry) pair by document, then fold entries of the same document together
+        int total = 0;
+        for (Postings list : range.values()) {
+            total += list.size;
+        }
+        long[] keys = new long[total];
+        int[][] entries = new int[total][];
+        int n = 0;
+        for (Postings list : range.values()) {
+            for (int i = 0; i < list.size; i++) {
+                entries[n] = list.positions[i];
+                keys[n] = ((long) list.docs[i] << 32) | n;
+                n++;
+            }
+        }
+        Arrays.sort(keys);
+        Postings union = new Postings();
+        int i = 0;
+        while (i < total) {
+            int doc = (int) (keys[i] >>> 32);
+            int[] at = entries[(int) keys[i]];
+            int j = i + 1;
+            while (j < total && (int) (keys[j] >>> 32) == doc) {
+                int[] more = entries[(int) keys[j]];
+                int[] both = Arrays.copyOf(at, at.length + more.length);
+                System.arraycopy(more, 0, both, at.length, more.length);
+                at = both;
+                j++;
+            }
+            if (j > i + 1) {
+                Arrays.sort(at);
+            }
+            union.put(doc, at);
+            i = j;
+        }
+        return union;
+    }
+}
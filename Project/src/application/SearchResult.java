@@ -0,0 +1,79 @@
+package application;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The SearchResult class holds the outcome of a ranked search: the best results in
+ * order with their relevance scores, how many items matched in total, and how long
+ * the query took.
+ *
+ * @param <T> The type of item searched
+ */
+public class SearchResult<T> {
+    private final List<T> items;
+    private final double[] scores;
+    private final int matchCount;
+    private final long elapsedNanos;
+
+    /**
+     * Constructs a result for a finished query.
+     *
+     * @param items        The returned items, best first
+     * @param scores       The score of each returned item
+     * @param matchCount   The number of items that matched, returned or not
+     * @param elapsedNanos The wall-clock time of the query in nanoseconds
+     */
+    public SearchResult(List<T> items, double[] scores, int matchCount, long elapsedNanos) {
+        this.items = Collections.unmodifiableList(items);
+        this.scores = scores;
+        this.matchCount = matchCount;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets the returned items.
+     * @return Unmodifiable list of items, best first
+     */
+    public List<T> getItems() {
+        return items;
+    }
+
+    /**
+     * Gets the relevance score of a returned item.
+     * @param i The position of the item in getItems()
+     * @return The item's score; higher is more relevant
+     */
+    public double getScore(int i) {
+        return scores[i];
+    }
+
+    /**
+     * Gets the number of items that matched the query, including those past the limit.
+     * @return The total match count
+     */
+    public int getMatchCount() {
+        return matchCount;
+    }
+
+    /**
+     * Gets the time the query took.
+     * @return The elapsed time in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Gets the time the query took.
+     * @return The elapsed time in milliseconds
+     */
+    public double getElapsedMillis() {
+        return elapsedNanos / 1_000_000.0;
+    }
+
+    @Override
+    public String toString() {
+        return items.size() + " of " + matchCount + " match(es) in " + String.format("%.2f", getElapsedMillis()) + " ms";
+    }
+}
@@ -1,5 +1,6 @@
 package application;
 
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.scene.Scene;
@@ -9,7 +10,6 @@ import javafx.scene.layout.HBox;
 import javafx.stage.Stage;
 import javafx.geometry.Insets;
 import javafx.scene.Node;
-import java.sql.SQLException;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -137,36 +137,41 @@ public class SetupAccountPage {
             
 //            System.out.println();
 
-            try {
-                String userError = UserNameRecognizer.checkForValidUserName(username);
-                if (userError.isEmpty()) {
-                    if (!databaseHelper.doesUserExist(username)) {
-                        String passError = PasswordEvaluator.evaluatePassword(password);
-                        if (passError.isEmpty()) {
-                            if (databaseHelper.validateInvitationCode(code) || true) {
-                                // For now using first role selected
-                                // You might want to modify your User class to handle multiple roles
-                            	
-                                User user = new User(username, password,selectedRoles.stream().toList());
-                                
-                                databaseHelper.register(user);
-                                new WelcomeLoginPage(databaseHelper).show(primaryStage, user);
-                            } else {
-                            	/// dead code, leaving it intentionally.
-                                errorLabel.setText("Invalid invitation code");
-                            }
+            String userError = UserNameRecognizer.checkForValidUserName(username);
+            if (userError.isEmpty()) {
+                if (!databaseHelper.doesUserExist(username)) {
+                    String passError = PasswordEvaluator.evaluatePassword(password);
+                    if (passError.isEmpty()) {
+                        if (databaseHelper.validateInvitationCode(code) || true) {
+                            // For now using first role selected
+                            // You might want to modify your User class to handle multiple roles
+                        	
+                            User user = new User(username, password,selectedRoles.stream().toList());
+                            
+                            // hashing runs off the JavaFX thread, so keep the button off until it answers
+                            submitButton.setDisable(true);
+                            errorLabel.setText("");
+                            databaseHelper.registerAsync(user).whenComplete((registered, error) -> Platform.runLater(() -> {
+                                submitButton.setDisable(false);
+                                if (error != null) {
+                                    errorLabel.setText("Database error. Please try again.");
+                                    error.printStackTrace();
+                                } else {
+                                    new WelcomeLoginPage(databaseHelper).show(primaryStage, registered);
+                                }
+                            }));
                         } else {
-                            errorLabel.setText(passError.replace("; ", "\n"));
+                        	/// dead code, leaving it intentionally.
+                            errorLabel.setText("Invalid invitation code");
                         }
                     } else {
-                        errorLabel.setText("Username already exists");
+                        errorLabel.setText(passError.replace("; ", "\n"));
                     }
                 } else {
-                    errorLabel.setText(userError);
+                    errorLabel.setText("Username already exists");
                 }
-            } catch (SQLException e) {
-                errorLabel.setText("Database error. Please try again.");
-                e.printStackTrace();
+            } else {
+                errorLabel.setText(userError);
             }
         });
 
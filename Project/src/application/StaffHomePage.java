@@ -34,13 +34,19 @@ public class StaffHomePage {
     
     /** Database connection handler */
     private static final DatabaseHelper databaseHelper = new DatabaseHelper();
+
+    /** Questions loaded per page of the list */
+    private static final int PAGE_SIZE = 50;
 	
-    /** Container for all questions */
+    /** Window of the questions, extended a page at a time */
     private Questions questionsList = new Questions();
     
-    /** Container for all answers */
+    /** Answers to the questions shown so far */
     private Answers answersList = new Answers();
 
+    /** Ranked search over the loaded questions and answers, for queries the database cannot narrow; built on first use */
+    private DiscussionSearch discussionSearch;
+
     /** UI component for displaying question details */
     private VBox questionDetails = new VBox();
     
@@ -52,6 +58,12 @@ public class StaffHomePage {
     
     /** Text field for searching questions */
     private TextField searchField = new TextField();
+
+    /** Match count and latency of the last search */
+    private Label searchStatus = new Label();
+
+    /** Loads the next page of questions; shown while older questions are left */
+    private Button moreQuestionsButton = new Button("Load more questions");
     
     /**
      * Initializes and displays the main application window for the reviewer.
@@ -87,17 +99,18 @@ public class StaffHomePage {
 
         // Search bar
         HBox searchBar = new HBox(5);
-        searchField.setPromptText("Search by title...");
+        searchField.setPromptText("Search questions and answers...");
         searchField.setStyle("-fx-prompt-text-fill: derive(-fx-control-inner-background, -30%);");
 
         Button searchButton = new Button("Search");
         searchButton.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white;");
-        searchButton.setOnAction(e -> searchQuestionsByTitle());
+        searchButton.setOnAction(e -> searchQuestions());
 
         Button clearButton = new Button("Clear");
         clearButton.setStyle("-fx-background-color: #f44336; -fx-text-fill: white;");
         clearButton.setOnAction(e -> {
             searchField.clear();
+            searchStatus.setText("");
             refreshQuestionList();
         });
 
@@ -121,7 +134,10 @@ public class StaffHomePage {
         newQuestionButton.setStyle("-fx-font-weight: bold; -fx-background-color: #2196F3; -fx-text-fill: white;");
         newQuestionButton.setOnAction(e -> showCreateQuestionPage());
 
-        leftPanel.getChildren().addAll(searchBar, questionsLabel, questionsListView, newQuestionButton);
+        moreQuestionsButton.setMaxWidth(Double.MAX_VALUE);
+        moreQuestionsButton.setOnAction(e -> loadMoreQuestions());
+
+        leftPanel.getChildren().addAll(searchBar, searchStatus, questionsLabel, questionsListView, moreQuestionsButton, newQuestionButton);
         VBox.setVgrow(questionsListView, Priority.ALWAYS); // Make list expandable
 
         // === Center Panel Configuration ===
@@ -147,24 +163,36 @@ public class StaffHomePage {
     }
 
     /**
-     * Searches for questions by title and updates the list view with matching results.
-     * The search is case-insensitive and looks for partial matches in question titles.
+     * Searches question titles, bodies and answers and shows the best matches first.
+     * Results are ranked with BM25 (titles weigh most) and limited to the top results.
      */
-    private void searchQuestionsByTitle() {
-        String searchText = searchField.getText().trim().toLowerCase();
+    private void searchQuestions() {
+        String searchText = searchField.getText().trim();
         if (searchText.isEmpty()) {
+            searchStatus.setText("");
             refreshQuestionList(); // Show all questions if search is empty
             return;
         }
 
-        ObservableList<Question> filteredQuestions = FXCollections.observableArrayList();
-        for (Question question : questionsList.getQuestionArray()) {
-            if (question.getTitle().toLowerCase().contains(searchText)) {
-                filteredQuestions.add(question);
+        // The database's full-text index finds the candidates; what it cannot narrow is searched in the loaded questions
+        SearchResult<Question> result = null;
+        String scope = "";
+        try {
+            result = DiscussionSearch.searchDatabase(databaseHelper, searchText, DiscussionSearch.DEFAULT_LIMIT);
+        } catch (SQLException e) {
+            System.err.println("Database search failed: " + e.getMessage());
+        }
+        if (result == null) {
+            if (discussionSearch == null) {
+                discussionSearch = new DiscussionSearch(questionsList, answersList);
             }
+            result = discussionSearch.search(searchText);
+            scope = " in the loaded questions";
         }
+        searchStatus.setText(result + scope);
+        moreQuestionsButton.setVisible(false);
 
-        questionsListView.setItems(filteredQuestions);
+        questionsListView.setItems(FXCollections.observableArrayList(result.getItems()));
         questionsListView.refresh();
     }
 
@@ -174,6 +202,7 @@ public class StaffHomePage {
      */
     private void refreshQuestionList() {
         questionsListView.setItems(FXCollections.observableArrayList(questionsList.getQuestionArray()));
+        moreQuestionsButton.setVisible(questionsList.hasMorePages());
         questionsListView.setCellFactory(lv -> new ListCell<Question>() {
             @Override
             protected void updateItem(Question item, boolean empty) {
@@ -183,6 +212,27 @@ public class StaffHomePage {
         });
     } 
 
+    /** Adds the next page of questions to the list */
+    private void loadMoreQuestions() {
+        try {
+            databaseHelper.loadMoreQuestions(questionsList, PAGE_SIZE);
+        } catch (SQLException e) {
+            System.err.println("Failed to load questions: " + e.getMessage());
+            e.printStackTrace();
+        }
+        refreshQuestionList();
+    }
+
+    /** Adds the answers to a question that are not loaded yet */
+    private void loadAnswers(Question q) {
+        try {
+            databaseHelper.loadAnswersOf(answersList, q.getID());
+        } catch (SQLException e) {
+            System.err.println("Failed to load answers: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Opens the question creation dialog and refreshes the question list after creation.
      */
@@ -209,14 +259,16 @@ public class StaffHomePage {
     }
 
     /**
-     * Loads questions and answers from the database and refreshes the question list.
+     * Loads the first page of questions and refreshes the question list. Answers
+     * are loaded per question when it is shown.
      * 
      * @throws SQLException if there is an error during database operations
      */
     private void loadData() {
         try {
-            questionsList = databaseHelper.loadQuestions();
-            answersList = databaseHelper.loadAnswer();
+            questionsList = databaseHelper.loadQuestions(PAGE_SIZE);
+            answersList = new Answers();
+            discussionSearch = null;
         } catch (SQLException e) {
             System.err.println("Failed to load data: " + e.getMessage());
             e.printStackTrace();
@@ -263,7 +315,8 @@ public class StaffHomePage {
         answersBox.getChildren().add(answersLabel);
 
         // Display existing answers
-        ArrayList<Answer> answers = answersList.getAnswersByUUID(q.getID());
+        loadAnswers(q);
+        List<Answer> answers = answersList.getAnswersByUUID(q.getID());
         for (Answer a : answers) {
             VBox answerBox = new VBox(5);
             answerBox.setStyle("-fx-background-color: #f0f0f0; -fx-padding: 10;");
@@ -31,15 +31,21 @@ public class StudentHomePage {
 	// Database connection handler
 	private static final DatabaseHelper databaseHelper = new DatabaseHelper();
 
-	// Data containers
+	// Questions loaded per page of the list
+	private static final int PAGE_SIZE = 50;
+
+	// Data containers: a window of the questions, and the answers to the questions shown
 	private Questions questionsList = new Questions();
 	private Answers answersList = new Answers();
+	private DiscussionSearch discussionSearch; // serves the queries the database cannot narrow; built on first use
 
 	// UI components
 	private VBox questionDetails = new VBox();
 	private ScrollPane answersScroll = new ScrollPane();
 	private ListView<Question> questionsListView = new ListView<>();
 	private TextField searchField = new TextField();
+	private Label searchStatus = new Label(); // match count and latency of the last search
+	private Button moreQuestionsButton = new Button("Load more questions"); // shown while older questions are left
 	private User currentUSER;
 
 	/**
@@ -69,17 +75,18 @@ public class StudentHomePage {
 
 		// Search bar
 		HBox searchBar = new HBox(5);
-		searchField.setPromptText("Search by title...");
+		searchField.setPromptText("Search questions and answers...");
 		searchField.setStyle("-fx-prompt-text-fill: derive(-fx-control-inner-background, -30%);");
 
 		Button searchButton = new Button("Search");
 		searchButton.setStyle("-fx-background-color: #4CAF50; -fx-text-fill: white;");
-		searchButton.setOnAction(e -> searchQuestionsByTitle());
+		searchButton.setOnAction(e -> searchQuestions());
 
 		Button clearButton = new Button("Clear");
 		clearButton.setStyle("-fx-background-color: #f44336; -fx-text-fill: white;");
 		clearButton.setOnAction(e -> {
 			searchField.clear();
+			searchStatus.setText("");
 			refreshQuestionList();
 		});
 
@@ -103,7 +110,10 @@ public class StudentHomePage {
 		newQuestionButton.setStyle("-fx-font-weight: bold; -fx-background-color: #2196F3; -fx-text-fill: white;");
 		newQuestionButton.setOnAction(e -> showCreateQuestionPage());
 
-		leftPanel.getChildren().addAll(searchBar, questionsLabel, questionsListView, newQuestionButton);
+		moreQuestionsButton.setMaxWidth(Double.MAX_VALUE);
+		moreQuestionsButton.setOnAction(e -> loadMoreQuestions());
+
+		leftPanel.getChildren().addAll(searchBar, searchStatus, questionsLabel, questionsListView, moreQuestionsButton, newQuestionButton);
 		VBox.setVgrow(questionsListView, Priority.ALWAYS); // Make list expandable
 
 		// === Center Panel Configuration ===
@@ -124,28 +134,41 @@ public class StudentHomePage {
 		primaryStage.show();
 	}
 
-	/** Searches for questions by title and updates the list view */
-	private void searchQuestionsByTitle() {
-		String searchText = searchField.getText().trim().toLowerCase();
+	/** Ranks questions by title, body and answers (BM25) and shows the top results */
+	private void searchQuestions() {
+		String searchText = searchField.getText().trim();
 		if (searchText.isEmpty()) {
+			searchStatus.setText("");
 			refreshQuestionList(); // Show all questions if search is empty
 			return;
 		}
 
-		ObservableList<Question> filteredQuestions = FXCollections.observableArrayList();
-		for (Question question : questionsList.getQuestionArray()) {
-			if (question.getTitle().toLowerCase().contains(searchText)) {
-				filteredQuestions.add(question);
+		// The database's full-text index finds the candidates; what it cannot narrow is searched in the loaded questions
+		SearchResult<Question> result = null;
+		String scope = "";
+		try {
+			result = DiscussionSearch.searchDatabase(databaseHelper, searchText, DiscussionSearch.DEFAULT_LIMIT);
+		} catch (SQLException e) {
+			System.err.println("Database search failed: " + e.getMessage());
+		}
+		if (result == null) {
+			if (discussionSearch == null) {
+				discussionSearch = new DiscussionSearch(questionsList, answersList);
 			}
+			result = discussionSearch.search(searchText);
+			scope = " in the loaded questions";
 		}
+		searchStatus.setText(result + scope);
+		moreQuestionsButton.setVisible(false);
 
-		questionsListView.setItems(filteredQuestions);
+		questionsListView.setItems(FXCollections.observableArrayList(result.getItems()));
 		questionsListView.refresh();
 	}
 
 	/** Updates the questions list view with current data */
 	private void refreshQuestionList() {
 		questionsListView.setItems(FXCollections.observableArrayList(questionsList.getQuestionArray()));
+		moreQuestionsButton.setVisible(questionsList.hasMorePages());
 		questionsListView.setCellFactory(lv -> new ListCell<Question>() {
 			@Override
 			protected void updateItem(Question item, boolean empty) {
@@ -155,6 +178,27 @@ public class StudentHomePage {
 		});
 	}
 
+	/** Adds the next page of questions to the list */
+	private void loadMoreQuestions() {
+		try {
+			databaseHelper.loadMoreQuestions(questionsList, PAGE_SIZE);
+		} catch (SQLException e) {
+			System.err.println("Failed to load questions: " + e.getMessage());
+			e.printStackTrace();
+		}
+		refreshQuestionList();
+	}
+
+	/** Adds the answers to a question that are not loaded yet */
+	private void loadAnswers(Question q) {
+		try {
+			databaseHelper.loadAnswersOf(answersList, q.getID());
+		} catch (SQLException e) {
+			System.err.println("Failed to load answers: " + e.getMessage());
+			e.printStackTrace();
+		}
+	}
+
 	/** Opens the question creation dialog and refreshes the list */
 	private void showCreateQuestionPage() {
 		CreateQuestionPage createPage = new CreateQuestionPage(questionsList, currentUSER);
@@ -174,11 +218,12 @@ public class StudentHomePage {
 		}
 	}
 
-	/** Loads questions and answers from the database */
+	/** Loads the first page of questions; answers are loaded per question when it is shown */
 	private void loadData() {
 		try {
-			questionsList = databaseHelper.loadQuestions();
-			answersList = databaseHelper.loadAnswer();
+			questionsList = databaseHelper.loadQuestions(PAGE_SIZE);
+			answersList = new Answers();
+			discussionSearch = null;
 		} catch (SQLException e) {
 			System.err.println("Failed to load data: " + e.getMessage());
 			e.printStackTrace();
@@ -213,7 +258,10 @@ public class StudentHomePage {
 		Map<UUID, Label> answerRepLabels = new HashMap<>(); // <<====
 
 		// Display existing answers with voting buttons
-		ArrayList<Answer> answers = answersList.getAnswersByUUID(q.getID());
+		loadAnswers(q);
+		List<Answer> answers = answersList.getAnswersByUUID(q.getID());
+		// Read this question's authors with one query, picking up votes cast elsewhere since the last render
+		answersList.prefetchReputations(databaseHelper, q.getID());
 		
 		for (Answer a : answers) {
 			VBox answerBox = new VBox(5);
@@ -240,7 +288,7 @@ public class StudentHomePage {
 			Button upButton = new Button("↑");
 			Button downButton = new Button("↓");
 			// Create the label and store it in the map // <<====
-			Label repLabel = new Label(String.valueOf(a.getRepuation(databaseHelper)));
+			Label repLabel = new Label(String.valueOf(answersList.getReputation(a.getUserUUID())));
 			answerRepLabels.put(a.getID(), repLabel); // <<==== Store the label associated with the answer ID
 
 			// Style buttons
@@ -254,15 +302,12 @@ public class StudentHomePage {
 				// if (!a.getUpvotedBy().contains(currentUserId)) {
 				answersList.increaseReputation(databaseHelper, a.getID(), currentUserId); // <<==== Call the method in
 																							// Answers
-				// Update ALL displayed reputation labels for this question // <<====
+				// Update ALL displayed reputation labels for this question from the answers' reputation board, without a query each
 				for (Map.Entry<UUID, Label> entry : answerRepLabels.entrySet()) { // <<====
 					Answer updatedAnswer = answersList.getByUUID(entry.getKey()); // <<==== Get the potentially updated
 																					// answer
 					if (updatedAnswer != null) { // <<==== Check if answer still exists
-						entry.getValue().setText(Integer.toString(updatedAnswer.getRepuation(databaseHelper))); // <<====
-																												// Update
-																												// label
-																												// text
+						entry.getValue().setText(Integer.toString(answersList.getReputation(updatedAnswer.getUserUUID())));
 					}
 				}
 				saveData(); // Persist changes to database
@@ -275,15 +320,12 @@ public class StudentHomePage {
 				// if (!a.getDownvotedBy().contains(currentUserId)) {
 				answersList.decreaseReputation(databaseHelper, a.getID(), currentUserId); // <<==== Call the method in
 																							// Answers
-				// Update ALL displayed reputation labels for this question // <<====
+				// Update ALL displayed reputation labels for this question from the answers' reputation board, without a query each
 				for (Map.Entry<UUID, Label> entry : answerRepLabels.entrySet()) { // <<====
 					Answer updatedAnswer = answersList.getByUUID(entry.getKey()); // <<==== Get the potentially updated
 																					// answer
 					if (updatedAnswer != null) { // <<==== Check if answer still exists
-						entry.getValue().setText(Integer.toString(updatedAnswer.getRepuation(databaseHelper))); // <<====
-																												// Update
-																												// label
-																												// text
+						entry.getValue().setText(Integer.toString(answersList.getReputation(updatedAnswer.getUserUUID())));
 					}
 				}
 				saveData(); // Persist changes to database
@@ -341,7 +383,7 @@ public class StudentHomePage {
 	        }
 
 	        // Load reviews for all answers
-	        ArrayList<Answer> answers1 = answersList.getAnswersByUUID(q.getID());
+	        List<Answer> answers1 = answersList.getAnswersByUUID(q.getID());
 	        for (Answer a : answers1) {
 	            List<Review> answerReviews = databaseHelper.getReviewsByAnswerId(a.getID());
 	            for (Review review : answerReviews) {
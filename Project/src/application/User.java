@@ -26,7 +26,7 @@ public class User {
 	 * @param role
 	 * @return bit flag of the role.
 	 */
-	private static int strToBitFlag(String role) {
+	static int strToBitFlag(String role) {
 		switch (role.toLowerCase()) {
 		case "student":
 			return 1 << 0;
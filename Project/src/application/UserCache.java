@@ -0,0 +1,276 @@
+package application;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The UserCache class keeps recently used rows of cse360users in memory so
+ * repeated profile lookups, such as the several made during one login, do not
+ * each go to the database. There is one cache per database URL, shared by every
+ * DatabaseHelper in the process, the same way the connection pool is.
+ *
+ * <p>Key features:
+ * <ul>
+ *   <li>Profiles are found by UUID or by userName</li>
+ *   <li>At most maxSize profiles are kept; the least recently used is evicted first</li>
+ *   <li>Profiles older than the time-to-live are reloaded, so changes made
+ *       by other processes show up eventually</li>
+ *   <li>DatabaseHelper invalidates a user whenever it writes that user's row</li>
+ *   <li>Hit, miss, eviction and expiry counters are available through getStats()</li>
+ * </ul>
+ * </p>
+ */
+public class UserCache {
+    public static final int DEFAULT_MAX_SIZE = 1_000;
+    public static final long DEFAULT_TTL_MILLIS = 60_000;
+
+    private static final Map<String, UserCache> CACHES = new ConcurrentHashMap<>();
+
+    /**
+     * The cached columns of one user. Profiles are immutable; a change to the
+     * row is picked up by invalidating and reloading it.
+     */
+    public static final class Profile {
+        private final UUID uuid;
+        private final String userName;
+        private final int role;
+        private final int reputation;
+        private final List<UUID> trustedReviewers;
+
+        Profile(UUID uuid, String userName, int role, int reputation, List<UUID> trustedReviewers) {
+            this.uuid = uuid;
+            this.userName = userName;
+            this.role = role;
+            this.reputation = reputation;
+            this.trustedReviewers = Collections.unmodifiableList(trustedReviewers);
+        }
+
+        /** @return The user's UUID */
+        public UUID getUuid() { return uuid; }
+
+        /** @return The user's login name */
+        public String getUserName() { return userName; }
+
+        /** @return The user's role bits */
+        public int getRole() { return role; }
+
+        /** @return The user's reputation when the profile was loaded */
+        public int getReputation() { return reputation; }
+
+        /** @return Unmodifiable list of the reviewers the user trusts */
+        public List<UUID> getTrustedReviewers() { return trustedReviewers; }
+    }
+
+    /** A cached profile and when it was loaded */
+    private static final class Entry {
+        final Profile profile;
+        final long loadedNanos;
+
+        Entry(Profile profile, long loadedNanos) {
+            this.profile = profile;
+            this.loadedNanos = loadedNanos;
+        }
+    }
+
+    private final int maxSize;
+    private volatile long ttlNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TTL_MILLIS);
+
+    /** Profiles by UUID in access order, least recently used first; guarded by this */
+    private final LinkedHashMap<UUID, Entry> byUuid;
+
+    /** UUID of each cached profile's userName; guarded by this */
+    private final HashMap<String, UUID> byName = new HashMap<>();
+
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    /**
+     * Gets the shared cache for a database URL, creating it on first use.
+     *
+     * @param url The JDBC URL
+     * @return The cache for that URL
+     */
+    public static UserCache forUrl(String url) {
+        return CACHES.computeIfAbsent(url, u -> new UserCache(DEFAULT_MAX_SIZE));
+    }
+
+    /**
+     * Creates a standalone cache.
+     *
+     * @param maxSize The largest number of profiles kept
+     */
+    public UserCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.byUuid = new LinkedHashMap<UUID, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Entry> eldest) {
+                if (size() <= UserCache.this.maxSize) {
+                    return false;
+                }
+                byName.remove(eldest.getValue().profile.getUserName(), eldest.getKey());
+                evictions++;
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Sets how long a profile is served before it is reloaded.
+     * @param ttlMillis The time-to-live in milliseconds
+     */
+    public void setTtlMillis(long ttlMillis) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * Gets a cached profile by UUID.
+     *
+     * @param uuid The user's UUID
+     * @return The profile, or null if it is not cached or has expired
+     */
+    public synchronized Profile get(UUID uuid) {
+        Entry entry = byUuid.get(uuid);
+        if (entry != null && System.nanoTime() - entry.loadedNanos > ttlNanos) {
+            remove(uuid);
+            expirations++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.profile;
+    }
+
+    /**
+     * Gets a cached profile by userName.
+     *
+     * @param userName The user's login name
+     * @return The profile, or null if it is not cached or has expired
+     */
+    public synchronized Profile get(String userName) {
+        UUID uuid = byName.get(userName);
+        if (uuid == null) {
+            misses++;
+            return null;
+        }
+        return get(uuid);
+    }
+
+    /**
+     * Caches a profile just read from the database, replacing any older copy.
+     * @param profile The loaded profile
+     */
+    public synchronized void put(Profile profile) {
+        remove(profile.getUuid());
+        byUuid.put(profile.getUuid(), new Entry(profile, System.nanoTime()));
+        byName.put(profile.getUserName(), profile.getUuid());
+    }
+
+    /**
+     * Drops a user after their row changed.
+     * @param uuid The user's UUID
+     */
+    public synchronized void invalidate(UUID uuid) {
+        remove(uuid);
+    }
+
+    /**
+     * Drops a user by name, for writes that know only the name.
+     * @param userName The user's login name
+     */
+    public synchronized void invalidate(String userName) {
+        UUID uuid = byName.get(userName);
+        if (uuid != null) {
+            remove(uuid);
+        }
+    }
+
+    /**
+     * Drops every cached profile, for example after the tables were reset.
+     */
+    public synchronized void invalidateAll() {
+        byUuid.clear();
+        byName.clear();
+    }
+
+    private void remove(UUID uuid) {
+        Entry entry = byUuid.remove(uuid);
+        if (entry != null) {
+            byName.remove(entry.profile.getUserName(), uuid);
+        }
+    }
+
+    /**
+     * Gets a snapshot of the cache counters.
+     * @return The current statistics
+     */
+    public synchronized Stats getStats() {
+        return new Stats(byUuid.size(), maxSize, hits, misses, evictions, expirations);
+    }
+
+    /**
+     * A point-in-time snapshot of the cache counters.
+     */
+    public static class Stats {
+        private final int size;
+        private final int maxSize;
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long expirations;
+
+        Stats(int size, int maxSize, long hits, long misses, long evictions, long expirations) {
+            this.size = size;
+            this.maxSize = maxSize;
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.expirations = expirations;
+        }
+
+        /** @return Profiles currently cached */
+        public int getSize() { return size; }
+
+        /** @return The largest number of profiles kept */
+        public int getMaxSize() { return maxSize; }
+
+        /** @return Lookups answered from the cache */
+        public long getHits() { return hits; }
+
+        /** @return Lookups that went to the database */
+        public long getMisses() { return misses; }
+
+        /** @return Profiles dropped to stay within maxSize */
+        public long getEvictions() { return evictions; }
+
+        /** @return Profiles dropped for outliving the time-to-live */
+        public long getExpirations() { return expirations; }
+
+        /** @return Fraction of lookups answered from the cache */
+        public double getHitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("size=%d max=%d hits=%d misses=%d hitRate=%.2f evictions=%d expirations=%d",
+                    size, maxSize, hits, misses, getHitRate(), evictions, expirations);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package application;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * The UserImporter class registers a whole cohort of users from a CSV file
+ * without going through the account setup pages one user at a time.
+ *
+ * <p>Each line holds {@code userName,password,roles}; roles are separated by
+ * semicolons, for example {@code student;reviewer}. Fields may be quoted with
+ * double quotes, doubling any quote inside, so passwords can contain commas.
+ * A first line starting with "userName" is taken as a header and skipped.</p>
+ *
+ * <p>The file is streamed in chunks of chunkSize lines. For each chunk:
+ * <ul>
+ *   <li>UserNames, passwords and roles are validated in parallel</li>
+ *   <li>Names repeated within the file keep their first occurrence</li>
+ *   <li>Names already registered are found with one set-based query</li>
+ *   <li>The rest are hashed on PasswordHasher's bounded pool and inserted in
+ *       JDBC batches</li>
+ * </ul>
+ * Every rejected line is listed in the Report with its line number and reason.
+ * Invitation codes are not used: the admin running the import authorizes it.</p>
+ *
+ * <p>Passwords are hashed like any registration, with PasswordHasher.getDefault().
+ * An admin who needs a large cohort imported faster can pass a cheaper hasher,
+ * for example {@code new PasswordHasher(FAST_ITERATIONS)}.</p>
+ */
+public class UserImporter {
+    public static final int DEFAULT_CHUNK_SIZE = 1_000;
+
+    /**
+     * Iterations for an admin who chooses a faster import. Such hashes are weaker
+     * than the default until the lazy rehash on each user's first login raises them.
+     */
+    public static final int FAST_ITERATIONS = 10_000;
+
+    private final DatabaseHelper databaseHelper;
+    private final PasswordHasher hasher;
+    private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+    /**
+     * Creates an importer that hashes with PasswordHasher.getDefault().
+     * @param databaseHelper The connected helper to register users through
+     */
+    public UserImporter(DatabaseHelper databaseHelper) {
+        this(databaseHelper, PasswordHasher.getDefault());
+    }
+
+    /**
+     * Creates an importer.
+     *
+     * @param databaseHelper The connected helper to register users through
+     * @param hasher         The hasher for imported passwords, for example a
+     *                       cheaper one the admin chose for a large cohort
+     */
+    public UserImporter(DatabaseHelper databaseHelper, PasswordHasher hasher) {
+        this.databaseHelper = databaseHelper;
+        this.hasher = hasher;
+    }
+
+    /**
+     * Sets how many lines are validated and registered together.
+     * @param chunkSize Lines per chunk
+     */
+    public void setChunkSize(int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be at least 1: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Imports the users in a UTF-8 CSV file.
+     *
+     * @param file The CSV file
+     * @return What was imported and what was rejected
+     * @throws IOException  if the file cannot be read
+     * @throws SQLException if a lookup or batch fails; earlier chunks stay imported
+     */
+    public Report importCsv(Path file) throws IOException, SQLException {
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return importCsv(reader);
+        }
+    }
+
+    /**
+     * Imports the users read from a CSV stream.
+     *
+     * @param reader The CSV text
+     * @return What was imported and what was rejected
+     * @throws IOException  if the stream cannot be read
+     * @throws SQLException if a lookup or batch fails; earlier chunks stay imported
+     */
+    public Report importCsv(Reader reader) throws IOException, SQLException {
+        long start = System.nanoTime();
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        Report report = new Report();
+        Map<String, Integer> seen = new HashMap<>();
+        List<Row> chunk = new ArrayList<>(chunkSize);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && line.regionMatches(true, 0, "userName", 0, 8))) {
+                continue;
+            }
+            chunk.add(new Row(lineNumber, line));
+            if (chunk.size() == chunkSize) {
+                importChunk(chunk, seen, report);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, seen, report);
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    private void importChunk(List<Row> chunk, Map<String, Integer> seen, Report report) throws SQLException {
+        report.rowsRead += chunk.size();
+        IntStream.range(0, chunk.size()).parallel().forEach(i -> chunk.get(i).validate());
+
+        List<Row> accepted = new ArrayList<>();
+        for (Row row : chunk) {
+            if (row.error != null) {
+                report.reject(row, row.error);
+                continue;
+            }
+            Integer first = seen.putIfAbsent(row.userName, row.lineNumber);
+            if (first != null) {
+                report.reject(row, "Duplicate of line " + first);
+            } else {
+                accepted.add(row);
+            }
+        }
+
+        Set<String> existing = databaseHelper.findExistingUserNames(accepted.stream().map(row -> row.userName).toList());
+        List<Row> fresh = new ArrayList<>();
+        List<User> users = new ArrayList<>();
+        for (Row row : accepted) {
+            if (existing.contains(row.userName)) {
+                report.reject(row, "User already exists");
+            } else {
+                fresh.add(row);
+                users.add(row.user);
+            }
+        }
+        if (users.isEmpty()) {
+            return;
+        }
+
+        Set<User> inserted = Collections.newSetFromMap(new IdentityHashMap<>());
+        inserted.addAll(databaseHelper.registerAll(users, hasher));
+        for (Row row : fresh) {
+            if (inserted.contains(row.user)) {
+                report.imported++;
+            } else {
+                report.reject(row, "User already exists"); // registered while the import ran
+            }
+        }
+    }
+
+    /** One CSV line, validated on a worker thread */
+    private static final class Row {
+        final int lineNumber;
+        final String line;
+        String userName;
+        User user;
+        String error;
+
+        Row(int lineNumber, String line) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+        }
+
+        void validate() {
+            List<String> fields = parseCsvLine(line);
+            if (fields == null || fields.size() != 3) {
+                error = "Expected userName,password,roles";
+                return;
+            }
+            userName = fields.get(0).trim();
+            UserNameRecognizer.Result name = UserNameRecognizer.recognize(userName);
+            if (!name.isValid()) {
+                error = describe(name.getMessage());
+                return;
+            }
+            String password = fields.get(1);
+            PasswordEvaluator.Result strength = PasswordEvaluator.evaluate(password);
+            if (!strength.isValid()) {
+                error = describe(strength.getMessage());
+                return;
+            }
+            int roles = 0;
+            for (String role : fields.get(2).split(";")) {
+                int bit = User.strToBitFlag(role.trim());
+                if (bit == 0) {
+                    error = "Unknown role: " + role.trim();
+                    return;
+                }
+                roles |= bit;
+            }
+            user = new User(userName, password, roles);
+        }
+    }
+
+    // Validator messages are laid out for dialogs; flatten them for the report
+    private static String describe(String message) {
+        return message.replace("*** ERROR ***", "").replace("*** Error ***", "").replace('\n', ' ')
+                .replaceAll(" +", " ").trim();
+    }
+
+    /**
+     * Splits one CSV line into fields, honouring double-quoted fields.
+     *
+     * @param line The line, without its line terminator
+     * @return The fields, or null if a quoted field is not closed
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * The outcome of one import: how many users were registered and why each
+     * rejected line was rejected.
+     */
+    public static class Report {
+        private int rowsRead;
+        private int imported;
+        private long elapsedNanos;
+        private final List<RowError> errors = new ArrayList<>();
+
+        private void reject(Row row, String message) {
+            errors.add(new RowError(row.lineNumber, row.userName, message));
+        }
+
+        /** @return Data lines read, not counting the header and blank lines */
+        public int getRowsRead() { return rowsRead; }
+
+        /** @return Users registered */
+        public int getImported() { return imported; }
+
+        /** @return Rejected lines in file order */
+        public List<RowError> getErrors() {
+            errors.sort((a, b) -> Integer.compare(a.getLineNumber(), b.getLineNumber()));
+            return Collections.unmodifiableList(errors);
+        }
+
+        /** @return Wall-clock time of the import in milliseconds */
+        public double getElapsedMillis() { return elapsedNanos / 1_000_000.0; }
+
+        @Override
+        public String toString() {
+            return String.format("%d of %d user(s) imported, %d rejected, in %.0f ms", imported, rowsRead,
+                    errors.size(), getElapsedMillis());
+        }
+    }
+
+    /**
+     * Why one line of the file was not imported.
+     */
+    public static class RowError {
+        private final int lineNumber;
+        private final String userName;
+        private final String message;
+
+        RowError(int lineNumber, String userName, String message) {
+            this.lineNumber = lineNumber;
+            this.userName = userName;
+            this.message = message;
+        }
+
+        /** @return The 1-based line number in the file */
+        public int getLineNumber() { return lineNumber; }
+
+        /** @return The userName on the line, or null if the line could not be parsed */
+        public String getUserName() { return userName; }
+
+        /** @return Why the line was rejected */
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return "line " + lineNumber + (userName != null ? " (" + userName + ")" : "") + ": " + message;
+        }
+    }
+
+    /**
+     * Imports a CSV file from the command line and prints the error report.
+     * Usage: {@code java application.UserImporter users.csv [jdbc-url]}
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java application.UserImporter users.csv [jdbc-url]");
+            System.exit(2);
+        }
+        DatabaseHelper helper = args.length > 1 ? new DatabaseHelper(args[1]) : new DatabaseHelper();
+        helper.connectToDatabase();
+        try {
+            Report report = new UserImporter(helper).importCsv(Path.of(args[0]));
+            for (RowError error : report.getErrors()) {
+                System.out.println(error);
+            }
+            System.out.println(report);
+        } finally {
+            helper.closeConnection();
+        }
+    }
+}
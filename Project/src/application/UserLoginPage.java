@@ -1,12 +1,11 @@
 package application;
 
+import javafx.application.Platform;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 
-import java.sql.SQLException;
-
 /**
  * The UserLoginPage class provides a login interface for users to access their
  * accounts. It validates the user's credentials and navigates to the
@@ -47,33 +46,28 @@ public class UserLoginPage {
 			// Retrieve user inputs
 			String userName = userNameField.getText();
 			String password = passwordField.getText();
-			try {
-				// =====================================================
-				// valadate password
-				User user = new User(userName, password, "");
-				WelcomeLoginPage welcomeLoginPage = new WelcomeLoginPage(databaseHelper);
-
-				// Retrieve the user's role from the database using userName
-				int role = databaseHelper.getUserRole(userName);
-
-				if (role != 0) {
-					user.setRoleInt(role);
-					if (databaseHelper.login(user)) {
-						user.setID(databaseHelper.getUserUUID(userName));
-						welcomeLoginPage.show(primaryStage, user);
-					} else {
-						// Display an error if the login fails
-						errorLabel.setText("Error logging in");
-					}
+			// =====================================================
+			// valadate password and load the user's profile in one query;
+			// hashing runs off the JavaFX thread, so keep the button off until it answers
+			loginButton.setDisable(true);
+			errorLabel.setText("");
+			databaseHelper.authenticateAsync(userName, password).whenComplete((user, error) -> Platform.runLater(() -> {
+				loginButton.setDisable(false);
+				if (error != null) {
+					System.err.println("Database error: " + error.getMessage());
+					error.printStackTrace();
+					errorLabel.setText("Error logging in");
+				} else if (user != null && user.getRoleInt() != 0) {
+					WelcomeLoginPage welcomeLoginPage = new WelcomeLoginPage(databaseHelper);
+					welcomeLoginPage.show(primaryStage, user);
+				} else if (databaseHelper.getUserRole(userName) != 0) {
+					// Display an error if the login fails
+					errorLabel.setText("Error logging in");
 				} else {
 					// Display an error if the account does not exist
 					errorLabel.setText("user account doesn't exists");
 				}
-
-			} catch (SQLException e) {
-				System.err.println("Database error: " + e.getMessage());
-				e.printStackTrace();
-			}
+			}));
 		});
 
 		VBox layout = new VBox(10);
@@ -1,5 +1,7 @@
 package application;
 
+import java.util.Arrays;
+
 public class UserNameRecognizer {
 	/**
 	 * <p>
@@ -24,6 +26,12 @@ public class UserNameRecognizer {
 	 *          error message, and improve internal documentation
 	 * @version 1.02 2025-01-23 Added - and _ as substitutes for the . requirement
 	 *          error messages were also edited to report the correct error.
+	 * @version 1.03 2026-10-17 FSM state moved from static fields into locals so
+	 *          the recognizer is reentrant; results are returned as immutable
+	 *          Result objects and the valid path allocates nothing.
+	 * @version 1.04 2026-10-17 The FSM is compiled into a transition table
+	 *          indexed by state and character class; the switch translation
+	 *          is kept as recognizeBySwitch, the reference it must agree with.
 	 * 
 	 */
 
@@ -31,49 +39,68 @@ public class UserNameRecognizer {
 	 * 
 	 * Result attributes to be used for GUI applications where a detailed error
 	 * message and a pointer to the character of the error will enhance the user
-	 * experience.
+	 * experience. Results are immutable, so any number of threads may recognize
+	 * UserNames at once.
 	 * 
 	 */
+	public static final class Result {
+		public static final int VALID = 0;
+		public static final int EMPTY = 1;
+		public static final int BAD_FIRST_CHARACTER = 2;
+		public static final int TOO_SHORT = 3;
+		public static final int TOO_LONG = 4;
+		public static final int INVALID_CHARACTER = 5;
+		public static final int BAD_CHARACTER_AFTER_SEPARATOR = 6;
+
+		private static final String[] MESSAGES = { "", "\n*** ERROR *** The input is empty",
+				"\n*** ERROR *** A UserName must start\n with A-Z or a-z.\n",
+				"\n*** ERROR *** A UserName must have at\nleast 4 characters.\n",
+				"\n*** ERROR *** A UserName must have no more\nthan 16 character.\n",
+				"\n*** ERROR *** A UserName character may only contain\nthe characters A-Z, a-z, 0-9, .,_,or -.\n",
+				"\n*** ERROR *** A UserName character after a period,\nunderscore, or dash must be A-Z, a-z, 0-9.\n" };
+
+		// Shared by every valid input so the common path allocates nothing
+		private static final Result OK = new Result(VALID, -1, 0);
+
+		private final int errorCode;
+		private final int indexOfError;
+		private final int userNameSize;
+
+		private Result(int errorCode, int indexOfError, int userNameSize) {
+			this.errorCode = errorCode;
+			this.indexOfError = indexOfError;
+			this.userNameSize = userNameSize;
+		}
 
-	public static String userNameRecognizerErrorMessage = ""; // The error message text
-	public static String userNameRecognizerInput = ""; // The input being processed
-	public static int userNameRecognizerIndexofError = -1; // The index of error location
-	private static int state = 0; // The current state value
-	private static int nextState = 0; // The next state value
-	private static boolean finalState = false; // Is this state a final state?
-	private static String inputLine = ""; // The input line
-	private static char currentChar; // The current character in the line
-	private static int currentCharNdx; // The index of the current character
-	private static boolean running; // The flag that specifies if the FSM is
-									// running
-	private static int userNameSize = 0; // A numeric value may not exceed 16 characters
-
-	// Private method to display debugging data
-	private static void displayDebuggingInfo() {
-		// Display the current state of the FSM as part of an execution trace
-		if (currentCharNdx >= inputLine.length())
-			// display the line with the current state numbers aligned
-			System.out.println(((state > 99) ? " " : (state > 9) ? "  " : "   ") + state
-					+ ((finalState) ? "       F   " : "           ") + "None");
-		else
-			System.out.println(((state > 99) ? " " : (state > 9) ? "  " : "   ") + state
-					+ ((finalState) ? "       F   " : "           ") + "  " + currentChar + " "
-					+ ((nextState > 99) ? "" : (nextState > 9) || (nextState == -1) ? "   " : "    ") + nextState
-					+ "     " + userNameSize);
-	}
+		/** @return true if the UserName is acceptable */
+		public boolean isValid() {
+			return errorCode == VALID;
+		}
+
+		/** @return One of the error codes above; VALID if there is no error */
+		public int getErrorCode() {
+			return errorCode;
+		}
+
+		/** @return The index of the character where the error was found, or -1 */
+		public int getIndexOfError() {
+			return indexOfError;
+		}
+
+		/** @return The number of characters accepted before the FSM halted */
+		public int getUserNameSize() {
+			return userNameSize;
+		}
 
-	// Private method to move to the next character within the limits of the input
-	// line
-	private static void moveToNextCharacter() {
-		currentCharNdx++;
-		if (currentCharNdx < inputLine.length())
-			currentChar = inputLine.charAt(currentCharNdx);
-		else {
-			currentChar = ' ';
-			running = false;
+		/** @return The error message, or an empty string if the UserName is valid */
+		public String getMessage() {
+			return MESSAGES[errorCode];
 		}
 	}
 
+	private static final int MAX_SIZE = 16; // A UserName may not exceed 16 characters
+	private static final int MIN_SIZE = 4;
+
 	/**********
 	 * This method is a mechanical transformation of a Finite State Machine diagram
 	 * into a Java method.
@@ -83,97 +110,146 @@ public class UserNameRecognizer {
 	 *         String with a helpful description of the error
 	 */
 	public static String checkForValidUserName(String input) {
-		// Check to ensure that there is input to process
-		if (input.length() <= 0) {
-			userNameRecognizerIndexofError = 0; // Error at first character;
-			return "\n*** ERROR *** The input is empty";
-		}
+		return recognize(input).getMessage();
+	}
 
-		// The local variables used to perform the Finite State Machine simulation
-		state = 0; // This is the FSM state number
-		inputLine = input; // Save the reference to the input line as a global
-		currentCharNdx = 0; // The index of the current character
-		currentChar = input.charAt(0); // The current character from above indexed position
+	// Character classes of the FSM diagram's transitions
+	private static final int LETTER = 0; // A-Z, a-z
+	private static final int DIGIT = 1; // 0-9
+	private static final int SEPARATOR = 2; // . _ -
+	private static final int OTHER = 3; // anything else halts the FSM
+	private static final int CLASSES = 4;
+
+	private static final int HALT = -1; // No transition: the FSM stops
+
+	// Class of each ASCII character; characters above 127 are OTHER
+	private static final byte[] CHAR_CLASS = new byte[128];
+
+	// Next state, indexed by state * CLASSES + character class
+	private static final byte[] TRANSITIONS;
+
+	static {
+		Arrays.fill(CHAR_CLASS, (byte) OTHER);
+		for (char c = 'A'; c <= 'Z'; c++)
+			CHAR_CLASS[c] = LETTER;
+		for (char c = 'a'; c <= 'z'; c++)
+			CHAR_CLASS[c] = LETTER;
+		for (char c = '0'; c <= '9'; c++)
+			CHAR_CLASS[c] = DIGIT;
+		CHAR_CLASS['.'] = SEPARATOR;
+		CHAR_CLASS['_'] = SEPARATOR;
+		CHAR_CLASS['-'] = SEPARATOR;
+
+		// The diagram's edges, as { from state, character class, to state }
+		int[][] edges = { { 0, LETTER, 1 }, // State 0: A-Z, a-z -> State 1
+				{ 1, LETTER, 1 }, { 1, DIGIT, 1 }, // State 1: A-Z, a-z, 0-9 -> State 1
+				{ 1, SEPARATOR, 2 }, // State 1: . or _ or - -> State 2
+				{ 2, LETTER, 1 }, { 2, DIGIT, 1 } }; // State 2: A-Z, a-z, 0-9 -> State 1
+		TRANSITIONS = new byte[3 * CLASSES];
+		Arrays.fill(TRANSITIONS, (byte) HALT);
+		for (int[] edge : edges)
+			TRANSITIONS[edge[0] * CLASSES + edge[1]] = (byte) edge[2];
+	}
 
-		// The Finite State Machines continues until the end of the input is reached or
-		// at some
-		// state the current character does not match any valid transition to a next
-		// state
+	/**********
+	 * Runs the Finite State Machine over the input using the compiled transition
+	 * table. All of the machine's state is local to the call, so this may be
+	 * called from several threads at once. Results, including the error index,
+	 * are the same as those of the switch translation in recognizeBySwitch.
+	 * 
+	 * @param input The input string for the Finite State Machine
+	 * @return The result; Result.isValid() is true if every thing is okay
+	 */
+	public static Result recognize(String input) {
+		int length = input.length();
+		if (length <= 0) {
+			return new Result(Result.EMPTY, 0, 0); // Error at first character
+		}
 
-		userNameRecognizerInput = input; // Save a copy of the input
-		running = true; // Start the loop
-		nextState = -1; // There is no next state
-		// Uncomment for debugging
-		// System.out.println("\nCurrent Final Input Next Date\nState State Char State
-		// Size");
+		int state = 0;
+		int userNameSize = 0;
+		int currentCharNdx = 0;
+		for (; currentCharNdx < length; currentCharNdx++) {
+			char currentChar = input.charAt(currentCharNdx);
+			int next = TRANSITIONS[state * CLASSES + (currentChar < 128 ? CHAR_CLASS[currentChar] : OTHER)];
+			// Halting leaves the state and index on the character that stopped the FSM
+			if (next == HALT || ++userNameSize > MAX_SIZE)
+				break;
+			state = next;
+		}
+		return haltedAt(state, currentCharNdx, userNameSize, length);
+	}
 
-		// This is the place where semantic actions for a transition to the initial
-		// state occur
+	/**********
+	 * The hand translation of the Finite State Machine diagram into a while loop
+	 * with a switch per state. It is the reference the transition table in
+	 * recognize() is compiled from and must agree with.
+	 * 
+	 * @param input The input string for the Finite State Machine
+	 * @return The result; Result.isValid() is true if every thing is okay
+	 */
+	static Result recognizeBySwitch(String input) {
+		// Check to ensure that there is input to process
+		if (input.length() <= 0) {
+			return new Result(Result.EMPTY, 0, 0); // Error at first character
+		}
 
-		userNameSize = 0; // Initialize the UserName size
+		// The local variables used to perform the Finite State Machine simulation
+		int state = 0; // This is the FSM state number
+		int nextState = -1; // There is no next state
+		int currentCharNdx = 0; // The index of the current character
+		char currentChar = input.charAt(0); // The current character from above indexed position
+		boolean running = true; // Start the loop
+		int userNameSize = 0; // Initialize the UserName size
 
 		// The Finite State Machines continues until the end of the input is reached or
-		// at some
-		// state the current character does not match any valid transition to a next
-		// state
+		// at some state the current character does not match any valid transition to a
+		// next state
 		while (running) {
 			// The switch statement takes the execution to the code for the current state,
-			// where
-			// that code sees whether or not the current character is valid to transition to
-			// a
-			// next state
+			// where that code sees whether or not the current character is valid to
+			// transition to a next state
 			switch (state) {
 			case 0:
 				// State 0 has 1 valid transition that is addressed by an if statement.
 
 				// The current character is checked against A-Z, a-z. If any are matched
 				// the FSM goes to state 1
-				// A-Z, a-z, 0-9 -> State 1
 				if ((currentChar >= 'A' && currentChar <= 'Z') || // Check for A-Z
 						(currentChar >= 'a' && currentChar <= 'z')) { // Check for a-z
 					nextState = 1;
 
 					// Count the character
 					userNameSize++;
-
-					// This only occurs once, so there is no need to check for the size getting
-					// too large.
 				}
 				// If it is none of those characters, the FSM halts
 				else
 					running = false;
-
-				// The execution of this state is finished
 				break;
 
 			case 1:
 				// State 1 has two valid transitions,
 				// 1: a A-Z, a-z, 0-9 that transitions back to state 1
-				// 2: a period that transitions to state 2
+				// 2: a period, underscore or dash that transitions to state 2
 
 				// A-Z, a-z, 0-9 -> State 1
 				if ((currentChar >= 'A' && currentChar <= 'Z') || // Check for A-Z
 						(currentChar >= 'a' && currentChar <= 'z') || // Check for a-z
 						(currentChar >= '0' && currentChar <= '9')) { // Check for 0-9
 					nextState = 1;
-
-					// Count the character
 					userNameSize++;
 				}
 				// . or _ or - -> State 2
-				else if (currentChar == '.' || currentChar == '_' || currentChar == '-') { // Check for /
+				else if (currentChar == '.' || currentChar == '_' || currentChar == '-') {
 					nextState = 2;
-
-					// Count the . or _ or -
 					userNameSize++;
 				}
 				// If it is none of those characters, the FSM halts
 				else
 					running = false;
 
-				// The execution of this state is finished
 				// If the size is larger than 16, the loop must stop
-				if (userNameSize > 16)
+				if (userNameSize > MAX_SIZE)
 					running = false;
 				break;
 
@@ -185,101 +261,63 @@ public class UserNameRecognizer {
 						(currentChar >= 'a' && currentChar <= 'z') || // Check for a-z
 						(currentChar >= '0' && currentChar <= '9')) { // Check for 0-9
 					nextState = 1;
-
-					// Count the odd digit
 					userNameSize++;
-
 				}
 				// If it is none of those characters, the FSM halts
 				else
 					running = false;
 
-				// The execution of this state is finished
 				// If the size is larger than 16, the loop must stop
-				if (userNameSize > 16)
+				if (userNameSize > MAX_SIZE)
 					running = false;
 				break;
 			}
 
 			if (running) {
-				// Uncomment for debugging
-				// displayDebuggingInfo();
-				// When the processing of a state has finished, the FSM proceeds to the next
-				// character in the input and if there is one, it fetches that character and
-				// updates the currentChar. If there is no next character the currentChar is
-				// set to a blank.
-				moveToNextCharacter();
+				// Proceed to the next character in the input; if there is none the FSM halts
+				currentCharNdx++;
+				if (currentCharNdx < input.length())
+					currentChar = input.charAt(currentCharNdx);
+				else
+					running = false;
 
 				// Move to the next state
 				state = nextState;
 
-				// Is the new state a final state? If so, signal this fact.
-				if (state == 1)
-					finalState = true;
-
 				// Ensure that one of the cases sets this to a valid value
 				nextState = -1;
 			}
-			// Should the FSM get here, the loop starts again
-
 		}
-		// Uncomment for debugging
-		// displayDebuggingInfo();
-		// System.out.println("The loop has ended.");
-
-		// When the FSM halts, we must determine if the situation is an error or not.
-		// That depends
-		// of the current state of the FSM and whether or not the whole string has been
-		// consumed.
-		// This switch directs the execution to separate code for each of the FSM states
-		// and that
-		// makes it possible for this code to display a very specific error message to
-		// improve the
-		// user experience.
-		userNameRecognizerIndexofError = currentCharNdx; // Set index of a possible error;
-		userNameRecognizerErrorMessage = "\n*** ERROR *** ";
-
-		// The following code is a slight variation to support just console output.
+
+		return haltedAt(state, currentCharNdx, userNameSize, input.length());
+	}
+
+	/**********
+	 * Decides the result once the FSM halts. That depends of the current state of
+	 * the FSM and whether or not the whole string has been consumed, which makes
+	 * a very specific error possible.
+	 */
+	private static Result haltedAt(int state, int currentCharNdx, int userNameSize, int length) {
 		switch (state) {
 		case 0:
-			// State 0 is not a final state, so we can return a very specific error message
-			userNameRecognizerErrorMessage += "A UserName must start\n with A-Z or a-z.\n";
-			return userNameRecognizerErrorMessage;
+			// State 0 is not a final state
+			return new Result(Result.BAD_FIRST_CHARACTER, currentCharNdx, userNameSize);
 
 		case 1:
-			// State 1 is a final state. Check to see if the UserName length is valid. If so
-			// we
-			// we must ensure the whole string has been consumed.
-
-			if (userNameSize < 4) {
-				// UserName is too small
-				userNameRecognizerErrorMessage += "A UserName must have at\nleast 4 characters.\n";
-				return userNameRecognizerErrorMessage;
-			} else if (userNameSize > 16) {
-				// UserName is too long
-				userNameRecognizerErrorMessage += "A UserName must have no more\nthan 16 character.\n";
-				return userNameRecognizerErrorMessage;
-			} else if (currentCharNdx < input.length()) {
-				// There are characters remaining in the input, so the input is not valid
-				userNameRecognizerErrorMessage += "A UserName character may only contain\nthe characters A-Z, a-z, 0-9, .,_,or -.\n";
-				return userNameRecognizerErrorMessage;
-			} else {
-				// UserName is valid
-				userNameRecognizerIndexofError = -1;
-				userNameRecognizerErrorMessage = "";
-				return userNameRecognizerErrorMessage;
-			}
-
-		case 2:
-			// State 2 is not a final state, so we can return a very specific error message
-			userNameRecognizerErrorMessage += "A UserName character after a period,\nunderscore, or dash must be A-Z, a-z, 0-9.\n";
-			return userNameRecognizerErrorMessage;
+			// State 1 is a final state. Check to see if the UserName length is valid. If
+			// so we must ensure the whole string has been consumed.
+			if (userNameSize < MIN_SIZE)
+				return new Result(Result.TOO_SHORT, currentCharNdx, userNameSize);
+			else if (userNameSize > MAX_SIZE)
+				return new Result(Result.TOO_LONG, currentCharNdx, userNameSize);
+			else if (currentCharNdx < length)
+				return new Result(Result.INVALID_CHARACTER, currentCharNdx, userNameSize);
+			else
+				return Result.OK;
 
 		default:
-			// This is for the case where we have a state that is outside of the valid
-			// range.
-			// This should not happen
-			return "";
+			// State 2 is not a final state
+			return new Result(Result.BAD_CHARACTER_AFTER_SEPARATOR, currentCharNdx, userNameSize);
 		}
 	}
 }
@@ -11,6 +11,9 @@ import java.util.UUID;
 public class privateMessageList {
     private ArrayList<privateMessage> privateMessageArray;
 
+    /** Full-text index over message bodies, built by the first search */
+    private SearchIndex<privateMessage> searchIndex;
+
     /**
      * Constructs an empty privateMessageList.
      */
@@ -32,6 +35,7 @@ public class privateMessageList {
      */
     public void setPrivateMessageArray(ArrayList<privateMessage> privateMessageArray) {
         this.privateMessageArray = privateMessageArray;
+        this.searchIndex = null;
     }
 
     /**
@@ -40,6 +44,9 @@ public class privateMessageList {
      */
     public void addPrivateMessage(privateMessage PM) {
         this.privateMessageArray.add(PM);
+        if (searchIndex != null) {
+            searchIndex.add(PM);
+        }
     }
 
     /**
@@ -73,7 +80,10 @@ public class privateMessageList {
      * @throws IndexOutOfBoundsException if the index is out of range
      */
     public boolean removeByIndex(int i) {
-        privateMessageArray.remove(i);
+        privateMessage removed = privateMessageArray.remove(i);
+        if (searchIndex != null) {
+            searchIndex.remove(removed);
+        }
         return true;
     }
 
@@ -87,6 +97,7 @@ public class privateMessageList {
 
     /**
      * Updates the text content of a private message identified by its UUID.
+     * Edit messages in the list through this method so the search index sees the change.
      * @param ID The UUID of the message to update
      * @param text The new text content
      */
@@ -94,17 +105,20 @@ public class privateMessageList {
         for (int i = 0; i < privateMessageArray.size(); i++) {
             if (privateMessageArray.get(i).getID().equals(ID)) {
                 privateMessageArray.get(i).setTextBody(text);
+                if (searchIndex != null) {
+                    searchIndex.update(privateMessageArray.get(i));
+                }
                 break;
             }
         }
     }
 
     /**
-     * Searches for private messages containing the specified text.
-     * The search is case-insensitive.
+     * Searches the message bodies through the full-text index.
+     * The search is case-insensitive and supports phrases, AND and OR as described in SearchIndex.
      * 
      * @param toSearch The text to search for
-     * @return List of UUIDs for messages containing the search text,
+     * @return List of UUIDs for matching messages, best match first,
      *         or empty list if no matches found or search text is empty
      */
     public List<UUID> search(String toSearch) {
@@ -112,12 +126,15 @@ public class privateMessageList {
         if (toSearch == null || toSearch.trim().isEmpty()) {
             return indexes;
         }
-        toSearch = toSearch.toLowerCase();
-        for (int i = 0; i < privateMessageArray.size(); i++) {
-            if (privateMessageArray.get(i).getTextBody().toLowerCase().contains(toSearch)) {
-                indexes.add(privateMessageArray.get(i).getID());
+        if (searchIndex == null) {
+            searchIndex = new SearchIndex<privateMessage>(m -> new String[] { m.getTextBody() });
+            for (privateMessage message : privateMessageArray) {
+                searchIndex.add(message);
             }
         }
+        for (privateMessage message : searchIndex.search(toSearch)) {
+            indexes.add(message.getID());
+        }
         return indexes;
     }
 }
\ No newline at end of file